@@ -0,0 +1,544 @@
+package org.me.joy.clinic.analytics;
+
+import org.me.joy.clinic.entity.Registration;
+import org.me.joy.clinic.mapper.RegistrationMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 挂号就诊内存列式立方体
+ * 按列保存滚动窗口内的挂号记录（日期、小时、科室、医生、初诊标记、状态），
+ * 科室、状态和医生ID采用字典编码，就诊量按科室、医生、小时、日期的切片统计直接在内存中完成，无需访问数据库。
+ * 启动时从数据库加载，之后由挂号服务的写操作在事务提交后增量更新；
+ * 加载期间提交的写操作先缓冲，快照装入后按提交顺序重放，避免被快照覆盖。
+ */
+@Component
+public class RegistrationVisitCube {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegistrationVisitCube.class);
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final int NO_HOUR = -1;
+
+    private static final byte RETURNING_VISIT = 0;
+
+    private static final byte FIRST_VISIT = 1;
+
+    /**
+     * 初诊标记为空，与数据库统计一致，既不计入初诊也不计入复诊
+     */
+    private static final byte UNKNOWN_VISIT = -1;
+
+    @Autowired
+    private RegistrationMapper registrationMapper;
+
+    /**
+     * 滚动窗口天数
+     */
+    @Value("${clinic.analytics.visit-cube.window-days:400}")
+    private int windowDays = 400;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile boolean ready = false;
+
+    /**
+     * 正在从数据库加载快照，期间提交的写操作进入缓冲（受写锁保护）
+     */
+    private boolean loading = false;
+
+    private final List<Runnable> pendingWrites = new ArrayList<>();
+
+    private LocalDate windowStart;
+
+    // 列数据
+    private int size;
+    private long[] patientIds = new long[INITIAL_CAPACITY];
+    private int[] epochDays = new int[INITIAL_CAPACITY];
+    private byte[] hours = new byte[INITIAL_CAPACITY];
+    private int[] departmentCodes = new int[INITIAL_CAPACITY];
+    private int[] doctorIndexes = new int[INITIAL_CAPACITY];
+    private byte[] firstVisits = new byte[INITIAL_CAPACITY];
+    private int[] statusCodes = new int[INITIAL_CAPACITY];
+    private boolean[] deletedRows = new boolean[INITIAL_CAPACITY];
+
+    // 字典
+    private final Dictionary<String> departments = new Dictionary<>();
+    private final Dictionary<String> statuses = new Dictionary<>();
+    private final Dictionary<Long> doctors = new Dictionary<>();
+
+    private final Map<Long, Integer> rowByRegistrationId = new HashMap<>();
+
+    /**
+     * 应用启动完成后加载窗口内的挂号数据
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            logger.error("加载挂号就诊立方体失败，统计查询将继续使用数据库: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 每日凌晨重建，移除滚动窗口外的数据
+     */
+    @Scheduled(cron = "${clinic.analytics.visit-cube.rebuild-cron:0 10 0 * * ?}")
+    public void scheduledRebuild() {
+        onApplicationReady();
+    }
+
+    /**
+     * 从数据库重新加载窗口内的全部挂号记录
+     * 查询期间提交的写操作被缓冲，快照装入后在同一写锁内重放；增量操作均为幂等，
+     * 已包含在快照中的写操作重放后结果不变。
+     */
+    public synchronized void rebuild() {
+        long startedAt = System.currentTimeMillis();
+        LocalDate start = LocalDate.now().minusDays(windowDays);
+        lock.writeLock().lock();
+        try {
+            loading = true;
+            pendingWrites.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        List<Registration> registrations;
+        try {
+            registrations = registrationMapper.findVisitCubeRows(start);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                // 加载失败时保留原有数据，缓冲的写操作直接应用到原数据上
+                if (ready) {
+                    replayPendingWrites();
+                }
+                pendingWrites.clear();
+                loading = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        int replayed;
+        lock.writeLock().lock();
+        try {
+            clear();
+            windowStart = start;
+            for (Registration registration : registrations) {
+                appendRow(registration);
+            }
+            replayed = replayPendingWrites();
+            pendingWrites.clear();
+            loading = false;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (replayed > 0) {
+            logger.debug("挂号就诊立方体重放加载期间提交的写操作: {} 条", replayed);
+        }
+        logger.info("挂号就诊立方体加载完成: {} 条记录, 耗时 {} ms", registrations.size(),
+                System.currentTimeMillis() - startedAt);
+    }
+
+    /**
+     * 立方体是否已加载且覆盖指定开始日期
+     */
+    public boolean covers(LocalDate startDate) {
+        if (!ready) {
+            return false;
+        }
+        lock.readLock().lock();
+        try {
+            return windowStart != null && !startDate.isBefore(windowStart);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ========== 增量更新 ==========
+
+    /**
+     * 记录新增挂号（在当前事务提交后生效）
+     */
+    public void recordCreated(Registration registration) {
+        if (registration == null || registration.getId() == null) {
+            return;
+        }
+        Registration snapshot = copyOf(registration);
+        afterCommit(() -> {
+            if (windowStart == null || snapshot.getRegistrationDate() == null
+                    || snapshot.getRegistrationDate().isBefore(windowStart)) {
+                return;
+            }
+            Integer row = rowByRegistrationId.get(snapshot.getId());
+            if (row != null) {
+                writeRow(row, snapshot);
+            } else {
+                appendRow(snapshot);
+            }
+        });
+    }
+
+    /**
+     * 记录挂号状态变更（在当前事务提交后生效）
+     */
+    public void recordStatusChanged(Long registrationId, String status) {
+        if (registrationId == null || status == null) {
+            return;
+        }
+        afterCommit(() -> {
+            Integer row = rowByRegistrationId.get(registrationId);
+            if (row != null) {
+                statusCodes[row] = statuses.encode(status);
+            }
+        });
+    }
+
+    /**
+     * 记录挂号删除（在当前事务提交后生效）
+     */
+    public void recordDeleted(Long registrationId) {
+        if (registrationId == null) {
+            return;
+        }
+        afterCommit(() -> {
+            Integer row = rowByRegistrationId.get(registrationId);
+            if (row != null) {
+                deletedRows[row] = true;
+            }
+        });
+    }
+
+    // ========== 切片查询 ==========
+
+    /**
+     * 统计日期范围内的就诊次数
+     */
+    public long countVisits(LocalDate startDate, LocalDate endDate) {
+        int from = (int) startDate.toEpochDay();
+        int to = (int) endDate.toEpochDay();
+        lock.readLock().lock();
+        try {
+            long count = 0;
+            for (int i = 0; i < size; i++) {
+                if (inRange(i, from, to)) {
+                    count++;
+                }
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 统计日期范围内的去重患者数
+     * @param firstVisit 为true时统计初诊患者，为false时统计复诊患者；初诊标记为空的记录不计入
+     */
+    public long countDistinctPatients(LocalDate startDate, LocalDate endDate, boolean firstVisit) {
+        int from = (int) startDate.toEpochDay();
+        int to = (int) endDate.toEpochDay();
+        lock.readLock().lock();
+        try {
+            byte expected = firstVisit ? FIRST_VISIT : RETURNING_VISIT;
+            Set<Long> patients = new HashSet<>();
+            for (int i = 0; i < size; i++) {
+                if (inRange(i, from, to) && firstVisits[i] == expected) {
+                    patients.add(patientIds[i]);
+                }
+            }
+            return patients.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按科室统计就诊量，按就诊量降序
+     */
+    public Map<String, Long> countByDepartment(LocalDate startDate, LocalDate endDate) {
+        int from = (int) startDate.toEpochDay();
+        int to = (int) endDate.toEpochDay();
+        lock.readLock().lock();
+        try {
+            long[] counts = new long[departments.size()];
+            for (int i = 0; i < size; i++) {
+                if (inRange(i, from, to)) {
+                    counts[departmentCodes[i]]++;
+                }
+            }
+            return decodeSorted(counts, departments);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按医生统计就诊量，按就诊量降序
+     */
+    public Map<Long, Long> countByDoctor(LocalDate startDate, LocalDate endDate) {
+        int from = (int) startDate.toEpochDay();
+        int to = (int) endDate.toEpochDay();
+        lock.readLock().lock();
+        try {
+            long[] counts = new long[doctors.size()];
+            for (int i = 0; i < size; i++) {
+                if (inRange(i, from, to)) {
+                    counts[doctorIndexes[i]]++;
+                }
+            }
+            return decodeSorted(counts, doctors);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按挂号时间的小时统计就诊量，数组下标为小时（0-23）
+     */
+    public long[] countByHour(LocalDate startDate, LocalDate endDate) {
+        int from = (int) startDate.toEpochDay();
+        int to = (int) endDate.toEpochDay();
+        lock.readLock().lock();
+        try {
+            long[] counts = new long[24];
+            for (int i = 0; i < size; i++) {
+                if (inRange(i, from, to) && hours[i] != NO_HOUR) {
+                    counts[hours[i]]++;
+                }
+            }
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按日期统计就诊量
+     */
+    public Map<LocalDate, Long> countByDay(LocalDate startDate, LocalDate endDate) {
+        int from = (int) startDate.toEpochDay();
+        int to = (int) endDate.toEpochDay();
+        lock.readLock().lock();
+        try {
+            long[] counts = new long[Math.max(0, to - from + 1)];
+            for (int i = 0; i < size; i++) {
+                if (inRange(i, from, to)) {
+                    counts[epochDays[i] - from]++;
+                }
+            }
+            Map<LocalDate, Long> result = new LinkedHashMap<>();
+            for (int day = 0; day < counts.length; day++) {
+                result.put(LocalDate.ofEpochDay(from + day), counts[day]);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按状态统计就诊量
+     */
+    public Map<String, Long> countByStatus(LocalDate startDate, LocalDate endDate) {
+        int from = (int) startDate.toEpochDay();
+        int to = (int) endDate.toEpochDay();
+        lock.readLock().lock();
+        try {
+            long[] counts = new long[statuses.size()];
+            for (int i = 0; i < size; i++) {
+                if (inRange(i, from, to)) {
+                    counts[statusCodes[i]]++;
+                }
+            }
+            return decodeSorted(counts, statuses);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ========== 内部实现 ==========
+
+    private boolean inRange(int row, int from, int to) {
+        int day = epochDays[row];
+        return !deletedRows[row] && day >= from && day <= to;
+    }
+
+    private <K> Map<K, Long> decodeSorted(long[] counts, Dictionary<K> dictionary) {
+        List<Integer> codes = new ArrayList<>();
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] > 0) {
+                codes.add(code);
+            }
+        }
+        codes.sort((a, b) -> Long.compare(counts[b], counts[a]));
+        Map<K, Long> result = new LinkedHashMap<>();
+        for (Integer code : codes) {
+            result.put(dictionary.decode(code), counts[code]);
+        }
+        return result;
+    }
+
+    private void clear() {
+        size = 0;
+        rowByRegistrationId.clear();
+        departments.clear();
+        statuses.clear();
+        doctors.clear();
+    }
+
+    private void appendRow(Registration registration) {
+        if (size == epochDays.length) {
+            grow();
+        }
+        int row = size++;
+        rowByRegistrationId.put(registration.getId(), row);
+        writeRow(row, registration);
+    }
+
+    private void writeRow(int row, Registration registration) {
+        patientIds[row] = registration.getPatientId() != null ? registration.getPatientId() : 0L;
+        epochDays[row] = (int) registration.getRegistrationDate().toEpochDay();
+        hours[row] = registration.getRegistrationTime() != null
+                ? (byte) registration.getRegistrationTime().getHour() : NO_HOUR;
+        departmentCodes[row] = departments.encode(registration.getDepartment());
+        doctorIndexes[row] = doctors.encode(registration.getDoctorId());
+        firstVisits[row] = registration.getIsFirstVisit() == null ? UNKNOWN_VISIT
+                : registration.getIsFirstVisit() ? FIRST_VISIT : RETURNING_VISIT;
+        statusCodes[row] = statuses.encode(registration.getStatus());
+        deletedRows[row] = false;
+    }
+
+    private int replayPendingWrites() {
+        int count = pendingWrites.size();
+        for (Runnable write : pendingWrites) {
+            write.run();
+        }
+        return count;
+    }
+
+    private void grow() {
+        int capacity = epochDays.length * 2;
+        patientIds = Arrays.copyOf(patientIds, capacity);
+        epochDays = Arrays.copyOf(epochDays, capacity);
+        hours = Arrays.copyOf(hours, capacity);
+        departmentCodes = Arrays.copyOf(departmentCodes, capacity);
+        doctorIndexes = Arrays.copyOf(doctorIndexes, capacity);
+        firstVisits = Arrays.copyOf(firstVisits, capacity);
+        statusCodes = Arrays.copyOf(statusCodes, capacity);
+        deletedRows = Arrays.copyOf(deletedRows, capacity);
+    }
+
+    private Registration copyOf(Registration source) {
+        Registration copy = new Registration();
+        copy.setId(source.getId());
+        copy.setPatientId(source.getPatientId());
+        copy.setRegistrationDate(source.getRegistrationDate());
+        copy.setRegistrationTime(source.getRegistrationTime());
+        copy.setDepartment(source.getDepartment());
+        copy.setDoctorId(source.getDoctorId());
+        copy.setIsFirstVisit(source.getIsFirstVisit());
+        copy.setStatus(source.getStatus());
+        return copy;
+    }
+
+    /**
+     * 事务提交后再更新内存数据，避免回滚的写入污染统计结果
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(action);
+                }
+            });
+        } else {
+            apply(action);
+        }
+    }
+
+    /**
+     * 在写锁内应用已提交的写操作
+     * 加载中则缓冲到快照装入后重放；尚未开始加载时直接忽略，之后的加载查询能读到该已提交的数据。
+     */
+    private void apply(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            if (loading) {
+                pendingWrites.add(action);
+            } else if (ready) {
+                action.run();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 字典编码：将值映射为从0开始的连续整数编码
+     */
+    private static final class Dictionary<K> {
+
+        private final Map<K, Integer> codes = new HashMap<>();
+
+        private final List<K> values = new ArrayList<>();
+
+        int encode(K value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        K decode(int code) {
+            return values.get(code);
+        }
+
+        int size() {
+            return values.size();
+        }
+
+        void clear() {
+            codes.clear();
+            values.clear();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package org.me.joy.clinic.archive;
+
+import org.me.joy.clinic.entity.Diagnosis;
+import org.me.joy.clinic.entity.MedicalRecord;
+import org.me.joy.clinic.entity.Prescription;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 病历冷存储内容
+ * 移入冷存储时病历、诊断和处方的完整快照；热表保留诊断和处方行及统计字段，只清空大文本字段
+ */
+public class MedicalRecordColdPayload {
+
+    private MedicalRecord record;
+    private List<Diagnosis> diagnoses;
+    private List<Prescription> prescriptions;
+
+    public MedicalRecordColdPayload() {}
+
+    public MedicalRecordColdPayload(MedicalRecord record, List<Diagnosis> diagnoses, List<Prescription> prescriptions) {
+        this.record = record;
+        this.diagnoses = diagnoses;
+        this.prescriptions = prescriptions;
+    }
+
+    /**
+     * 将快照中的大文本字段回填到热表中的病历（与 MedicalRecordMapper.clearColdArchivedColumns 清空的字段一致）
+     */
+    public void applyTo(MedicalRecord target) {
+        target.setChiefComplaint(record.getChiefComplaint());
+        target.setPresentIllness(record.getPresentIllness());
+        target.setPastHistory(record.getPastHistory());
+        target.setPersonalHistory(record.getPersonalHistory());
+        target.setFamilyHistory(record.getFamilyHistory());
+        target.setPhysicalExamination(record.getPhysicalExamination());
+        target.setAuxiliaryExamination(record.getAuxiliaryExamination());
+        target.setPreliminaryDiagnosis(record.getPreliminaryDiagnosis());
+        target.setFinalDiagnosis(record.getFinalDiagnosis());
+        target.setTreatmentPlan(record.getTreatmentPlan());
+        target.setMedicalOrders(record.getMedicalOrders());
+        target.setConditionAssessment(record.getConditionAssessment());
+        target.setPrognosis(record.getPrognosis());
+        target.setFollowUpAdvice(record.getFollowUpAdvice());
+        target.setRemarks(record.getRemarks());
+    }
+
+    /**
+     * 将快照中的诊断大文本字段回填到热表中的诊断（与 DiagnosisMapper.clearColdArchivedColumns 清空的字段一致）
+     * 早期版本会把诊断整行迁出，热表中没有诊断时直接返回快照中的诊断
+     */
+    public List<Diagnosis> mergeDiagnoses(List<Diagnosis> hot) {
+        if (hot == null || hot.isEmpty()) {
+            return diagnoses != null ? diagnoses : Collections.emptyList();
+        }
+        Map<Long, Diagnosis> cold = new HashMap<>();
+        if (diagnoses != null) {
+            diagnoses.forEach(diagnosis -> cold.put(diagnosis.getId(), diagnosis));
+        }
+        for (Diagnosis diagnosis : hot) {
+            Diagnosis snapshot = cold.get(diagnosis.getId());
+            if (snapshot != null) {
+                diagnosis.setDescription(snapshot.getDescription());
+                diagnosis.setEvidence(snapshot.getEvidence());
+                diagnosis.setTreatmentAdvice(snapshot.getTreatmentAdvice());
+            }
+        }
+        return hot;
+    }
+
+    /**
+     * 将快照中的处方大文本字段回填到热表中的处方（与 PrescriptionMapper.clearColdArchivedColumns 清空的字段一致），
+     * 早期版本整行迁出的处方合并进结果，按开具时间倒序
+     */
+    public List<Prescription> mergePrescriptions(List<Prescription> hot) {
+        if (prescriptions == null || prescriptions.isEmpty()) {
+            return hot;
+        }
+        Map<Long, Prescription> cold = new HashMap<>();
+        prescriptions.forEach(prescription -> cold.put(prescription.getId(), prescription));
+        Set<Long> hotIds = new HashSet<>();
+        for (Prescription prescription : hot) {
+            hotIds.add(prescription.getId());
+            Prescription snapshot = cold.get(prescription.getId());
+            if (snapshot != null) {
+                prescription.setDosageInstructions(snapshot.getDosageInstructions());
+                prescription.setPrecautions(snapshot.getPrecautions());
+                prescription.setRemarks(snapshot.getRemarks());
+            }
+        }
+        List<Prescription> merged = new ArrayList<>(hot);
+        for (Prescription prescription : prescriptions) {
+            if (!hotIds.contains(prescription.getId())) {
+                merged.add(prescription);
+            }
+        }
+        if (merged.size() > hot.size()) {
+            merged.sort(Comparator.comparing(Prescription::getPrescribedAt,
+                Comparator.nullsLast(Comparator.reverseOrder())));
+        }
+        return merged;
+    }
+
+    // Getters and Setters
+    public MedicalRecord getRecord() {
+        return record;
+    }
+
+    public void setRecord(MedicalRecord record) {
+        this.record = record;
+    }
+
+    public List<Diagnosis> getDiagnoses() {
+        return diagnoses;
+    }
+
+    public void setDiagnoses(List<Diagnosis> diagnoses) {
+        this.diagnoses = diagnoses;
+    }
+
+    public List<Prescription> getPrescriptions() {
+        return prescriptions;
+    }
+
+    public void setPrescriptions(List<Prescription> prescriptions) {
+        this.prescriptions = prescriptions;
+    }
+}
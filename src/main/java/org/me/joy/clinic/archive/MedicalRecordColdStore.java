@@ -0,0 +1,163 @@
+package org.me.joy.clinic.archive;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.me.joy.clinic.entity.MedicalRecord;
+import org.me.joy.clinic.entity.MedicalRecordArchive;
+import org.me.joy.clinic.exception.BusinessException;
+import org.me.joy.clinic.mapper.MedicalRecordArchiveMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 病历冷存储
+ * 归档内容序列化为 JSON 后 GZIP 压缩，存入 medical_record_archives 表；病历文本重复度高，压缩后通常只有原大小的几分之一。
+ * 只按字段序列化，实体上的计算型 getter 不会写入归档。
+ */
+@Component
+public class MedicalRecordColdStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(MedicalRecordColdStore.class);
+
+    /**
+     * 批量读取时每次 IN 查询的病历ID数量
+     */
+    private static final int LOAD_BATCH_SIZE = 500;
+
+    @Autowired
+    private MedicalRecordArchiveMapper medicalRecordArchiveMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private volatile ObjectMapper payloadMapper;
+
+    /**
+     * 写入冷存储
+     * @param payload 归档内容
+     * @return 归档记录
+     */
+    public MedicalRecordArchive save(MedicalRecordColdPayload payload) {
+        byte[] json;
+        try {
+            json = payloadMapper().writeValueAsBytes(payload);
+        } catch (IOException e) {
+            throw new BusinessException("3046", "病历冷存储内容序列化失败: " + e.getMessage(), e);
+        }
+        byte[] compressed = compress(json);
+
+        MedicalRecordArchive archive = new MedicalRecordArchive();
+        archive.setMedicalRecordId(payload.getRecord().getId());
+        archive.setPatientId(payload.getRecord().getPatientId());
+        archive.setPayload(compressed);
+        archive.setRawSize(json.length);
+        archive.setStoredSize(compressed.length);
+        medicalRecordArchiveMapper.insert(archive);
+        return archive;
+    }
+
+    /**
+     * 批量读取冷存储内容
+     * @param recordIds 病历ID
+     * @return 病历ID -> 归档内容，没有归档的病历不在结果中
+     */
+    public Map<Long, MedicalRecordColdPayload> load(Collection<Long> recordIds) {
+        if (recordIds == null || recordIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<Long> ids = new ArrayList<>(recordIds);
+        Map<Long, MedicalRecordColdPayload> payloads = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += LOAD_BATCH_SIZE) {
+            QueryWrapper<MedicalRecordArchive> queryWrapper = new QueryWrapper<>();
+            queryWrapper.in("medical_record_id", ids.subList(from, Math.min(from + LOAD_BATCH_SIZE, ids.size())));
+            for (MedicalRecordArchive archive : medicalRecordArchiveMapper.selectList(queryWrapper)) {
+                payloads.put(archive.getMedicalRecordId(), decode(archive));
+            }
+        }
+        return payloads;
+    }
+
+    /**
+     * 为已移入冷存储的病历回填大文本字段，未移入冷存储的病历不受影响
+     * @param records 热表中查询出的病历
+     * @return 病历ID -> 归档内容，仅包含已移入冷存储的病历，供调用方合并诊断和处方
+     */
+    public Map<Long, MedicalRecordColdPayload> restore(Collection<MedicalRecord> records) {
+        if (records == null || records.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<Long> coldIds = new ArrayList<>();
+        for (MedicalRecord record : records) {
+            if (record.isColdArchived()) {
+                coldIds.add(record.getId());
+            }
+        }
+        if (coldIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<Long, MedicalRecordColdPayload> payloads = load(coldIds);
+        for (MedicalRecord record : records) {
+            if (!record.isColdArchived()) {
+                continue;
+            }
+            MedicalRecordColdPayload payload = payloads.get(record.getId());
+            if (payload == null) {
+                logger.error("病历已标记为冷存储，但未找到归档内容: recordId={}", record.getId());
+                throw new BusinessException("3047", "病历冷存储内容缺失");
+            }
+            payload.applyTo(record);
+        }
+        return payloads;
+    }
+
+    private MedicalRecordColdPayload decode(MedicalRecordArchive archive) {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(archive.getPayload()))) {
+            return payloadMapper().readValue(in, MedicalRecordColdPayload.class);
+        } catch (IOException e) {
+            logger.error("病历冷存储内容读取失败: recordId={}", archive.getMedicalRecordId(), e);
+            throw new BusinessException("3046", "病历冷存储内容读取失败", e);
+        }
+    }
+
+    private static byte[] compress(byte[] json) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, json.length / 4));
+        try (OutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(json);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private ObjectMapper payloadMapper() {
+        ObjectMapper mapper = payloadMapper;
+        if (mapper == null) {
+            mapper = objectMapper.copy()
+                .setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+                .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY)
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+            payloadMapper = mapper;
+        }
+        return mapper;
+    }
+}
@@ -0,0 +1,269 @@
+package org.me.joy.clinic.cache;
+
+import org.me.joy.clinic.entity.Patient;
+import org.me.joy.clinic.mapper.PatientMapper;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 患者实体缓存
+ * 按ID缓存患者，并维护患者编号、身份证号到ID的二级索引；未命中时从数据库加载（read-through）。
+ * 容量有上限（LRU淘汰），条目有存活时间，兜底批量回填等未经过业务服务的写入。
+ * 返回的都是副本，调用方修改不会影响缓存；患者被修改时由业务服务调用 {@link #invalidate(Long)}。
+ */
+@Component
+public class PatientCache {
+
+    @Autowired
+    private PatientMapper patientMapper;
+
+    @Value("${clinic.cache.patient.max-size:5000}")
+    private int maxSize = 5000;
+
+    @Value("${clinic.cache.patient.ttl-seconds:300}")
+    private long ttlSeconds = 300;
+
+    private final Object lock = new Object();
+
+    private final Map<Long, Entry> entries = new LinkedHashMap<Long, Entry>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            if (size() > maxSize) {
+                unindex(eldest.getValue().patient);
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private final Map<String, Long> idByPatientNumber = new HashMap<>();
+
+    private final Map<String, Long> idByIdCard = new HashMap<>();
+
+    /**
+     * 失效代数，加载期间发生过失效时不写入加载结果，避免旧数据覆盖失效
+     */
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * 根据ID获取患者
+     * @param patientId 患者ID
+     * @return 患者副本，不存在时返回null
+     */
+    public Patient getById(Long patientId) {
+        if (patientId == null) {
+            return null;
+        }
+        Patient cached;
+        long loadGeneration;
+        synchronized (lock) {
+            cached = lookup(patientId);
+            loadGeneration = generation;
+        }
+        if (cached != null) {
+            hits.increment();
+            return copy(cached);
+        }
+        misses.increment();
+        return load(() -> patientMapper.selectById(patientId), loadGeneration);
+    }
+
+    /**
+     * 根据患者编号获取患者
+     */
+    public Optional<Patient> getByPatientNumber(String patientNumber) {
+        return getBySecondaryKey(patientNumber, idByPatientNumber, Patient::getPatientNumber,
+            () -> patientMapper.findByPatientNumber(patientNumber).orElse(null));
+    }
+
+    /**
+     * 根据身份证号获取患者
+     */
+    public Optional<Patient> getByIdCard(String idCard) {
+        return getBySecondaryKey(idCard, idByIdCard, Patient::getIdCard,
+            () -> patientMapper.findByIdCard(idCard).orElse(null));
+    }
+
+    /**
+     * 使患者缓存失效
+     * 立即移除，并在当前事务结束（提交或回滚）后再移除一次，防止事务期间读到的未提交数据留在缓存中
+     * @param patientId 患者ID
+     */
+    public void invalidate(Long patientId) {
+        if (patientId == null) {
+            return;
+        }
+        invalidations.increment();
+        remove(patientId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    remove(patientId);
+                }
+            });
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        synchronized (lock) {
+            entries.clear();
+            idByPatientNumber.clear();
+            idByIdCard.clear();
+            generation++;
+        }
+    }
+
+    public int size() {
+        synchronized (lock) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * 获取命中率等统计快照
+     */
+    public Map<String, Object> snapshot() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long requests = hitCount + missCount;
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", size());
+        result.put("maxSize", maxSize);
+        result.put("ttlSeconds", ttlSeconds);
+        result.put("hits", hitCount);
+        result.put("misses", missCount);
+        result.put("hitRate", requests == 0 ? 0.0 : (double) hitCount / requests);
+        result.put("evictions", evictions.sum());
+        result.put("invalidations", invalidations.sum());
+        return result;
+    }
+
+    // ========== 内部实现 ==========
+
+    private Optional<Patient> getBySecondaryKey(String key, Map<String, Long> index, Function<Patient, String> keyOf,
+                                                Supplier<Patient> loader) {
+        if (key == null) {
+            return Optional.empty();
+        }
+        Patient cached = null;
+        long loadGeneration;
+        synchronized (lock) {
+            Long patientId = index.get(key);
+            if (patientId != null) {
+                cached = lookup(patientId);
+            }
+            loadGeneration = generation;
+        }
+        if (cached != null && key.equals(keyOf.apply(cached))) {
+            hits.increment();
+            return Optional.of(copy(cached));
+        }
+        misses.increment();
+        return Optional.ofNullable(load(loader, loadGeneration));
+    }
+
+    private Patient load(Supplier<Patient> loader, long loadGeneration) {
+        Patient loaded = loader.get();
+        if (loaded == null) {
+            return null;
+        }
+        synchronized (lock) {
+            if (loadGeneration == generation) {
+                Entry previous = entries.put(loaded.getId(), new Entry(copy(loaded), expiresAt()));
+                if (previous != null) {
+                    unindex(previous.patient);
+                }
+                index(loaded);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * 查找未过期的条目，须在锁内调用
+     */
+    private Patient lookup(Long patientId) {
+        Entry entry = entries.get(patientId);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt - System.nanoTime() <= 0) {
+            entries.remove(patientId);
+            unindex(entry.patient);
+            return null;
+        }
+        return entry.patient;
+    }
+
+    private void remove(Long patientId) {
+        synchronized (lock) {
+            Entry entry = entries.remove(patientId);
+            if (entry != null) {
+                unindex(entry.patient);
+            }
+            generation++;
+        }
+    }
+
+    private void index(Patient patient) {
+        if (patient.getPatientNumber() != null) {
+            idByPatientNumber.put(patient.getPatientNumber(), patient.getId());
+        }
+        if (patient.getIdCard() != null) {
+            idByIdCard.put(patient.getIdCard(), patient.getId());
+        }
+    }
+
+    private void unindex(Patient patient) {
+        if (patient.getPatientNumber() != null) {
+            idByPatientNumber.remove(patient.getPatientNumber(), patient.getId());
+        }
+        if (patient.getIdCard() != null) {
+            idByIdCard.remove(patient.getIdCard(), patient.getId());
+        }
+    }
+
+    private long expiresAt() {
+        return System.nanoTime() + TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    private static Patient copy(Patient source) {
+        Patient target = new Patient();
+        BeanUtils.copyProperties(source, target);
+        return target;
+    }
+
+    private static final class Entry {
+
+        private final Patient patient;
+        private final long expiresAt;
+
+        Entry(Patient patient, long expiresAt) {
+            this.patient = patient;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
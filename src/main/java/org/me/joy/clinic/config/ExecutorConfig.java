@@ -0,0 +1,105 @@
+package org.me.joy.clinic.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 线程池配置
+ * 为需要并发执行的查询提供有界线程池，避免无限制地占用数据库连接
+ */
+@Configuration
+public class ExecutorConfig {
+
+    @Value("${clinic.executor.analytics.pool-size:6}")
+    private int analyticsPoolSize;
+
+    @Value("${clinic.executor.analytics.queue-capacity:50}")
+    private int analyticsQueueCapacity;
+
+    @Value("${clinic.executor.patient-summary.pool-size:8}")
+    private int patientSummaryPoolSize;
+
+    @Value("${clinic.executor.patient-summary.queue-capacity:100}")
+    private int patientSummaryQueueCapacity;
+
+    @Value("${clinic.executor.patient-import.pool-size:4}")
+    private int patientImportPoolSize;
+
+    @Value("${clinic.executor.patient-import.queue-capacity:16}")
+    private int patientImportQueueCapacity;
+
+    @Value("${clinic.executor.safety-check.pool-size:8}")
+    private int safetyCheckPoolSize;
+
+    @Value("${clinic.executor.safety-check.queue-capacity:64}")
+    private int safetyCheckQueueCapacity;
+
+    /**
+     * 分析仪表盘线程池
+     * 队列满时拒绝提交，该分区按超时处理并回退到缓存数据，不在调用线程中执行，保证请求的时间预算有效
+     */
+    @Bean(name = "analyticsExecutor")
+    public ThreadPoolTaskExecutor analyticsExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(analyticsPoolSize);
+        executor.setMaxPoolSize(analyticsPoolSize);
+        executor.setQueueCapacity(analyticsQueueCapacity);
+        executor.setThreadNamePrefix("analytics-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+
+    /**
+     * 患者概览线程池
+     * 各分区查询都很轻量，线程数按数据库连接池余量设置；队列满时拒绝提交，该分区按超时处理，不在调用线程中执行
+     */
+    @Bean(name = "patientSummaryExecutor")
+    public ThreadPoolTaskExecutor patientSummaryExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(patientSummaryPoolSize);
+        executor.setMaxPoolSize(patientSummaryPoolSize);
+        executor.setQueueCapacity(patientSummaryQueueCapacity);
+        executor.setThreadNamePrefix("patient-summary-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+
+    /**
+     * 患者批量导入线程池
+     * 用于并行解析和校验导入数据行，只做CPU计算，不占用数据库连接
+     */
+    @Bean(name = "patientImportExecutor")
+    public ThreadPoolTaskExecutor patientImportExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(patientImportPoolSize);
+        executor.setMaxPoolSize(patientImportPoolSize);
+        executor.setQueueCapacity(patientImportQueueCapacity);
+        executor.setThreadNamePrefix("patient-import-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+
+    /**
+     * 调剂安全检查线程池
+     * 每次调剂提交四项检查，其中处方验证会查询数据库；队列满时拒绝提交，该项检查按超时处理并标记调剂记录需要复核，
+     * 不在调用线程中执行，保证截止时间有效
+     */
+    @Bean(name = "safetyCheckExecutor")
+    public ThreadPoolTaskExecutor safetyCheckExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(safetyCheckPoolSize);
+        executor.setMaxPoolSize(safetyCheckPoolSize);
+        executor.setQueueCapacity(safetyCheckQueueCapacity);
+        executor.setThreadNamePrefix("safety-check-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+}
@@ -0,0 +1,88 @@
+package org.me.joy.clinic.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.me.joy.clinic.datasource.DataSourceRoutingAspect;
+import org.me.joy.clinic.datasource.DataSourceRoutingMetrics;
+import org.me.joy.clinic.datasource.ReportingDataSourceHealthChecker;
+import org.me.joy.clinic.datasource.RoutingDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+
+/**
+ * 报表库路由配置
+ * 启用后，报表与分析查询使用独立的报表连接池（或只读副本），不再占用挂号、发药等业务的主库连接池
+ * 通过 clinic.datasource.reporting.enabled=true 开启
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "clinic.datasource.reporting", name = "enabled", havingValue = "true")
+public class ReportingDataSourceConfig {
+
+    /**
+     * 主库连接池，沿用 spring.datasource 配置
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    /**
+     * 报表库连接池
+     */
+    @Bean
+    @ConfigurationProperties("clinic.datasource.reporting.hikari")
+    public HikariDataSource reportingDataSource(
+            @Value("${clinic.datasource.reporting.url}") String url,
+            @Value("${clinic.datasource.reporting.username:}") String username,
+            @Value("${clinic.datasource.reporting.password:}") String password,
+            @Value("${clinic.datasource.reporting.driver-class-name:}") String driverClassName,
+            @Value("${clinic.datasource.reporting.maximum-pool-size:5}") int maximumPoolSize) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        if (!driverClassName.isBlank()) {
+            dataSource.setDriverClassName(driverClassName);
+        }
+        dataSource.setMaximumPoolSize(maximumPoolSize);
+        dataSource.setReadOnly(true);
+        dataSource.setPoolName("reporting");
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource routingDataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                        @Qualifier("reportingDataSource") DataSource reportingDataSource) {
+        return new RoutingDataSource(primaryDataSource, reportingDataSource);
+    }
+
+    @Bean
+    public ReportingDataSourceHealthChecker reportingDataSourceHealthChecker(
+            @Qualifier("reportingDataSource") DataSource reportingDataSource,
+            @Value("${clinic.datasource.reporting.lag-query:}") String lagQuery,
+            @Value("${clinic.datasource.reporting.max-lag-seconds:30}") long maxLagSeconds) {
+        return new ReportingDataSourceHealthChecker(reportingDataSource, lagQuery, maxLagSeconds);
+    }
+
+    @Bean
+    public DataSourceRoutingMetrics dataSourceRoutingMetrics() {
+        return new DataSourceRoutingMetrics();
+    }
+
+    @Bean
+    public DataSourceRoutingAspect dataSourceRoutingAspect(ReportingDataSourceHealthChecker healthChecker,
+                                                           DataSourceRoutingMetrics metrics) {
+        return new DataSourceRoutingAspect(healthChecker, metrics);
+    }
+}
@@ -0,0 +1,37 @@
+package org.me.joy.clinic.controller;
+
+import org.me.joy.clinic.dto.AnalyticsDashboard;
+import org.me.joy.clinic.security.RequiresPermission;
+import org.me.joy.clinic.service.AnalyticsDashboardService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+/**
+ * 分析仪表盘控制器
+ * 一次请求返回分析首页所需的全部分区数据
+ */
+@RestController
+@RequestMapping("/api/analytics/dashboard")
+public class AnalyticsDashboardController {
+
+    @Autowired
+    private AnalyticsDashboardService analyticsDashboardService;
+
+    /**
+     * 获取分析首页仪表盘
+     */
+    @GetMapping
+    @RequiresPermission(value = {"ANALYTICS_READ", "FINANCIAL_REPORT_READ", "PATIENT_ANALYTICS_READ"},
+                        logical = RequiresPermission.LogicalOperator.AND)
+    public ResponseEntity<AnalyticsDashboard> getDashboard(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        
+        AnalyticsDashboard dashboard = analyticsDashboardService.getDashboard(startDate, endDate);
+        return ResponseEntity.ok(dashboard);
+    }
+}
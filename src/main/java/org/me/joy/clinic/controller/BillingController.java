@@ -3,6 +3,7 @@ package org.me.joy.clinic.controller;
 import jakarta.validation.Valid;
 import org.me.joy.clinic.dto.AddBillItemRequest;
 import org.me.joy.clinic.dto.CreateBillRequest;
+import org.me.joy.clinic.dto.CursorPage;
 import org.me.joy.clinic.entity.Bill;
 import org.me.joy.clinic.entity.BillItem;
 import org.me.joy.clinic.security.RequiresPermission;
@@ -77,6 +78,18 @@ public class BillingController {
         List<Bill> bills = billingService.getPatientBills(patientId);
         return ResponseEntity.ok(bills);
     }
+
+    /**
+     * 游标分页获取患者账单
+     */
+    @GetMapping("/bills/patient/{patientId}/page")
+    @RequiresPermission("BILLING_VIEW")
+    public ResponseEntity<CursorPage<Bill>> getPatientBillsPage(
+            @PathVariable Long patientId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(billingService.getPatientBillsPage(patientId, cursor, limit));
+    }
     
     /**
      * 获取账单的所有项目
@@ -0,0 +1,35 @@
+package org.me.joy.clinic.controller;
+
+import org.me.joy.clinic.cache.PatientCache;
+import org.me.joy.clinic.security.RequiresPermission;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 实体缓存监控控制器
+ * 查看各实体缓存的容量、命中率、淘汰和失效次数
+ */
+@RestController
+@RequestMapping("/api/system/cache")
+public class CacheMetricsController {
+
+    @Autowired
+    private PatientCache patientCache;
+
+    /**
+     * 获取缓存统计
+     */
+    @GetMapping("/metrics")
+    @RequiresPermission("SYSTEM_MANAGEMENT")
+    public ResponseEntity<Map<String, Object>> getCacheMetrics() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("patient", patientCache.snapshot());
+        return ResponseEntity.ok(result);
+    }
+}
@@ -0,0 +1,43 @@
+package org.me.joy.clinic.controller;
+
+import org.me.joy.clinic.datasource.DataSourceRoutingMetrics;
+import org.me.joy.clinic.datasource.ReportingDataSourceHealthChecker;
+import org.me.joy.clinic.security.RequiresPermission;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 数据源路由监控控制器
+ * 查看报表库状态以及各方法调用由哪个连接池处理
+ */
+@RestController
+@RequestMapping("/api/system/datasource-routing")
+@ConditionalOnProperty(prefix = "clinic.datasource.reporting", name = "enabled", havingValue = "true")
+public class DataSourceRoutingController {
+
+    @Autowired
+    private DataSourceRoutingMetrics dataSourceRoutingMetrics;
+
+    @Autowired
+    private ReportingDataSourceHealthChecker reportingDataSourceHealthChecker;
+
+    /**
+     * 获取数据源路由统计
+     */
+    @GetMapping("/metrics")
+    @RequiresPermission("SYSTEM_MANAGEMENT")
+    public ResponseEntity<Map<String, Object>> getRoutingMetrics() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("reportingAvailable", reportingDataSourceHealthChecker.isAvailable());
+        result.put("reportingLagSeconds", reportingDataSourceHealthChecker.getLastLagSeconds());
+        result.putAll(dataSourceRoutingMetrics.snapshot());
+        return ResponseEntity.ok(result);
+    }
+}
@@ -2,17 +2,23 @@ package org.me.joy.clinic.controller;
 
 import jakarta.validation.Valid;
 import org.me.joy.clinic.dto.CreateMedicalRecordRequest;
+import org.me.joy.clinic.dto.DiagnosisCodeSuggestion;
+import org.me.joy.clinic.dto.MedicalRecordInclude;
+import org.me.joy.clinic.dto.MedicalRecordSearchHit;
 import org.me.joy.clinic.dto.UpdateMedicalRecordRequest;
 import org.me.joy.clinic.entity.Diagnosis;
 import org.me.joy.clinic.entity.MedicalRecord;
+import org.me.joy.clinic.entity.MedicalRecordRevision;
 import org.me.joy.clinic.entity.Prescription;
 import org.me.joy.clinic.security.RequiresPermission;
 import org.me.joy.clinic.service.ElectronicMedicalRecordService;
+import org.me.joy.clinic.service.MedicalRecordRevisionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -27,6 +33,9 @@ public class ElectronicMedicalRecordController {
     @Autowired
     private ElectronicMedicalRecordService medicalRecordService;
 
+    @Autowired
+    private MedicalRecordRevisionService medicalRecordRevisionService;
+
     @PostMapping
     @RequiresPermission("MEDICAL_RECORD_WRITE")
     public ResponseEntity<MedicalRecord> createMedicalRecord(
@@ -44,6 +53,36 @@ public class ElectronicMedicalRecordController {
         return ResponseEntity.ok(medicalRecord);
     }
 
+    @GetMapping("/search")
+    @RequiresPermission("MEDICAL_RECORD_READ")
+    public ResponseEntity<List<MedicalRecordSearchHit>> searchMedicalRecords(
+            @RequestParam String q,
+            @RequestParam(required = false) Long doctorId,
+            @RequestParam(required = false) String department,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Integer limit) {
+        List<MedicalRecordSearchHit> hits = medicalRecordService.searchMedicalRecords(q, doctorId, department,
+                startDate, endDate, limit);
+        return ResponseEntity.ok(hits);
+    }
+
+    @GetMapping("/diagnosis-codes")
+    @RequiresPermission("MEDICAL_RECORD_READ")
+    public ResponseEntity<List<DiagnosisCodeSuggestion>> suggestDiagnosisCodes(
+            @RequestParam String q,
+            @RequestParam(required = false) Long doctorId,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(medicalRecordService.suggestDiagnosisCodes(q, doctorId, limit));
+    }
+
+    @PostMapping("/diagnosis-codes/reload")
+    @RequiresPermission("SYSTEM_MANAGEMENT")
+    public ResponseEntity<Map<String, Object>> reloadDiagnosisDictionary() {
+        int size = medicalRecordService.reloadDiagnosisDictionary();
+        return ResponseEntity.ok(Map.of("size", size));
+    }
+
     @GetMapping("/{recordId}")
     @RequiresPermission("MEDICAL_RECORD_READ")
     public ResponseEntity<MedicalRecord> getMedicalRecord(
@@ -52,11 +91,28 @@ public class ElectronicMedicalRecordController {
         return ResponseEntity.ok(medicalRecord);
     }
 
+    @GetMapping("/{recordId}/revisions")
+    @RequiresPermission("MEDICAL_RECORD_READ")
+    public ResponseEntity<List<MedicalRecordRevision>> getMedicalRecordRevisions(
+            @PathVariable Long recordId) {
+        return ResponseEntity.ok(medicalRecordRevisionService.getRevisions(recordId));
+    }
+
+    @GetMapping("/{recordId}/revisions/{revision}")
+    @RequiresPermission("MEDICAL_RECORD_READ")
+    public ResponseEntity<MedicalRecord> getMedicalRecordRevision(
+            @PathVariable Long recordId,
+            @PathVariable Integer revision) {
+        return ResponseEntity.ok(medicalRecordRevisionService.getRevision(recordId, revision));
+    }
+
     @GetMapping("/patient/{patientId}")
     @RequiresPermission("MEDICAL_RECORD_READ")
     public ResponseEntity<List<MedicalRecord>> getPatientMedicalRecords(
-            @PathVariable Long patientId) {
-        List<MedicalRecord> records = medicalRecordService.getPatientMedicalRecords(patientId);
+            @PathVariable Long patientId,
+            @RequestParam(required = false) String include) {
+        List<MedicalRecord> records = medicalRecordService.getPatientMedicalRecords(patientId,
+                MedicalRecordInclude.fromValue(include));
         return ResponseEntity.ok(records);
     }
 
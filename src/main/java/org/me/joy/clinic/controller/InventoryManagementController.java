@@ -201,6 +201,16 @@ public class InventoryManagementController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * 批量获取药品库存快照
+     */
+    @GetMapping("/stock-snapshots")
+    @RequiresPermission("INVENTORY_VIEW")
+    public ResponseEntity<Map<Long, StockSnapshot>> getStockSnapshots(@RequestParam List<Long> medicineIds) {
+        Map<Long, StockSnapshot> snapshots = inventoryManagementService.getStockSnapshots(medicineIds);
+        return ResponseEntity.ok(snapshots);
+    }
+
     /**
      * 预留库存
      */
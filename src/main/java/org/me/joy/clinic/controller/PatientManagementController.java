@@ -1,12 +1,22 @@
 package org.me.joy.clinic.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.me.joy.clinic.dto.CreatePatientRequest;
+import org.me.joy.clinic.dto.CursorPage;
+import org.me.joy.clinic.dto.PatientImportFormat;
+import org.me.joy.clinic.dto.PatientImportResult;
+import org.me.joy.clinic.dto.PatientInclude;
 import org.me.joy.clinic.dto.PatientResponse;
+import org.me.joy.clinic.dto.PatientSummary;
+import org.me.joy.clinic.dto.PatientTimelineEntry;
 import org.me.joy.clinic.dto.UpdatePatientRequest;
 import org.me.joy.clinic.entity.AllergyHistory;
 import org.me.joy.clinic.entity.MedicalHistory;
+import org.me.joy.clinic.service.PatientImportService;
 import org.me.joy.clinic.service.PatientManagementService;
+import org.me.joy.clinic.service.PatientSummaryService;
+import org.me.joy.clinic.service.PatientTimelineService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,6 +25,7 @@ import org.springframework.http.ResponseEntity;
 import org.me.joy.clinic.security.RequiresPermission;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
@@ -32,6 +43,15 @@ public class PatientManagementController {
     @Autowired
     private PatientManagementService patientManagementService;
 
+    @Autowired
+    private PatientSummaryService patientSummaryService;
+
+    @Autowired
+    private PatientTimelineService patientTimelineService;
+
+    @Autowired
+    private PatientImportService patientImportService;
+
     /**
      * 创建新患者
      */
@@ -46,6 +66,22 @@ public class PatientManagementController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    /**
+     * 批量导入患者
+     * 请求体为CSV（首行为表头）或NDJSON（每行一个JSON对象），未指定format时按Content-Type判断
+     */
+    @PostMapping("/import")
+    @RequiresPermission("PATIENT_CREATE")
+    public ResponseEntity<PatientImportResult> importPatients(HttpServletRequest request,
+                                                              @RequestParam(required = false) String format) throws IOException {
+        PatientImportFormat importFormat = PatientImportFormat.fromValue(format, request.getContentType());
+        logger.info("批量导入患者: format={}", importFormat);
+
+        PatientImportResult result = patientImportService.importPatients(request.getInputStream(), importFormat);
+
+        return ResponseEntity.ok(result);
+    }
+
     /**
      * 更新患者信息
      */
@@ -75,6 +111,35 @@ public class PatientManagementController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * 获取患者概览（医生工作站打开病历时使用），各分区并发加载并返回分区耗时
+     */
+    @GetMapping("/{patientId}/summary")
+    @RequiresPermission("PATIENT_VIEW")
+    public ResponseEntity<PatientSummary> getPatientSummary(@PathVariable Long patientId,
+                                                            @RequestParam(required = false) Integer limit) {
+        logger.debug("获取患者概览: patientId={}, limit={}", patientId, limit);
+
+        PatientSummary summary = patientSummaryService.getPatientSummary(patientId, limit);
+
+        return ResponseEntity.ok(summary);
+    }
+
+    /**
+     * 获取患者诊疗时间线（病历、医嘱、调剂、生命体征、挂号按时间倒序合并），游标分页
+     */
+    @GetMapping("/{patientId}/timeline")
+    @RequiresPermission("PATIENT_VIEW")
+    public ResponseEntity<CursorPage<PatientTimelineEntry>> getPatientTimeline(@PathVariable Long patientId,
+                                                                               @RequestParam(required = false) String cursor,
+                                                                               @RequestParam(required = false) Integer limit) {
+        logger.debug("获取患者时间线: patientId={}, limit={}", patientId, limit);
+
+        CursorPage<PatientTimelineEntry> page = patientTimelineService.getPatientTimeline(patientId, cursor, limit);
+
+        return ResponseEntity.ok(page);
+    }
+
     /**
      * 根据患者编号获取患者信息
      */
@@ -103,26 +168,46 @@ public class PatientManagementController {
 
     /**
      * 获取所有患者列表
+     * include 参数控制附带的历史记录：none、allergies、histories（默认）
      */
     @GetMapping
     @RequiresPermission("PATIENT_VIEW")
-    public ResponseEntity<List<PatientResponse>> getAllPatients() {
+    public ResponseEntity<List<PatientResponse>> getAllPatients(
+            @RequestParam(required = false) String include) {
         logger.debug("获取所有患者列表");
         
-        List<PatientResponse> responses = patientManagementService.getAllPatients();
+        List<PatientResponse> responses = patientManagementService.getAllPatients(PatientInclude.fromValue(include));
         
         return ResponseEntity.ok(responses);
     }
 
+    /**
+     * 游标分页获取患者列表，nextCursor 原样传回获取下一页
+     */
+    @GetMapping("/page")
+    @RequiresPermission("PATIENT_VIEW")
+    public ResponseEntity<CursorPage<PatientResponse>> getPatientsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String include) {
+        logger.debug("分页获取患者列表: limit={}", limit);
+
+        CursorPage<PatientResponse> page = patientManagementService.getPatientsPage(cursor, limit, PatientInclude.fromValue(include));
+
+        return ResponseEntity.ok(page);
+    }
+
     /**
      * 根据状态获取患者列表
      */
     @GetMapping("/status/{status}")
     @RequiresPermission("PATIENT_VIEW")
-    public ResponseEntity<List<PatientResponse>> getPatientsByStatus(@PathVariable String status) {
+    public ResponseEntity<List<PatientResponse>> getPatientsByStatus(
+            @PathVariable String status,
+            @RequestParam(required = false) String include) {
         logger.debug("根据状态获取患者列表: status={}", status);
         
-        List<PatientResponse> responses = patientManagementService.getPatientsByStatus(status);
+        List<PatientResponse> responses = patientManagementService.getPatientsByStatus(status, PatientInclude.fromValue(include));
         
         return ResponseEntity.ok(responses);
     }
@@ -132,10 +217,11 @@ public class PatientManagementController {
      */
     @GetMapping("/vip")
     @RequiresPermission("PATIENT_VIEW")
-    public ResponseEntity<List<PatientResponse>> getVipPatients() {
+    public ResponseEntity<List<PatientResponse>> getVipPatients(
+            @RequestParam(required = false) String include) {
         logger.debug("获取VIP患者列表");
         
-        List<PatientResponse> responses = patientManagementService.getVipPatients();
+        List<PatientResponse> responses = patientManagementService.getVipPatients(PatientInclude.fromValue(include));
         
         return ResponseEntity.ok(responses);
     }
@@ -145,10 +231,12 @@ public class PatientManagementController {
      */
     @GetMapping("/gender/{gender}")
     @RequiresPermission("PATIENT_VIEW")
-    public ResponseEntity<List<PatientResponse>> getPatientsByGender(@PathVariable String gender) {
+    public ResponseEntity<List<PatientResponse>> getPatientsByGender(
+            @PathVariable String gender,
+            @RequestParam(required = false) String include) {
         logger.debug("根据性别获取患者列表: gender={}", gender);
         
-        List<PatientResponse> responses = patientManagementService.getPatientsByGender(gender);
+        List<PatientResponse> responses = patientManagementService.getPatientsByGender(gender, PatientInclude.fromValue(include));
         
         return ResponseEntity.ok(responses);
     }
@@ -160,10 +248,11 @@ public class PatientManagementController {
     @RequiresPermission("PATIENT_VIEW")
     public ResponseEntity<List<PatientResponse>> getPatientsByAgeRange(
             @RequestParam Integer minAge,
-            @RequestParam Integer maxAge) {
+            @RequestParam Integer maxAge,
+            @RequestParam(required = false) String include) {
         logger.debug("根据年龄范围获取患者列表: minAge={}, maxAge={}", minAge, maxAge);
         
-        List<PatientResponse> responses = patientManagementService.getPatientsByAgeRange(minAge, maxAge);
+        List<PatientResponse> responses = patientManagementService.getPatientsByAgeRange(minAge, maxAge, PatientInclude.fromValue(include));
         
         return ResponseEntity.ok(responses);
     }
@@ -173,10 +262,12 @@ public class PatientManagementController {
      */
     @GetMapping("/search")
     @RequiresPermission("PATIENT_VIEW")
-    public ResponseEntity<List<PatientResponse>> searchPatients(@RequestParam String keyword) {
+    public ResponseEntity<List<PatientResponse>> searchPatients(
+            @RequestParam String keyword,
+            @RequestParam(required = false) String include) {
         logger.debug("搜索患者: keyword={}", keyword);
         
-        List<PatientResponse> responses = patientManagementService.searchPatients(keyword);
+        List<PatientResponse> responses = patientManagementService.searchPatients(keyword, PatientInclude.fromValue(include));
         
         return ResponseEntity.ok(responses);
     }
@@ -187,10 +278,11 @@ public class PatientManagementController {
     @GetMapping("/today")
     @RequiresPermission("PATIENT_VIEW")
     public ResponseEntity<List<PatientResponse>> getTodayPatients(
-            @RequestParam(required = false) LocalDate date) {
+            @RequestParam(required = false) LocalDate date,
+            @RequestParam(required = false) String include) {
         logger.debug("获取今日就诊患者: date={}", date);
         
-        List<PatientResponse> responses = patientManagementService.getTodayPatients(date);
+        List<PatientResponse> responses = patientManagementService.getTodayPatients(date, PatientInclude.fromValue(include));
         
         return ResponseEntity.ok(responses);
     }
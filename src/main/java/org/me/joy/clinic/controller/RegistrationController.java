@@ -2,6 +2,7 @@ package org.me.joy.clinic.controller;
 
 import jakarta.validation.Valid;
 import org.me.joy.clinic.dto.CreateRegistrationRequest;
+import org.me.joy.clinic.dto.CursorPage;
 import org.me.joy.clinic.entity.Registration;
 import org.me.joy.clinic.service.RegistrationService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -251,6 +252,17 @@ public class RegistrationController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * 删除挂号记录
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Map<String, String>> deleteRegistration(@PathVariable Long id) {
+        registrationService.deleteRegistration(id);
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "挂号删除成功");
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * 根据状态获取挂号记录
      */
@@ -260,6 +272,17 @@ public class RegistrationController {
         return ResponseEntity.ok(registrations);
     }
 
+    /**
+     * 根据状态游标分页获取挂号记录
+     */
+    @GetMapping("/status/{status}/page")
+    public ResponseEntity<CursorPage<Registration>> getRegistrationsByStatusPage(
+            @PathVariable String status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(registrationService.getRegistrationsByStatusPage(status, cursor, limit));
+    }
+
     /**
      * 根据支付状态获取挂号记录
      */
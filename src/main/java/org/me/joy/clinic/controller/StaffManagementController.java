@@ -2,6 +2,7 @@ package org.me.joy.clinic.controller;
 
 import jakarta.validation.Valid;
 import org.me.joy.clinic.dto.CreateStaffRequest;
+import org.me.joy.clinic.dto.CursorPage;
 import org.me.joy.clinic.dto.StaffResponse;
 import org.me.joy.clinic.dto.UpdateStaffRequest;
 import org.me.joy.clinic.entity.Schedule;
@@ -127,6 +128,21 @@ public class StaffManagementController {
         return ResponseEntity.ok(responses);
     }
 
+    /**
+     * 游标分页获取员工列表
+     */
+    @GetMapping("/page")
+    @PreAuthorize("hasAuthority('STAFF_VIEW')")
+    public ResponseEntity<CursorPage<StaffResponse>> getStaffPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        logger.debug("分页获取员工列表: limit={}", limit);
+
+        CursorPage<StaffResponse> page = staffManagementService.getStaffPage(cursor, limit);
+
+        return ResponseEntity.ok(page);
+    }
+
     /**
      * 根据职位获取员工列表
      */
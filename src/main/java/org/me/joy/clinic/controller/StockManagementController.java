@@ -196,6 +196,21 @@ public class StockManagementController {
         return ResponseEntity.ok(transactions);
     }
 
+    /**
+     * 游标分页获取库存交易记录
+     */
+    @GetMapping("/transactions/page")
+    @RequiresPermission("PHARMACY_MANAGEMENT")
+    public ResponseEntity<CursorPage<StockTransaction>> getStockTransactionsPage(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        logger.info("分页查询库存交易记录，开始日期: {}, 结束日期: {}", startDate, endDate);
+
+        return ResponseEntity.ok(stockManagementService.getStockTransactionsPage(startDate, endDate, cursor, limit));
+    }
+
     /**
      * 执行库存盘点
      */
@@ -2,6 +2,7 @@ package org.me.joy.clinic.controller;
 
 import jakarta.validation.Valid;
 import org.me.joy.clinic.dto.CreateUserRequest;
+import org.me.joy.clinic.dto.CursorPage;
 import org.me.joy.clinic.dto.UpdateUserRequest;
 import org.me.joy.clinic.dto.UserResponse;
 import org.me.joy.clinic.security.RequiresPermission;
@@ -193,6 +194,37 @@ public class UserManagementController {
         }
     }
 
+    /**
+     * 游标分页获取用户列表
+     */
+    @GetMapping("/page")
+    @RequiresPermission("USER_VIEW")
+    public ResponseEntity<?> getUsersPage(@RequestParam(required = false) String cursor,
+                                          @RequestParam(required = false) Integer limit) {
+        try {
+            CursorPage<UserResponse> page = userManagementService.getUsersPage(cursor, limit);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", page.getItems());
+            response.put("nextCursor", page.getNextCursor());
+            response.put("hasMore", page.isHasMore());
+            response.put("timestamp", System.currentTimeMillis());
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            logger.error("分页获取用户列表失败: {}", e.getMessage());
+
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", e.getMessage());
+            errorResponse.put("timestamp", System.currentTimeMillis());
+
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+    }
+
     /**
      * 禁用用户
      */
@@ -0,0 +1,39 @@
+package org.me.joy.clinic.datasource;
+
+/**
+ * 数据源路由上下文
+ * 保存当前线程应使用的数据源类型，未设置时使用主库
+ */
+public final class DataSourceContextHolder {
+
+    private static final ThreadLocal<DataSourceType> CONTEXT = new ThreadLocal<>();
+
+    private DataSourceContextHolder() {
+    }
+
+    public static DataSourceType get() {
+        DataSourceType type = CONTEXT.get();
+        return type != null ? type : DataSourceType.PRIMARY;
+    }
+
+    /**
+     * 设置当前线程的数据源类型
+     * @return 设置前的数据源类型（可能为null），用于调用结束后恢复
+     */
+    public static DataSourceType set(DataSourceType type) {
+        DataSourceType previous = CONTEXT.get();
+        CONTEXT.set(type);
+        return previous;
+    }
+
+    /**
+     * 恢复到之前的数据源类型
+     */
+    public static void restore(DataSourceType previous) {
+        if (previous == null) {
+            CONTEXT.remove();
+        } else {
+            CONTEXT.set(previous);
+        }
+    }
+}
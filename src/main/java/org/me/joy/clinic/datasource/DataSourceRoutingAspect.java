@@ -0,0 +1,86 @@
+package org.me.joy.clinic.datasource;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Method;
+
+/**
+ * 数据源路由切面
+ * 将 {@link ReportingQuery} 标记的方法和只读事务路由到报表库
+ * 必须先于事务拦截器执行，保证事务开启时获取的是报表库连接
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class DataSourceRoutingAspect {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataSourceRoutingAspect.class);
+
+    private final ReportingDataSourceHealthChecker healthChecker;
+
+    private final DataSourceRoutingMetrics metrics;
+
+    public DataSourceRoutingAspect(ReportingDataSourceHealthChecker healthChecker, DataSourceRoutingMetrics metrics) {
+        this.healthChecker = healthChecker;
+        this.metrics = metrics;
+    }
+
+    @Around("@annotation(org.me.joy.clinic.datasource.ReportingQuery) || @within(org.me.joy.clinic.datasource.ReportingQuery) " +
+            "|| @annotation(org.springframework.transaction.annotation.Transactional) " +
+            "|| @within(org.springframework.transaction.annotation.Transactional)")
+    public Object route(ProceedingJoinPoint joinPoint) throws Throwable {
+        Class<?> targetClass = AopUtils.getTargetClass(joinPoint.getTarget());
+        Method method = AopUtils.getMostSpecificMethod(((MethodSignature) joinPoint.getSignature()).getMethod(), targetClass);
+
+        if (!isReportingCall(method, targetClass)) {
+            return joinPoint.proceed();
+        }
+
+        // 已处于读写事务中时沿用当前连接，不切换数据源
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return joinPoint.proceed();
+        }
+
+        boolean fallback = !healthChecker.isAvailable();
+        DataSourceType target = fallback ? DataSourceType.PRIMARY : DataSourceType.REPORTING;
+        String methodName = targetClass.getSimpleName() + "." + method.getName();
+        metrics.record(methodName, target, fallback);
+        logger.debug("方法 {} 使用数据源 {}{}", methodName, target, fallback ? "（报表库不可用，回退主库）" : "");
+
+        DataSourceType previous = DataSourceContextHolder.set(target);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            DataSourceContextHolder.restore(previous);
+        }
+    }
+
+    /**
+     * 判断调用是否应路由到报表库：方法级注解优先于类级注解
+     */
+    private boolean isReportingCall(Method method, Class<?> targetClass) {
+        if (AnnotatedElementUtils.hasAnnotation(method, ReportingQuery.class)) {
+            return true;
+        }
+        Transactional methodTransactional = AnnotatedElementUtils.findMergedAnnotation(method, Transactional.class);
+        if (methodTransactional != null) {
+            return methodTransactional.readOnly();
+        }
+        if (AnnotatedElementUtils.hasAnnotation(targetClass, ReportingQuery.class)) {
+            return true;
+        }
+        Transactional classTransactional = AnnotatedElementUtils.findMergedAnnotation(targetClass, Transactional.class);
+        return classTransactional != null && classTransactional.readOnly();
+    }
+}
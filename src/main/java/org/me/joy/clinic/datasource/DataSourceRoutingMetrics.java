@@ -0,0 +1,80 @@
+package org.me.joy.clinic.datasource;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 数据源路由统计
+ * 记录每个方法调用实际由哪个连接池处理，以及报表库不可用时回退到主库的次数
+ */
+public class DataSourceRoutingMetrics {
+
+    private final Map<DataSourceType, LongAdder> servedByPool = new EnumMap<>(DataSourceType.class);
+
+    private final Map<String, Map<DataSourceType, LongAdder>> servedByMethod = new ConcurrentHashMap<>();
+
+    private final LongAdder fallbacks = new LongAdder();
+
+    public DataSourceRoutingMetrics() {
+        for (DataSourceType type : DataSourceType.values()) {
+            servedByPool.put(type, new LongAdder());
+        }
+    }
+
+    /**
+     * 记录一次调用
+     * @param method 方法名（类名.方法名）
+     * @param servedBy 实际处理的数据源
+     * @param fallback 是否因报表库不可用而回退到主库
+     */
+    public void record(String method, DataSourceType servedBy, boolean fallback) {
+        servedByPool.get(servedBy).increment();
+        servedByMethod.computeIfAbsent(method, key -> {
+            Map<DataSourceType, LongAdder> counters = new EnumMap<>(DataSourceType.class);
+            for (DataSourceType type : DataSourceType.values()) {
+                counters.put(type, new LongAdder());
+            }
+            return counters;
+        }).get(servedBy).increment();
+        if (fallback) {
+            fallbacks.increment();
+        }
+    }
+
+    public long getServedCount(DataSourceType type) {
+        return servedByPool.get(type).sum();
+    }
+
+    public long getServedCount(String method, DataSourceType type) {
+        Map<DataSourceType, LongAdder> counters = servedByMethod.get(method);
+        return counters != null ? counters.get(type).sum() : 0L;
+    }
+
+    public long getFallbackCount() {
+        return fallbacks.sum();
+    }
+
+    /**
+     * 获取统计快照
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        Map<String, Long> pools = new LinkedHashMap<>();
+        servedByPool.forEach((type, counter) -> pools.put(type.name(), counter.sum()));
+        result.put("servedByPool", pools);
+        result.put("fallbackToPrimary", fallbacks.sum());
+
+        Map<String, Map<String, Long>> methods = new TreeMap<>();
+        servedByMethod.forEach((method, counters) -> {
+            Map<String, Long> perPool = new LinkedHashMap<>();
+            counters.forEach((type, counter) -> perPool.put(type.name(), counter.sum()));
+            methods.put(method, perPool);
+        });
+        result.put("servedByMethod", methods);
+        return result;
+    }
+}
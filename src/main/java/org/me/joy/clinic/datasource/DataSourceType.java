@@ -0,0 +1,17 @@
+package org.me.joy.clinic.datasource;
+
+/**
+ * 数据源类型
+ */
+public enum DataSourceType {
+
+    /**
+     * 主库，处理挂号、发药等读写业务
+     */
+    PRIMARY,
+
+    /**
+     * 报表库（只读副本或独立连接池），处理统计分析等重查询
+     */
+    REPORTING
+}
@@ -0,0 +1,100 @@
+package org.me.joy.clinic.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 报表库健康检查
+ * 定期检查报表库连通性和复制延迟，延迟超过阈值或连接失败时标记为不可用，报表查询回退到主库
+ */
+public class ReportingDataSourceHealthChecker {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportingDataSourceHealthChecker.class);
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final DataSource reportingDataSource;
+
+    /**
+     * 返回复制延迟秒数的查询，为空时只检查连通性
+     * 例如基于心跳表：SELECT TIMESTAMPDIFF(SECOND, MAX(ts), NOW()) FROM heartbeat
+     */
+    private final String lagQuery;
+
+    private final long maxLagSeconds;
+
+    private volatile boolean available = true;
+
+    private volatile Long lastLagSeconds;
+
+    public ReportingDataSourceHealthChecker(DataSource reportingDataSource, String lagQuery, long maxLagSeconds) {
+        this.reportingDataSource = reportingDataSource;
+        this.lagQuery = lagQuery;
+        this.maxLagSeconds = maxLagSeconds;
+    }
+
+    @Scheduled(fixedDelayString = "${clinic.datasource.reporting.health-check-interval-ms:10000}")
+    public void check() {
+        try (Connection connection = reportingDataSource.getConnection()) {
+            if (!connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                markUnavailable("连接校验失败");
+                return;
+            }
+            if (lagQuery != null && !lagQuery.isBlank()) {
+                Long lag = queryLag(connection);
+                lastLagSeconds = lag;
+                if (lag == null) {
+                    markUnavailable("无法获取复制延迟");
+                    return;
+                }
+                if (lag > maxLagSeconds) {
+                    markUnavailable("复制延迟 " + lag + " 秒，超过阈值 " + maxLagSeconds + " 秒");
+                    return;
+                }
+            }
+            markAvailable();
+        } catch (SQLException e) {
+            markUnavailable(e.getMessage());
+        }
+    }
+
+    private Long queryLag(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(lagQuery)) {
+            if (!resultSet.next()) {
+                return null;
+            }
+            long lag = resultSet.getLong(1);
+            return resultSet.wasNull() ? null : lag;
+        }
+    }
+
+    private void markAvailable() {
+        if (!available) {
+            logger.info("报表库已恢复，报表查询重新路由到报表库");
+        }
+        available = true;
+    }
+
+    private void markUnavailable(String reason) {
+        if (available) {
+            logger.warn("报表库不可用，报表查询回退到主库: {}", reason);
+        }
+        available = false;
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    public Long getLastLagSeconds() {
+        return lastLagSeconds;
+    }
+}
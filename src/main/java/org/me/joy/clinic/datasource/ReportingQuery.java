@@ -0,0 +1,16 @@
+package org.me.joy.clinic.datasource;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 报表查询注解
+ * 标记的方法（或类中的所有方法）优先路由到报表库执行，报表库不可用或延迟过高时回退到主库
+ * 标注了 {@code @Transactional(readOnly = true)} 的方法同样会被路由到报表库
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReportingQuery {
+}
@@ -0,0 +1,28 @@
+package org.me.joy.clinic.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 路由数据源
+ * 根据 {@link DataSourceContextHolder} 中的数据源类型选择主库或报表库连接池
+ */
+public class RoutingDataSource extends AbstractRoutingDataSource {
+
+    public RoutingDataSource(DataSource primary, DataSource reporting) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(DataSourceType.PRIMARY, primary);
+        targets.put(DataSourceType.REPORTING, reporting);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return DataSourceContextHolder.get();
+    }
+}
@@ -0,0 +1,167 @@
+package org.me.joy.clinic.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分析仪表盘数据传输对象
+ * 汇总首页各分析分区的数据，以及每个分区的加载状态和耗时
+ */
+public class AnalyticsDashboard {
+
+    /**
+     * 分区状态：正常加载
+     */
+    public static final String SECTION_OK = "OK";
+
+    /**
+     * 分区状态：超时或失败，返回上一次缓存的数据
+     */
+    public static final String SECTION_STALE = "STALE";
+
+    /**
+     * 分区状态：超时且无缓存数据
+     */
+    public static final String SECTION_TIMEOUT = "TIMEOUT";
+
+    /**
+     * 分区状态：加载失败且无缓存数据
+     */
+    public static final String SECTION_FAILED = "FAILED";
+
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private LocalDateTime generatedAt;
+    private DailyFinancialReport todayFinancialReport;
+    private PatientVisitAnalytics patientVisitAnalytics;
+    private WaitTimeAnalytics waitTimeAnalytics;
+    private List<PopularService> popularServices;
+    private PatientDemographics patientDemographics;
+    private List<CommonDiagnosis> commonDiagnoses;
+    private Map<String, String> sectionStatus = new LinkedHashMap<>();
+    private Map<String, Long> sectionElapsedMillis = new LinkedHashMap<>();
+    private Long totalElapsedMillis;
+
+    public AnalyticsDashboard() {}
+
+    public AnalyticsDashboard(LocalDate startDate, LocalDate endDate) {
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.generatedAt = LocalDateTime.now();
+    }
+
+    /**
+     * 记录分区加载状态和耗时
+     */
+    public void recordSection(String section, String status, Long elapsedMillis) {
+        sectionStatus.put(section, status);
+        sectionElapsedMillis.put(section, elapsedMillis);
+    }
+
+    /**
+     * 是否有分区未能按时返回最新数据
+     */
+    public boolean isPartial() {
+        return sectionStatus.values().stream().anyMatch(status -> !SECTION_OK.equals(status));
+    }
+
+    // Getters and Setters
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDate startDate) {
+        this.startDate = startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDate endDate) {
+        this.endDate = endDate;
+    }
+
+    public LocalDateTime getGeneratedAt() {
+        return generatedAt;
+    }
+
+    public void setGeneratedAt(LocalDateTime generatedAt) {
+        this.generatedAt = generatedAt;
+    }
+
+    public DailyFinancialReport getTodayFinancialReport() {
+        return todayFinancialReport;
+    }
+
+    public void setTodayFinancialReport(DailyFinancialReport todayFinancialReport) {
+        this.todayFinancialReport = todayFinancialReport;
+    }
+
+    public PatientVisitAnalytics getPatientVisitAnalytics() {
+        return patientVisitAnalytics;
+    }
+
+    public void setPatientVisitAnalytics(PatientVisitAnalytics patientVisitAnalytics) {
+        this.patientVisitAnalytics = patientVisitAnalytics;
+    }
+
+    public WaitTimeAnalytics getWaitTimeAnalytics() {
+        return waitTimeAnalytics;
+    }
+
+    public void setWaitTimeAnalytics(WaitTimeAnalytics waitTimeAnalytics) {
+        this.waitTimeAnalytics = waitTimeAnalytics;
+    }
+
+    public List<PopularService> getPopularServices() {
+        return popularServices;
+    }
+
+    public void setPopularServices(List<PopularService> popularServices) {
+        this.popularServices = popularServices;
+    }
+
+    public PatientDemographics getPatientDemographics() {
+        return patientDemographics;
+    }
+
+    public void setPatientDemographics(PatientDemographics patientDemographics) {
+        this.patientDemographics = patientDemographics;
+    }
+
+    public List<CommonDiagnosis> getCommonDiagnoses() {
+        return commonDiagnoses;
+    }
+
+    public void setCommonDiagnoses(List<CommonDiagnosis> commonDiagnoses) {
+        this.commonDiagnoses = commonDiagnoses;
+    }
+
+    public Map<String, String> getSectionStatus() {
+        return sectionStatus;
+    }
+
+    public void setSectionStatus(Map<String, String> sectionStatus) {
+        this.sectionStatus = sectionStatus;
+    }
+
+    public Map<String, Long> getSectionElapsedMillis() {
+        return sectionElapsedMillis;
+    }
+
+    public void setSectionElapsedMillis(Map<String, Long> sectionElapsedMillis) {
+        this.sectionElapsedMillis = sectionElapsedMillis;
+    }
+
+    public Long getTotalElapsedMillis() {
+        return totalElapsedMillis;
+    }
+
+    public void setTotalElapsedMillis(Long totalElapsedMillis) {
+        this.totalElapsedMillis = totalElapsedMillis;
+    }
+}
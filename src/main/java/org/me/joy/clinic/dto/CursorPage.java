@@ -0,0 +1,66 @@
+package org.me.joy.clinic.dto;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 游标分页结果
+ * nextCursor 为不透明的续页令牌，原样传回即可获取下一页；没有更多数据时为null
+ */
+public class CursorPage<T> {
+
+    private List<T> items;
+    private String nextCursor;
+    private boolean hasMore;
+    private int limit;
+
+    public CursorPage() {}
+
+    public CursorPage(List<T> items, String nextCursor, int limit) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasMore = nextCursor != null;
+        this.limit = limit;
+    }
+
+    /**
+     * 转换页内数据，保留续页令牌
+     */
+    public <R> CursorPage<R> map(Function<T, R> mapper) {
+        return new CursorPage<>(items.stream().map(mapper).collect(Collectors.toList()), nextCursor, limit);
+    }
+
+    // Getters and Setters
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+}
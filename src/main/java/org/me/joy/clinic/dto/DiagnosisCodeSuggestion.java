@@ -0,0 +1,48 @@
+package org.me.joy.clinic.dto;
+
+/**
+ * 诊断编码联想结果
+ */
+public class DiagnosisCodeSuggestion {
+
+    private String code;
+    private String name;
+
+    /**
+     * 当前医生使用该编码的历史次数
+     */
+    private int usageCount;
+
+    public DiagnosisCodeSuggestion() {}
+
+    public DiagnosisCodeSuggestion(String code, String name, int usageCount) {
+        this.code = code;
+        this.name = name;
+        this.usageCount = usageCount;
+    }
+
+    // Getters and Setters
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getUsageCount() {
+        return usageCount;
+    }
+
+    public void setUsageCount(int usageCount) {
+        this.usageCount = usageCount;
+    }
+}
@@ -0,0 +1,54 @@
+package org.me.joy.clinic.dto;
+
+import org.me.joy.clinic.exception.BusinessException;
+
+/**
+ * 病历列表响应附带的关联数据
+ */
+public enum MedicalRecordInclude {
+
+    /**
+     * 仅返回病历本身
+     */
+    NONE,
+
+    /**
+     * 附带诊断
+     */
+    DIAGNOSES,
+
+    /**
+     * 附带处方
+     */
+    PRESCRIPTIONS,
+
+    /**
+     * 附带诊断和处方
+     */
+    ALL;
+
+    public boolean includesDiagnoses() {
+        return this == DIAGNOSES || this == ALL;
+    }
+
+    public boolean includesPrescriptions() {
+        return this == PRESCRIPTIONS || this == ALL;
+    }
+
+    /**
+     * 解析请求参数，未指定时不加载关联数据（按需加载）
+     * @param value 参数值（none/diagnoses/prescriptions/all，不区分大小写）
+     * @return 关联数据选项
+     */
+    public static MedicalRecordInclude fromValue(String value) {
+        if (value == null || value.isBlank()) {
+            return NONE;
+        }
+        for (MedicalRecordInclude include : values()) {
+            if (include.name().equalsIgnoreCase(value.trim())) {
+                return include;
+            }
+        }
+        throw new BusinessException("INVALID_INCLUDE", "不支持的include参数: " + value + "，可选值为none、diagnoses、prescriptions、all");
+    }
+}
@@ -0,0 +1,57 @@
+package org.me.joy.clinic.dto;
+
+/**
+ * 患者批量导入的行级错误
+ */
+public class PatientImportError {
+
+    /**
+     * 数据行号（CSV 不含表头，从1开始）
+     */
+    private long row;
+    private String idCard;
+    private String code;
+    private String message;
+
+    public PatientImportError() {}
+
+    public PatientImportError(long row, String idCard, String code, String message) {
+        this.row = row;
+        this.idCard = idCard;
+        this.code = code;
+        this.message = message;
+    }
+
+    // Getters and Setters
+    public long getRow() {
+        return row;
+    }
+
+    public void setRow(long row) {
+        this.row = row;
+    }
+
+    public String getIdCard() {
+        return idCard;
+    }
+
+    public void setIdCard(String idCard) {
+        this.idCard = idCard;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,40 @@
+package org.me.joy.clinic.dto;
+
+import org.me.joy.clinic.exception.BusinessException;
+
+/**
+ * 患者批量导入文件格式
+ */
+public enum PatientImportFormat {
+
+    /**
+     * 逗号分隔，首行为表头（字段名同创建患者请求，如 name、idCard 或 id_card）
+     */
+    CSV,
+
+    /**
+     * 每行一个创建患者请求的JSON对象
+     */
+    NDJSON;
+
+    /**
+     * 解析导入格式，未指定format参数时根据Content-Type判断
+     * @param value format参数（csv/ndjson，不区分大小写）
+     * @param contentType 请求的Content-Type
+     * @return 导入格式
+     */
+    public static PatientImportFormat fromValue(String value, String contentType) {
+        if (value != null && !value.isBlank()) {
+            for (PatientImportFormat format : values()) {
+                if (format.name().equalsIgnoreCase(value.trim())) {
+                    return format;
+                }
+            }
+            throw new BusinessException("INVALID_IMPORT_FORMAT", "不支持的导入格式: " + value + "，可选值为csv、ndjson");
+        }
+        if (contentType != null && (contentType.contains("ndjson") || contentType.contains("jsonl"))) {
+            return NDJSON;
+        }
+        return CSV;
+    }
+}
@@ -0,0 +1,84 @@
+package org.me.joy.clinic.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 患者批量导入结果
+ */
+public class PatientImportResult {
+
+    private long totalRows;
+    private long importedCount;
+    private long failedCount;
+    private List<PatientImportError> errors = new ArrayList<>();
+
+    /**
+     * 错误数超过上限时只保留前面的明细
+     */
+    private boolean errorsTruncated;
+    private Long elapsedMillis;
+
+    /**
+     * 记录一行错误
+     * @param error 错误明细
+     * @param maxErrors 最多保留的错误明细数
+     */
+    public void addError(PatientImportError error, int maxErrors) {
+        failedCount++;
+        if (errors.size() < maxErrors) {
+            errors.add(error);
+        } else {
+            errorsTruncated = true;
+        }
+    }
+
+    // Getters and Setters
+    public long getTotalRows() {
+        return totalRows;
+    }
+
+    public void setTotalRows(long totalRows) {
+        this.totalRows = totalRows;
+    }
+
+    public long getImportedCount() {
+        return importedCount;
+    }
+
+    public void setImportedCount(long importedCount) {
+        this.importedCount = importedCount;
+    }
+
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    public void setFailedCount(long failedCount) {
+        this.failedCount = failedCount;
+    }
+
+    public List<PatientImportError> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<PatientImportError> errors) {
+        this.errors = errors;
+    }
+
+    public boolean isErrorsTruncated() {
+        return errorsTruncated;
+    }
+
+    public void setErrorsTruncated(boolean errorsTruncated) {
+        this.errorsTruncated = errorsTruncated;
+    }
+
+    public Long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(Long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+}
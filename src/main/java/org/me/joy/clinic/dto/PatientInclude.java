@@ -0,0 +1,49 @@
+package org.me.joy.clinic.dto;
+
+import org.me.joy.clinic.exception.BusinessException;
+
+/**
+ * 患者列表响应附带的关联数据
+ */
+public enum PatientInclude {
+
+    /**
+     * 仅返回患者基本信息
+     */
+    NONE,
+
+    /**
+     * 附带过敏史
+     */
+    ALLERGIES,
+
+    /**
+     * 附带过敏史和病史
+     */
+    HISTORIES;
+
+    public boolean includesAllergies() {
+        return this != NONE;
+    }
+
+    public boolean includesMedicalHistories() {
+        return this == HISTORIES;
+    }
+
+    /**
+     * 解析请求参数，未指定时附带全部历史记录（与原有响应保持一致）
+     * @param value 参数值（none/allergies/histories，不区分大小写）
+     * @return 关联数据选项
+     */
+    public static PatientInclude fromValue(String value) {
+        if (value == null || value.isBlank()) {
+            return HISTORIES;
+        }
+        for (PatientInclude include : values()) {
+            if (include.name().equalsIgnoreCase(value.trim())) {
+                return include;
+            }
+        }
+        throw new BusinessException("INVALID_INCLUDE", "不支持的include参数: " + value + "，可选值为none、allergies、histories");
+    }
+}
@@ -0,0 +1,168 @@
+package org.me.joy.clinic.dto;
+
+import org.me.joy.clinic.entity.AllergyHistory;
+import org.me.joy.clinic.entity.Bill;
+import org.me.joy.clinic.entity.DispenseRecord;
+import org.me.joy.clinic.entity.MedicalHistory;
+import org.me.joy.clinic.entity.MedicalRecord;
+import org.me.joy.clinic.entity.VitalSigns;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 患者概览数据传输对象
+ * 医生工作站打开患者病历时一次性返回的全部分区，以及每个分区的加载状态和耗时
+ */
+public class PatientSummary {
+
+    /**
+     * 分区状态：正常加载
+     */
+    public static final String SECTION_OK = "OK";
+
+    /**
+     * 分区状态：超时，未返回数据
+     */
+    public static final String SECTION_TIMEOUT = "TIMEOUT";
+
+    /**
+     * 分区状态：加载失败，未返回数据
+     */
+    public static final String SECTION_FAILED = "FAILED";
+
+    private PatientResponse patient;
+    private Integer sectionLimit;
+    private LocalDateTime generatedAt;
+    private List<MedicalRecord> medicalRecords;
+    private List<VitalSigns> vitalSigns;
+    private List<AllergyHistory> allergyHistories;
+    private List<MedicalHistory> medicalHistories;
+    private List<Bill> bills;
+    private List<DispenseRecord> dispenseRecords;
+    private Map<String, String> sectionStatus = new LinkedHashMap<>();
+    private Map<String, Long> sectionElapsedMillis = new LinkedHashMap<>();
+    private Long totalElapsedMillis;
+
+    public PatientSummary() {}
+
+    public PatientSummary(PatientResponse patient, Integer sectionLimit) {
+        this.patient = patient;
+        this.sectionLimit = sectionLimit;
+        this.generatedAt = LocalDateTime.now();
+    }
+
+    /**
+     * 记录分区加载状态和耗时
+     */
+    public void recordSection(String section, String status, Long elapsedMillis) {
+        sectionStatus.put(section, status);
+        sectionElapsedMillis.put(section, elapsedMillis);
+    }
+
+    /**
+     * 是否有分区未能返回数据
+     */
+    public boolean isPartial() {
+        return sectionStatus.values().stream().anyMatch(status -> !SECTION_OK.equals(status));
+    }
+
+    // Getters and Setters
+    public PatientResponse getPatient() {
+        return patient;
+    }
+
+    public void setPatient(PatientResponse patient) {
+        this.patient = patient;
+    }
+
+    public Integer getSectionLimit() {
+        return sectionLimit;
+    }
+
+    public void setSectionLimit(Integer sectionLimit) {
+        this.sectionLimit = sectionLimit;
+    }
+
+    public LocalDateTime getGeneratedAt() {
+        return generatedAt;
+    }
+
+    public void setGeneratedAt(LocalDateTime generatedAt) {
+        this.generatedAt = generatedAt;
+    }
+
+    public List<MedicalRecord> getMedicalRecords() {
+        return medicalRecords;
+    }
+
+    public void setMedicalRecords(List<MedicalRecord> medicalRecords) {
+        this.medicalRecords = medicalRecords;
+    }
+
+    public List<VitalSigns> getVitalSigns() {
+        return vitalSigns;
+    }
+
+    public void setVitalSigns(List<VitalSigns> vitalSigns) {
+        this.vitalSigns = vitalSigns;
+    }
+
+    public List<AllergyHistory> getAllergyHistories() {
+        return allergyHistories;
+    }
+
+    public void setAllergyHistories(List<AllergyHistory> allergyHistories) {
+        this.allergyHistories = allergyHistories;
+    }
+
+    public List<MedicalHistory> getMedicalHistories() {
+        return medicalHistories;
+    }
+
+    public void setMedicalHistories(List<MedicalHistory> medicalHistories) {
+        this.medicalHistories = medicalHistories;
+    }
+
+    public List<Bill> getBills() {
+        return bills;
+    }
+
+    public void setBills(List<Bill> bills) {
+        this.bills = bills;
+    }
+
+    public List<DispenseRecord> getDispenseRecords() {
+        return dispenseRecords;
+    }
+
+    public void setDispenseRecords(List<DispenseRecord> dispenseRecords) {
+        this.dispenseRecords = dispenseRecords;
+    }
+
+    public Map<String, String> getSectionStatus() {
+        return sectionStatus;
+    }
+
+    public void setSectionStatus(Map<String, String> sectionStatus) {
+        this.sectionStatus = sectionStatus;
+    }
+
+    public Map<String, Long> getSectionElapsedMillis() {
+        return sectionElapsedMillis;
+    }
+
+    public void setSectionElapsedMillis(Map<String, Long> sectionElapsedMillis) {
+        this.sectionElapsedMillis = sectionElapsedMillis;
+    }
+
+    public Long getTotalElapsedMillis() {
+        return totalElapsedMillis;
+    }
+
+    public void setTotalElapsedMillis(Long totalElapsedMillis) {
+        this.totalElapsedMillis = totalElapsedMillis;
+    }
+}
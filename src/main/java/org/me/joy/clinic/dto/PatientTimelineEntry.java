@@ -0,0 +1,88 @@
+package org.me.joy.clinic.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * 患者时间线条目
+ * 各来源记录的统一摘要，详情通过 source + sourceId 到对应接口获取
+ */
+public class PatientTimelineEntry {
+
+    private PatientTimelineSource source;
+    private Long sourceId;
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime occurredAt;
+
+    private String title;
+    private String summary;
+    private String status;
+    private String department;
+
+    public PatientTimelineEntry() {}
+
+    public PatientTimelineEntry(PatientTimelineSource source, Long sourceId, LocalDateTime occurredAt) {
+        this.source = source;
+        this.sourceId = sourceId;
+        this.occurredAt = occurredAt;
+    }
+
+    // Getters and Setters
+    public PatientTimelineSource getSource() {
+        return source;
+    }
+
+    public void setSource(PatientTimelineSource source) {
+        this.source = source;
+    }
+
+    public Long getSourceId() {
+        return sourceId;
+    }
+
+    public void setSourceId(Long sourceId) {
+        this.sourceId = sourceId;
+    }
+
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+
+    public void setOccurredAt(LocalDateTime occurredAt) {
+        this.occurredAt = occurredAt;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getSummary() {
+        return summary;
+    }
+
+    public void setSummary(String summary) {
+        this.summary = summary;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getDepartment() {
+        return department;
+    }
+
+    public void setDepartment(String department) {
+        this.department = department;
+    }
+}
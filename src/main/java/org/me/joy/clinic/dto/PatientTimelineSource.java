@@ -0,0 +1,43 @@
+package org.me.joy.clinic.dto;
+
+/**
+ * 患者时间线的数据来源
+ * 声明顺序即同一时刻多条记录的排列顺序
+ */
+public enum PatientTimelineSource {
+
+    /**
+     * 病历，按记录日期
+     */
+    MEDICAL_RECORD("record_date"),
+
+    /**
+     * 医嘱，按开具时间
+     */
+    MEDICAL_ORDER("prescribed_at"),
+
+    /**
+     * 调剂记录，按创建时间
+     */
+    DISPENSE("created_at"),
+
+    /**
+     * 生命体征，按记录时间
+     */
+    VITAL_SIGNS("recorded_at"),
+
+    /**
+     * 挂号，按挂号时间
+     */
+    REGISTRATION("registration_time");
+
+    private final String timeColumn;
+
+    PatientTimelineSource(String timeColumn) {
+        this.timeColumn = timeColumn;
+    }
+
+    public String getTimeColumn() {
+        return timeColumn;
+    }
+}
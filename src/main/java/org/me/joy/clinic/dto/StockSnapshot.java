@@ -0,0 +1,104 @@
+package org.me.joy.clinic.dto;
+
+/**
+ * 药品库存快照DTO
+ * 按药品汇总所有正常状态批次的库存数量，口径与 getTotalStockByMedicine 等单药品统计一致
+ */
+public class StockSnapshot {
+
+    /**
+     * 药品ID
+     */
+    private Long medicineId;
+
+    /**
+     * 总库存数量
+     */
+    private Integer totalStock;
+
+    /**
+     * 可用库存数量
+     */
+    private Integer availableStock;
+
+    /**
+     * 预留库存数量
+     */
+    private Integer reservedStock;
+
+    /**
+     * 锁定库存数量
+     */
+    private Integer lockedStock;
+
+    // 构造函数
+    public StockSnapshot() {}
+
+    public StockSnapshot(Long medicineId, Integer totalStock, Integer availableStock,
+                         Integer reservedStock, Integer lockedStock) {
+        this.medicineId = medicineId;
+        this.totalStock = totalStock;
+        this.availableStock = availableStock;
+        this.reservedStock = reservedStock;
+        this.lockedStock = lockedStock;
+    }
+
+    /**
+     * 没有正常批次的药品，各项库存均为0
+     */
+    public static StockSnapshot empty(Long medicineId) {
+        return new StockSnapshot(medicineId, 0, 0, 0, 0);
+    }
+
+    // Getters and Setters
+    public Long getMedicineId() {
+        return medicineId;
+    }
+
+    public void setMedicineId(Long medicineId) {
+        this.medicineId = medicineId;
+    }
+
+    public Integer getTotalStock() {
+        return totalStock;
+    }
+
+    public void setTotalStock(Integer totalStock) {
+        this.totalStock = totalStock;
+    }
+
+    public Integer getAvailableStock() {
+        return availableStock;
+    }
+
+    public void setAvailableStock(Integer availableStock) {
+        this.availableStock = availableStock;
+    }
+
+    public Integer getReservedStock() {
+        return reservedStock;
+    }
+
+    public void setReservedStock(Integer reservedStock) {
+        this.reservedStock = reservedStock;
+    }
+
+    public Integer getLockedStock() {
+        return lockedStock;
+    }
+
+    public void setLockedStock(Integer lockedStock) {
+        this.lockedStock = lockedStock;
+    }
+
+    @Override
+    public String toString() {
+        return "StockSnapshot{" +
+                "medicineId=" + medicineId +
+                ", totalStock=" + totalStock +
+                ", availableStock=" + availableStock +
+                ", reservedStock=" + reservedStock +
+                ", lockedStock=" + lockedStock +
+                '}';
+    }
+}
@@ -46,9 +46,9 @@ public class DispenseItem extends BaseEntity {
     private String specification;
 
     /**
-     * 批号
+     * 批号，跨批次调剂时为所用批次以逗号分隔
      */
-    @Size(max = 50, message = "批号长度不能超过50个字符")
+    @Size(max = 500, message = "批号长度不能超过500个字符")
     private String batchNumber;
 
     /**
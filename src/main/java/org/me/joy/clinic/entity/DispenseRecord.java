@@ -127,6 +127,12 @@ public class DispenseRecord extends BaseEntity {
     @Size(max = 500, message = "过敏史检查结果长度不能超过500个字符")
     private String allergyCheck;
 
+    /**
+     * 调剂前安全检查耗时，如：处方验证=12ms, 库存检查=1ms, 相互作用=5ms, 过敏检查=超时, 总计=3001ms
+     */
+    @Size(max = 200, message = "安全检查耗时记录长度不能超过200个字符")
+    private String safetyCheckTimings;
+
     /**
      * 调剂说明
      */
@@ -395,6 +401,14 @@ public class DispenseRecord extends BaseEntity {
         this.allergyCheck = allergyCheck;
     }
 
+    public String getSafetyCheckTimings() {
+        return safetyCheckTimings;
+    }
+
+    public void setSafetyCheckTimings(String safetyCheckTimings) {
+        this.safetyCheckTimings = safetyCheckTimings;
+    }
+
     public String getDispenseNotes() {
         return dispenseNotes;
     }
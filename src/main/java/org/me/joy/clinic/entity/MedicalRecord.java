@@ -151,6 +151,16 @@ public class MedicalRecord extends BaseEntity {
     @Size(max = 500, message = "审核意见长度不能超过500个字符")
     private String reviewComments;
 
+    /**
+     * 归档时间
+     */
+    private LocalDateTime archivedAt;
+
+    /**
+     * 移入冷存储的时间，非空时大文本字段、诊断和已迁移的处方保存在冷存储中
+     */
+    private LocalDateTime coldArchivedAt;
+
     /**
      * 科室
      */
@@ -403,6 +413,22 @@ public class MedicalRecord extends BaseEntity {
         this.reviewComments = reviewComments;
     }
 
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+
+    public void setArchivedAt(LocalDateTime archivedAt) {
+        this.archivedAt = archivedAt;
+    }
+
+    public LocalDateTime getColdArchivedAt() {
+        return coldArchivedAt;
+    }
+
+    public void setColdArchivedAt(LocalDateTime coldArchivedAt) {
+        this.coldArchivedAt = coldArchivedAt;
+    }
+
     public String getDepartment() {
         return department;
     }
@@ -497,6 +523,13 @@ public class MedicalRecord extends BaseEntity {
         return "已审核".equals(status) || "已归档".equals(status);
     }
 
+    /**
+     * 是否已移入冷存储
+     */
+    public boolean isColdArchived() {
+        return coldArchivedAt != null;
+    }
+
     /**
      * 提交审核
      */
@@ -536,6 +569,7 @@ public class MedicalRecord extends BaseEntity {
     public void archive() {
         if ("已审核".equals(status)) {
             this.status = "已归档";
+            this.archivedAt = LocalDateTime.now();
         }
     }
 
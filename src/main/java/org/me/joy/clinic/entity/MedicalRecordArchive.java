@@ -0,0 +1,77 @@
+package org.me.joy.clinic.entity;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+
+/**
+ * 病历冷存储实体类
+ * payload 为病历大文本字段、诊断和已迁移处方的 GZIP 压缩 JSON
+ */
+@TableName("medical_record_archives")
+public class MedicalRecordArchive extends BaseEntity {
+
+    /**
+     * 病历ID
+     */
+    private Long medicalRecordId;
+
+    /**
+     * 患者ID
+     */
+    private Long patientId;
+
+    /**
+     * 压缩后的归档内容
+     */
+    private byte[] payload;
+
+    /**
+     * 压缩前字节数
+     */
+    private Integer rawSize;
+
+    /**
+     * 压缩后字节数
+     */
+    private Integer storedSize;
+
+    // Getters and Setters
+    public Long getMedicalRecordId() {
+        return medicalRecordId;
+    }
+
+    public void setMedicalRecordId(Long medicalRecordId) {
+        this.medicalRecordId = medicalRecordId;
+    }
+
+    public Long getPatientId() {
+        return patientId;
+    }
+
+    public void setPatientId(Long patientId) {
+        this.patientId = patientId;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    public void setPayload(byte[] payload) {
+        this.payload = payload;
+    }
+
+    public Integer getRawSize() {
+        return rawSize;
+    }
+
+    public void setRawSize(Integer rawSize) {
+        this.rawSize = rawSize;
+    }
+
+    public Integer getStoredSize() {
+        return storedSize;
+    }
+
+    public void setStoredSize(Integer storedSize) {
+        this.storedSize = storedSize;
+    }
+}
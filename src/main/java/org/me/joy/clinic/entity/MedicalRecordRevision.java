@@ -0,0 +1,92 @@
+package org.me.joy.clinic.entity;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * 病历修订记录实体类
+ * payload 为相对上一版本的变更字段增量，snapshot 为 true 时为该版本的完整内容
+ */
+@TableName("medical_record_revisions")
+public class MedicalRecordRevision extends BaseEntity {
+
+    /**
+     * 病历ID
+     */
+    private Long medicalRecordId;
+
+    /**
+     * 版本号，从1开始
+     */
+    private Integer revision;
+
+    /**
+     * 是否完整快照
+     */
+    private Boolean snapshot;
+
+    /**
+     * 本次修改的字段，逗号分隔
+     */
+    private String changedFields;
+
+    /**
+     * 增量或快照的二进制编码
+     */
+    @JsonIgnore
+    private byte[] payload;
+
+    /**
+     * 编码字节数
+     */
+    private Integer payloadSize;
+
+    // Getters and Setters
+    public Long getMedicalRecordId() {
+        return medicalRecordId;
+    }
+
+    public void setMedicalRecordId(Long medicalRecordId) {
+        this.medicalRecordId = medicalRecordId;
+    }
+
+    public Integer getRevision() {
+        return revision;
+    }
+
+    public void setRevision(Integer revision) {
+        this.revision = revision;
+    }
+
+    public Boolean getSnapshot() {
+        return snapshot;
+    }
+
+    public void setSnapshot(Boolean snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public String getChangedFields() {
+        return changedFields;
+    }
+
+    public void setChangedFields(String changedFields) {
+        this.changedFields = changedFields;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    public void setPayload(byte[] payload) {
+        this.payload = payload;
+    }
+
+    public Integer getPayloadSize() {
+        return payloadSize;
+    }
+
+    public void setPayloadSize(Integer payloadSize) {
+        this.payloadSize = payloadSize;
+    }
+}
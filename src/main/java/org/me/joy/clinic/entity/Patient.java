@@ -29,6 +29,18 @@ public class Patient extends BaseEntity {
     @Size(max = 100, message = "患者姓名长度不能超过100个字符")
     private String name;
 
+    /**
+     * 姓名全拼（写入时生成）
+     */
+    @Size(max = 200, message = "姓名全拼长度不能超过200个字符")
+    private String namePinyin;
+
+    /**
+     * 姓名拼音首字母（写入时生成）
+     */
+    @Size(max = 50, message = "姓名拼音首字母长度不能超过50个字符")
+    private String nameInitials;
+
     /**
      * 手机号码
      */
@@ -61,6 +73,16 @@ public class Patient extends BaseEntity {
     @Size(max = 500, message = "联系地址长度不能超过500个字符")
     private String address;
 
+    /**
+     * 省份（写入时从地址中提取）
+     */
+    private String province;
+
+    /**
+     * 城市（写入时从地址中提取）
+     */
+    private String city;
+
     /**
      * 紧急联系人姓名
      */
@@ -186,6 +208,22 @@ public class Patient extends BaseEntity {
         this.name = name;
     }
 
+    public String getNamePinyin() {
+        return namePinyin;
+    }
+
+    public void setNamePinyin(String namePinyin) {
+        this.namePinyin = namePinyin;
+    }
+
+    public String getNameInitials() {
+        return nameInitials;
+    }
+
+    public void setNameInitials(String nameInitials) {
+        this.nameInitials = nameInitials;
+    }
+
     public String getPhone() {
         return phone;
     }
@@ -226,6 +264,22 @@ public class Patient extends BaseEntity {
         this.address = address;
     }
 
+    public String getProvince() {
+        return province;
+    }
+
+    public void setProvince(String province) {
+        this.province = province;
+    }
+
+    public String getCity() {
+        return city;
+    }
+
+    public void setCity(String city) {
+        this.city = city;
+    }
+
     public String getEmergencyContactName() {
         return emergencyContactName;
     }
@@ -29,6 +29,18 @@ public class Staff extends BaseEntity {
     @Size(max = 100, message = "员工姓名长度不能超过100个字符")
     private String name;
 
+    /**
+     * 姓名全拼（写入时生成）
+     */
+    @Size(max = 200, message = "姓名全拼长度不能超过200个字符")
+    private String namePinyin;
+
+    /**
+     * 姓名拼音首字母（写入时生成）
+     */
+    @Size(max = 50, message = "姓名拼音首字母长度不能超过50个字符")
+    private String nameInitials;
+
     /**
      * 手机号码
      */
@@ -220,6 +232,22 @@ public class Staff extends BaseEntity {
         this.name = name;
     }
 
+    public String getNamePinyin() {
+        return namePinyin;
+    }
+
+    public void setNamePinyin(String namePinyin) {
+        this.namePinyin = namePinyin;
+    }
+
+    public String getNameInitials() {
+        return nameInitials;
+    }
+
+    public void setNameInitials(String nameInitials) {
+        this.nameInitials = nameInitials;
+    }
+
     public String getPhone() {
         return phone;
     }
@@ -20,6 +20,13 @@ public interface AllergyHistoryMapper extends BaseMapper<AllergyHistory> {
      */
     List<AllergyHistory> findByPatientId(@Param("patientId") Long patientId);
 
+    /**
+     * 根据多个患者ID批量查找过敏史，按患者ID分组排序
+     * @param patientIds 患者ID列表
+     * @return 过敏史列表
+     */
+    List<AllergyHistory> findByPatientIds(@Param("patientIds") List<Long> patientIds);
+
     /**
      * 根据患者ID和过敏原查找过敏史
      * @param patientId 患者ID
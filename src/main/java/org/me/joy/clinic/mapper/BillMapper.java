@@ -9,6 +9,7 @@ import org.me.joy.clinic.entity.Bill;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 账单数据访问层
@@ -21,6 +22,12 @@ public interface BillMapper extends BaseMapper<Bill> {
      */
     @Select("SELECT * FROM bills WHERE patient_id = #{patientId} ORDER BY created_at DESC")
     List<Bill> findByPatientId(@Param("patientId") Long patientId);
+
+    /**
+     * 查询患者最近的账单
+     */
+    @Select("SELECT * FROM bills WHERE patient_id = #{patientId} AND deleted = 0 ORDER BY created_at DESC, id DESC LIMIT #{limit}")
+    List<Bill> findRecentByPatientId(@Param("patientId") Long patientId, @Param("limit") int limit);
     
     /**
      * 根据挂号ID查询账单
@@ -71,4 +78,15 @@ public interface BillMapper extends BaseMapper<Bill> {
     Double sumRevenueByDoctorAndDateRange(@Param("doctorId") Long doctorId, 
                                         @Param("startDate") LocalDate startDate, 
                                         @Param("endDate") LocalDate endDate);
-}
\ No newline at end of file
+
+    /**
+     * 按医生分组统计指定日期范围内产生的收入
+     */
+    @Select("SELECT mr.doctor_id AS doctor_id, COALESCE(SUM(b.total_amount), 0) AS revenue FROM bills b " +
+            "JOIN medical_records mr ON b.registration_id = mr.registration_id " +
+            "WHERE DATE(b.created_at) BETWEEN #{startDate} AND #{endDate} " +
+            "AND b.status IN ('PAID', 'PARTIALLY_PAID') " +
+            "GROUP BY mr.doctor_id")
+    List<Map<String, Object>> sumRevenueGroupByDoctor(@Param("startDate") LocalDate startDate,
+                                                      @Param("endDate") LocalDate endDate);
+}
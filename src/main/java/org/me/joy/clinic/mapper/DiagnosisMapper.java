@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 import org.me.joy.clinic.entity.Diagnosis;
 
 import java.time.LocalDate;
@@ -139,4 +140,19 @@ public interface DiagnosisMapper extends BaseMapper<Diagnosis> {
      */
     Long countTotalDiagnoses(@Param("startDate") LocalDate startDate, 
                            @Param("endDate") LocalDate endDate);
-}
\ No newline at end of file
+
+    /**
+     * 统计医生使用过的诊断编码及次数，用于诊断编码联想排序
+     */
+    @Select("SELECT diagnosis_code, COUNT(*) AS count FROM diagnoses " +
+            "WHERE doctor_id = #{doctorId} AND diagnosis_code IS NOT NULL AND deleted = 0 GROUP BY diagnosis_code")
+    List<Map<String, Object>> countCodesByDoctor(@Param("doctorId") Long doctorId);
+
+    /**
+     * 清空病历下诊断已移入冷存储的大文本字段，编码、名称、医生、时间等统计字段保留在热表
+     * 不修改 updated_at，全文索引不会因此重建该病历
+     */
+    @Update("UPDATE diagnoses SET description = NULL, evidence = NULL, treatment_advice = NULL " +
+            "WHERE medical_record_id = #{medicalRecordId}")
+    int clearColdArchivedColumns(@Param("medicalRecordId") Long medicalRecordId);
+}
@@ -33,6 +33,12 @@ public interface DispenseRecordMapper extends BaseMapper<DispenseRecord> {
     @Select("SELECT * FROM dispense_records WHERE patient_id = #{patientId} AND deleted = 0 ORDER BY created_at DESC")
     List<DispenseRecord> findByPatientId(@Param("patientId") Long patientId);
 
+    /**
+     * 查询患者最近的调剂记录
+     */
+    @Select("SELECT * FROM dispense_records WHERE patient_id = #{patientId} AND deleted = 0 ORDER BY created_at DESC, id DESC LIMIT #{limit}")
+    List<DispenseRecord> findRecentByPatientId(@Param("patientId") Long patientId, @Param("limit") int limit);
+
     /**
      * 根据调剂药师ID查询调剂记录
      */
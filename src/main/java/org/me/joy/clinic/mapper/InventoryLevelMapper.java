@@ -4,10 +4,15 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.me.joy.clinic.dto.StockSnapshot;
 import org.me.joy.clinic.entity.InventoryLevel;
 
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 库存水平数据访问层
@@ -117,6 +122,29 @@ public interface InventoryLevelMapper extends BaseMapper<InventoryLevel> {
             "WHERE medicine_id = #{medicineId} AND status = '正常' AND deleted = 0")
     Integer getTotalStockByMedicine(@Param("medicineId") Long medicineId);
 
+    /**
+     * 批量查询多个药品的库存快照，一次分组查询返回每个药品的总库存、可用、预留和锁定库存；
+     * 没有正常批次的药品不在结果中
+     */
+    List<StockSnapshot> findStockSnapshots(@Param("medicineIds") Collection<Long> medicineIds);
+
+    /**
+     * 批量查询多个药品的库存快照，按药品ID索引，没有正常批次的药品各项库存为0
+     */
+    default Map<Long, StockSnapshot> getStockSnapshots(Collection<Long> medicineIds) {
+        Map<Long, StockSnapshot> snapshots = new HashMap<>();
+        if (medicineIds == null || medicineIds.isEmpty()) {
+            return snapshots;
+        }
+        for (StockSnapshot snapshot : findStockSnapshots(medicineIds)) {
+            snapshots.put(snapshot.getMedicineId(), snapshot);
+        }
+        for (Long medicineId : medicineIds) {
+            snapshots.computeIfAbsent(medicineId, StockSnapshot::empty);
+        }
+        return snapshots;
+    }
+
     /**
      * 统计指定药品的可用库存
      */
@@ -146,6 +174,32 @@ public interface InventoryLevelMapper extends BaseMapper<InventoryLevel> {
             "ORDER BY expiry_date ASC LIMIT 1")
     InventoryLevel getEarliestExpiringBatch(@Param("medicineId") Long medicineId);
 
+    /**
+     * 按近效期先出（FEFO）顺序加锁查询可出库批次
+     * FOR UPDATE 为当前读，可重复读隔离级别下也能读到其他事务已提交的库存，并锁定批次直到事务结束
+     */
+    @Select("SELECT * FROM inventory_levels WHERE medicine_id = #{medicineId} " +
+            "AND status = '正常' AND available_stock > 0 AND deleted = 0 " +
+            "ORDER BY expiry_date ASC, id ASC FOR UPDATE")
+    List<InventoryLevel> findDispensableBatchesForUpdate(@Param("medicineId") Long medicineId);
+
+    /**
+     * 条件扣减批次库存，批次库存已被并发扣减到不足时不更新
+     * @return 更新行数，0表示冲突
+     */
+    @Update("UPDATE inventory_levels SET current_stock = current_stock - #{quantity}, " +
+            "available_stock = available_stock - #{quantity}, updated_at = NOW() " +
+            "WHERE id = #{id} AND current_stock >= #{quantity} AND available_stock >= #{quantity} AND deleted = 0")
+    int decrementBatchStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    /**
+     * 增加批次库存
+     */
+    @Update("UPDATE inventory_levels SET current_stock = current_stock + #{quantity}, " +
+            "available_stock = available_stock + #{quantity}, updated_at = NOW() " +
+            "WHERE id = #{id} AND deleted = 0")
+    int incrementBatchStock(@Param("id") Long id, @Param("quantity") int quantity);
+
     /**
      * 统计库存总价值
      */
@@ -21,6 +21,13 @@ public interface MedicalHistoryMapper extends BaseMapper<MedicalHistory> {
      */
     List<MedicalHistory> findByPatientId(@Param("patientId") Long patientId);
 
+    /**
+     * 根据多个患者ID批量查找病史，按患者ID分组排序
+     * @param patientIds 患者ID列表
+     * @return 病史列表
+     */
+    List<MedicalHistory> findByPatientIds(@Param("patientIds") List<Long> patientIds);
+
     /**
      * 根据患者ID和病史类型查找病史
      * @param patientId 患者ID
@@ -0,0 +1,12 @@
+package org.me.joy.clinic.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+import org.me.joy.clinic.entity.MedicalRecordArchive;
+
+/**
+ * 病历冷存储数据访问接口
+ */
+@Mapper
+public interface MedicalRecordArchiveMapper extends BaseMapper<MedicalRecordArchive> {
+}
@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 import org.me.joy.clinic.entity.MedicalRecord;
 
 import java.time.LocalDate;
@@ -23,6 +24,33 @@ public interface MedicalRecordMapper extends BaseMapper<MedicalRecord> {
     @Select("SELECT * FROM medical_records WHERE patient_id = #{patientId} AND deleted = 0 ORDER BY record_date DESC")
     List<MedicalRecord> findByPatientId(@Param("patientId") Long patientId);
 
+    /**
+     * 查询患者最近的病历
+     */
+    @Select("SELECT * FROM medical_records WHERE patient_id = #{patientId} AND deleted = 0 ORDER BY record_date DESC, id DESC LIMIT #{limit}")
+    List<MedicalRecord> findRecentByPatientId(@Param("patientId") Long patientId, @Param("limit") int limit);
+
+    /**
+     * 按主键分批查询全文索引所需的病历字段
+     */
+    @Select("SELECT id, patient_id, doctor_id, record_number, department, record_date, chief_complaint, present_illness, " +
+            "preliminary_diagnosis, final_diagnosis, treatment_plan, cold_archived_at, updated_at " +
+            "FROM medical_records WHERE id > #{afterId} AND deleted = 0 ORDER BY id LIMIT #{limit}")
+    List<MedicalRecord> findTextIndexRows(@Param("afterId") Long afterId, @Param("limit") int limit);
+
+    /**
+     * 按主键分批查询病历的更新时间和删除标识（含已删除病历），用于全文索引与数据库比对
+     */
+    @Select("SELECT id, updated_at, deleted FROM medical_records WHERE id > #{afterId} ORDER BY id LIMIT #{limit}")
+    List<MedicalRecord> findTextIndexVersions(@Param("afterId") Long afterId, @Param("limit") int limit);
+
+    /**
+     * 刷新病历更新时间
+     * 诊断新增、修改、删除后调用，使全文索引按更新时间比对时能发现诊断的变化
+     */
+    @Update("UPDATE medical_records SET updated_at = #{updatedAt} WHERE id = #{id}")
+    int touchUpdatedAt(@Param("id") Long id, @Param("updatedAt") LocalDateTime updatedAt);
+
     /**
      * 根据医生ID查询病历列表
      */
@@ -147,4 +175,39 @@ public interface MedicalRecordMapper extends BaseMapper<MedicalRecord> {
     List<Map<String, Object>> getConsultationTimesByDoctorAndDateRange(@Param("doctorId") Long doctorId, 
                                                                       @Param("startDate") LocalDate startDate, 
                                                                       @Param("endDate") LocalDate endDate);
-}
\ No newline at end of file
+
+    /**
+     * 按医生分组统计指定日期范围内的接诊患者数、完成咨询数和平均咨询时长（分钟）
+     */
+    @Select("SELECT doctor_id, " +
+            "COUNT(DISTINCT patient_id) AS total_patients, " +
+            "SUM(CASE WHEN status = '已完成' THEN 1 ELSE 0 END) AS completed_consultations, " +
+            "AVG(CASE WHEN completed_at IS NOT NULL THEN TIMESTAMPDIFF(MINUTE, record_date, completed_at) END) AS average_consultation_time " +
+            "FROM medical_records " +
+            "WHERE DATE(record_date) BETWEEN #{startDate} AND #{endDate} " +
+            "AND deleted = 0 " +
+            "GROUP BY doctor_id")
+    List<Map<String, Object>> getConsultationStatisticsGroupByDoctor(@Param("startDate") LocalDate startDate,
+                                                                     @Param("endDate") LocalDate endDate);
+
+    /**
+     * 按主键分批查询归档时间早于截止时间、尚未移入冷存储的病历ID
+     * 早于本功能归档的病历没有归档时间，以更新时间代替（已归档病历不再修改）
+     */
+    @Select("SELECT id FROM medical_records WHERE status = '已归档' AND cold_archived_at IS NULL AND deleted = 0 " +
+            "AND COALESCE(archived_at, updated_at) < #{cutoff} AND id > #{afterId} ORDER BY id LIMIT #{limit}")
+    List<Long> findColdArchiveCandidates(@Param("cutoff") LocalDateTime cutoff, @Param("afterId") Long afterId,
+                                         @Param("limit") int limit);
+
+    /**
+     * 清空已移入冷存储的大文本字段并记录移入时间
+     * 主诉、初步诊断、最终诊断是摘要和时间线直接读取的字段，保留在热表
+     * 不修改 updated_at，全文索引不会因此重建该病历
+     */
+    @Update("UPDATE medical_records SET present_illness = NULL, past_history = NULL, " +
+            "personal_history = NULL, family_history = NULL, physical_examination = NULL, auxiliary_examination = NULL, " +
+            "treatment_plan = NULL, medical_orders = NULL, " +
+            "condition_assessment = NULL, prognosis = NULL, follow_up_advice = NULL, remarks = NULL, " +
+            "cold_archived_at = NOW() WHERE id = #{id} AND cold_archived_at IS NULL")
+    int clearColdArchivedColumns(@Param("id") Long id);
+}
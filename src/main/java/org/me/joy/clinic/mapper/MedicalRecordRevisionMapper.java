@@ -0,0 +1,40 @@
+package org.me.joy.clinic.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.me.joy.clinic.entity.MedicalRecordRevision;
+
+import java.util.List;
+
+/**
+ * 病历修订记录数据访问接口
+ */
+@Mapper
+public interface MedicalRecordRevisionMapper extends BaseMapper<MedicalRecordRevision> {
+
+    /**
+     * 查询病历的最新版本号，没有修订记录时返回 null
+     */
+    @Select("SELECT MAX(revision) FROM medical_record_revisions WHERE medical_record_id = #{recordId} AND deleted = 0")
+    Integer findLatestRevision(@Param("recordId") Long recordId);
+
+    /**
+     * 查询重建指定版本所需的修订记录：不晚于该版本的最近一次快照到该版本，按版本号升序
+     */
+    @Select("SELECT * FROM medical_record_revisions WHERE medical_record_id = #{recordId} AND deleted = 0 " +
+            "AND revision <= #{revision} AND revision >= (" +
+            "SELECT COALESCE(MAX(revision), 1) FROM medical_record_revisions " +
+            "WHERE medical_record_id = #{recordId} AND snapshot = 1 AND revision <= #{revision} AND deleted = 0) " +
+            "ORDER BY revision")
+    List<MedicalRecordRevision> findReconstructionChain(@Param("recordId") Long recordId,
+                                                        @Param("revision") Integer revision);
+
+    /**
+     * 查询病历的修订记录列表（不含编码内容），按版本号降序
+     */
+    @Select("SELECT id, medical_record_id, revision, snapshot, changed_fields, payload_size, created_at, updated_at " +
+            "FROM medical_record_revisions WHERE medical_record_id = #{recordId} AND deleted = 0 ORDER BY revision DESC")
+    List<MedicalRecordRevision> findSummariesByRecordId(@Param("recordId") Long recordId);
+}
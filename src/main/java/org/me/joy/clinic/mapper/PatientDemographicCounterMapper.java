@@ -0,0 +1,95 @@
+package org.me.joy.clinic.mapper;
+
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 患者人口统计计数数据访问接口
+ * 计数表按（维度, 分组值）存储患者数量，由患者写操作增量维护
+ */
+@Mapper
+public interface PatientDemographicCounterMapper {
+
+    /**
+     * 调整指定分组的计数，分组不存在时自动创建
+     * @param dimension 统计维度
+     * @param bucket 分组值
+     * @param delta 变化量
+     * @return 影响行数
+     */
+    @Insert("INSERT INTO patient_demographic_counters (dimension, bucket, patient_count, updated_at) " +
+            "VALUES (#{dimension}, #{bucket}, #{delta}, NOW()) " +
+            "ON DUPLICATE KEY UPDATE patient_count = patient_count + #{delta}, updated_at = NOW()")
+    int adjust(@Param("dimension") String dimension, @Param("bucket") String bucket, @Param("delta") long delta);
+
+    /**
+     * 查询指定维度下的所有分组计数，按数量降序
+     * @param dimension 统计维度
+     * @return 分组计数（bucket, patient_count）
+     */
+    @Select("SELECT bucket, patient_count FROM patient_demographic_counters " +
+            "WHERE dimension = #{dimension} AND patient_count > 0 ORDER BY patient_count DESC")
+    List<Map<String, Object>> findByDimension(@Param("dimension") String dimension);
+
+    /**
+     * 删除指定维度的所有计数
+     * @param dimension 统计维度
+     * @return 影响行数
+     */
+    @Delete("DELETE FROM patient_demographic_counters WHERE dimension = #{dimension}")
+    int deleteByDimension(@Param("dimension") String dimension);
+
+    /**
+     * 按患者城市（无城市时取省份）重新生成地区计数
+     * @param dimension 统计维度
+     * @return 影响行数
+     */
+    @Insert("INSERT INTO patient_demographic_counters (dimension, bucket, patient_count, updated_at) " +
+            "SELECT #{dimension}, COALESCE(city, province), COUNT(*), NOW() FROM patients " +
+            "WHERE deleted = 0 AND (city IS NOT NULL OR province IS NOT NULL) " +
+            "GROUP BY COALESCE(city, province)")
+    int rebuildRegionCounters(@Param("dimension") String dimension);
+
+    /**
+     * 按患者省份重新生成省份计数
+     * @param dimension 统计维度
+     * @return 影响行数
+     */
+    @Insert("INSERT INTO patient_demographic_counters (dimension, bucket, patient_count, updated_at) " +
+            "SELECT #{dimension}, province, COUNT(*), NOW() FROM patients " +
+            "WHERE deleted = 0 AND province IS NOT NULL GROUP BY province")
+    int rebuildProvinceCounters(@Param("dimension") String dimension);
+
+    /**
+     * 统计计数表中的分组数量，用于判断计数表是否已初始化
+     * @return 分组数量
+     */
+    @Select("SELECT COUNT(*) FROM patient_demographic_counters")
+    Long countBuckets();
+
+    /**
+     * 读取并锁定状态日期，锁持有到事务结束，保证同一时间只有一个实例推进该状态
+     * @param stateKey 状态键
+     * @return 状态日期，不存在时返回null
+     */
+    @Select("SELECT state_date FROM patient_demographic_counter_state WHERE state_key = #{stateKey} FOR UPDATE")
+    LocalDate lockStateDate(@Param("stateKey") String stateKey);
+
+    /**
+     * 更新状态日期
+     * @param stateKey 状态键
+     * @param stateDate 状态日期
+     * @return 影响行数
+     */
+    @Update("UPDATE patient_demographic_counter_state SET state_date = #{stateDate}, updated_at = NOW() " +
+            "WHERE state_key = #{stateKey}")
+    int updateStateDate(@Param("stateKey") String stateKey, @Param("stateDate") LocalDate stateDate);
+}
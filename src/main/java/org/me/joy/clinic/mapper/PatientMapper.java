@@ -5,6 +5,7 @@ import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.me.joy.clinic.entity.Patient;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
@@ -95,6 +96,14 @@ public interface PatientMapper extends BaseMapper<Patient> {
      */
     List<Patient> searchPatients(@Param("keyword") String keyword);
 
+    /**
+     * 按主键分批查询搜索索引所需的患者字段
+     * @param afterId 上一批最后一条记录的ID
+     * @param limit 批大小
+     * @return 患者列表（仅包含ID、姓名、手机号、患者编号、身份证号）
+     */
+    List<Patient> findSearchIndexRows(@Param("afterId") Long afterId, @Param("limit") int limit);
+
     /**
      * 统计患者总数
      * @return 患者总数
@@ -116,6 +125,7 @@ public interface PatientMapper extends BaseMapper<Patient> {
 
     /**
      * 更新患者就诊信息
+     * 绕过 PatientCache，调用方需对受影响的患者调用 PatientCache.invalidate
      * @param patientId 患者ID
      * @return 更新记录数
      */
@@ -123,6 +133,7 @@ public interface PatientMapper extends BaseMapper<Patient> {
 
     /**
      * 批量更新患者状态
+     * 绕过 PatientCache，调用方需对受影响的患者调用 PatientCache.invalidate
      * @param patientIds 患者ID列表
      * @param status 新状态
      * @return 更新记录数
@@ -148,10 +159,87 @@ public interface PatientMapper extends BaseMapper<Patient> {
      * @return 患者出生日期列表
      */
     List<Map<String, Object>> getAllPatientsWithBirthDate();
+
+    /**
+     * 按年龄段分组统计患者数量（在数据库中完成年龄计算）
+     * @return 年龄段分布数据（age_group, count）
+     */
+    List<Map<String, Object>> getAgeGroupDistribution();
+
+    /**
+     * 计算患者平均年龄
+     * @return 平均年龄，无出生日期数据时返回null
+     */
+    BigDecimal getAverageAge();
+
+    /**
+     * 统计指定日期过生日且年龄刚好跨入指定年龄的患者数量
+     * 该日期及之后创建的患者在创建时已按新年龄段计数，不参与统计
+     * @param day 统计日期
+     * @param birthdays 生日（MM-dd格式）
+     * @param ages 跨入的年龄
+     * @return 按年龄分组的数量（age, count）
+     */
+    List<Map<String, Object>> countBirthdaysReachingAges(@Param("day") LocalDate day,
+                                                         @Param("birthdays") List<String> birthdays,
+                                                         @Param("ages") List<Integer> ages);
     
     /**
      * 获取地区分布统计
      * @return 地区分布数据
      */
     List<Map<String, Object>> getLocationDistribution();
-}
\ No newline at end of file
+
+    /**
+     * 按主键分批查询尚未提取地区的患者（仅返回ID和地址）
+     * @param afterId 上一批最后一条记录的ID
+     * @param limit 批大小
+     * @return 患者列表
+     */
+    List<Patient> findPatientsWithoutRegion(@Param("afterId") Long afterId, @Param("limit") int limit);
+
+    /**
+     * 批量更新患者省份和城市
+     * 绕过 PatientCache，调用方需对受影响的患者调用 PatientCache.invalidate
+     * @param patients 包含ID、省份、城市的患者列表
+     * @return 影响行数
+     */
+    int batchUpdateRegion(@Param("patients") List<Patient> patients);
+
+    /**
+     * 按主键分批查询拼音索引所需的患者姓名字段
+     * @param afterId 上一批最后一条记录的ID
+     * @param limit 批大小
+     * @return 患者列表（仅包含ID、姓名、姓名全拼、姓名首字母）
+     */
+    List<Patient> findPinyinIndexRows(@Param("afterId") Long afterId, @Param("limit") int limit);
+
+    /**
+     * 批量更新患者姓名全拼和首字母
+     * 绕过 PatientCache，调用方需对受影响的患者调用 PatientCache.invalidate
+     * @param patients 包含ID、姓名全拼、姓名首字母的患者列表
+     * @return 影响行数
+     */
+    int batchUpdateNamePinyin(@Param("patients") List<Patient> patients);
+
+    /**
+     * 查询已存在的身份证号（批量导入去重）
+     * @param idCards 身份证号列表
+     * @return 其中已被未删除患者使用的身份证号
+     */
+    List<String> findExistingIdCards(@Param("idCards") List<String> idCards);
+
+    /**
+     * 查询指定前缀下序号最大的患者编号（含已删除患者，编号列有唯一约束）
+     * @param prefix 编号前缀，如 P20240101
+     * @return 最大的患者编号，没有时返回null
+     */
+    String findMaxPatientNumber(@Param("prefix") String prefix);
+
+    /**
+     * 批量插入患者（多行 INSERT），插入后回填自增ID
+     * @param patients 患者列表
+     * @return 影响行数
+     */
+    int batchInsert(@Param("patients") List<Patient> patients);
+}
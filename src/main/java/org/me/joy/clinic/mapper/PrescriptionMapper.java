@@ -4,11 +4,13 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 import org.me.joy.clinic.entity.Prescription;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 处方数据访问接口
@@ -155,4 +157,21 @@ public interface PrescriptionMapper extends BaseMapper<Prescription> {
     Long countPrescriptionsByDoctorAndDateRange(@Param("doctorId") Long doctorId, 
                                               @Param("startDate") LocalDate startDate, 
                                               @Param("endDate") LocalDate endDate);
-}
\ No newline at end of file
+
+    /**
+     * 按医生分组统计指定日期范围内开具的处方数量
+     */
+    @Select("SELECT doctor_id, COUNT(*) AS count FROM prescriptions " +
+            "WHERE DATE(prescribed_at) BETWEEN #{startDate} AND #{endDate} " +
+            "AND deleted = 0 " +
+            "GROUP BY doctor_id")
+    List<Map<String, Object>> countPrescriptionsGroupByDoctor(@Param("startDate") LocalDate startDate,
+                                                              @Param("endDate") LocalDate endDate);
+
+    /**
+     * 清空病历下处方已移入冷存储的大文本字段，医生、时间、金额等统计字段和处方明细保留在热表
+     */
+    @Update("UPDATE prescriptions SET dosage_instructions = NULL, precautions = NULL, remarks = NULL " +
+            "WHERE medical_record_id = #{medicalRecordId}")
+    int clearColdArchivedColumns(@Param("medicalRecordId") Long medicalRecordId);
+}
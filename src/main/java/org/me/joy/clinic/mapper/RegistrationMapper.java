@@ -310,4 +310,11 @@ public interface RegistrationMapper extends BaseMapper<Registration> {
      * @return 总就诊次数
      */
     Long countTotalVisits(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
-}
\ No newline at end of file
+
+    /**
+     * 查询指定日期之后的挂号记录（仅加载就诊立方体所需的列）
+     */
+    @Select("SELECT id, patient_id, registration_date, registration_time, department, doctor_id, status, is_first_visit " +
+            "FROM registrations WHERE registration_date >= #{startDate} AND deleted = 0 ORDER BY id")
+    List<Registration> findVisitCubeRows(@Param("startDate") LocalDate startDate);
+}
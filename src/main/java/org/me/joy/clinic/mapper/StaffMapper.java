@@ -166,4 +166,19 @@ public interface StaffMapper extends BaseMapper<Staff> {
      * @return 医生ID列表
      */
     List<Long> getAllDoctorIds();
-}
\ No newline at end of file
+
+    /**
+     * 按主键分批查询拼音索引所需的员工姓名字段
+     * @param afterId 上一批最后一条记录的ID
+     * @param limit 批大小
+     * @return 员工列表（仅包含ID、姓名、姓名全拼、姓名首字母）
+     */
+    List<Staff> findPinyinIndexRows(@Param("afterId") Long afterId, @Param("limit") int limit);
+
+    /**
+     * 批量更新员工姓名全拼和首字母
+     * @param staffList 包含ID、姓名全拼、姓名首字母的员工列表
+     * @return 影响行数
+     */
+    int batchUpdateNamePinyin(@Param("staffList") List<Staff> staffList);
+}
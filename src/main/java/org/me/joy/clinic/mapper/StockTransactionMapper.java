@@ -139,4 +139,11 @@ public interface StockTransactionMapper extends BaseMapper<StockTransaction> {
     @Select("SELECT transaction_type, COUNT(*) as count FROM stock_transactions " +
             "WHERE deleted = 0 GROUP BY transaction_type")
     List<Object> countTransactionsByType();
-}
\ No newline at end of file
+
+    /**
+     * 批量插入库存交易记录
+     * @param transactions 交易记录列表
+     * @return 插入记录数
+     */
+    int batchInsert(@Param("transactions") List<StockTransaction> transactions);
+}
@@ -26,6 +26,16 @@ public interface VitalSignsMapper extends BaseMapper<VitalSigns> {
     @Select("SELECT * FROM vital_signs WHERE patient_id = #{patientId} AND deleted = false ORDER BY recorded_at DESC")
     List<VitalSigns> findByPatientId(@Param("patientId") Long patientId);
 
+    /**
+     * 查询患者最近的生命体征记录
+     * 
+     * @param patientId 患者ID
+     * @param limit 最多返回的记录数
+     * @return 生命体征记录列表
+     */
+    @Select("SELECT * FROM vital_signs WHERE patient_id = #{patientId} AND deleted = false ORDER BY recorded_at DESC, id DESC LIMIT #{limit}")
+    List<VitalSigns> findRecentByPatientId(@Param("patientId") Long patientId, @Param("limit") int limit);
+
     /**
      * 根据患者ID和时间范围查询生命体征记录
      * 
@@ -0,0 +1,447 @@
+package org.me.joy.clinic.pharmacy;
+
+import org.me.joy.clinic.entity.AllergyHistory;
+import org.me.joy.clinic.entity.Medicine;
+import org.me.joy.clinic.entity.PrescriptionItem;
+import org.me.joy.clinic.mapper.MedicineMapper;
+import org.me.joy.clinic.service.PrescriptionValidationService.AllergyCheckResult.AllergyRisk;
+import org.me.joy.clinic.util.AhoCorasickMatcher;
+import org.me.joy.clinic.util.CsvReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 过敏筛查
+ * 患者的过敏原按交叉过敏分类表扩展（如青霉素 -> 青霉素类各药品，以及存在交叉过敏的头孢菌素类、碳青霉烯类），
+ * 编译为一个 Aho-Corasick 自动机并按患者缓存；每个药品的名称、通用名和商品名只扫描一次即可找出全部相关过敏原。
+ * 过敏史变化时使缓存失效，缓存条目还记录过敏史指纹，过敏史与缓存不一致时重新编译。
+ */
+@Component
+public class AllergyEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(AllergyEngine.class);
+
+    static final String BUILTIN_TABLE = "dictionary/allergy-cross-reactivity.csv";
+
+    // 匹配方式，数值越小越直接
+    private static final int MATCH_DIRECT = 0;
+    private static final int MATCH_SAME_CLASS = 1;
+    private static final int MATCH_CROSS_CLASS = 2;
+
+    @Autowired
+    private MedicineMapper medicineMapper;
+
+    /**
+     * 交叉过敏分类表路径（分类名,成员关键词,交叉过敏分类），为空时使用内置表
+     */
+    @Value("${clinic.pharmacy.allergy.cross-reactivity-path:}")
+    private String tablePath = "";
+
+    /**
+     * 最多缓存多少名患者的过敏原自动机
+     */
+    @Value("${clinic.pharmacy.allergy.max-cached-patients:2000}")
+    private int maxCachedPatients = 2000;
+
+    private volatile CrossReactivityTable table;
+
+    private final Map<Long, CompiledAllergens> compiledByPatient =
+        new LinkedHashMap<Long, CompiledAllergens>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CompiledAllergens> eldest) {
+                return size() > maxCachedPatients;
+            }
+        };
+
+    /**
+     * 重新加载交叉过敏分类表，已编译的患者自动机随之失效
+     * @return 分类数量
+     */
+    public synchronized int reload() {
+        Path path = tablePath == null || tablePath.isBlank() ? null : Paths.get(tablePath.trim());
+        CrossReactivityTable loaded;
+        try (InputStream in = path != null ? Files.newInputStream(path)
+                : new ClassPathResource(BUILTIN_TABLE).getInputStream()) {
+            loaded = CrossReactivityTable.build(readRows(in));
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取交叉过敏分类表失败: " + (path != null ? path : BUILTIN_TABLE), e);
+        }
+        table = loaded;
+        synchronized (compiledByPatient) {
+            compiledByPatient.clear();
+        }
+        logger.info("交叉过敏分类表加载完成: {} 个分类, 来源 {}", loaded.size(),
+            path != null ? path : "classpath:" + BUILTIN_TABLE);
+        return loaded.size();
+    }
+
+    /**
+     * 筛查处方药品与患者过敏史的冲突
+     * @param allergies 患者过敏史（同一患者）
+     * @param prescriptionItems 处方项目
+     * @return 过敏风险，按处方项目、过敏史顺序，每个药品与每条过敏史最多一条
+     */
+    public List<AllergyRisk> screen(List<AllergyHistory> allergies, List<PrescriptionItem> prescriptionItems) {
+        List<AllergyRisk> risks = new ArrayList<>();
+        if (allergies == null || allergies.isEmpty() || prescriptionItems == null || prescriptionItems.isEmpty()) {
+            return risks;
+        }
+        CompiledAllergens compiled = compiledFor(allergies);
+        if (compiled.allergens.length == 0) {
+            return risks;
+        }
+        Map<Long, Medicine> medicines = loadMedicines(prescriptionItems);
+
+        int[] bestMatch = new int[compiled.allergens.length];
+        String[] matchedKeyword = new String[compiled.allergens.length];
+        String[] matchedClass = new String[compiled.allergens.length];
+        for (PrescriptionItem item : prescriptionItems) {
+            Arrays.fill(bestMatch, Integer.MAX_VALUE);
+            String text = scanText(item, medicines.get(item.getMedicineId()));
+            for (AhoCorasickMatcher.Match<Trigger[]> match : compiled.matcher.findAll(text)) {
+                for (Trigger trigger : match.getValue()) {
+                    if (trigger.match < bestMatch[trigger.allergy]) {
+                        bestMatch[trigger.allergy] = trigger.match;
+                        matchedKeyword[trigger.allergy] = match.getKeyword();
+                        matchedClass[trigger.allergy] = trigger.className;
+                    }
+                }
+            }
+            for (int i = 0; i < bestMatch.length; i++) {
+                if (bestMatch[i] != Integer.MAX_VALUE) {
+                    risks.add(new AllergyRisk(item.getMedicineName(), compiled.allergens[i], compiled.severities[i],
+                        describe(compiled.allergens[i], item.getMedicineName(), bestMatch[i],
+                            matchedKeyword[i], matchedClass[i])));
+                }
+            }
+        }
+        return risks;
+    }
+
+    /**
+     * 患者过敏史变化后移除其自动机（当前事务结束后再移除一次）
+     */
+    public void invalidatePatient(Long patientId) {
+        if (patientId == null) {
+            return;
+        }
+        removeCompiled(patientId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    removeCompiled(patientId);
+                }
+            });
+        }
+    }
+
+    int cachedPatients() {
+        synchronized (compiledByPatient) {
+            return compiledByPatient.size();
+        }
+    }
+
+    private void removeCompiled(Long patientId) {
+        synchronized (compiledByPatient) {
+            compiledByPatient.remove(patientId);
+        }
+    }
+
+    /**
+     * 获取过敏史对应的自动机：同一患者且指纹一致时复用缓存
+     */
+    private CompiledAllergens compiledFor(List<AllergyHistory> allergies) {
+        CrossReactivityTable current = ensureLoaded();
+        Long patientId = allergies.get(0).getPatientId();
+        for (AllergyHistory allergy : allergies) {
+            if (!Objects.equals(patientId, allergy.getPatientId())) {
+                patientId = null;
+                break;
+            }
+        }
+        long fingerprint = fingerprint(allergies);
+        if (patientId != null) {
+            synchronized (compiledByPatient) {
+                CompiledAllergens cached = compiledByPatient.get(patientId);
+                if (cached != null && cached.fingerprint == fingerprint && cached.table == current) {
+                    return cached;
+                }
+            }
+        }
+        CompiledAllergens compiled = CompiledAllergens.compile(allergies, current, fingerprint);
+        if (patientId != null) {
+            synchronized (compiledByPatient) {
+                compiledByPatient.put(patientId, compiled);
+            }
+        }
+        return compiled;
+    }
+
+    private CrossReactivityTable ensureLoaded() {
+        CrossReactivityTable current = table;
+        if (current == null) {
+            synchronized (this) {
+                if (table == null) {
+                    reload();
+                }
+                current = table;
+            }
+        }
+        return current;
+    }
+
+    private Map<Long, Medicine> loadMedicines(List<PrescriptionItem> prescriptionItems) {
+        Set<Long> medicineIds = prescriptionItems.stream()
+            .map(PrescriptionItem::getMedicineId)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (medicineIds.isEmpty()) {
+            return new HashMap<>();
+        }
+        return medicineMapper.selectBatchIds(medicineIds).stream()
+            .collect(Collectors.toMap(Medicine::getId, Function.identity(), (a, b) -> a));
+    }
+
+    /**
+     * 待扫描文本：处方中的药品名称，以及药品的名称、通用名和商品名，以换行分隔避免跨字段匹配
+     */
+    private static String scanText(PrescriptionItem item, Medicine medicine) {
+        StringBuilder text = new StringBuilder();
+        append(text, item.getMedicineName());
+        if (medicine != null) {
+            append(text, medicine.getName());
+            append(text, medicine.getGenericName());
+            append(text, medicine.getBrandName());
+        }
+        return DrugInteractionEngine.normalize(text.toString());
+    }
+
+    private static void append(StringBuilder text, String value) {
+        if (value != null && !value.isBlank()) {
+            text.append(value).append('\n');
+        }
+    }
+
+    private static String describe(String allergen, String medicineName, int match, String keyword, String className) {
+        switch (match) {
+            case MATCH_DIRECT:
+                return "患者对 " + allergen + " 过敏，使用 " + medicineName + " 可能有风险";
+            case MATCH_SAME_CLASS:
+                return "患者对 " + allergen + " 过敏，" + medicineName + " 含 " + keyword + "，同属" + className + "，可能有风险";
+            default:
+                return "患者对 " + allergen + " 过敏，" + medicineName + " 含 " + keyword + "（" + className
+                    + "），存在交叉过敏风险";
+        }
+    }
+
+    /**
+     * 过敏史指纹：ID、过敏原和严重程度
+     */
+    private static long fingerprint(List<AllergyHistory> allergies) {
+        long hash = allergies.size();
+        for (AllergyHistory allergy : allergies) {
+            hash = hash * 31 + Objects.hashCode(allergy.getId());
+            hash = hash * 31 + Objects.hashCode(allergy.getAllergen());
+            hash = hash * 31 + Objects.hashCode(allergy.getSeverity());
+        }
+        return hash;
+    }
+
+    private static List<String[]> readRows(InputStream in) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            CsvReader csv = new CsvReader(reader);
+            List<String> record;
+            boolean first = true;
+            while ((record = csv.readRecord()) != null) {
+                boolean header = first && "class_name".equalsIgnoreCase(record.get(0).strip());
+                first = false;
+                if (header || record.size() < 2 || record.get(0).isBlank() || record.get(0).strip().startsWith("#")) {
+                    continue;
+                }
+                rows.add(new String[] {record.get(0).strip(), record.get(1), record.size() > 2 ? record.get(2) : ""});
+            }
+        }
+        return rows;
+    }
+
+    private static List<String> splitTerms(String cell) {
+        List<String> terms = new ArrayList<>();
+        for (String term : cell.split("\\|")) {
+            String normalized = DrugInteractionEngine.normalize(term);
+            if (!normalized.isEmpty()) {
+                terms.add(normalized);
+            }
+        }
+        return terms;
+    }
+
+    private static final class Trigger {
+
+        private final int allergy;
+        private final int match;
+        private final String className;
+
+        Trigger(int allergy, int match, String className) {
+            this.allergy = allergy;
+            this.match = match;
+            this.className = className;
+        }
+    }
+
+    /**
+     * 某位患者的过敏原自动机，编译后只读
+     */
+    private static final class CompiledAllergens {
+
+        private final long fingerprint;
+        private final CrossReactivityTable table;
+        private final String[] allergens;
+        private final String[] severities;
+        private final AhoCorasickMatcher<Trigger[]> matcher;
+
+        private CompiledAllergens(long fingerprint, CrossReactivityTable table, String[] allergens,
+                                  String[] severities, AhoCorasickMatcher<Trigger[]> matcher) {
+            this.fingerprint = fingerprint;
+            this.table = table;
+            this.allergens = allergens;
+            this.severities = severities;
+            this.matcher = matcher;
+        }
+
+        static CompiledAllergens compile(List<AllergyHistory> allergies, CrossReactivityTable table, long fingerprint) {
+            List<String> allergens = new ArrayList<>();
+            List<String> severities = new ArrayList<>();
+            Map<String, List<Trigger>> keywords = new HashMap<>();
+            for (AllergyHistory allergy : allergies) {
+                String allergen = DrugInteractionEngine.normalize(allergy.getAllergen());
+                if (allergen.isEmpty()) {
+                    continue;
+                }
+                int index = allergens.size();
+                allergens.add(allergy.getAllergen().strip());
+                severities.add(allergy.getSeverity());
+
+                add(keywords, allergen, new Trigger(index, MATCH_DIRECT, null));
+                for (int classIndex : table.classesOf(allergen)) {
+                    for (String member : table.members[classIndex]) {
+                        add(keywords, member, new Trigger(index, MATCH_SAME_CLASS, table.names[classIndex]));
+                    }
+                    for (int cross : table.crossReactive[classIndex]) {
+                        for (String member : table.members[cross]) {
+                            add(keywords, member, new Trigger(index, MATCH_CROSS_CLASS, table.names[cross]));
+                        }
+                    }
+                }
+            }
+            Map<String, Trigger[]> dictionary = new HashMap<>(keywords.size() * 2);
+            keywords.forEach((keyword, triggers) -> dictionary.put(keyword, triggers.toArray(new Trigger[0])));
+            return new CompiledAllergens(fingerprint, table, allergens.toArray(new String[0]),
+                severities.toArray(new String[0]), AhoCorasickMatcher.build(dictionary));
+        }
+
+        private static void add(Map<String, List<Trigger>> keywords, String keyword, Trigger trigger) {
+            keywords.computeIfAbsent(keyword, k -> new ArrayList<>()).add(trigger);
+        }
+    }
+
+    /**
+     * 交叉过敏分类表，构建后只读
+     */
+    private static final class CrossReactivityTable {
+
+        private final String[] names;
+        private final List<String>[] members;
+        private final int[][] crossReactive;
+
+        /**
+         * 分类名和成员关键词 -> 分类下标，用于一次扫描过敏原文本找出所属分类
+         */
+        private final AhoCorasickMatcher<int[]> classMatcher;
+
+        @SuppressWarnings("unchecked")
+        private CrossReactivityTable(List<String[]> rows) {
+            names = new String[rows.size()];
+            members = new List[rows.size()];
+            crossReactive = new int[rows.size()][];
+            Map<String, Integer> indexByName = new HashMap<>();
+            for (int i = 0; i < rows.size(); i++) {
+                names[i] = rows.get(i)[0];
+                members[i] = splitTerms(rows.get(i)[1]);
+                indexByName.put(DrugInteractionEngine.normalize(names[i]), i);
+            }
+
+            Map<String, Set<Integer>> classesByTerm = new HashMap<>();
+            for (int i = 0; i < rows.size(); i++) {
+                Set<Integer> cross = new LinkedHashSet<>();
+                for (String name : splitTerms(rows.get(i)[2])) {
+                    Integer index = indexByName.get(name);
+                    if (index == null) {
+                        logger.warn("交叉过敏分类 {} 引用了不存在的分类 {}", names[i], name);
+                    } else if (index != i) {
+                        cross.add(index);
+                    }
+                }
+                crossReactive[i] = cross.stream().mapToInt(Integer::intValue).toArray();
+
+                classesByTerm.computeIfAbsent(DrugInteractionEngine.normalize(names[i]), t -> new LinkedHashSet<>()).add(i);
+                for (String member : members[i]) {
+                    classesByTerm.computeIfAbsent(member, t -> new LinkedHashSet<>()).add(i);
+                }
+            }
+            Map<String, int[]> dictionary = new HashMap<>(classesByTerm.size() * 2);
+            classesByTerm.forEach((term, classes) ->
+                dictionary.put(term, classes.stream().mapToInt(Integer::intValue).toArray()));
+            classMatcher = AhoCorasickMatcher.build(dictionary);
+        }
+
+        static CrossReactivityTable build(List<String[]> rows) {
+            return new CrossReactivityTable(rows);
+        }
+
+        int size() {
+            return names.length;
+        }
+
+        /**
+         * 过敏原所属的分类（过敏原文本包含分类名或成员关键词）
+         */
+        Set<Integer> classesOf(String normalizedAllergen) {
+            Set<Integer> classes = new LinkedHashSet<>();
+            for (AhoCorasickMatcher.Match<int[]> match : classMatcher.findAll(normalizedAllergen)) {
+                for (int index : match.getValue()) {
+                    classes.add(index);
+                }
+            }
+            return classes;
+        }
+    }
+}
@@ -0,0 +1,473 @@
+package org.me.joy.clinic.pharmacy;
+
+import org.me.joy.clinic.entity.Medicine;
+import org.me.joy.clinic.entity.PrescriptionItem;
+import org.me.joy.clinic.mapper.MedicineMapper;
+import org.me.joy.clinic.service.PrescriptionValidationService.DrugInteractionResult.DrugInteraction;
+import org.me.joy.clinic.util.AhoCorasickMatcher;
+import org.me.joy.clinic.util.CsvReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 药物相互作用知识库
+ * 从本地 CSV 文件（未配置时使用内置表）加载 成分A,成分B,严重程度,建议，成分列可用 "|" 分隔别名。
+ * 每个成分分配一个整数ID，成分对按 (较小ID << 32 | 较大ID) 打包为 long 存入开放寻址哈希表；
+ * 药品按通用名和名称一次解析出成分ID并缓存，检查 N 个药品只需 N²/2 组成分对的整数查找。
+ * 文件修改后自动重新加载，新快照构建完成后整体替换，检查不加锁。
+ */
+@Component
+public class DrugInteractionEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(DrugInteractionEngine.class);
+
+    static final String BUILTIN_TABLE = "dictionary/drug-interactions.csv";
+
+    static final String INTERACTION_TYPE = "药物相互作用";
+
+    private static final int[] NO_INGREDIENTS = new int[0];
+
+    @Autowired
+    private MedicineMapper medicineMapper;
+
+    /**
+     * 相互作用表路径，为空时使用内置表
+     */
+    @Value("${clinic.pharmacy.drug-interactions.path:}")
+    private String tablePath = "";
+
+    /**
+     * 最多缓存多少个药品的成分解析结果，超出后清空重建
+     */
+    @Value("${clinic.pharmacy.drug-interactions.max-cached-medicines:20000}")
+    private int maxCachedMedicines = 20000;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * 当前快照对应的文件修改时间，用于检测文件变化
+     */
+    private volatile long loadedModifiedAt = -1L;
+
+    /**
+     * 应用启动完成后加载相互作用表
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            logger.error("加载药物相互作用表失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 定时检查文件是否修改，修改后重新加载；加载失败时保留旧快照
+     */
+    @Scheduled(fixedDelayString = "${clinic.pharmacy.drug-interactions.reload-check-interval-ms:30000}")
+    public void reloadIfChanged() {
+        Path path = configuredPath();
+        if (path == null || !Files.isRegularFile(path)) {
+            return;
+        }
+        try {
+            if (Files.getLastModifiedTime(path).toMillis() != loadedModifiedAt) {
+                reload();
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("重新加载药物相互作用表失败，继续使用旧数据: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 重新加载相互作用表并替换快照，药品成分缓存随快照重建
+     * @return 相互作用条目数量
+     */
+    public synchronized int reload() {
+        long startedAt = System.currentTimeMillis();
+        Path path = configuredPath();
+        Snapshot loaded;
+        long modifiedAt;
+        try {
+            if (path != null) {
+                modifiedAt = Files.getLastModifiedTime(path).toMillis();
+                try (InputStream in = Files.newInputStream(path)) {
+                    loaded = Snapshot.build(readRows(in));
+                }
+            } else {
+                modifiedAt = -1L;
+                try (InputStream in = new ClassPathResource(BUILTIN_TABLE).getInputStream()) {
+                    loaded = Snapshot.build(readRows(in));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取药物相互作用表失败: " + (path != null ? path : BUILTIN_TABLE), e);
+        }
+        snapshot = loaded;
+        loadedModifiedAt = modifiedAt;
+        logger.info("药物相互作用表加载完成: {} 条, {} 种成分, 来源 {}, 耗时 {} ms", loaded.size(),
+            loaded.ingredientNames.length - 1, path != null ? path : "classpath:" + BUILTIN_TABLE,
+            System.currentTimeMillis() - startedAt);
+        return loaded.size();
+    }
+
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    public int size() {
+        Snapshot current = snapshot;
+        return current != null ? current.size() : 0;
+    }
+
+    /**
+     * 检查处方项目两两之间的相互作用
+     * @param prescriptionItems 处方项目
+     * @return 相互作用列表，按处方项目顺序
+     */
+    public List<DrugInteraction> findInteractions(List<PrescriptionItem> prescriptionItems) {
+        List<DrugInteraction> interactions = new ArrayList<>();
+        if (prescriptionItems == null || prescriptionItems.size() < 2) {
+            return interactions;
+        }
+        Snapshot current = ensureLoaded();
+        int[][] ingredients = resolve(current, prescriptionItems);
+
+        for (int i = 0; i < ingredients.length; i++) {
+            for (int j = i + 1; j < ingredients.length; j++) {
+                for (int a : ingredients[i]) {
+                    for (int b : ingredients[j]) {
+                        int rule = current.find(a, b);
+                        if (rule >= 0) {
+                            interactions.add(current.toInteraction(rule,
+                                prescriptionItems.get(i).getMedicineName(), prescriptionItems.get(j).getMedicineName()));
+                        }
+                    }
+                }
+            }
+        }
+        return interactions;
+    }
+
+    /**
+     * 药品名称或通用名修改后移除其成分缓存（当前事务结束后再移除一次）
+     */
+    public void invalidateMedicine(Long medicineId) {
+        if (medicineId == null) {
+            return;
+        }
+        removeCached(medicineId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    removeCached(medicineId);
+                }
+            });
+        }
+    }
+
+    private void removeCached(Long medicineId) {
+        Snapshot current = snapshot;
+        if (current != null) {
+            current.ingredientsByMedicine.remove(medicineId);
+        }
+    }
+
+    private Snapshot ensureLoaded() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    reload();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 解析各处方项目的成分ID：缓存未命中的药品一次批量查询，查不到药品时按处方中的药品名称解析且不缓存
+     */
+    private int[][] resolve(Snapshot current, List<PrescriptionItem> prescriptionItems) {
+        int[][] ingredients = new int[prescriptionItems.size()][];
+        Set<Long> missing = new LinkedHashSet<>();
+        for (int i = 0; i < ingredients.length; i++) {
+            Long medicineId = prescriptionItems.get(i).getMedicineId();
+            if (medicineId != null) {
+                ingredients[i] = current.ingredientsByMedicine.get(medicineId);
+                if (ingredients[i] == null) {
+                    missing.add(medicineId);
+                }
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            if (current.ingredientsByMedicine.size() + missing.size() > maxCachedMedicines) {
+                current.ingredientsByMedicine.clear();
+            }
+            for (Medicine medicine : medicineMapper.selectBatchIds(missing)) {
+                current.ingredientsByMedicine.put(medicine.getId(),
+                    current.resolveIngredients(medicine.getGenericName(), medicine.getName()));
+            }
+        }
+
+        for (int i = 0; i < ingredients.length; i++) {
+            if (ingredients[i] == null) {
+                PrescriptionItem item = prescriptionItems.get(i);
+                int[] cached = item.getMedicineId() != null
+                    ? current.ingredientsByMedicine.get(item.getMedicineId()) : null;
+                ingredients[i] = cached != null ? cached : current.resolveIngredients(item.getMedicineName());
+            }
+        }
+        return ingredients;
+    }
+
+    private Path configuredPath() {
+        return tablePath == null || tablePath.isBlank() ? null : Paths.get(tablePath.trim());
+    }
+
+    private static List<String[]> readRows(InputStream in) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        int skipped = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            CsvReader csv = new CsvReader(reader);
+            List<String> record;
+            boolean first = true;
+            while ((record = csv.readRecord()) != null) {
+                boolean header = first && !record.isEmpty() && "ingredient_a".equalsIgnoreCase(record.get(0).strip());
+                first = false;
+                if (header || record.isEmpty() || record.get(0).strip().isEmpty()
+                        || record.get(0).strip().startsWith("#")) {
+                    continue;
+                }
+                if (record.size() < 4 || record.get(1).isBlank()) {
+                    skipped++;
+                    continue;
+                }
+                rows.add(new String[] {record.get(0), record.get(1), record.get(2).strip(), record.get(3).strip()});
+            }
+        }
+        if (skipped > 0) {
+            logger.warn("药物相互作用表中有 {} 行格式不正确，已跳过", skipped);
+        }
+        return rows;
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : Normalizer.normalize(text, Normalizer.Form.NFKC).strip().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 成分对打包为 long，较小的ID在高32位，(a, b) 与 (b, a) 得到相同的键
+     */
+    static long pairKey(int a, int b) {
+        return a < b ? ((long) a << 32) | b : ((long) b << 32) | a;
+    }
+
+    /**
+     * 相互作用表快照，构建后只读（药品成分缓存除外）
+     */
+    private static final class Snapshot {
+
+        /**
+         * 成分ID -> 成分名称（别名中的第一个），下标0不使用
+         */
+        private final String[] ingredientNames;
+        private final AhoCorasickMatcher<Integer> ingredientMatcher;
+        private final PairIndex pairs;
+        private final String[] severities;
+        private final String[] advice;
+        private final int[][] rulePairs;
+
+        /**
+         * 药品ID -> 成分ID（升序）
+         */
+        private final Map<Long, int[]> ingredientsByMedicine = new ConcurrentHashMap<>();
+
+        private Snapshot(String[] ingredientNames, Map<String, Integer> idByName, List<int[]> rulePairs,
+                         List<String> severities, List<String> advice, PairIndex pairs) {
+            this.ingredientNames = ingredientNames;
+            this.ingredientMatcher = AhoCorasickMatcher.build(idByName);
+            this.rulePairs = rulePairs.toArray(new int[0][]);
+            this.severities = severities.toArray(new String[0]);
+            this.advice = advice.toArray(new String[0]);
+            this.pairs = pairs;
+        }
+
+        static Snapshot build(List<String[]> rows) {
+            Map<String, Integer> idByName = new HashMap<>();
+            List<String> names = new ArrayList<>();
+            names.add(null);
+            Map<Long, Integer> ruleByPair = new HashMap<>();
+            List<int[]> rulePairs = new ArrayList<>();
+            List<String> severities = new ArrayList<>();
+            List<String> advice = new ArrayList<>();
+
+            for (String[] row : rows) {
+                int a = intern(row[0], idByName, names);
+                int b = intern(row[1], idByName, names);
+                if (a == 0 || b == 0 || a == b) {
+                    continue;
+                }
+                // 同一成分对重复出现时以后出现的为准
+                Integer existing = ruleByPair.get(pairKey(a, b));
+                if (existing != null) {
+                    severities.set(existing, row[2]);
+                    advice.set(existing, row[3]);
+                    continue;
+                }
+                ruleByPair.put(pairKey(a, b), rulePairs.size());
+                rulePairs.add(new int[] {a, b});
+                severities.add(row[2]);
+                advice.add(row[3]);
+            }
+
+            PairIndex pairs = new PairIndex(ruleByPair.size());
+            ruleByPair.forEach(pairs::put);
+            return new Snapshot(names.toArray(new String[0]), idByName, rulePairs, severities, advice, pairs);
+        }
+
+        /**
+         * 为成分列（别名以 "|" 分隔）分配ID，任一别名已存在时沿用其ID
+         */
+        private static int intern(String cell, Map<String, Integer> idByName, List<String> names) {
+            List<String> aliases = new ArrayList<>();
+            for (String alias : cell.split("\\|")) {
+                String normalized = normalize(alias);
+                if (!normalized.isEmpty()) {
+                    aliases.add(normalized);
+                }
+            }
+            if (aliases.isEmpty()) {
+                return 0;
+            }
+            Integer id = null;
+            for (String alias : aliases) {
+                id = idByName.get(alias);
+                if (id != null) {
+                    break;
+                }
+            }
+            if (id == null) {
+                id = names.size();
+                names.add(cell.split("\\|")[0].strip());
+            }
+            for (String alias : aliases) {
+                idByName.putIfAbsent(alias, id);
+            }
+            return id;
+        }
+
+        int size() {
+            return rulePairs.length;
+        }
+
+        int find(int a, int b) {
+            return a == b ? -1 : pairs.get(pairKey(a, b));
+        }
+
+        /**
+         * 在文本中查找成分名称，重叠时取最左最长的匹配（"氨茶碱" 不再额外匹配 "茶碱"）
+         */
+        int[] resolveIngredients(String... texts) {
+            Set<Integer> ids = new LinkedHashSet<>();
+            for (String text : texts) {
+                int end = 0;
+                for (AhoCorasickMatcher.Match<Integer> match : ingredientMatcher.findAll(normalize(text))) {
+                    if (match.getStart() >= end) {
+                        ids.add(match.getValue());
+                        end = match.getEnd();
+                    }
+                }
+            }
+            if (ids.isEmpty()) {
+                return NO_INGREDIENTS;
+            }
+            int[] result = ids.stream().mapToInt(Integer::intValue).toArray();
+            Arrays.sort(result);
+            return result;
+        }
+
+        DrugInteraction toInteraction(int rule, String drug1, String drug2) {
+            int[] pair = rulePairs[rule];
+            String description = ingredientNames[pair[0]] + " 与 " + ingredientNames[pair[1]] + "：" + advice[rule];
+            return new DrugInteraction(drug1, drug2, INTERACTION_TYPE, severities[rule], description);
+        }
+    }
+
+    /**
+     * long 键到非负整数值的开放寻址哈希表（线性探测），键 0 表示空槽
+     */
+    static final class PairIndex {
+
+        private final long[] keys;
+        private final int[] values;
+        private final int mask;
+
+        PairIndex(int expectedSize) {
+            int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+            keys = new long[capacity];
+            values = new int[capacity];
+            mask = capacity - 1;
+        }
+
+        void put(long key, int value) {
+            int slot = slot(key);
+            while (keys[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+        }
+
+        /**
+         * @return 键对应的值，不存在时返回 -1
+         */
+        int get(long key) {
+            int slot = slot(key);
+            while (keys[slot] != 0) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        private int slot(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+}
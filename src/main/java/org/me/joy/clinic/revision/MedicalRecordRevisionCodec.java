@@ -0,0 +1,329 @@
+package org.me.joy.clinic.revision;
+
+import org.me.joy.clinic.entity.MedicalRecord;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * 病历修订记录编解码
+ * 编码格式：格式版本(1字节) + 变更字段位图(varint) + 按字段顺序排列的值。
+ * 文本值为 null、完整内容，或相对上一版本的编辑（保留的公共前缀长度、公共后缀长度、中间替换内容），取较短者；
+ * 追加或局部修改长文本时只记录改动部分。快照为全部字段的完整内容，不依赖上一版本。
+ * 字段下标写入了已有数据，新增字段只能追加到列表末尾。
+ */
+public final class MedicalRecordRevisionCodec {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int VALUE_NULL = 0;
+    private static final int VALUE_FULL = 1;
+    private static final int VALUE_EDIT = 2;
+    private static final int VALUE_FALSE = 3;
+    private static final int VALUE_TRUE = 4;
+
+    private static final List<Field> FIELDS = Collections.unmodifiableList(Arrays.asList(
+        text("chiefComplaint", MedicalRecord::getChiefComplaint, MedicalRecord::setChiefComplaint),
+        text("presentIllness", MedicalRecord::getPresentIllness, MedicalRecord::setPresentIllness),
+        text("pastHistory", MedicalRecord::getPastHistory, MedicalRecord::setPastHistory),
+        text("personalHistory", MedicalRecord::getPersonalHistory, MedicalRecord::setPersonalHistory),
+        text("familyHistory", MedicalRecord::getFamilyHistory, MedicalRecord::setFamilyHistory),
+        text("physicalExamination", MedicalRecord::getPhysicalExamination, MedicalRecord::setPhysicalExamination),
+        text("auxiliaryExamination", MedicalRecord::getAuxiliaryExamination, MedicalRecord::setAuxiliaryExamination),
+        text("preliminaryDiagnosis", MedicalRecord::getPreliminaryDiagnosis, MedicalRecord::setPreliminaryDiagnosis),
+        text("finalDiagnosis", MedicalRecord::getFinalDiagnosis, MedicalRecord::setFinalDiagnosis),
+        text("treatmentPlan", MedicalRecord::getTreatmentPlan, MedicalRecord::setTreatmentPlan),
+        text("medicalOrders", MedicalRecord::getMedicalOrders, MedicalRecord::setMedicalOrders),
+        text("conditionAssessment", MedicalRecord::getConditionAssessment, MedicalRecord::setConditionAssessment),
+        text("prognosis", MedicalRecord::getPrognosis, MedicalRecord::setPrognosis),
+        text("followUpAdvice", MedicalRecord::getFollowUpAdvice, MedicalRecord::setFollowUpAdvice),
+        text("department", MedicalRecord::getDepartment, MedicalRecord::setDepartment),
+        flag("isInfectious", MedicalRecord::getIsInfectious, MedicalRecord::setIsInfectious),
+        flag("isChronicDisease", MedicalRecord::getIsChronicDisease, MedicalRecord::setIsChronicDisease),
+        text("remarks", MedicalRecord::getRemarks, MedicalRecord::setRemarks)
+    ));
+
+    private MedicalRecordRevisionCodec() {
+    }
+
+    /**
+     * 编码完整快照
+     */
+    public static byte[] encodeSnapshot(MedicalRecord record) {
+        Output out = new Output();
+        out.write(FORMAT_VERSION);
+        out.writeVarLong((1L << FIELDS.size()) - 1);
+        for (Field field : FIELDS) {
+            writeValue(out, field, null, field.getter.apply(record), false);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 编码两个版本之间的增量
+     * @return 增量，没有字段变化时返回 null
+     */
+    public static byte[] encodeDelta(MedicalRecord before, MedicalRecord after) {
+        long mask = changedMask(before, after);
+        if (mask == 0) {
+            return null;
+        }
+        Output out = new Output();
+        out.write(FORMAT_VERSION);
+        out.writeVarLong(mask);
+        for (int i = 0; i < FIELDS.size(); i++) {
+            if ((mask & (1L << i)) != 0) {
+                Field field = FIELDS.get(i);
+                writeValue(out, field, field.getter.apply(before), field.getter.apply(after), true);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 两个版本之间变化的字段名，按字段顺序
+     */
+    public static List<String> changedFields(MedicalRecord before, MedicalRecord after) {
+        long mask = changedMask(before, after);
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < FIELDS.size(); i++) {
+            if ((mask & (1L << i)) != 0) {
+                names.add(FIELDS.get(i).name);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * 将快照或增量应用到病历上；增量中的文本编辑以病历当前字段值为上一版本
+     * @throws IllegalArgumentException 编码内容与上一版本不匹配或已损坏
+     */
+    public static void apply(byte[] payload, MedicalRecord target) {
+        Input in = new Input(payload);
+        int version = in.read();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("不支持的修订记录格式: " + version);
+        }
+        long mask = in.readVarLong();
+        if ((mask >>> FIELDS.size()) != 0) {
+            throw new IllegalArgumentException("修订记录包含未知字段");
+        }
+        for (int i = 0; i < FIELDS.size(); i++) {
+            if ((mask & (1L << i)) != 0) {
+                Field field = FIELDS.get(i);
+                field.setter.accept(target, readValue(in, field.getter.apply(target)));
+            }
+        }
+        if (in.remaining() != 0) {
+            throw new IllegalArgumentException("修订记录末尾有多余数据");
+        }
+    }
+
+    private static long changedMask(MedicalRecord before, MedicalRecord after) {
+        long mask = 0;
+        for (int i = 0; i < FIELDS.size(); i++) {
+            Field field = FIELDS.get(i);
+            if (!Objects.equals(field.getter.apply(before), field.getter.apply(after))) {
+                mask |= 1L << i;
+            }
+        }
+        return mask;
+    }
+
+    private static void writeValue(Output out, Field field, Object before, Object after, boolean allowEdit) {
+        if (after == null) {
+            out.write(VALUE_NULL);
+        } else if (!field.text) {
+            out.write((Boolean) after ? VALUE_TRUE : VALUE_FALSE);
+        } else {
+            writeText(out, allowEdit ? (String) before : null, (String) after);
+        }
+    }
+
+    private static void writeText(Output out, String before, String after) {
+        byte[] full = after.getBytes(StandardCharsets.UTF_8);
+        if (before != null) {
+            int prefix = commonPrefix(before, after);
+            int suffix = commonSuffix(before, after, prefix);
+            byte[] middle = after.substring(prefix, after.length() - suffix).getBytes(StandardCharsets.UTF_8);
+            int editSize = varIntSize(prefix) + varIntSize(suffix) + varIntSize(middle.length) + middle.length;
+            if (editSize < varIntSize(full.length) + full.length) {
+                out.write(VALUE_EDIT);
+                out.writeVarLong(prefix);
+                out.writeVarLong(suffix);
+                out.writeLengthPrefixed(middle);
+                return;
+            }
+        }
+        out.write(VALUE_FULL);
+        out.writeLengthPrefixed(full);
+    }
+
+    private static Object readValue(Input in, Object previous) {
+        int tag = in.read();
+        switch (tag) {
+            case VALUE_NULL:
+                return null;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FULL:
+                return in.readString();
+            case VALUE_EDIT:
+                int prefix = in.readVarInt();
+                int suffix = in.readVarInt();
+                String middle = in.readString();
+                if (!(previous instanceof String) || prefix + suffix > ((String) previous).length()) {
+                    throw new IllegalArgumentException("修订记录与上一版本不匹配");
+                }
+                String base = (String) previous;
+                return base.substring(0, prefix) + middle + base.substring(base.length() - suffix);
+            default:
+                throw new IllegalArgumentException("未知的字段值类型: " + tag);
+        }
+    }
+
+    /**
+     * 公共前缀长度（UTF-16 单元），不拆分代理对
+     */
+    private static int commonPrefix(String before, String after) {
+        int max = Math.min(before.length(), after.length());
+        int prefix = 0;
+        while (prefix < max && before.charAt(prefix) == after.charAt(prefix)) {
+            prefix++;
+        }
+        if (prefix > 0 && Character.isHighSurrogate(after.charAt(prefix - 1))) {
+            prefix--;
+        }
+        return prefix;
+    }
+
+    /**
+     * 公共后缀长度，不与前缀重叠且不拆分代理对
+     */
+    private static int commonSuffix(String before, String after, int prefix) {
+        int max = Math.min(before.length(), after.length()) - prefix;
+        int suffix = 0;
+        while (suffix < max
+                && before.charAt(before.length() - 1 - suffix) == after.charAt(after.length() - 1 - suffix)) {
+            suffix++;
+        }
+        if (suffix > 0 && Character.isLowSurrogate(after.charAt(after.length() - suffix))) {
+            suffix--;
+        }
+        return suffix;
+    }
+
+    private static int varIntSize(long value) {
+        int size = 1;
+        while ((value >>>= 7) != 0) {
+            size++;
+        }
+        return size;
+    }
+
+    private static Field text(String name, Function<MedicalRecord, String> getter,
+                              BiConsumer<MedicalRecord, String> setter) {
+        return new Field(name, true, getter::apply, (record, value) -> setter.accept(record, (String) value));
+    }
+
+    private static Field flag(String name, Function<MedicalRecord, Boolean> getter,
+                              BiConsumer<MedicalRecord, Boolean> setter) {
+        return new Field(name, false, getter::apply, (record, value) -> setter.accept(record, (Boolean) value));
+    }
+
+    private static final class Field {
+
+        private final String name;
+        private final boolean text;
+        private final Function<MedicalRecord, Object> getter;
+        private final BiConsumer<MedicalRecord, Object> setter;
+
+        Field(String name, boolean text, Function<MedicalRecord, Object> getter,
+              BiConsumer<MedicalRecord, Object> setter) {
+            this.name = name;
+            this.text = text;
+            this.getter = getter;
+            this.setter = setter;
+        }
+    }
+
+    private static final class Output extends ByteArrayOutputStream {
+
+        Output() {
+            super(64);
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeLengthPrefixed(byte[] bytes) {
+            writeVarLong(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+    }
+
+    private static final class Input {
+
+        private final byte[] data;
+        private int position;
+
+        Input(byte[] data) {
+            this.data = data;
+        }
+
+        int read() {
+            if (position >= data.length) {
+                throw new IllegalArgumentException("修订记录数据不完整");
+            }
+            return data[position++] & 0xFF;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = read();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("修订记录数据损坏");
+        }
+
+        int readVarInt() {
+            long value = readVarLong();
+            if (value < 0 || value > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("修订记录数据损坏");
+            }
+            return (int) value;
+        }
+
+        String readString() {
+            int length = readVarInt();
+            if (length > remaining()) {
+                throw new IllegalArgumentException("修订记录数据不完整");
+            }
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        int remaining() {
+            return data.length - position;
+        }
+    }
+}
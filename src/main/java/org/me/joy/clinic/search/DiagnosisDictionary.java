@@ -0,0 +1,509 @@
+package org.me.joy.clinic.search;
+
+import org.me.joy.clinic.dto.DiagnosisCodeSuggestion;
+import org.me.joy.clinic.mapper.DiagnosisMapper;
+import org.me.joy.clinic.util.PinyinUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * ICD-10 诊断编码字典
+ * 从本地文件（未配置时使用内置字典）加载编码和名称，构建不可变快照：
+ * 编码前缀和名称拼音首字母（含各后缀）各一棵字典树，名称按单字/双字建倒排表支持子串查询。
+ * 查询完全在内存中完成，结果按当前医生使用该编码的历史次数排序，其次按匹配程度。
+ * 字典文件修改后自动重新加载，新快照构建完成后整体替换，查询不加锁。
+ */
+@Component
+public class DiagnosisDictionary {
+
+    private static final Logger logger = LoggerFactory.getLogger(DiagnosisDictionary.class);
+
+    static final String BUILTIN_DICTIONARY = "dictionary/icd10.tsv";
+
+    /**
+     * 每种匹配方式最多取的候选数量，排序前合并
+     */
+    private static final int CANDIDATE_LIMIT = 200;
+
+    private static final Pattern CODE_QUERY = Pattern.compile("[a-z0-9]+");
+
+    private static final Pattern LETTERS = Pattern.compile("[a-z]+");
+
+    // 匹配程度，数值越小越靠前
+    private static final int MATCH_CODE_EXACT = 0;
+    private static final int MATCH_CODE_PREFIX = 1;
+    private static final int MATCH_NAME_PREFIX = 2;
+    private static final int MATCH_INITIALS_PREFIX = 3;
+    private static final int MATCH_NAME_CONTAINS = 4;
+    private static final int MATCH_INITIALS_CONTAINS = 5;
+    private static final int NO_MATCH = -1;
+
+    @Autowired
+    private DiagnosisMapper diagnosisMapper;
+
+    /**
+     * 字典文件路径（每行 编码<TAB>名称），为空时使用内置字典
+     */
+    @Value("${clinic.search.diagnosis-dictionary.path:}")
+    private String dictionaryPath = "";
+
+    /**
+     * 医生编码使用次数的缓存时间
+     */
+    @Value("${clinic.search.diagnosis-dictionary.usage-ttl-seconds:600}")
+    private long usageTtlSeconds = 600;
+
+    /**
+     * 最多缓存多少名医生的编码使用次数
+     */
+    @Value("${clinic.search.diagnosis-dictionary.usage-max-doctors:1000}")
+    private int usageMaxDoctors = 1000;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    /**
+     * 当前快照对应的字典文件修改时间，用于检测文件变化
+     */
+    private volatile long loadedModifiedAt = -1L;
+
+    private final Map<Long, Usage> usageByDoctor = new LinkedHashMap<Long, Usage>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Usage> eldest) {
+            return size() > usageMaxDoctors;
+        }
+    };
+
+    /**
+     * 应用启动完成后加载字典
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            logger.error("加载诊断编码字典失败，诊断编码联想不可用: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 定时检查字典文件是否修改，修改后重新加载；加载失败时保留旧快照
+     */
+    @Scheduled(fixedDelayString = "${clinic.search.diagnosis-dictionary.reload-check-interval-ms:30000}")
+    public void reloadIfChanged() {
+        Path path = configuredPath();
+        if (path == null || !Files.isRegularFile(path)) {
+            return;
+        }
+        try {
+            if (Files.getLastModifiedTime(path).toMillis() != loadedModifiedAt) {
+                reload();
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("重新加载诊断编码字典失败，继续使用旧字典: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 重新加载字典并替换快照
+     * @return 字典条目数量
+     */
+    public synchronized int reload() {
+        long startedAt = System.currentTimeMillis();
+        Path path = configuredPath();
+        Snapshot loaded;
+        long modifiedAt;
+        try {
+            if (path != null) {
+                modifiedAt = Files.getLastModifiedTime(path).toMillis();
+                try (InputStream in = Files.newInputStream(path)) {
+                    loaded = Snapshot.build(readEntries(in));
+                }
+            } else {
+                modifiedAt = -1L;
+                try (InputStream in = new ClassPathResource(BUILTIN_DICTIONARY).getInputStream()) {
+                    loaded = Snapshot.build(readEntries(in));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取诊断编码字典失败: " + (path != null ? path : BUILTIN_DICTIONARY), e);
+        }
+        snapshot = loaded;
+        loadedModifiedAt = modifiedAt;
+        logger.info("诊断编码字典加载完成: {} 条, 来源 {}, 耗时 {} ms", loaded.size(),
+            path != null ? path : "classpath:" + BUILTIN_DICTIONARY, System.currentTimeMillis() - startedAt);
+        return loaded.size();
+    }
+
+    public boolean isReady() {
+        return snapshot.size() > 0;
+    }
+
+    public int size() {
+        return snapshot.size();
+    }
+
+    /**
+     * 按编码前缀、名称子串或名称拼音首字母前缀联想诊断编码
+     * @param query 查询词（如 "J06"、"j06.9"、"感染"、"gxy"）
+     * @param doctorId 当前医生ID，为空时不按使用次数排序
+     * @param limit 最多返回数量
+     * @return 按使用次数、匹配程度、编码排序的结果
+     */
+    public List<DiagnosisCodeSuggestion> search(String query, Long doctorId, int limit) {
+        Snapshot current = snapshot;
+        String text = normalize(query);
+        if (text.isEmpty() || limit <= 0 || current.size() == 0) {
+            return new ArrayList<>();
+        }
+        String code = normalizeCode(text);
+
+        Set<Integer> candidates = new LinkedHashSet<>();
+        if (CODE_QUERY.matcher(code).matches()) {
+            addAll(candidates, current.codes.prefixSearch(code, CANDIDATE_LIMIT));
+            if (LETTERS.matcher(text).matches()) {
+                addAll(candidates, current.initials.prefixSearch(text, CANDIDATE_LIMIT));
+            }
+        }
+        current.collectNameMatches(text, candidates);
+
+        // 医生常用编码即使不在候选上限内也参与排序
+        Map<String, Integer> usage = doctorId != null ? usageOf(doctorId) : Collections.emptyMap();
+        for (String usedCode : usage.keySet()) {
+            Integer index = current.indexByCode.get(usedCode);
+            if (index != null) {
+                candidates.add(index);
+            }
+        }
+
+        List<int[]> ranked = new ArrayList<>(candidates.size());
+        for (int index : candidates) {
+            int match = current.match(index, text, code);
+            if (match != NO_MATCH) {
+                ranked.add(new int[] {index, match, usage.getOrDefault(current.codeKeys[index], 0)});
+            }
+        }
+        ranked.sort(Comparator.<int[]>comparingInt(r -> -r[2])
+            .thenComparingInt(r -> r[1])
+            .thenComparing(r -> current.codeKeys[r[0]]));
+
+        List<DiagnosisCodeSuggestion> result = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (int i = 0; i < ranked.size() && i < limit; i++) {
+            int index = ranked.get(i)[0];
+            result.add(new DiagnosisCodeSuggestion(current.displayCodes[index], current.names[index], ranked.get(i)[2]));
+        }
+        return result;
+    }
+
+    /**
+     * 诊断保存后累加医生的编码使用次数（事务提交后生效），只更新已缓存的医生
+     */
+    public void recordUsage(Long doctorId, String diagnosisCode) {
+        if (doctorId == null || diagnosisCode == null || diagnosisCode.isBlank()) {
+            return;
+        }
+        String code = normalizeCode(normalize(diagnosisCode));
+        afterCommit(() -> {
+            Usage usage;
+            synchronized (usageByDoctor) {
+                usage = usageByDoctor.get(doctorId);
+            }
+            if (usage != null) {
+                usage.counts.merge(code, 1, Integer::sum);
+            }
+        });
+    }
+
+    /**
+     * 诊断修改或删除后使医生的编码使用次数缓存失效（事务提交后生效），下次搜索时从数据库重新统计
+     */
+    public void invalidateUsage(Long doctorId) {
+        if (doctorId == null) {
+            return;
+        }
+        afterCommit(() -> {
+            synchronized (usageByDoctor) {
+                usageByDoctor.remove(doctorId);
+            }
+        });
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * 获取医生的编码使用次数，缓存未命中或过期时从数据库加载
+     */
+    private Map<String, Integer> usageOf(Long doctorId) {
+        long now = System.nanoTime();
+        synchronized (usageByDoctor) {
+            Usage cached = usageByDoctor.get(doctorId);
+            if (cached != null && now < cached.expiresAt) {
+                return cached.counts;
+            }
+        }
+        Map<String, Integer> counts = new ConcurrentHashMap<>();
+        for (Map<String, Object> row : diagnosisMapper.countCodesByDoctor(doctorId)) {
+            Object code = row.get("diagnosis_code");
+            Object count = row.get("count");
+            if (code != null && count instanceof Number) {
+                counts.merge(normalizeCode(normalize(code.toString())), ((Number) count).intValue(), Integer::sum);
+            }
+        }
+        synchronized (usageByDoctor) {
+            usageByDoctor.put(doctorId, new Usage(counts, now + TimeUnit.SECONDS.toNanos(usageTtlSeconds)));
+        }
+        return counts;
+    }
+
+    private Path configuredPath() {
+        return dictionaryPath == null || dictionaryPath.isBlank() ? null : Paths.get(dictionaryPath.trim());
+    }
+
+    private static List<String[]> readEntries(InputStream in) throws IOException {
+        List<String[]> entries = new ArrayList<>();
+        int skipped = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String trimmed = line.strip();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                    continue;
+                }
+                int tab = trimmed.indexOf('\t');
+                if (tab <= 0 || tab == trimmed.length() - 1) {
+                    skipped++;
+                    continue;
+                }
+                entries.add(new String[] {trimmed.substring(0, tab).strip(), trimmed.substring(tab + 1).strip()});
+            }
+        }
+        if (skipped > 0) {
+            logger.warn("诊断编码字典中有 {} 行格式不正确，已跳过", skipped);
+        }
+        return entries;
+    }
+
+    private static void addAll(Set<Integer> candidates, List<Long> ids) {
+        for (Long id : ids) {
+            candidates.add(id.intValue());
+        }
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : Normalizer.normalize(text, Normalizer.Form.NFKC).strip().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 编码统一为小写并去掉小数点和空白，"J06.9" 与 "j069" 视为相同
+     */
+    static String normalizeCode(String normalized) {
+        StringBuilder code = new StringBuilder(normalized.length());
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (c != '.' && !Character.isWhitespace(c)) {
+                code.append(c);
+            }
+        }
+        return code.toString();
+    }
+
+    private static final class Usage {
+
+        private final Map<String, Integer> counts;
+        private final long expiresAt;
+
+        Usage(Map<String, Integer> counts, long expiresAt) {
+            this.counts = counts;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * 字典快照，构建后只读
+     */
+    private static final class Snapshot {
+
+        static final Snapshot EMPTY = build(Collections.emptyList());
+
+        private final String[] displayCodes;
+        private final String[] codeKeys;
+        private final String[] names;
+        private final String[] normalizedNames;
+        private final String[] initialKeys;
+        private final Map<String, Integer> indexByCode;
+        private final PinyinPrefixTrie codes = new PinyinPrefixTrie();
+        private final PinyinPrefixTrie initials = new PinyinPrefixTrie();
+
+        /**
+         * 名称单字/双字 -> 条目下标（升序）
+         */
+        private final Map<String, int[]> nameGrams;
+
+        private Snapshot(int size) {
+            displayCodes = new String[size];
+            codeKeys = new String[size];
+            names = new String[size];
+            normalizedNames = new String[size];
+            initialKeys = new String[size];
+            indexByCode = new HashMap<>(size * 2);
+            nameGrams = new HashMap<>();
+        }
+
+        static Snapshot build(List<String[]> entries) {
+            // 按编码排序并去重，重复编码以后出现的为准
+            Map<String, String[]> byCode = new HashMap<>();
+            for (String[] entry : entries) {
+                byCode.put(normalizeCode(normalize(entry[0])), entry);
+            }
+            List<String> keys = new ArrayList<>(byCode.keySet());
+            Collections.sort(keys);
+
+            Snapshot snapshot = new Snapshot(keys.size());
+            Map<String, List<Integer>> grams = new HashMap<>();
+            for (int i = 0; i < keys.size(); i++) {
+                String[] entry = byCode.get(keys.get(i));
+                snapshot.displayCodes[i] = entry[0].toUpperCase(Locale.ROOT);
+                snapshot.codeKeys[i] = keys.get(i);
+                snapshot.names[i] = entry[1];
+                snapshot.normalizedNames[i] = normalize(entry[1]);
+                snapshot.initialKeys[i] = PinyinUtils.toTextInitials(entry[1]);
+                snapshot.indexByCode.put(keys.get(i), i);
+                snapshot.codes.put(i, keys.get(i));
+                snapshot.initials.put(i, suffixes(snapshot.initialKeys[i]));
+
+                Map<String, Integer> tokens = new HashMap<>();
+                TextTokenizer.tokenize(entry[1], 1, tokens);
+                for (String token : tokens.keySet()) {
+                    grams.computeIfAbsent(token, t -> new ArrayList<>()).add(i);
+                }
+            }
+            grams.forEach((token, postings) ->
+                snapshot.nameGrams.put(token, postings.stream().mapToInt(Integer::intValue).toArray()));
+            return snapshot;
+        }
+
+        int size() {
+            return codeKeys.length;
+        }
+
+        /**
+         * 首字母的全部后缀，使 "gxy" 能匹配 "原发性高血压"（yfxgxy）
+         */
+        private static String[] suffixes(String initials) {
+            String[] suffixes = new String[initials.length()];
+            for (int i = 0; i < initials.length(); i++) {
+                suffixes[i] = initials.substring(i);
+            }
+            return suffixes;
+        }
+
+        /**
+         * 求查询词各单字/双字倒排表的交集，作为名称子串匹配的候选
+         */
+        void collectNameMatches(String text, Set<Integer> candidates) {
+            List<String> terms = TextTokenizer.queryTerms(text);
+            if (terms.isEmpty()) {
+                return;
+            }
+            int[] intersection = null;
+            for (String term : terms) {
+                int[] postings = nameGrams.get(term);
+                if (postings == null) {
+                    return;
+                }
+                intersection = intersection == null ? postings : intersect(intersection, postings);
+                if (intersection.length == 0) {
+                    return;
+                }
+            }
+            for (int i = 0; i < intersection.length && i < CANDIDATE_LIMIT; i++) {
+                candidates.add(intersection[i]);
+            }
+        }
+
+        int match(int index, String text, String code) {
+            if (codeKeys[index].equals(code)) {
+                return MATCH_CODE_EXACT;
+            }
+            if (!code.isEmpty() && codeKeys[index].startsWith(code)) {
+                return MATCH_CODE_PREFIX;
+            }
+            if (normalizedNames[index].startsWith(text)) {
+                return MATCH_NAME_PREFIX;
+            }
+            if (!initialKeys[index].isEmpty() && initialKeys[index].startsWith(text)) {
+                return MATCH_INITIALS_PREFIX;
+            }
+            if (normalizedNames[index].contains(text)) {
+                return MATCH_NAME_CONTAINS;
+            }
+            if (!initialKeys[index].isEmpty() && initialKeys[index].contains(text)) {
+                return MATCH_INITIALS_CONTAINS;
+            }
+            return NO_MATCH;
+        }
+
+        private static int[] intersect(int[] a, int[] b) {
+            int[] result = new int[Math.min(a.length, b.length)];
+            int i = 0;
+            int j = 0;
+            int n = 0;
+            while (i < a.length && j < b.length) {
+                if (a[i] < b[j]) {
+                    i++;
+                } else if (a[i] > b[j]) {
+                    j++;
+                } else {
+                    result[n++] = a[i];
+                    i++;
+                    j++;
+                }
+            }
+            return Arrays.copyOf(result, n);
+        }
+    }
+}
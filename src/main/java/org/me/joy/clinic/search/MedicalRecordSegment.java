@@ -0,0 +1,390 @@
+package org.me.joy.clinic.search;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 病历全文索引的不可变分段
+ * 文件格式（大端序）：
+ * <pre>
+ * 头部     魔数、格式版本、文档数、词数、各区段起始位置
+ * 文档区   每篇文档定长：病历ID、患者ID、医生ID、写入序号、数据版本、就诊日、文档长度、标志、存储字段位置
+ * 存储区   科室、病历编号（2字节长度 + UTF-8）
+ * 词典区   按词的 UTF-8 字节序排列的定长条目（词文本位置、文档频率、倒排位置），可二分查找
+ * 词文本区 2字节长度 + UTF-8
+ * 倒排区   每个词的（文档号、词频）列表，文档号升序
+ * </pre>
+ * 磁盘分段以只读方式内存映射，堆内只保留少量元数据。
+ */
+final class MedicalRecordSegment {
+
+    static final int NO_DATE = Integer.MIN_VALUE;
+
+    private static final int MAGIC = 0x4D524958;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 9 * Integer.BYTES;
+    private static final int DOC_BYTES = 5 * Long.BYTES + 4 * Integer.BYTES;
+    private static final int DICT_ENTRY_BYTES = 3 * Integer.BYTES;
+    private static final int POSTING_BYTES = 2 * Integer.BYTES;
+    private static final int FLAG_TOMBSTONE = 1;
+    private static final int MAX_STRING_BYTES = 0xFFFF;
+
+    private final ByteBuffer buffer;
+    private final int docCount;
+    private final int termCount;
+    private final int docsOffset;
+    private final int storedOffset;
+    private final int dictOffset;
+    private final int termsOffset;
+    private final int postingsOffset;
+
+    private MedicalRecordSegment(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("不是病历索引分段文件");
+        }
+        if (buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("病历索引分段格式版本不支持: " + buffer.getInt(4));
+        }
+        this.docCount = buffer.getInt(8);
+        this.termCount = buffer.getInt(12);
+        this.docsOffset = buffer.getInt(16);
+        this.storedOffset = buffer.getInt(20);
+        this.dictOffset = buffer.getInt(24);
+        this.termsOffset = buffer.getInt(28);
+        this.postingsOffset = buffer.getInt(32);
+    }
+
+    /**
+     * 以只读内存映射方式打开分段文件
+     */
+    static MedicalRecordSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new MedicalRecordSegment(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * 将分段内容写入文件（先写临时文件再原子替换）并以内存映射方式重新打开
+     */
+    MedicalRecordSegment writeTo(Path path) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer source = buffer.duplicate();
+            source.clear();
+            while (source.hasRemaining()) {
+                channel.write(source);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return open(path);
+    }
+
+    int docCount() {
+        return docCount;
+    }
+
+    int termCount() {
+        return termCount;
+    }
+
+    long recordId(int doc) {
+        return buffer.getLong(docPosition(doc));
+    }
+
+    long patientId(int doc) {
+        return buffer.getLong(docPosition(doc) + 8);
+    }
+
+    long doctorId(int doc) {
+        return buffer.getLong(docPosition(doc) + 16);
+    }
+
+    long sequence(int doc) {
+        return buffer.getLong(docPosition(doc) + 24);
+    }
+
+    long version(int doc) {
+        return buffer.getLong(docPosition(doc) + 32);
+    }
+
+    int recordDay(int doc) {
+        return buffer.getInt(docPosition(doc) + 40);
+    }
+
+    int length(int doc) {
+        return buffer.getInt(docPosition(doc) + 44);
+    }
+
+    boolean isTombstone(int doc) {
+        return (buffer.getInt(docPosition(doc) + 48) & FLAG_TOMBSTONE) != 0;
+    }
+
+    String department(int doc) {
+        return readString(storedOffset + buffer.getInt(docPosition(doc) + 52));
+    }
+
+    String recordNumber(int doc) {
+        int position = storedOffset + buffer.getInt(docPosition(doc) + 52);
+        return readString(position + 2 + Short.toUnsignedInt(buffer.getShort(position)));
+    }
+
+    /**
+     * 二分查找词典
+     * @return 词序号，不存在时返回-1
+     */
+    int findTerm(String term) {
+        byte[] key = term.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = termCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareTerm(mid, key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    String term(int ord) {
+        return readString(termsOffset + buffer.getInt(dictOffset + ord * DICT_ENTRY_BYTES));
+    }
+
+    int docFreq(int ord) {
+        return buffer.getInt(dictOffset + ord * DICT_ENTRY_BYTES + 4);
+    }
+
+    /**
+     * 词的第 i 条倒排的文档号
+     */
+    int postingDoc(int ord, int i) {
+        return buffer.getInt(postingPosition(ord, i));
+    }
+
+    /**
+     * 词的第 i 条倒排的词频
+     */
+    int postingFreq(int ord, int i) {
+        return buffer.getInt(postingPosition(ord, i) + 4);
+    }
+
+    private int docPosition(int doc) {
+        return docsOffset + doc * DOC_BYTES;
+    }
+
+    private int postingPosition(int ord, int i) {
+        return postingsOffset + buffer.getInt(dictOffset + ord * DICT_ENTRY_BYTES + 8) + i * POSTING_BYTES;
+    }
+
+    private int compareTerm(int ord, byte[] key) {
+        int position = termsOffset + buffer.getInt(dictOffset + ord * DICT_ENTRY_BYTES);
+        int length = Short.toUnsignedInt(buffer.getShort(position));
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int cmp = Integer.compare(Byte.toUnsignedInt(buffer.get(position + 2 + i)), Byte.toUnsignedInt(key[i]));
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(length, key.length);
+    }
+
+    private String readString(int position) {
+        int length = Short.toUnsignedInt(buffer.getShort(position));
+        byte[] bytes = new byte[length];
+        buffer.get(position + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 待写入分段的一篇文档
+     */
+    static final class Document {
+
+        long recordId;
+        long patientId;
+        long doctorId;
+        long sequence;
+        long version;
+        int recordDay = NO_DATE;
+        int length;
+        boolean tombstone;
+        String department;
+        String recordNumber;
+        Map<String, Integer> frequencies = new HashMap<>();
+    }
+
+    /**
+     * 分段构建器：文档按加入顺序编号，倒排列表随之保持升序
+     */
+    static final class Builder {
+
+        private final List<Document> docs = new ArrayList<>();
+        private final Map<String, IntList> postings = new HashMap<>();
+        private long postingCount;
+
+        /**
+         * 加入文档及其词频，返回文档号
+         */
+        int add(Document document) {
+            int doc = addDocument(document);
+            for (Map.Entry<String, Integer> entry : document.frequencies.entrySet()) {
+                addPosting(entry.getKey(), doc, entry.getValue());
+            }
+            return doc;
+        }
+
+        /**
+         * 只加入文档元数据（合并分段时倒排由 {@link #addPosting} 逐条加入）
+         */
+        int addDocument(Document document) {
+            Document meta = new Document();
+            meta.recordId = document.recordId;
+            meta.patientId = document.patientId;
+            meta.doctorId = document.doctorId;
+            meta.sequence = document.sequence;
+            meta.version = document.version;
+            meta.recordDay = document.recordDay;
+            meta.length = document.length;
+            meta.tombstone = document.tombstone;
+            meta.department = document.department;
+            meta.recordNumber = document.recordNumber;
+            meta.frequencies = null;
+            docs.add(meta);
+            return docs.size() - 1;
+        }
+
+        /**
+         * 加入一条倒排，同一个词的文档号须递增
+         */
+        void addPosting(String term, int doc, int freq) {
+            postings.computeIfAbsent(term, key -> new IntList()).add(doc, freq);
+            postingCount++;
+        }
+
+        int size() {
+            return docs.size();
+        }
+
+        MedicalRecordSegment build() {
+            byte[][] terms = new byte[postings.size()][];
+            Map<byte[], IntList> postingsByBytes = new HashMap<>(postings.size() * 2);
+            int t = 0;
+            for (Map.Entry<String, IntList> entry : postings.entrySet()) {
+                byte[] bytes = clip(entry.getKey().getBytes(StandardCharsets.UTF_8));
+                terms[t++] = bytes;
+                postingsByBytes.put(bytes, entry.getValue());
+            }
+            Arrays.sort(terms, Arrays::compareUnsigned);
+
+            List<byte[]> stored = new ArrayList<>(docs.size() * 2);
+            long storedBytes = 0;
+            for (Document doc : docs) {
+                byte[] department = clip(bytes(doc.department));
+                byte[] recordNumber = clip(bytes(doc.recordNumber));
+                stored.add(department);
+                stored.add(recordNumber);
+                storedBytes += 4L + department.length + recordNumber.length;
+            }
+            long termBytes = 0;
+            for (byte[] term : terms) {
+                termBytes += 2L + term.length;
+            }
+
+            long docsOffset = HEADER_BYTES;
+            long storedOffset = docsOffset + (long) docs.size() * DOC_BYTES;
+            long dictOffset = storedOffset + storedBytes;
+            long termsOffset = dictOffset + (long) terms.length * DICT_ENTRY_BYTES;
+            long postingsOffset = termsOffset + termBytes;
+            long total = postingsOffset + postingCount * POSTING_BYTES;
+            if (total > Integer.MAX_VALUE) {
+                throw new IllegalStateException("病历索引分段超过2GB，请减小分段大小");
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate((int) total);
+            buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(docs.size()).putInt(terms.length)
+                .putInt((int) docsOffset).putInt((int) storedOffset).putInt((int) dictOffset)
+                .putInt((int) termsOffset).putInt((int) postingsOffset);
+
+            int storedPosition = 0;
+            for (int i = 0; i < docs.size(); i++) {
+                Document doc = docs.get(i);
+                buffer.putLong(doc.recordId).putLong(doc.patientId).putLong(doc.doctorId)
+                    .putLong(doc.sequence).putLong(doc.version)
+                    .putInt(doc.recordDay).putInt(doc.length).putInt(doc.tombstone ? FLAG_TOMBSTONE : 0)
+                    .putInt(storedPosition);
+                storedPosition += 4 + stored.get(2 * i).length + stored.get(2 * i + 1).length;
+            }
+            for (byte[] value : stored) {
+                buffer.putShort((short) value.length).put(value);
+            }
+
+            int termPosition = 0;
+            int postingPosition = 0;
+            for (byte[] term : terms) {
+                IntList list = postingsByBytes.get(term);
+                buffer.putInt(termPosition).putInt(list.size / 2).putInt(postingPosition);
+                termPosition += 2 + term.length;
+                postingPosition += list.size * Integer.BYTES;
+            }
+            for (byte[] term : terms) {
+                buffer.putShort((short) term.length).put(term);
+            }
+            for (byte[] term : terms) {
+                IntList list = postingsByBytes.get(term);
+                for (int i = 0; i < list.size; i++) {
+                    buffer.putInt(list.values[i]);
+                }
+            }
+            buffer.flip();
+            try {
+                return new MedicalRecordSegment(buffer);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private static byte[] bytes(String value) {
+            return value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        }
+
+        private static byte[] clip(byte[] value) {
+            return value.length <= MAX_STRING_BYTES ? value : Arrays.copyOf(value, MAX_STRING_BYTES);
+        }
+    }
+
+    /**
+     * 交替存放（文档号、词频）的整数数组
+     */
+    private static final class IntList {
+
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int doc, int freq) {
+            if (size + 2 > values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            values[size++] = doc;
+            values[size++] = freq;
+        }
+    }
+}
@@ -0,0 +1,962 @@
+package org.me.joy.clinic.search;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import jakarta.annotation.PreDestroy;
+import org.me.joy.clinic.archive.MedicalRecordColdPayload;
+import org.me.joy.clinic.archive.MedicalRecordColdStore;
+import org.me.joy.clinic.dto.MedicalRecordSearchHit;
+import org.me.joy.clinic.entity.Diagnosis;
+import org.me.joy.clinic.entity.MedicalRecord;
+import org.me.joy.clinic.mapper.DiagnosisMapper;
+import org.me.joy.clinic.mapper.MedicalRecordMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 病历全文倒排索引
+ * 索引主诉、现病史、初步诊断、最终诊断、治疗方案和诊断名称/编码（中文按单字+双字切分，见 {@link TextTokenizer}），
+ * 查询按 BM25 打分，支持按医生、科室、就诊日期过滤，命中结果直接来自索引，不访问数据库。
+ * <p>
+ * 存储采用分段结构：新写入的文档先进入内存缓冲段，定时或达到阈值时落盘为不可变分段并内存映射读取；
+ * 分段过多时合并较小的分段。更新和删除不修改旧分段，而是写入新版本（删除写入墓碑），旧版本标记为过期。
+ * 启动时加载磁盘分段并与数据库比对版本补齐差异；分段缺失或损坏时从数据库全量重建。
+ */
+@Component
+public class MedicalRecordTextIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(MedicalRecordTextIndex.class);
+
+    private static final String MANIFEST = "segments.manifest";
+    private static final String SEGMENT_PREFIX = "segment_";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private static final int LOAD_BATCH_SIZE = 2000;
+
+    /**
+     * 索引未就绪期间暂存的写入上限，超出后丢弃（下次启动比对时补齐）
+     */
+    private static final int MAX_PENDING_WRITES = 10000;
+
+    // 字段权重：主诉和诊断更能代表病历内容
+    private static final int WEIGHT_PRIMARY = 2;
+    private static final int WEIGHT_SECONDARY = 1;
+
+    // BM25 参数
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    @Autowired
+    private MedicalRecordMapper medicalRecordMapper;
+
+    @Autowired
+    private DiagnosisMapper diagnosisMapper;
+
+    @Autowired
+    private MedicalRecordColdStore medicalRecordColdStore;
+
+    @Value("${clinic.search.medical-record.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${clinic.search.medical-record.index-dir:data/medical-record-index}")
+    private String indexDir = "data/medical-record-index";
+
+    @Value("${clinic.search.medical-record.flush-docs:500}")
+    private int flushDocs = 500;
+
+    @Value("${clinic.search.medical-record.max-segments:10}")
+    private int maxSegments = 10;
+
+    @Value("${clinic.search.medical-record.merge-max-docs:20000}")
+    private int mergeMaxDocs = 20000;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile boolean ready = false;
+
+    private final List<Runnable> pendingWrites = new ArrayList<>();
+
+    /**
+     * 已落盘的分段，按创建顺序
+     */
+    private final List<Segment> segments = new ArrayList<>();
+
+    /**
+     * 内存缓冲段
+     */
+    private Segment buffer;
+
+    /**
+     * 病历ID -> 最新版本的位置（分段编号 << 32 | 文档号），最新版本可能是墓碑
+     */
+    private final Map<Long, Long> liveDocs = new HashMap<>();
+
+    /**
+     * liveDocs 中指向墓碑的数量
+     */
+    private int liveTombstones;
+
+    private final Object mergeLock = new Object();
+
+    private int nextSegmentId;
+
+    private long nextSequence = 1;
+
+    /**
+     * 应用启动完成后加载磁盘分段并与数据库比对，分段不可用时全量重建
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            lock.writeLock().lock();
+            try {
+                if (load()) {
+                    reconcile();
+                } else {
+                    rebuild();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            markReady();
+        } catch (IOException | RuntimeException e) {
+            logger.error("构建病历全文索引失败，病历全文搜索不可用: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 索引是否可用
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 新增或更新病历索引（在当前事务提交后生效）
+     * @param record 病历
+     * @param diagnoses 病历当前的诊断列表
+     */
+    public void index(MedicalRecord record, List<Diagnosis> diagnoses) {
+        if (!enabled || record == null || record.getId() == null) {
+            return;
+        }
+        MedicalRecordSegment.Document document = toDocument(record, diagnoses);
+        afterCommit(() -> addDocument(document));
+    }
+
+    /**
+     * 移除病历索引（在当前事务提交后生效）
+     */
+    public void remove(Long recordId) {
+        if (!enabled || recordId == null) {
+            return;
+        }
+        afterCommit(() -> addDocument(tombstone(recordId)));
+    }
+
+    /**
+     * 全文搜索病历
+     * @param keyword 关键词
+     * @param doctorId 医生ID，为空时不过滤
+     * @param department 科室，为空时不过滤
+     * @param startDate 就诊开始日期（含），为空时不限
+     * @param endDate 就诊结束日期（含），为空时不限
+     * @param limit 最多返回的数量
+     * @return 按相关度排序的命中结果；索引不可用时返回null
+     */
+    public List<MedicalRecordSearchHit> search(String keyword, Long doctorId, String department,
+                                               LocalDate startDate, LocalDate endDate, int limit) {
+        if (!ready) {
+            return null;
+        }
+        List<String> terms = TextTokenizer.queryTerms(keyword);
+        if (terms.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        Query query = new Query(terms, doctorId, department,
+            startDate != null ? (int) startDate.toEpochDay() : Integer.MIN_VALUE,
+            endDate != null ? (int) endDate.toEpochDay() : Integer.MAX_VALUE,
+            startDate != null || endDate != null);
+
+        lock.readLock().lock();
+        try {
+            List<Segment> all = allSegments();
+            long totalDocs = 0;
+            long totalLength = 0;
+            for (Segment segment : all) {
+                // 先取数据，缓冲段的统计随数据一起重新计算
+                segment.data();
+                totalDocs += segment.statDocs;
+                totalLength += segment.statLength;
+            }
+            if (totalDocs == 0) {
+                return Collections.emptyList();
+            }
+            double averageLength = Math.max(1.0, (double) totalLength / totalDocs);
+            double[] idf = new double[terms.size()];
+            for (int t = 0; t < terms.size(); t++) {
+                long docFreq = 0;
+                for (Segment segment : all) {
+                    MedicalRecordSegment data = segment.data();
+                    int ord = data.findTerm(terms.get(t));
+                    if (ord >= 0) {
+                        docFreq += data.docFreq(ord);
+                    }
+                }
+                if (docFreq == 0) {
+                    return Collections.emptyList();
+                }
+                idf[t] = Math.log(1 + (totalDocs - docFreq + 0.5) / (docFreq + 0.5));
+            }
+
+            PriorityQueue<MedicalRecordSearchHit> top = new PriorityQueue<>(limit + 1, HIT_ORDER.reversed());
+            for (Segment segment : all) {
+                searchSegment(segment, query, idf, averageLength, limit, top);
+            }
+            List<MedicalRecordSearchHit> hits = new ArrayList<>(top);
+            hits.sort(HIT_ORDER);
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 有效文档数
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveDocs.size() - liveTombstones;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 将内存缓冲段落盘，分段过多时合并
+     */
+    @Scheduled(fixedDelayString = "${clinic.search.medical-record.flush-interval-ms:60000}")
+    public void flush() {
+        if (!ready) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            flushBuffer();
+        } catch (IOException e) {
+            logger.error("病历全文索引落盘失败: {}", e.getMessage());
+            return;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        mergeIfNeeded();
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    // ========== 查询 ==========
+
+    /**
+     * 相关度降序，相同时就诊日期、病历ID降序
+     */
+    private static final Comparator<MedicalRecordSearchHit> HIT_ORDER = Comparator
+        .comparingDouble(MedicalRecordSearchHit::getScore).reversed()
+        .thenComparing(MedicalRecordSearchHit::getRecordDate, Comparator.nullsLast(Comparator.reverseOrder()))
+        .thenComparing(MedicalRecordSearchHit::getRecordId, Comparator.reverseOrder());
+
+    /**
+     * 在一个分段内对所有查询词的倒排列表求交集并打分，结果并入 top
+     */
+    private void searchSegment(Segment segment, Query query, double[] idf, double averageLength, int limit,
+                               PriorityQueue<MedicalRecordSearchHit> top) {
+        MedicalRecordSegment data = segment.data();
+        int termCount = query.terms.size();
+        int[] ords = new int[termCount];
+        for (int t = 0; t < termCount; t++) {
+            ords[t] = data.findTerm(query.terms.get(t));
+            if (ords[t] < 0) {
+                return;
+            }
+        }
+        // 从最短的倒排列表出发，其余列表用游标前移
+        Integer[] order = new Integer[termCount];
+        for (int t = 0; t < termCount; t++) {
+            order[t] = t;
+        }
+        Arrays.sort(order, Comparator.comparingInt(t -> data.docFreq(ords[t])));
+        int lead = order[0];
+        int[] cursors = new int[termCount];
+        int[] freqs = new int[termCount];
+
+        candidates:
+        for (int i = 0; i < data.docFreq(ords[lead]); i++) {
+            int doc = data.postingDoc(ords[lead], i);
+            freqs[lead] = data.postingFreq(ords[lead], i);
+            for (int k = 1; k < termCount; k++) {
+                int t = order[k];
+                int docFreq = data.docFreq(ords[t]);
+                while (cursors[t] < docFreq && data.postingDoc(ords[t], cursors[t]) < doc) {
+                    cursors[t]++;
+                }
+                if (cursors[t] >= docFreq) {
+                    return;
+                }
+                if (data.postingDoc(ords[t], cursors[t]) != doc) {
+                    continue candidates;
+                }
+                freqs[t] = data.postingFreq(ords[t], cursors[t]);
+            }
+            if (segment.stale.get(doc) || data.isTombstone(doc) || !query.matches(data, doc)) {
+                continue;
+            }
+
+            double norm = K1 * (1 - B + B * data.length(doc) / averageLength);
+            double score = 0;
+            for (int t = 0; t < termCount; t++) {
+                score += idf[t] * freqs[t] * (K1 + 1) / (freqs[t] + norm);
+            }
+            if (top.size() >= limit && score <= top.peek().getScore()) {
+                continue;
+            }
+            top.add(toHit(data, doc, score));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+    }
+
+    private MedicalRecordSearchHit toHit(MedicalRecordSegment data, int doc, double score) {
+        MedicalRecordSearchHit hit = new MedicalRecordSearchHit();
+        hit.setRecordId(data.recordId(doc));
+        hit.setRecordNumber(emptyToNull(data.recordNumber(doc)));
+        hit.setPatientId(data.patientId(doc));
+        hit.setDoctorId(data.doctorId(doc));
+        hit.setDepartment(emptyToNull(data.department(doc)));
+        int recordDay = data.recordDay(doc);
+        hit.setRecordDate(recordDay == MedicalRecordSegment.NO_DATE ? null : LocalDate.ofEpochDay(recordDay));
+        hit.setScore(score);
+        return hit;
+    }
+
+    // ========== 写入 ==========
+
+    /**
+     * 写入文档的新版本，旧版本标记为过期
+     * @return 索引是否发生变化
+     */
+    private boolean addDocument(MedicalRecordSegment.Document document) {
+        lock.writeLock().lock();
+        try {
+            Long previous = liveDocs.get(document.recordId);
+            boolean previousTombstone = previous != null && isTombstoneAt(previous);
+            if (document.tombstone && (previous == null || previousTombstone)) {
+                return false;
+            }
+            document.sequence = nextSequence++;
+            int doc = buffer.builder.add(document);
+            buffer.invalidate();
+            markStale(previous);
+            liveDocs.put(document.recordId, key(buffer.id, doc));
+            liveTombstones += (document.tombstone ? 1 : 0) - (previousTombstone ? 1 : 0);
+            if (buffer.builder.size() >= flushDocs) {
+                flushBuffer();
+            }
+            return true;
+        } catch (IOException e) {
+            logger.error("病历全文索引落盘失败: {}", e.getMessage());
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void markStale(Long key) {
+        if (key == null) {
+            return;
+        }
+        Segment segment = segmentById((int) (key >>> 32));
+        if (segment != null) {
+            segment.stale.set((int) (long) key);
+        }
+    }
+
+    /**
+     * 将缓冲段写入磁盘分段并更新清单，须持有写锁
+     */
+    private void flushBuffer() throws IOException {
+        if (buffer.builder.size() == 0) {
+            return;
+        }
+        Segment flushed = buffer;
+        Path path = directory().resolve(segmentFileName(flushed.id));
+        flushed.persist(flushed.data().writeTo(path));
+        segments.add(flushed);
+        buffer = new Segment(nextSegmentId++);
+        writeManifest();
+    }
+
+    /**
+     * 分段数超过上限时，合并有效文档最少的若干分段；过期文档在合并时清除。
+     * 墓碑须保留到包含旧版本的分段都被合并为止，因此只在合并全部分段时清除
+     */
+    private void mergeIfNeeded() {
+        synchronized (mergeLock) {
+            merge();
+        }
+    }
+
+    private void merge() {
+        List<Segment> candidates;
+        boolean fullMerge;
+        lock.readLock().lock();
+        try {
+            if (segments.size() <= maxSegments) {
+                return;
+            }
+            List<Segment> bySize = new ArrayList<>(segments);
+            bySize.sort(Comparator.comparingInt(Segment::liveCount));
+            candidates = new ArrayList<>();
+            int docs = 0;
+            for (Segment segment : bySize) {
+                if (candidates.size() >= 2 && docs + segment.liveCount() > mergeMaxDocs) {
+                    break;
+                }
+                candidates.add(segment);
+                docs += segment.liveCount();
+            }
+            if (candidates.size() < 2) {
+                return;
+            }
+            fullMerge = candidates.size() == segments.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // 合并结果在锁外构建，期间发生的写入在替换时通过比对位置处理
+        long startedAt = System.currentTimeMillis();
+        MedicalRecordSegment.Builder builder = new MedicalRecordSegment.Builder();
+        List<Long> sourceKeys = new ArrayList<>();
+        Map<Long, Long> droppedTombstones = new HashMap<>();
+        for (Segment segment : candidates) {
+            MedicalRecordSegment data = segment.data();
+            int[] remap = new int[data.docCount()];
+            Arrays.fill(remap, -1);
+            for (int doc = 0; doc < data.docCount(); doc++) {
+                if (isStale(segment, doc)) {
+                    continue;
+                }
+                if (fullMerge && data.isTombstone(doc)) {
+                    droppedTombstones.put(data.recordId(doc), key(segment.id, doc));
+                    continue;
+                }
+                remap[doc] = builder.addDocument(document(data, doc));
+                sourceKeys.add(key(segment.id, doc));
+            }
+            for (int ord = 0; ord < data.termCount(); ord++) {
+                String term = null;
+                for (int i = 0; i < data.docFreq(ord); i++) {
+                    int target = remap[data.postingDoc(ord, i)];
+                    if (target >= 0) {
+                        if (term == null) {
+                            term = data.term(ord);
+                        }
+                        builder.addPosting(term, target, data.postingFreq(ord, i));
+                    }
+                }
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            Segment merged = new Segment(nextSegmentId++);
+            merged.persist(builder.build().writeTo(directory().resolve(segmentFileName(merged.id))));
+            for (int doc = 0; doc < sourceKeys.size(); doc++) {
+                long recordId = merged.data().recordId(doc);
+                if (Objects.equals(liveDocs.get(recordId), sourceKeys.get(doc))) {
+                    liveDocs.put(recordId, key(merged.id, doc));
+                } else {
+                    merged.stale.set(doc);
+                }
+            }
+            for (Map.Entry<Long, Long> tombstone : droppedTombstones.entrySet()) {
+                if (liveDocs.remove(tombstone.getKey(), tombstone.getValue())) {
+                    liveTombstones--;
+                }
+            }
+            segments.removeAll(candidates);
+            segments.add(merged);
+            writeManifest();
+            for (Segment segment : candidates) {
+                Files.deleteIfExists(directory().resolve(segmentFileName(segment.id)));
+            }
+            logger.info("病历全文索引合并完成: {} 个分段合并为 {} 篇文档, 耗时 {} ms", candidates.size(),
+                merged.data().docCount(), System.currentTimeMillis() - startedAt);
+        } catch (IOException | RuntimeException e) {
+            logger.error("病历全文索引合并失败: {}", e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean isStale(Segment segment, int doc) {
+        lock.readLock().lock();
+        try {
+            return segment.stale.get(doc);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ========== 加载与重建 ==========
+
+    /**
+     * 按清单加载磁盘分段，须持有写锁
+     * @return 是否加载成功；清单不存在或分段损坏时返回false
+     */
+    private boolean load() throws IOException {
+        Path manifest = directory().resolve(MANIFEST);
+        if (!Files.exists(manifest)) {
+            return false;
+        }
+        long startedAt = System.currentTimeMillis();
+        clear();
+        Map<Long, Long> sequences = new HashMap<>();
+        try {
+            for (String line : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                int id = segmentId(line.trim());
+                Segment segment = new Segment(id);
+                segment.persist(MedicalRecordSegment.open(directory().resolve(line.trim())));
+                segments.add(segment);
+                nextSegmentId = Math.max(nextSegmentId, id + 1);
+                // 同一病历以写入序号最大的版本为准
+                MedicalRecordSegment data = segment.data();
+                for (int doc = 0; doc < data.docCount(); doc++) {
+                    long recordId = data.recordId(doc);
+                    long sequence = data.sequence(doc);
+                    nextSequence = Math.max(nextSequence, sequence + 1);
+                    Long known = sequences.get(recordId);
+                    if (known != null && known > sequence) {
+                        segment.stale.set(doc);
+                        continue;
+                    }
+                    sequences.put(recordId, sequence);
+                    markStale(liveDocs.put(recordId, key(id, doc)));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("病历全文索引分段加载失败，将全量重建: {}", e.getMessage());
+            clear();
+            return false;
+        }
+        for (Long key : liveDocs.values()) {
+            if (isTombstoneAt(key)) {
+                liveTombstones++;
+            }
+        }
+        buffer = new Segment(nextSegmentId++);
+        logger.info("病历全文索引加载完成: {} 个分段, {} 篇病历, 耗时 {} ms", segments.size(),
+            liveDocs.size() - liveTombstones,
+            System.currentTimeMillis() - startedAt);
+        return true;
+    }
+
+    /**
+     * 与数据库比对版本：数据库中更新过、新增或已删除的病历重新写入索引，须持有写锁
+     */
+    private void reconcile() throws IOException {
+        long startedAt = System.currentTimeMillis();
+        long[] indexedIds = liveDocs.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+        int cursor = 0;
+        int changed = 0;
+        long afterId = 0L;
+        List<MedicalRecord> batch;
+        do {
+            batch = medicalRecordMapper.findTextIndexVersions(afterId, LOAD_BATCH_SIZE);
+            List<Long> staleIds = new ArrayList<>();
+            for (MedicalRecord row : batch) {
+                long recordId = row.getId();
+                // 索引中有、数据库中已不存在的病历
+                while (cursor < indexedIds.length && indexedIds[cursor] < recordId) {
+                    changed += addDocument(tombstone(indexedIds[cursor++])) ? 1 : 0;
+                }
+                if (cursor < indexedIds.length && indexedIds[cursor] == recordId) {
+                    cursor++;
+                }
+                Long key = liveDocs.get(recordId);
+                if (Boolean.TRUE.equals(row.getDeleted())) {
+                    changed += addDocument(tombstone(recordId)) ? 1 : 0;
+                } else if (key == null || versionAt(key) < toMillis(row.getUpdatedAt())) {
+                    staleIds.add(recordId);
+                }
+            }
+            if (!staleIds.isEmpty()) {
+                List<MedicalRecord> records = medicalRecordMapper.selectBatchIds(staleIds);
+                indexRecords(records);
+                changed += records.size();
+            }
+            if (!batch.isEmpty()) {
+                afterId = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == LOAD_BATCH_SIZE);
+        while (cursor < indexedIds.length) {
+            changed += addDocument(tombstone(indexedIds[cursor++])) ? 1 : 0;
+        }
+        flushBuffer();
+        logger.info("病历全文索引比对完成: 更新 {} 篇病历, 耗时 {} ms", changed, System.currentTimeMillis() - startedAt);
+    }
+
+    /**
+     * 清空索引目录并从数据库分批全量构建，须持有写锁
+     */
+    private void rebuild() throws IOException {
+        long startedAt = System.currentTimeMillis();
+        clear();
+        Path directory = directory();
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.collect(Collectors.toList())) {
+                Files.deleteIfExists(file);
+            }
+        }
+        buffer = new Segment(nextSegmentId++);
+        long afterId = 0L;
+        List<MedicalRecord> batch;
+        do {
+            batch = medicalRecordMapper.findTextIndexRows(afterId, LOAD_BATCH_SIZE);
+            indexRecords(batch);
+            if (!batch.isEmpty()) {
+                afterId = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == LOAD_BATCH_SIZE);
+        flushBuffer();
+        writeManifest();
+        logger.info("病历全文索引重建完成: {} 篇病历, {} 个分段, 耗时 {} ms", liveDocs.size(), segments.size(),
+            System.currentTimeMillis() - startedAt);
+    }
+
+    /**
+     * 批量加载诊断（冷存储中的病历从冷存储回填）后写入索引
+     */
+    private void indexRecords(List<MedicalRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        List<Long> recordIds = records.stream().map(MedicalRecord::getId).collect(Collectors.toList());
+        QueryWrapper<Diagnosis> queryWrapper = new QueryWrapper<>();
+        queryWrapper.select("medical_record_id", "diagnosis_name", "diagnosis_code")
+                   .in("medical_record_id", recordIds);
+        Map<Long, List<Diagnosis>> diagnoses = diagnosisMapper.selectList(queryWrapper).stream()
+            .collect(Collectors.groupingBy(Diagnosis::getMedicalRecordId, HashMap::new, Collectors.toList()));
+        // 已移入冷存储的病历，文本从冷存储回填；早期整行迁出的诊断取自冷存储
+        Map<Long, MedicalRecordColdPayload> coldPayloads = medicalRecordColdStore.restore(records);
+        coldPayloads.forEach((recordId, payload) -> diagnoses.put(recordId,
+            payload.mergeDiagnoses(diagnoses.getOrDefault(recordId, Collections.emptyList()))));
+        for (MedicalRecord record : records) {
+            addDocument(toDocument(record, diagnoses.getOrDefault(record.getId(), Collections.emptyList())));
+        }
+    }
+
+    private void markReady() {
+        synchronized (pendingWrites) {
+            ready = true;
+            pendingWrites.forEach(Runnable::run);
+            pendingWrites.clear();
+        }
+    }
+
+    private void clear() {
+        segments.clear();
+        liveDocs.clear();
+        liveTombstones = 0;
+        buffer = null;
+        nextSegmentId = 1;
+        nextSequence = 1;
+    }
+
+    private void writeManifest() throws IOException {
+        Path directory = directory();
+        Files.createDirectories(directory);
+        List<String> lines = segments.stream().map(segment -> segmentFileName(segment.id)).collect(Collectors.toList());
+        Path temp = directory.resolve(MANIFEST + ".tmp");
+        Files.write(temp, lines, StandardCharsets.UTF_8);
+        Files.move(temp, directory.resolve(MANIFEST), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // ========== 工具方法 ==========
+
+    /**
+     * 病历转为索引文档，对各文本字段分词并按字段权重累加词频
+     */
+    static MedicalRecordSegment.Document toDocument(MedicalRecord record, List<Diagnosis> diagnoses) {
+        MedicalRecordSegment.Document document = new MedicalRecordSegment.Document();
+        document.recordId = record.getId();
+        document.patientId = record.getPatientId() != null ? record.getPatientId() : 0L;
+        document.doctorId = record.getDoctorId() != null ? record.getDoctorId() : 0L;
+        document.version = toMillis(record.getUpdatedAt());
+        document.recordDay = record.getRecordDate() != null
+            ? (int) record.getRecordDate().toLocalDate().toEpochDay() : MedicalRecordSegment.NO_DATE;
+        document.department = record.getDepartment();
+        document.recordNumber = record.getRecordNumber();
+        Map<String, Integer> frequencies = document.frequencies;
+        int length = 0;
+        length += TextTokenizer.tokenize(record.getChiefComplaint(), WEIGHT_PRIMARY, frequencies);
+        length += TextTokenizer.tokenize(record.getFinalDiagnosis(), WEIGHT_PRIMARY, frequencies);
+        length += TextTokenizer.tokenize(record.getPreliminaryDiagnosis(), WEIGHT_SECONDARY, frequencies);
+        length += TextTokenizer.tokenize(record.getPresentIllness(), WEIGHT_SECONDARY, frequencies);
+        length += TextTokenizer.tokenize(record.getTreatmentPlan(), WEIGHT_SECONDARY, frequencies);
+        if (diagnoses != null) {
+            for (Diagnosis diagnosis : diagnoses) {
+                length += TextTokenizer.tokenize(diagnosis.getDiagnosisName(), WEIGHT_PRIMARY, frequencies);
+                length += TextTokenizer.tokenize(diagnosis.getDiagnosisCode(), WEIGHT_PRIMARY, frequencies);
+            }
+        }
+        document.length = length;
+        return document;
+    }
+
+    private static MedicalRecordSegment.Document tombstone(long recordId) {
+        MedicalRecordSegment.Document document = new MedicalRecordSegment.Document();
+        document.recordId = recordId;
+        document.tombstone = true;
+        return document;
+    }
+
+    private static MedicalRecordSegment.Document document(MedicalRecordSegment data, int doc) {
+        MedicalRecordSegment.Document document = new MedicalRecordSegment.Document();
+        document.recordId = data.recordId(doc);
+        document.patientId = data.patientId(doc);
+        document.doctorId = data.doctorId(doc);
+        document.sequence = data.sequence(doc);
+        document.version = data.version(doc);
+        document.recordDay = data.recordDay(doc);
+        document.length = data.length(doc);
+        document.tombstone = data.isTombstone(doc);
+        document.department = data.department(doc);
+        document.recordNumber = data.recordNumber(doc);
+        return document;
+    }
+
+    private boolean isTombstoneAt(long key) {
+        Segment segment = segmentById((int) (key >>> 32));
+        return segment != null && segment.data().isTombstone((int) key);
+    }
+
+    private long versionAt(long key) {
+        Segment segment = segmentById((int) (key >>> 32));
+        return segment == null ? 0L : segment.data().version((int) key);
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time == null ? 0L : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static long key(int segmentId, int doc) {
+        return ((long) segmentId << 32) | (doc & 0xFFFFFFFFL);
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    private Segment segmentById(int id) {
+        if (buffer != null && buffer.id == id) {
+            return buffer;
+        }
+        for (Segment segment : segments) {
+            if (segment.id == id) {
+                return segment;
+            }
+        }
+        return null;
+    }
+
+    private List<Segment> allSegments() {
+        List<Segment> all = new ArrayList<>(segments.size() + 1);
+        all.addAll(segments);
+        if (buffer != null && buffer.builder.size() > 0) {
+            all.add(buffer);
+        }
+        return all;
+    }
+
+    private Path directory() {
+        return Paths.get(indexDir);
+    }
+
+    private static String segmentFileName(int id) {
+        return SEGMENT_PREFIX + id + SEGMENT_SUFFIX;
+    }
+
+    private static int segmentId(String fileName) throws IOException {
+        if (!fileName.startsWith(SEGMENT_PREFIX) || !fileName.endsWith(SEGMENT_SUFFIX)) {
+            throw new IOException("无效的分段文件名: " + fileName);
+        }
+        try {
+            return Integer.parseInt(fileName.substring(SEGMENT_PREFIX.length(), fileName.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            throw new IOException("无效的分段文件名: " + fileName);
+        }
+    }
+
+    /**
+     * 事务提交后再更新索引，避免回滚的写入进入索引；索引就绪前的写入暂存，就绪后重放
+     */
+    private void afterCommit(Runnable action) {
+        Runnable write = () -> {
+            synchronized (pendingWrites) {
+                if (!ready) {
+                    if (pendingWrites.size() < MAX_PENDING_WRITES) {
+                        pendingWrites.add(action);
+                    }
+                    return;
+                }
+            }
+            action.run();
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    write.run();
+                }
+            });
+        } else {
+            write.run();
+        }
+    }
+
+    /**
+     * 运行时的分段：磁盘分段或内存缓冲段，附带过期文档标记
+     */
+    private static final class Segment {
+
+        private final int id;
+        private final BitSet stale = new BitSet();
+        private MedicalRecordSegment.Builder builder = new MedicalRecordSegment.Builder();
+        private MedicalRecordSegment data;
+
+        // 参与 BM25 统计的文档数（不含墓碑）和总长度
+        private long statDocs;
+        private long statLength;
+
+        Segment(int id) {
+            this.id = id;
+        }
+
+        /**
+         * 分段数据；缓冲段在写入后首次读取时重新构建
+         */
+        synchronized MedicalRecordSegment data() {
+            if (data == null) {
+                data = builder.build();
+                computeStats();
+            }
+            return data;
+        }
+
+        void invalidate() {
+            synchronized (this) {
+                data = null;
+            }
+        }
+
+        /**
+         * 切换为已落盘的只读分段
+         */
+        synchronized void persist(MedicalRecordSegment persisted) {
+            data = persisted;
+            builder = null;
+            computeStats();
+        }
+
+        int liveCount() {
+            return data().docCount() - stale.cardinality();
+        }
+
+        private void computeStats() {
+            statDocs = 0;
+            statLength = 0;
+            for (int doc = 0; doc < data.docCount(); doc++) {
+                if (!data.isTombstone(doc)) {
+                    statDocs++;
+                    statLength += data.length(doc);
+                }
+            }
+        }
+    }
+
+    /**
+     * 查询条件
+     */
+    private static final class Query {
+
+        private final List<String> terms;
+        private final Long doctorId;
+        private final String department;
+        private final int startDay;
+        private final int endDay;
+        private final boolean dateFiltered;
+
+        Query(List<String> terms, Long doctorId, String department, int startDay, int endDay, boolean dateFiltered) {
+            this.terms = terms;
+            this.doctorId = doctorId;
+            this.department = department == null || department.isBlank() ? null : department.trim();
+            this.startDay = startDay;
+            this.endDay = endDay;
+            this.dateFiltered = dateFiltered;
+        }
+
+        boolean matches(MedicalRecordSegment data, int doc) {
+            if (doctorId != null && data.doctorId(doc) != doctorId) {
+                return false;
+            }
+            if (dateFiltered) {
+                int recordDay = data.recordDay(doc);
+                if (recordDay == MedicalRecordSegment.NO_DATE || recordDay < startDay || recordDay > endDay) {
+                    return false;
+                }
+            }
+            return department == null || department.equals(data.department(doc));
+        }
+    }
+}
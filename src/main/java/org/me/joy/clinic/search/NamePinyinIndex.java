@@ -0,0 +1,277 @@
+package org.me.joy.clinic.search;
+
+import org.me.joy.clinic.cache.PatientCache;
+import org.me.joy.clinic.entity.Patient;
+import org.me.joy.clinic.entity.Staff;
+import org.me.joy.clinic.mapper.PatientMapper;
+import org.me.joy.clinic.mapper.StaffMapper;
+import org.me.joy.clinic.util.PinyinUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * 患者和员工姓名拼音前缀索引
+ * 以写入时生成的姓名全拼和首字母为键构建前缀字典树，支持 "zs"、"zhangs" 等拼音/首字母前缀查询。
+ * 启动时从数据库分批加载（同时回填缺少拼音的存量数据），新增、修改、删除在事务提交后同步到索引。
+ */
+@Component
+public class NamePinyinIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(NamePinyinIndex.class);
+
+    private static final int LOAD_BATCH_SIZE = 5000;
+
+    private static final Pattern PINYIN_QUERY = Pattern.compile("[a-z]+");
+
+    @Autowired
+    private PatientMapper patientMapper;
+
+    @Autowired
+    private StaffMapper staffMapper;
+
+    @Autowired
+    private PatientCache patientCache;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile boolean ready = false;
+
+    private final PinyinPrefixTrie patients = new PinyinPrefixTrie();
+
+    private final PinyinPrefixTrie staff = new PinyinPrefixTrie();
+
+    /**
+     * 应用启动完成后构建索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            logger.error("构建姓名拼音索引失败，拼音搜索将继续使用数据库: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 从数据库分批加载患者和员工并重建索引
+     */
+    public void rebuild() {
+        long startedAt = System.currentTimeMillis();
+        int backfilled;
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            patients.clear();
+            staff.clear();
+            backfilled = loadPatients() + loadStaff();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("姓名拼音索引构建完成: {} 名患者, {} 名员工, 回填拼音 {} 条, 耗时 {} ms",
+            patients.size(), staff.size(), backfilled, System.currentTimeMillis() - startedAt);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 关键词是否为拼音/首字母查询（仅包含字母）
+     */
+    public static boolean isPinyinQuery(String keyword) {
+        return keyword != null && PINYIN_QUERY.matcher(keyword.trim().toLowerCase(Locale.ROOT)).matches();
+    }
+
+    /**
+     * 为患者生成姓名全拼和首字母
+     */
+    public static void applyPinyin(Patient patient) {
+        patient.setNamePinyin(PinyinUtils.toPinyin(patient.getName()));
+        patient.setNameInitials(PinyinUtils.toInitials(patient.getName()));
+    }
+
+    /**
+     * 为员工生成姓名全拼和首字母
+     */
+    public static void applyPinyin(Staff staffMember) {
+        staffMember.setNamePinyin(PinyinUtils.toPinyin(staffMember.getName()));
+        staffMember.setNameInitials(PinyinUtils.toInitials(staffMember.getName()));
+    }
+
+    /**
+     * 新增或更新患者索引（在当前事务提交后生效）
+     */
+    public void indexPatient(Patient patient) {
+        if (patient == null || patient.getId() == null) {
+            return;
+        }
+        long id = patient.getId();
+        String pinyin = patient.getNamePinyin();
+        String initials = patient.getNameInitials();
+        afterCommit(() -> put(patients, id, pinyin, initials));
+    }
+
+    /**
+     * 移除患者索引（在当前事务提交后生效）
+     */
+    public void removePatient(Long patientId) {
+        if (patientId != null) {
+            afterCommit(() -> remove(patients, patientId));
+        }
+    }
+
+    /**
+     * 新增或更新员工索引（在当前事务提交后生效）
+     */
+    public void indexStaff(Staff staffMember) {
+        if (staffMember == null || staffMember.getId() == null) {
+            return;
+        }
+        long id = staffMember.getId();
+        String pinyin = staffMember.getNamePinyin();
+        String initials = staffMember.getNameInitials();
+        afterCommit(() -> put(staff, id, pinyin, initials));
+    }
+
+    /**
+     * 移除员工索引（在当前事务提交后生效）
+     */
+    public void removeStaff(Long staffId) {
+        if (staffId != null) {
+            afterCommit(() -> remove(staff, staffId));
+        }
+    }
+
+    /**
+     * 按拼音/首字母前缀搜索患者
+     * @param keyword 关键词
+     * @param limit 最多返回的数量
+     * @return 患者ID（完全匹配优先）；索引不可用或关键词不是拼音时返回null，由调用方回退到数据库查询
+     */
+    public List<Long> searchPatients(String keyword, int limit) {
+        return search(patients, keyword, limit);
+    }
+
+    /**
+     * 按拼音/首字母前缀搜索员工
+     * @param keyword 关键词
+     * @param limit 最多返回的数量
+     * @return 员工ID（完全匹配优先）；索引不可用或关键词不是拼音时返回null，由调用方回退到数据库查询
+     */
+    public List<Long> searchStaff(String keyword, int limit) {
+        return search(staff, keyword, limit);
+    }
+
+    // ========== 内部实现 ==========
+
+    private List<Long> search(PinyinPrefixTrie trie, String keyword, int limit) {
+        if (!ready || !isPinyinQuery(keyword)) {
+            return null;
+        }
+        String prefix = keyword.trim().toLowerCase(Locale.ROOT);
+        lock.readLock().lock();
+        try {
+            return trie.prefixSearch(prefix, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int loadPatients() {
+        int backfilled = 0;
+        long afterId = 0L;
+        List<Patient> batch;
+        do {
+            batch = patientMapper.findPinyinIndexRows(afterId, LOAD_BATCH_SIZE);
+            List<Patient> missing = new ArrayList<>();
+            for (Patient patient : batch) {
+                if (patient.getNamePinyin() == null) {
+                    applyPinyin(patient);
+                    missing.add(patient);
+                }
+                patients.put(patient.getId(), patient.getNamePinyin(), patient.getNameInitials());
+            }
+            if (!missing.isEmpty()) {
+                patientMapper.batchUpdateNamePinyin(missing);
+                missing.forEach(patient -> patientCache.invalidate(patient.getId()));
+                backfilled += missing.size();
+            }
+            if (!batch.isEmpty()) {
+                afterId = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == LOAD_BATCH_SIZE);
+        return backfilled;
+    }
+
+    private int loadStaff() {
+        int backfilled = 0;
+        long afterId = 0L;
+        List<Staff> batch;
+        do {
+            batch = staffMapper.findPinyinIndexRows(afterId, LOAD_BATCH_SIZE);
+            List<Staff> missing = new ArrayList<>();
+            for (Staff staffMember : batch) {
+                if (staffMember.getNamePinyin() == null) {
+                    applyPinyin(staffMember);
+                    missing.add(staffMember);
+                }
+                staff.put(staffMember.getId(), staffMember.getNamePinyin(), staffMember.getNameInitials());
+            }
+            if (!missing.isEmpty()) {
+                staffMapper.batchUpdateNamePinyin(missing);
+                backfilled += missing.size();
+            }
+            if (!batch.isEmpty()) {
+                afterId = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == LOAD_BATCH_SIZE);
+        return backfilled;
+    }
+
+    private void put(PinyinPrefixTrie trie, long id, String pinyin, String initials) {
+        lock.writeLock().lock();
+        try {
+            trie.put(id, pinyin, initials);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void remove(PinyinPrefixTrie trie, long id) {
+        lock.writeLock().lock();
+        try {
+            trie.remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 在当前事务提交后执行；无事务时立即执行
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,510 @@
+package org.me.joy.clinic.search;
+
+import org.me.joy.clinic.entity.Patient;
+import org.me.joy.clinic.mapper.PatientMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 患者搜索N-gram倒排索引
+ * 姓名按单字和双字切分（适配中文姓名），手机号、患者编号、身份证号按三字符切分，
+ * 查询时对各字段的N-gram倒排列表求交集，再用原值校验子串匹配并排序，返回前K个患者ID。
+ * 启动时从数据库分批加载，患者新增、修改、删除在事务提交后同步到索引；
+ * 加载期间提交的写操作先缓冲，加载完成后在同一写锁内重放。
+ */
+@Component
+public class PatientSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(PatientSearchIndex.class);
+
+    private static final int LOAD_BATCH_SIZE = 5000;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * 已删除文档占比超过该值时压缩索引
+     */
+    private static final double COMPACT_THRESHOLD = 0.2;
+
+    private static final int NAME_GRAM = 2;
+
+    private static final int CODE_GRAM = 3;
+
+    private static final char FIELD_NAME = 'n';
+    private static final char FIELD_PHONE = 'p';
+    private static final char FIELD_NUMBER = 'u';
+    private static final char FIELD_ID_CARD = 'c';
+
+    // 与 searchPatients SQL 的排序一致：姓名、编号、手机号、身份证号完全匹配优先
+    private static final int RANK_NAME_EXACT = 0;
+    private static final int RANK_NUMBER_EXACT = 1;
+    private static final int RANK_PHONE_EXACT = 2;
+    private static final int RANK_ID_CARD_EXACT = 3;
+    private static final int RANK_PARTIAL = 4;
+
+    @Autowired
+    private PatientMapper patientMapper;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile boolean ready = false;
+
+    /**
+     * 正在从数据库加载，期间提交的写操作进入缓冲（受 pendingWrites 监视器保护）
+     */
+    private boolean loading = false;
+
+    private final List<Runnable> pendingWrites = new ArrayList<>();
+
+    // 文档存储（文档ID为内部连续编号，按写入顺序递增）
+    private int size;
+    private int deletedCount;
+    private long[] patientIds = new long[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    private String[] phones = new String[INITIAL_CAPACITY];
+    private String[] numbers = new String[INITIAL_CAPACITY];
+    private String[] idCards = new String[INITIAL_CAPACITY];
+    private final BitSet deleted = new BitSet();
+
+    private final Map<Long, Integer> docByPatientId = new HashMap<>();
+
+    /**
+     * 倒排列表：字段前缀 + gram -> 升序文档ID
+     */
+    private final Map<String, PostingList> postings = new HashMap<>();
+
+    /**
+     * 应用启动完成后构建索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            logger.error("构建患者搜索索引失败，搜索将继续使用数据库: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 从数据库分批加载所有患者并重建索引
+     * 加载期间提交的写操作可能落在已读过的批次之后，缓冲后在加载完成时重放；写操作先删后加，重放是幂等的。
+     */
+    public synchronized void rebuild() {
+        long startedAt = System.currentTimeMillis();
+        synchronized (pendingWrites) {
+            loading = true;
+            pendingWrites.clear();
+        }
+        lock.writeLock().lock();
+        try {
+            clear();
+            long afterId = 0L;
+            List<Patient> batch;
+            do {
+                batch = patientMapper.findSearchIndexRows(afterId, LOAD_BATCH_SIZE);
+                for (Patient patient : batch) {
+                    addDocument(patient);
+                }
+                if (!batch.isEmpty()) {
+                    afterId = batch.get(batch.size() - 1).getId();
+                }
+            } while (batch.size() == LOAD_BATCH_SIZE);
+            replayPendingWrites();
+        } catch (RuntimeException e) {
+            // 索引已被清空，标记为不可用，搜索回退到数据库
+            synchronized (pendingWrites) {
+                ready = false;
+                loading = false;
+                pendingWrites.clear();
+            }
+            throw e;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("患者搜索索引构建完成: {} 名患者, {} 个gram, 耗时 {} ms", size, postings.size(),
+            System.currentTimeMillis() - startedAt);
+    }
+
+    /**
+     * 索引是否可用
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 新增或更新患者索引（在当前事务提交后生效）
+     */
+    public void index(Patient patient) {
+        if (patient == null || patient.getId() == null) {
+            return;
+        }
+        Patient snapshot = new Patient();
+        snapshot.setId(patient.getId());
+        snapshot.setName(patient.getName());
+        snapshot.setPhone(patient.getPhone());
+        snapshot.setPatientNumber(patient.getPatientNumber());
+        snapshot.setIdCard(patient.getIdCard());
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                removeDocument(snapshot.getId());
+                addDocument(snapshot);
+                compactIfNeeded();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * 移除患者索引（在当前事务提交后生效）
+     */
+    public void remove(Long patientId) {
+        if (patientId == null) {
+            return;
+        }
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                removeDocument(patientId);
+                compactIfNeeded();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * 搜索患者
+     * @param keyword 关键词（匹配姓名、手机号、患者编号、身份证号的子串）
+     * @param limit 最多返回的数量
+     * @return 按相关度排序的患者ID；索引不可用或关键词过短无法使用索引时返回null，由调用方回退到数据库查询
+     */
+    public List<Long> search(String keyword, int limit) {
+        if (!ready || keyword == null) {
+            return null;
+        }
+        String query = normalize(keyword);
+        if (query.isEmpty()) {
+            return null;
+        }
+        boolean codeSearchable = query.length() >= CODE_GRAM;
+        if (!codeSearchable && !containsCjk(query)) {
+            // 短的数字/字母关键词无法使用三字符索引
+            return null;
+        }
+
+        lock.readLock().lock();
+        try {
+            BitSet candidates = new BitSet(size);
+            collect(candidates, FIELD_NAME, query.length() == 1 ? List.of(query) : grams(query, NAME_GRAM));
+            if (codeSearchable) {
+                List<String> codeGrams = grams(query, CODE_GRAM);
+                collect(candidates, FIELD_PHONE, codeGrams);
+                collect(candidates, FIELD_NUMBER, codeGrams);
+                collect(candidates, FIELD_ID_CARD, codeGrams);
+            }
+            return rank(candidates, query, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ========== 内部实现 ==========
+
+    /**
+     * 对字段的所有gram倒排列表求交集，结果并入候选集合
+     */
+    private void collect(BitSet candidates, char field, List<String> queryGrams) {
+        List<PostingList> lists = new ArrayList<>(queryGrams.size());
+        for (String gram : new LinkedHashSet<>(queryGrams)) {
+            PostingList list = postings.get(field + gram);
+            if (list == null) {
+                return;
+            }
+            lists.add(list);
+        }
+        if (lists.isEmpty()) {
+            return;
+        }
+        lists.sort((a, b) -> Integer.compare(a.size, b.size));
+        int[] result = Arrays.copyOf(lists.get(0).docs, lists.get(0).size);
+        int resultSize = result.length;
+        for (int i = 1; i < lists.size() && resultSize > 0; i++) {
+            resultSize = intersect(result, resultSize, lists.get(i));
+        }
+        for (int i = 0; i < resultSize; i++) {
+            candidates.set(result[i]);
+        }
+    }
+
+    /**
+     * 有序数组求交集，结果写回 result，返回交集大小
+     */
+    private int intersect(int[] result, int resultSize, PostingList other) {
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < resultSize && j < other.size) {
+            if (result[i] == other.docs[j]) {
+                result[k++] = result[i];
+                i++;
+                j++;
+            } else if (result[i] < other.docs[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return k;
+    }
+
+    /**
+     * 校验候选文档并排序：完全匹配优先，其次按患者ID倒序（自增主键，即最近创建的患者优先，与SQL的 created_at DESC 一致）
+     * 修改患者会在末尾追加新文档，文档ID只反映最近写入顺序，因此不用文档ID排序
+     */
+    private List<Long> rank(BitSet candidates, String query, int limit) {
+        List<List<Long>> buckets = new ArrayList<>();
+        for (int i = 0; i <= RANK_PARTIAL; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        for (int doc = candidates.nextSetBit(0); doc >= 0; doc = candidates.nextSetBit(doc + 1)) {
+            if (deleted.get(doc)) {
+                continue;
+            }
+            int rank = rankOf(doc, query);
+            if (rank >= 0) {
+                buckets.get(rank).add(patientIds[doc]);
+            }
+        }
+        List<Long> result = new ArrayList<>(limit);
+        for (List<Long> bucket : buckets) {
+            bucket.sort(Comparator.reverseOrder());
+            for (Long patientId : bucket) {
+                if (result.size() >= limit) {
+                    return result;
+                }
+                result.add(patientId);
+            }
+        }
+        return result;
+    }
+
+    private int rankOf(int doc, String query) {
+        if (query.equals(names[doc])) return RANK_NAME_EXACT;
+        if (query.equals(numbers[doc])) return RANK_NUMBER_EXACT;
+        if (query.equals(phones[doc])) return RANK_PHONE_EXACT;
+        if (query.equals(idCards[doc])) return RANK_ID_CARD_EXACT;
+        if (names[doc].contains(query) || numbers[doc].contains(query)
+                || phones[doc].contains(query) || idCards[doc].contains(query)) {
+            return RANK_PARTIAL;
+        }
+        // N-gram 交集的假阳性
+        return -1;
+    }
+
+    private void addDocument(Patient patient) {
+        if (size == patientIds.length) {
+            grow();
+        }
+        int doc = size++;
+        patientIds[doc] = patient.getId();
+        names[doc] = normalize(patient.getName());
+        phones[doc] = normalize(patient.getPhone());
+        numbers[doc] = normalize(patient.getPatientNumber());
+        idCards[doc] = normalize(patient.getIdCard());
+        docByPatientId.put(patient.getId(), doc);
+        indexField(doc, FIELD_NAME, names[doc], true);
+        indexField(doc, FIELD_PHONE, phones[doc], false);
+        indexField(doc, FIELD_NUMBER, numbers[doc], false);
+        indexField(doc, FIELD_ID_CARD, idCards[doc], false);
+    }
+
+    private void indexField(int doc, char field, String value, boolean nameField) {
+        if (value.isEmpty()) {
+            return;
+        }
+        Set<String> fieldGrams = new LinkedHashSet<>();
+        if (nameField) {
+            for (int i = 0; i < value.length(); i++) {
+                fieldGrams.add(value.substring(i, i + 1));
+            }
+            fieldGrams.addAll(grams(value, NAME_GRAM));
+        } else {
+            fieldGrams.addAll(grams(value, CODE_GRAM));
+        }
+        for (String gram : fieldGrams) {
+            postings.computeIfAbsent(field + gram, key -> new PostingList()).add(doc);
+        }
+    }
+
+    private void removeDocument(Long patientId) {
+        Integer doc = docByPatientId.remove(patientId);
+        if (doc != null && !deleted.get(doc)) {
+            deleted.set(doc);
+            deletedCount++;
+        }
+    }
+
+    /**
+     * 已删除文档过多时基于内存中的文档重建倒排列表
+     */
+    private void compactIfNeeded() {
+        if (deletedCount < INITIAL_CAPACITY || deletedCount < size * COMPACT_THRESHOLD) {
+            return;
+        }
+        List<Patient> live = new ArrayList<>(size - deletedCount);
+        for (int doc = 0; doc < size; doc++) {
+            if (!deleted.get(doc)) {
+                Patient patient = new Patient();
+                patient.setId(patientIds[doc]);
+                patient.setName(names[doc]);
+                patient.setPhone(phones[doc]);
+                patient.setPatientNumber(numbers[doc]);
+                patient.setIdCard(idCards[doc]);
+                live.add(patient);
+            }
+        }
+        clear();
+        for (Patient patient : live) {
+            addDocument(patient);
+        }
+        logger.info("患者搜索索引压缩完成: {} 名患者", size);
+    }
+
+    private void clear() {
+        size = 0;
+        deletedCount = 0;
+        deleted.clear();
+        docByPatientId.clear();
+        postings.clear();
+    }
+
+    private void grow() {
+        int capacity = patientIds.length * 2;
+        patientIds = Arrays.copyOf(patientIds, capacity);
+        names = Arrays.copyOf(names, capacity);
+        phones = Arrays.copyOf(phones, capacity);
+        numbers = Arrays.copyOf(numbers, capacity);
+        idCards = Arrays.copyOf(idCards, capacity);
+    }
+
+    private static List<String> grams(String value, int n) {
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i + n <= value.length(); i++) {
+            result.add(value.substring(i, i + n));
+        }
+        return result;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean containsCjk(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.UnicodeScript.of(value.charAt(i)) == Character.UnicodeScript.HAN) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 重放加载期间缓冲的写操作，缓冲为空后标记索引可用（调用方持有写锁）
+     */
+    private void replayPendingWrites() {
+        while (true) {
+            List<Runnable> writes;
+            synchronized (pendingWrites) {
+                if (pendingWrites.isEmpty()) {
+                    ready = true;
+                    loading = false;
+                    return;
+                }
+                writes = new ArrayList<>(pendingWrites);
+                pendingWrites.clear();
+            }
+            writes.forEach(Runnable::run);
+        }
+    }
+
+    /**
+     * 事务提交后再更新索引，避免回滚的写入进入索引
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(action);
+                }
+            });
+        } else {
+            apply(action);
+        }
+    }
+
+    /**
+     * 应用已提交的写操作：加载中则缓冲；尚未开始加载时忽略，之后的加载能读到该已提交的数据
+     */
+    private void apply(Runnable action) {
+        synchronized (pendingWrites) {
+            if (loading) {
+                pendingWrites.add(action);
+                return;
+            }
+            if (!ready) {
+                return;
+            }
+        }
+        action.run();
+    }
+
+    /**
+     * 升序文档ID列表
+     */
+    private static final class PostingList {
+
+        private int[] docs = new int[4];
+        private int size;
+
+        void add(int doc) {
+            if (size > 0 && docs[size - 1] == doc) {
+                return;
+            }
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            docs[size++] = doc;
+        }
+    }
+}
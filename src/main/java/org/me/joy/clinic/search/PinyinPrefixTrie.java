@@ -0,0 +1,175 @@
+package org.me.joy.clinic.search;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 拼音前缀字典树
+ * 每个ID可挂多个键（全拼、首字母），子节点以有序字符数组存储，前缀查询只访问前缀所在子树。
+ * 非线程安全，由调用方加锁。
+ */
+public class PinyinPrefixTrie {
+
+    private static final char[] NO_LABELS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final long[] NO_IDS = new long[0];
+
+    private final Node root = new Node();
+
+    private final Map<Long, String[]> keysById = new HashMap<>();
+
+    /**
+     * 写入ID的全部键，已存在时先移除旧键
+     * @param id 实体ID
+     * @param keys 键（空键忽略）
+     */
+    public void put(long id, String... keys) {
+        remove(id);
+        List<String> accepted = new ArrayList<>(keys.length);
+        for (String key : keys) {
+            if (key != null && !key.isEmpty() && !accepted.contains(key)) {
+                accepted.add(key);
+                nodeFor(key, true).addId(id);
+            }
+        }
+        if (!accepted.isEmpty()) {
+            keysById.put(id, accepted.toArray(new String[0]));
+        }
+    }
+
+    /**
+     * 移除ID的全部键
+     * @param id 实体ID
+     */
+    public void remove(long id) {
+        String[] keys = keysById.remove(id);
+        if (keys == null) {
+            return;
+        }
+        for (String key : keys) {
+            Node node = nodeFor(key, false);
+            if (node != null) {
+                node.removeId(id);
+            }
+        }
+    }
+
+    /**
+     * 前缀查询，按键长度由短到长（即越接近完全匹配越靠前）广度优先返回
+     * @param prefix 前缀
+     * @param limit 最多返回的数量
+     * @return 去重后的ID
+     */
+    public List<Long> prefixSearch(String prefix, int limit) {
+        Node start = nodeFor(prefix, false);
+        if (start == null || limit <= 0) {
+            return new ArrayList<>();
+        }
+        Set<Long> result = new LinkedHashSet<>();
+        Deque<Node> queue = new ArrayDeque<>();
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            for (int i = 0; i < node.idCount; i++) {
+                result.add(node.ids[i]);
+                if (result.size() >= limit) {
+                    return new ArrayList<>(result);
+                }
+            }
+            for (int i = 0; i < node.childCount; i++) {
+                queue.add(node.children[i]);
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * 清空所有键
+     */
+    public void clear() {
+        root.clear();
+        keysById.clear();
+    }
+
+    /**
+     * 已索引的ID数量
+     */
+    public int size() {
+        return keysById.size();
+    }
+
+    private Node nodeFor(String key, boolean create) {
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = create ? node.childOrCreate(key.charAt(i)) : node.child(key.charAt(i));
+        }
+        return node;
+    }
+
+    private static final class Node {
+
+        private char[] labels = NO_LABELS;
+        private Node[] children = NO_CHILDREN;
+        private int childCount;
+
+        private long[] ids = NO_IDS;
+        private int idCount;
+
+        void clear() {
+            labels = NO_LABELS;
+            children = NO_CHILDREN;
+            childCount = 0;
+            ids = NO_IDS;
+            idCount = 0;
+        }
+
+        Node child(char label) {
+            int index = Arrays.binarySearch(labels, 0, childCount, label);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node childOrCreate(char label) {
+            int index = Arrays.binarySearch(labels, 0, childCount, label);
+            if (index >= 0) {
+                return children[index];
+            }
+            int insertAt = -index - 1;
+            if (childCount == labels.length) {
+                int capacity = Math.max(2, childCount * 2);
+                labels = Arrays.copyOf(labels, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            System.arraycopy(labels, insertAt, labels, insertAt + 1, childCount - insertAt);
+            System.arraycopy(children, insertAt, children, insertAt + 1, childCount - insertAt);
+            Node child = new Node();
+            labels[insertAt] = label;
+            children[insertAt] = child;
+            childCount++;
+            return child;
+        }
+
+        void addId(long id) {
+            if (idCount == ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(2, idCount * 2));
+            }
+            ids[idCount++] = id;
+        }
+
+        void removeId(long id) {
+            for (int i = 0; i < idCount; i++) {
+                if (ids[i] == id) {
+                    System.arraycopy(ids, i + 1, ids, i, idCount - i - 1);
+                    idCount--;
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.me.joy.clinic.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 中文文本分词器
+ * 不依赖词典：汉字连续片段切分为单字和相邻双字，字母数字连续片段作为一个词（转小写），其余字符视为分隔符。
+ * 查询时汉字片段只取双字（单个汉字时取单字），使多字查询近似短语匹配。
+ */
+public final class TextTokenizer {
+
+    /**
+     * 字母数字词的最大长度，超出部分截断
+     */
+    private static final int MAX_WORD_LENGTH = 32;
+
+    private TextTokenizer() {
+    }
+
+    /**
+     * 索引分词，统计词频
+     * @param text 文本
+     * @param weight 每次出现计入的词频权重
+     * @param frequencies 词 -> 词频，结果累加到此
+     * @return 本次切分出的词数（不含权重），用于文档长度
+     */
+    public static int tokenize(String text, int weight, Map<String, Integer> frequencies) {
+        List<String> tokens = new ArrayList<>();
+        split(text, true, tokens);
+        for (String token : tokens) {
+            frequencies.merge(token, weight, Integer::sum);
+        }
+        return tokens.size();
+    }
+
+    /**
+     * 查询分词，结果去重并保持顺序
+     */
+    public static List<String> queryTerms(String text) {
+        List<String> tokens = new ArrayList<>();
+        split(text, false, tokens);
+        return new ArrayList<>(new LinkedHashSet<>(tokens));
+    }
+
+    private static void split(String text, boolean indexing, List<String> tokens) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        // NFKC 将全角字母数字转为半角
+        String value = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        int length = value.length();
+        int i = 0;
+        while (i < length) {
+            char c = value.charAt(i);
+            if (isHan(c)) {
+                int start = i;
+                while (i < length && isHan(value.charAt(i))) {
+                    i++;
+                }
+                splitHan(value, start, i, indexing, tokens);
+            } else if (Character.isLetterOrDigit(c)) {
+                int start = i;
+                while (i < length && !isHan(value.charAt(i)) && Character.isLetterOrDigit(value.charAt(i))) {
+                    i++;
+                }
+                tokens.add(value.substring(start, Math.min(i, start + MAX_WORD_LENGTH)));
+            } else {
+                i++;
+            }
+        }
+    }
+
+    private static void splitHan(String value, int start, int end, boolean indexing, List<String> tokens) {
+        if (end - start == 1 || indexing) {
+            for (int i = start; i < end; i++) {
+                tokens.add(value.substring(i, i + 1));
+            }
+        }
+        for (int i = start; i + 2 <= end; i++) {
+            tokens.add(value.substring(i, i + 2));
+        }
+    }
+
+    private static boolean isHan(char c) {
+        return Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN;
+    }
+}
@@ -0,0 +1,20 @@
+package org.me.joy.clinic.service;
+
+import org.me.joy.clinic.dto.AnalyticsDashboard;
+
+import java.time.LocalDate;
+
+/**
+ * 分析仪表盘服务接口
+ */
+public interface AnalyticsDashboardService {
+
+    /**
+     * 获取分析首页仪表盘数据
+     * 各分区并发加载，超时的分区返回最近一次缓存的数据
+     * @param startDate 开始日期
+     * @param endDate 结束日期
+     * @return 仪表盘数据
+     */
+    AnalyticsDashboard getDashboard(LocalDate startDate, LocalDate endDate);
+}
@@ -2,6 +2,7 @@ package org.me.joy.clinic.service;
 
 import org.me.joy.clinic.dto.AddBillItemRequest;
 import org.me.joy.clinic.dto.CreateBillRequest;
+import org.me.joy.clinic.dto.CursorPage;
 import org.me.joy.clinic.entity.Bill;
 import org.me.joy.clinic.entity.BillItem;
 
@@ -43,6 +44,11 @@ public interface BillingService {
      * 获取患者的所有账单
      */
     List<Bill> getPatientBills(Long patientId);
+
+    /**
+     * 游标分页获取患者账单（最新账单在前）
+     */
+    CursorPage<Bill> getPatientBillsPage(Long patientId, String cursor, Integer limit);
     
     /**
      * 获取账单的所有项目
@@ -1,11 +1,15 @@
 package org.me.joy.clinic.service;
 
 import org.me.joy.clinic.dto.CreateMedicalRecordRequest;
+import org.me.joy.clinic.dto.DiagnosisCodeSuggestion;
+import org.me.joy.clinic.dto.MedicalRecordInclude;
+import org.me.joy.clinic.dto.MedicalRecordSearchHit;
 import org.me.joy.clinic.dto.UpdateMedicalRecordRequest;
 import org.me.joy.clinic.entity.Diagnosis;
 import org.me.joy.clinic.entity.MedicalRecord;
 import org.me.joy.clinic.entity.Prescription;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -56,6 +60,15 @@ public interface ElectronicMedicalRecordService {
      */
     List<MedicalRecord> getPatientMedicalRecords(Long patientId);
 
+    /**
+     * 查询患者的病历列表，按需批量加载诊断和处方
+     * 
+     * @param patientId 患者ID
+     * @param include 附带的关联数据
+     * @return 病历列表
+     */
+    List<MedicalRecord> getPatientMedicalRecords(Long patientId, MedicalRecordInclude include);
+
     /**
      * 查询医生的病历列表
      * 
@@ -64,6 +77,15 @@ public interface ElectronicMedicalRecordService {
      */
     List<MedicalRecord> getDoctorMedicalRecords(Long doctorId);
 
+    /**
+     * 查询医生的病历列表，按需批量加载诊断和处方
+     * 
+     * @param doctorId 医生ID
+     * @param include 附带的关联数据
+     * @return 病历列表
+     */
+    List<MedicalRecord> getDoctorMedicalRecords(Long doctorId, MedicalRecordInclude include);
+
     /**
      * 根据挂号ID查询病历
      * 
@@ -81,6 +103,16 @@ public interface ElectronicMedicalRecordService {
      */
     List<MedicalRecord> getMedicalRecordsByDateRange(LocalDateTime startDate, LocalDateTime endDate);
 
+    /**
+     * 查询指定时间范围内的病历，按需批量加载诊断和处方
+     * 
+     * @param startDate 开始时间
+     * @param endDate 结束时间
+     * @param include 附带的关联数据
+     * @return 病历列表
+     */
+    List<MedicalRecord> getMedicalRecordsByDateRange(LocalDateTime startDate, LocalDateTime endDate, MedicalRecordInclude include);
+
     /**
      * 查询患者在指定时间范围内的病历
      * 
@@ -91,6 +123,17 @@ public interface ElectronicMedicalRecordService {
      */
     List<MedicalRecord> getPatientMedicalRecordsByDateRange(Long patientId, LocalDateTime startDate, LocalDateTime endDate);
 
+    /**
+     * 查询患者在指定时间范围内的病历，按需批量加载诊断和处方
+     * 
+     * @param patientId 患者ID
+     * @param startDate 开始时间
+     * @param endDate 结束时间
+     * @param include 附带的关联数据
+     * @return 病历列表
+     */
+    List<MedicalRecord> getPatientMedicalRecordsByDateRange(Long patientId, LocalDateTime startDate, LocalDateTime endDate, MedicalRecordInclude include);
+
     /**
      * 根据状态查询病历列表
      * 
@@ -99,6 +142,15 @@ public interface ElectronicMedicalRecordService {
      */
     List<MedicalRecord> getMedicalRecordsByStatus(String status);
 
+    /**
+     * 根据状态查询病历列表，按需批量加载诊断和处方
+     * 
+     * @param status 病历状态
+     * @param include 附带的关联数据
+     * @return 病历列表
+     */
+    List<MedicalRecord> getMedicalRecordsByStatus(String status, MedicalRecordInclude include);
+
     /**
      * 查询待审核的病历
      * 
@@ -106,6 +158,14 @@ public interface ElectronicMedicalRecordService {
      */
     List<MedicalRecord> getPendingReviewRecords();
 
+    /**
+     * 查询待审核的病历，按需批量加载诊断和处方
+     * 
+     * @param include 附带的关联数据
+     * @return 病历列表
+     */
+    List<MedicalRecord> getPendingReviewRecords(MedicalRecordInclude include);
+
     /**
      * 查询传染病病历
      * 
@@ -113,6 +173,14 @@ public interface ElectronicMedicalRecordService {
      */
     List<MedicalRecord> getInfectiousDiseaseRecords();
 
+    /**
+     * 查询传染病病历，按需批量加载诊断和处方
+     * 
+     * @param include 附带的关联数据
+     * @return 病历列表
+     */
+    List<MedicalRecord> getInfectiousDiseaseRecords(MedicalRecordInclude include);
+
     /**
      * 查询慢性病病历
      * 
@@ -120,6 +188,45 @@ public interface ElectronicMedicalRecordService {
      */
     List<MedicalRecord> getChronicDiseaseRecords();
 
+    /**
+     * 查询慢性病病历，按需批量加载诊断和处方
+     * 
+     * @param include 附带的关联数据
+     * @return 病历列表
+     */
+    List<MedicalRecord> getChronicDiseaseRecords(MedicalRecordInclude include);
+
+    /**
+     * 全文搜索病历（主诉、现病史、诊断、治疗方案）
+     * 
+     * @param keyword 关键词
+     * @param doctorId 医生ID，可为空
+     * @param department 科室，可为空
+     * @param startDate 就诊开始日期，可为空
+     * @param endDate 就诊结束日期，可为空
+     * @param limit 返回数量，为空时使用默认值
+     * @return 按相关度排序的命中结果
+     */
+    List<MedicalRecordSearchHit> searchMedicalRecords(String keyword, Long doctorId, String department,
+                                                      LocalDate startDate, LocalDate endDate, Integer limit);
+
+    /**
+     * 诊断编码联想（编码前缀、名称子串、名称拼音首字母），按医生历史使用次数排序
+     * 
+     * @param keyword 关键词
+     * @param doctorId 当前医生ID，可为空
+     * @param limit 返回数量，为空时使用默认值
+     * @return 诊断编码及名称
+     */
+    List<DiagnosisCodeSuggestion> suggestDiagnosisCodes(String keyword, Long doctorId, Integer limit);
+
+    /**
+     * 重新加载诊断编码字典
+     * 
+     * @return 字典条目数量
+     */
+    int reloadDiagnosisDictionary();
+
     /**
      * 添加诊断
      * 
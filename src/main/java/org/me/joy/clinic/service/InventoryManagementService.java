@@ -3,7 +3,9 @@ package org.me.joy.clinic.service;
 import org.me.joy.clinic.dto.*;
 import org.me.joy.clinic.entity.Medicine;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 库存管理服务接口
@@ -95,6 +97,11 @@ public interface InventoryManagementService {
      */
     Integer getAvailableStock(Long medicineId);
 
+    /**
+     * 批量获取药品库存快照（总库存、可用、预留、锁定），一次查询
+     */
+    Map<Long, StockSnapshot> getStockSnapshots(Collection<Long> medicineIds);
+
     /**
      * 预留库存
      */
@@ -0,0 +1,22 @@
+package org.me.joy.clinic.service;
+
+/**
+ * 病历冷存储服务接口
+ * 将归档已久的病历移出热表，读取时由病历服务透明回填
+ */
+public interface MedicalRecordArchiveService {
+
+    /**
+     * 分批将归档时间超过配置月数的病历移入冷存储
+     * @return 本次移入冷存储的病历数量
+     */
+    int archiveColdRecords();
+
+    /**
+     * 将单份已归档病历移入冷存储：大文本字段、全部诊断以及未被调剂或账单引用的处方压缩后写入冷存储，
+     * 热表保留病历的检索字段和外键
+     * @param recordId 病历ID
+     * @return 是否移入（病历不存在、未归档或已在冷存储中时返回false）
+     */
+    boolean moveToColdTier(Long recordId);
+}
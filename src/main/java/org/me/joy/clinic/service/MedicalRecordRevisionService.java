@@ -0,0 +1,42 @@
+package org.me.joy.clinic.service;
+
+import org.me.joy.clinic.entity.MedicalRecord;
+import org.me.joy.clinic.entity.MedicalRecordRevision;
+
+import java.util.List;
+
+/**
+ * 病历修订记录服务接口
+ * 病历每次修改在同一事务中追加一条只含变更字段的增量，可重建任意历史版本
+ */
+public interface MedicalRecordRevisionService {
+
+    /**
+     * 记录新建病历的初始版本（版本1，完整快照）
+     * @param record 已保存的病历
+     */
+    void recordCreated(MedicalRecord record);
+
+    /**
+     * 记录一次修改
+     * @param before 修改前的病历
+     * @param after 修改后的病历
+     * @return 新版本号，没有字段变化时返回 null
+     */
+    Integer recordUpdate(MedicalRecord before, MedicalRecord after);
+
+    /**
+     * 查询病历的修订记录（不含编码内容），按版本号降序
+     * @param recordId 病历ID
+     * @return 修订记录列表
+     */
+    List<MedicalRecordRevision> getRevisions(Long recordId);
+
+    /**
+     * 重建病历的指定版本
+     * @param recordId 病历ID
+     * @param revision 版本号
+     * @return 该版本的病历内容（不含诊断和处方）
+     */
+    MedicalRecord getRevision(Long recordId, Integer revision);
+}
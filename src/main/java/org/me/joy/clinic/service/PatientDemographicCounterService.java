@@ -0,0 +1,72 @@
+package org.me.joy.clinic.service;
+
+import org.me.joy.clinic.entity.Patient;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 患者人口统计计数服务接口
+ * 维护按性别、年龄段、地区分组的患者计数，供人口统计报表直接读取
+ */
+public interface PatientDemographicCounterService {
+
+    String DIMENSION_GENDER = "GENDER";
+
+    String DIMENSION_AGE_BAND = "AGE_BAND";
+
+    String DIMENSION_REGION = "REGION";
+
+    String DIMENSION_PROVINCE = "PROVINCE";
+
+    /**
+     * 计数表是否已初始化
+     * @return 已有计数数据时返回true
+     */
+    boolean isInitialized();
+
+    /**
+     * 获取指定维度的分组计数，按数量降序
+     * @param dimension 统计维度
+     * @return 分组值到患者数量的映射
+     */
+    Map<String, Long> getDistribution(String dimension);
+
+    /**
+     * 记录新增患者
+     * @param patient 新增的患者
+     */
+    void recordPatientCreated(Patient patient);
+
+    /**
+     * 记录批量新增患者，同一分组的变化合并为一次更新
+     * @param patients 新增的患者
+     */
+    void recordPatientsCreated(List<Patient> patients);
+
+    /**
+     * 记录患者信息变更，仅调整发生变化的分组
+     * @param before 变更前的患者信息
+     * @param after 变更后的患者信息
+     */
+    void recordPatientUpdated(Patient before, Patient after);
+
+    /**
+     * 记录删除患者
+     * @param patient 被删除的患者
+     */
+    void recordPatientDeleted(Patient patient);
+
+    /**
+     * 根据患者表的省份/城市字段重建地区和省份计数
+     */
+    void rebuildRegionCounters();
+
+    /**
+     * 将生日跨入新年龄段的患者移动到新年龄段
+     * 从上次平移到的日期之后逐日处理到指定日期，已处理的日期不会重复平移
+     * @param today 统计日期
+     */
+    void shiftAgeBands(LocalDate today);
+}
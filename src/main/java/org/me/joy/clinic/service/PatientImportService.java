@@ -0,0 +1,22 @@
+package org.me.joy.clinic.service;
+
+import org.me.joy.clinic.dto.PatientImportFormat;
+import org.me.joy.clinic.dto.PatientImportResult;
+
+import java.io.InputStream;
+
+/**
+ * 患者批量导入服务接口
+ */
+public interface PatientImportService {
+
+    /**
+     * 流式导入患者
+     * 按分块读取、并行校验，身份证号与文件内及已有患者去重，校验失败的行记入错误明细，其余行批量插入。
+     * 每个分块单独提交，中途失败不影响已导入的分块。
+     * @param input 导入数据流
+     * @param format 数据格式
+     * @return 导入结果及行级错误明细
+     */
+    PatientImportResult importPatients(InputStream input, PatientImportFormat format);
+}
@@ -1,6 +1,8 @@
 package org.me.joy.clinic.service;
 
 import org.me.joy.clinic.dto.CreatePatientRequest;
+import org.me.joy.clinic.dto.CursorPage;
+import org.me.joy.clinic.dto.PatientInclude;
 import org.me.joy.clinic.dto.PatientResponse;
 import org.me.joy.clinic.dto.UpdatePatientRequest;
 import org.me.joy.clinic.entity.AllergyHistory;
@@ -37,6 +39,14 @@ public interface PatientManagementService {
      */
     PatientResponse getPatientById(Long patientId);
 
+    /**
+     * 根据ID获取患者信息，按需加载过敏史和病史
+     * @param patientId 患者ID
+     * @param include 附带的关联数据
+     * @return 患者信息
+     */
+    PatientResponse getPatientById(Long patientId, PatientInclude include);
+
     /**
      * 根据患者编号获取患者信息
      * @param patientNumber 患者编号
@@ -57,6 +67,22 @@ public interface PatientManagementService {
      */
     List<PatientResponse> getAllPatients();
 
+    /**
+     * 获取所有患者列表，按需批量加载过敏史和病史
+     * @param include 附带的关联数据
+     * @return 患者列表
+     */
+    List<PatientResponse> getAllPatients(PatientInclude include);
+
+    /**
+     * 按ID游标分页获取患者列表
+     * @param cursor 上一页返回的续页令牌，首页为空
+     * @param limit 每页数量
+     * @param include 附带的关联数据
+     * @return 分页结果
+     */
+    CursorPage<PatientResponse> getPatientsPage(String cursor, Integer limit, PatientInclude include);
+
     /**
      * 根据状态获取患者列表
      * @param status 患者状态
@@ -64,12 +90,27 @@ public interface PatientManagementService {
      */
     List<PatientResponse> getPatientsByStatus(String status);
 
+    /**
+     * 根据状态获取患者列表，按需批量加载过敏史和病史
+     * @param status 患者状态
+     * @param include 附带的关联数据
+     * @return 患者列表
+     */
+    List<PatientResponse> getPatientsByStatus(String status, PatientInclude include);
+
     /**
      * 获取VIP患者列表
      * @return VIP患者列表
      */
     List<PatientResponse> getVipPatients();
 
+    /**
+     * 获取VIP患者列表，按需批量加载过敏史和病史
+     * @param include 附带的关联数据
+     * @return 患者列表
+     */
+    List<PatientResponse> getVipPatients(PatientInclude include);
+
     /**
      * 根据性别获取患者列表
      * @param gender 性别
@@ -77,6 +118,14 @@ public interface PatientManagementService {
      */
     List<PatientResponse> getPatientsByGender(String gender);
 
+    /**
+     * 根据性别获取患者列表，按需批量加载过敏史和病史
+     * @param gender 性别
+     * @param include 附带的关联数据
+     * @return 患者列表
+     */
+    List<PatientResponse> getPatientsByGender(String gender, PatientInclude include);
+
     /**
      * 根据年龄范围获取患者列表
      * @param minAge 最小年龄
@@ -85,6 +134,15 @@ public interface PatientManagementService {
      */
     List<PatientResponse> getPatientsByAgeRange(Integer minAge, Integer maxAge);
 
+    /**
+     * 根据年龄范围获取患者列表，按需批量加载过敏史和病史
+     * @param minAge 最小年龄
+     * @param maxAge 最大年龄
+     * @param include 附带的关联数据
+     * @return 患者列表
+     */
+    List<PatientResponse> getPatientsByAgeRange(Integer minAge, Integer maxAge, PatientInclude include);
+
     /**
      * 搜索患者
      * @param keyword 关键词（姓名、手机号、患者编号）
@@ -92,6 +150,14 @@ public interface PatientManagementService {
      */
     List<PatientResponse> searchPatients(String keyword);
 
+    /**
+     * 搜索患者，按需批量加载过敏史和病史
+     * @param keyword 关键词（姓名、手机号、患者编号）
+     * @param include 附带的关联数据
+     * @return 患者列表
+     */
+    List<PatientResponse> searchPatients(String keyword, PatientInclude include);
+
     /**
      * 获取今日就诊患者
      * @param date 日期
@@ -99,6 +165,14 @@ public interface PatientManagementService {
      */
     List<PatientResponse> getTodayPatients(LocalDate date);
 
+    /**
+     * 获取今日就诊患者，按需批量加载过敏史和病史
+     * @param date 日期
+     * @param include 附带的关联数据
+     * @return 患者列表
+     */
+    List<PatientResponse> getTodayPatients(LocalDate date, PatientInclude include);
+
     /**
      * 删除患者（软删除）
      * @param patientId 患者ID
@@ -0,0 +1,14 @@
+package org.me.joy.clinic.service;
+
+/**
+ * 患者地区回填服务接口
+ * 为存量患者从地址中提取省份和城市
+ */
+public interface PatientRegionBackfillService {
+
+    /**
+     * 分批回填所有尚未提取地区的患者，完成后重建地区计数
+     * @return 成功提取到地区的患者数量
+     */
+    int backfill();
+}
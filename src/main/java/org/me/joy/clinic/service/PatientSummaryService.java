@@ -0,0 +1,18 @@
+package org.me.joy.clinic.service;
+
+import org.me.joy.clinic.dto.PatientSummary;
+
+/**
+ * 患者概览服务接口
+ */
+public interface PatientSummaryService {
+
+    /**
+     * 获取患者概览（病历、生命体征、过敏史、病史、账单、调剂记录）
+     * 患者只校验一次，各分区并发加载
+     * @param patientId 患者ID
+     * @param limit 病历、生命体征、账单、调剂记录各返回的最近记录数，为空时取默认值
+     * @return 患者概览
+     */
+    PatientSummary getPatientSummary(Long patientId, Integer limit);
+}
@@ -0,0 +1,20 @@
+package org.me.joy.clinic.service;
+
+import org.me.joy.clinic.dto.CursorPage;
+import org.me.joy.clinic.dto.PatientTimelineEntry;
+
+/**
+ * 患者时间线服务接口
+ */
+public interface PatientTimelineService {
+
+    /**
+     * 按时间倒序获取患者的病历、医嘱、调剂、生命体征和挂号记录合并后的时间线
+     * 每个来源最多读取一页的行数，翻页代价与首页相同
+     * @param patientId 患者ID
+     * @param cursor 上一页返回的续页令牌，首页为null
+     * @param limit 每页数量，为空时取默认值
+     * @return 时间线分页结果
+     */
+    CursorPage<PatientTimelineEntry> getPatientTimeline(Long patientId, String cursor, Integer limit);
+}
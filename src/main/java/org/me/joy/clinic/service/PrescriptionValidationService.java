@@ -1,10 +1,13 @@
 package org.me.joy.clinic.service;
 
+import org.me.joy.clinic.dto.StockSnapshot;
+import org.me.joy.clinic.entity.AllergyHistory;
 import org.me.joy.clinic.entity.Prescription;
 import org.me.joy.clinic.entity.PrescriptionItem;
 import org.me.joy.clinic.entity.Patient;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 处方验证服务接口
@@ -20,6 +23,15 @@ public interface PrescriptionValidationService {
      */
     PrescriptionValidationResult validatePrescription(Prescription prescription);
 
+    /**
+     * 使用已加载的处方项目验证处方
+     * 
+     * @param prescription 处方信息
+     * @param prescriptionItems 处方项目列表
+     * @return 验证结果
+     */
+    PrescriptionValidationResult validatePrescription(Prescription prescription, List<PrescriptionItem> prescriptionItems);
+
     /**
      * 检查药品库存是否充足
      * 
@@ -28,6 +40,15 @@ public interface PrescriptionValidationService {
      */
     StockCheckResult checkStock(List<PrescriptionItem> prescriptionItems);
 
+    /**
+     * 使用已查询的库存快照检查药品库存
+     * 
+     * @param prescriptionItems 处方项目列表
+     * @param stockByMedicine 药品ID -> 库存快照，缺少的药品视为无库存
+     * @return 库存检查结果
+     */
+    StockCheckResult checkStock(List<PrescriptionItem> prescriptionItems, Map<Long, StockSnapshot> stockByMedicine);
+
     /**
      * 检查药品相互作用
      * 
@@ -45,6 +66,15 @@ public interface PrescriptionValidationService {
      */
     AllergyCheckResult checkAllergies(Patient patient, List<PrescriptionItem> prescriptionItems);
 
+    /**
+     * 使用已加载的过敏史检查过敏风险
+     * 
+     * @param allergies 患者过敏史
+     * @param prescriptionItems 处方项目列表
+     * @return 过敏检查结果
+     */
+    AllergyCheckResult checkAllergies(List<AllergyHistory> allergies, List<PrescriptionItem> prescriptionItems);
+
     /**
      * 验证处方是否过期
      * 
@@ -1,6 +1,7 @@
 package org.me.joy.clinic.service;
 
 import org.me.joy.clinic.dto.CreateRegistrationRequest;
+import org.me.joy.clinic.dto.CursorPage;
 import org.me.joy.clinic.entity.Registration;
 
 import java.time.LocalDate;
@@ -131,11 +132,21 @@ public interface RegistrationService {
      */
     void updateRegistrationStatus(Long registrationId, String status);
 
+    /**
+     * 删除挂号记录（逻辑删除）
+     */
+    void deleteRegistration(Long registrationId);
+
     /**
      * 根据状态获取挂号记录
      */
     List<Registration> getRegistrationsByStatus(String status);
 
+    /**
+     * 根据状态游标分页获取挂号记录（最新挂号在前）
+     */
+    CursorPage<Registration> getRegistrationsByStatusPage(String status, String cursor, Integer limit);
+
     /**
      * 根据支付状态获取挂号记录
      */
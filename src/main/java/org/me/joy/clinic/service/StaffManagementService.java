@@ -1,6 +1,7 @@
 package org.me.joy.clinic.service;
 
 import org.me.joy.clinic.dto.CreateStaffRequest;
+import org.me.joy.clinic.dto.CursorPage;
 import org.me.joy.clinic.dto.StaffResponse;
 import org.me.joy.clinic.dto.UpdateStaffRequest;
 import org.me.joy.clinic.entity.Schedule;
@@ -63,6 +64,14 @@ public interface StaffManagementService {
      */
     List<StaffResponse> getAllStaff();
 
+    /**
+     * 按ID游标分页获取员工列表
+     * @param cursor 上一页返回的续页令牌，首页为空
+     * @param limit 每页数量
+     * @return 分页结果
+     */
+    CursorPage<StaffResponse> getStaffPage(String cursor, Integer limit);
+
     /**
      * 根据职位获取员工列表
      * @param position 职位
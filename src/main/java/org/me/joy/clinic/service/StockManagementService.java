@@ -71,6 +71,11 @@ public interface StockManagementService {
      */
     List<StockTransaction> getAllStockTransactions(LocalDate startDate, LocalDate endDate);
 
+    /**
+     * 按交易时间倒序游标分页获取库存交易记录
+     */
+    CursorPage<StockTransaction> getStockTransactionsPage(LocalDate startDate, LocalDate endDate, String cursor, Integer limit);
+
     /**
      * 执行库存盘点
      */
@@ -1,6 +1,7 @@
 package org.me.joy.clinic.service;
 
 import org.me.joy.clinic.dto.CreateUserRequest;
+import org.me.joy.clinic.dto.CursorPage;
 import org.me.joy.clinic.dto.UpdateUserRequest;
 import org.me.joy.clinic.dto.UserResponse;
 import org.me.joy.clinic.entity.User;
@@ -48,6 +49,14 @@ public interface UserManagementService {
      */
     List<UserResponse> getAllUsers();
 
+    /**
+     * 按ID游标分页获取用户列表
+     * @param cursor 上一页返回的续页令牌，首页为空
+     * @param limit 每页数量
+     * @return 分页结果
+     */
+    CursorPage<UserResponse> getUsersPage(String cursor, Integer limit);
+
     /**
      * 获取启用状态的用户列表
      * @param enabled 是否启用
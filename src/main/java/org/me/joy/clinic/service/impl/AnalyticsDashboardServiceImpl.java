@@ -0,0 +1,179 @@
+package org.me.joy.clinic.service.impl;
+
+import org.me.joy.clinic.dto.AnalyticsDashboard;
+import org.me.joy.clinic.service.AnalyticsDashboardService;
+import org.me.joy.clinic.service.FinancialReportService;
+import org.me.joy.clinic.service.OperationalAnalyticsService;
+import org.me.joy.clinic.service.PatientAnalyticsService;
+import org.me.joy.clinic.util.DeadlineTasks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 分析仪表盘服务实现类
+ * 将首页各分析分区并发提交到有界线程池，整体耗时取决于最慢的分区而非各分区之和
+ */
+@Service
+public class AnalyticsDashboardServiceImpl implements AnalyticsDashboardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsDashboardServiceImpl.class);
+
+    static final String SECTION_TODAY_FINANCIAL = "todayFinancial";
+    static final String SECTION_PATIENT_VISITS = "patientVisits";
+    static final String SECTION_WAIT_TIME = "waitTime";
+    static final String SECTION_POPULAR_SERVICES = "popularServices";
+    static final String SECTION_DEMOGRAPHICS = "demographics";
+    static final String SECTION_COMMON_DIAGNOSES = "commonDiagnoses";
+
+    /**
+     * 降级缓存最多保留的分区结果数
+     */
+    private static final int STALE_CACHE_CAPACITY = 64;
+
+    @Autowired
+    private FinancialReportService financialReportService;
+
+    @Autowired
+    private OperationalAnalyticsService operationalAnalyticsService;
+
+    @Autowired
+    private PatientAnalyticsService patientAnalyticsService;
+
+    @Autowired
+    @Qualifier("analyticsExecutor")
+    private Executor analyticsExecutor;
+
+    /**
+     * 单个分区的超时时间（毫秒）
+     */
+    @Value("${clinic.analytics.dashboard.section-timeout-ms:3000}")
+    private long sectionTimeoutMillis = 3000;
+
+    /**
+     * 整个仪表盘请求的时间预算（毫秒），所有分区共享
+     */
+    @Value("${clinic.analytics.dashboard.total-budget-ms:5000}")
+    private long totalBudgetMillis = 5000;
+
+    /**
+     * 各分区最近一次成功加载的结果，分区超时或失败时作为降级数据返回
+     */
+    private final Map<String, Object> staleCache = Collections.synchronizedMap(
+        new LinkedHashMap<String, Object>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+                return size() > STALE_CACHE_CAPACITY;
+            }
+        });
+
+    @Override
+    public AnalyticsDashboard getDashboard(LocalDate startDate, LocalDate endDate) {
+        long startedAt = System.nanoTime();
+        long deadline = startedAt + TimeUnit.MILLISECONDS.toNanos(totalBudgetMillis);
+        String rangeKey = startDate + "~" + endDate;
+        LocalDate today = LocalDate.now();
+
+        AnalyticsDashboard dashboard = new AnalyticsDashboard(startDate, endDate);
+        Map<String, Long> elapsed = new ConcurrentHashMap<>();
+
+        // 所有分区同时提交，再依次等待
+        CompletableFuture<?> todayFinancial = submit(SECTION_TODAY_FINANCIAL, today.toString(), elapsed,
+            () -> financialReportService.generateDailyReport(today));
+        CompletableFuture<?> patientVisits = submit(SECTION_PATIENT_VISITS, rangeKey, elapsed,
+            () -> operationalAnalyticsService.getPatientVisitAnalytics(startDate, endDate));
+        CompletableFuture<?> waitTime = submit(SECTION_WAIT_TIME, rangeKey, elapsed,
+            () -> operationalAnalyticsService.getWaitTimeAnalytics(startDate, endDate));
+        CompletableFuture<?> popularServices = submit(SECTION_POPULAR_SERVICES, rangeKey, elapsed,
+            () -> operationalAnalyticsService.getPopularServices(startDate, endDate));
+        CompletableFuture<?> demographics = submit(SECTION_DEMOGRAPHICS, "", elapsed,
+            () -> patientAnalyticsService.getPatientDemographics());
+        CompletableFuture<?> commonDiagnoses = submit(SECTION_COMMON_DIAGNOSES, rangeKey, elapsed,
+            () -> patientAnalyticsService.getCommonDiagnoses(startDate, endDate));
+
+        await(dashboard, SECTION_TODAY_FINANCIAL, today.toString(), todayFinancial, elapsed, startedAt, deadline,
+            value -> dashboard.setTodayFinancialReport(cast(value)));
+        await(dashboard, SECTION_PATIENT_VISITS, rangeKey, patientVisits, elapsed, startedAt, deadline,
+            value -> dashboard.setPatientVisitAnalytics(cast(value)));
+        await(dashboard, SECTION_WAIT_TIME, rangeKey, waitTime, elapsed, startedAt, deadline,
+            value -> dashboard.setWaitTimeAnalytics(cast(value)));
+        await(dashboard, SECTION_POPULAR_SERVICES, rangeKey, popularServices, elapsed, startedAt, deadline,
+            value -> dashboard.setPopularServices(cast(value)));
+        await(dashboard, SECTION_DEMOGRAPHICS, "", demographics, elapsed, startedAt, deadline,
+            value -> dashboard.setPatientDemographics(cast(value)));
+        await(dashboard, SECTION_COMMON_DIAGNOSES, rangeKey, commonDiagnoses, elapsed, startedAt, deadline,
+            value -> dashboard.setCommonDiagnoses(cast(value)));
+
+        dashboard.setTotalElapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        if (dashboard.isPartial()) {
+            logger.warn("仪表盘部分分区未按时返回: {}", dashboard.getSectionStatus());
+        }
+        return dashboard;
+    }
+
+    /**
+     * 提交分区查询到线程池，成功后在任务内刷新降级缓存（即使请求已超时返回，已开始执行的分区结果仍会写入缓存）
+     */
+    private CompletableFuture<Object> submit(String section, String paramKey, Map<String, Long> elapsed,
+                                             Supplier<Object> loader) {
+        String cacheKey = section + ":" + paramKey;
+        return DeadlineTasks.submit(analyticsExecutor, section, elapsed, () -> {
+            Object value = loader.get();
+            if (value != null) {
+                staleCache.put(cacheKey, value);
+            }
+            return value;
+        });
+    }
+
+    /**
+     * 在分区超时时间与整体预算内等待分区结果，超时（含线程池已满被拒绝）或失败时回退到缓存数据
+     * 超时的分区只会被建议性取消：尚未开始的查询被跳过，已在执行的查询不会被中断
+     */
+    private void await(AnalyticsDashboard dashboard, String section, String paramKey, CompletableFuture<?> future,
+                       Map<String, Long> elapsed, long startedAt, long deadline, Consumer<Object> setter) {
+        long sectionDeadline = Math.min(deadline, startedAt + TimeUnit.MILLISECONDS.toNanos(sectionTimeoutMillis));
+        String fallbackStatus;
+        try {
+            setter.accept(DeadlineTasks.await(future, sectionDeadline));
+            dashboard.recordSection(section, AnalyticsDashboard.SECTION_OK, elapsed.get(section));
+            return;
+        } catch (TimeoutException e) {
+            logger.warn("仪表盘分区 {} 超时: {}", section, e.getMessage());
+            fallbackStatus = AnalyticsDashboard.SECTION_TIMEOUT;
+        } catch (ExecutionException e) {
+            logger.error("仪表盘分区 {} 加载失败: {}", section, e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+            fallbackStatus = AnalyticsDashboard.SECTION_FAILED;
+        }
+
+        Object cached = staleCache.get(section + ":" + paramKey);
+        long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        if (cached != null) {
+            setter.accept(cached);
+            dashboard.recordSection(section, AnalyticsDashboard.SECTION_STALE, waited);
+        } else {
+            dashboard.recordSection(section, fallbackStatus, waited);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(Object value) {
+        return (T) value;
+    }
+}
@@ -3,6 +3,7 @@ package org.me.joy.clinic.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import org.me.joy.clinic.dto.AddBillItemRequest;
 import org.me.joy.clinic.dto.CreateBillRequest;
+import org.me.joy.clinic.dto.CursorPage;
 import org.me.joy.clinic.entity.Bill;
 import org.me.joy.clinic.entity.BillItem;
 import org.me.joy.clinic.entity.Registration;
@@ -11,6 +12,7 @@ import org.me.joy.clinic.mapper.BillItemMapper;
 import org.me.joy.clinic.mapper.BillMapper;
 import org.me.joy.clinic.mapper.RegistrationMapper;
 import org.me.joy.clinic.service.BillingService;
+import org.me.joy.clinic.util.KeysetPagination;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -185,6 +187,17 @@ public class BillingServiceImpl implements BillingService {
         
         return billMapper.findByPatientId(patientId);
     }
+
+    @Override
+    public CursorPage<Bill> getPatientBillsPage(Long patientId, String cursor, Integer limit) {
+        if (patientId == null) {
+            throw new BusinessException("BILLING_013", "患者ID不能为空");
+        }
+
+        QueryWrapper<Bill> wrapper = new QueryWrapper<>();
+        wrapper.eq("patient_id", patientId);
+        return KeysetPagination.byId(billMapper, wrapper, false, cursor, limit);
+    }
     
     @Override
     public List<BillItem> getBillItems(Long billId) {
@@ -1,7 +1,12 @@
 package org.me.joy.clinic.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import org.me.joy.clinic.archive.MedicalRecordColdPayload;
+import org.me.joy.clinic.archive.MedicalRecordColdStore;
 import org.me.joy.clinic.dto.CreateMedicalRecordRequest;
+import org.me.joy.clinic.dto.DiagnosisCodeSuggestion;
+import org.me.joy.clinic.dto.MedicalRecordInclude;
+import org.me.joy.clinic.dto.MedicalRecordSearchHit;
 import org.me.joy.clinic.dto.UpdateMedicalRecordRequest;
 import org.me.joy.clinic.entity.Diagnosis;
 import org.me.joy.clinic.entity.MedicalRecord;
@@ -11,15 +16,25 @@ import org.me.joy.clinic.exception.ValidationException;
 import org.me.joy.clinic.mapper.DiagnosisMapper;
 import org.me.joy.clinic.mapper.MedicalRecordMapper;
 import org.me.joy.clinic.mapper.PrescriptionMapper;
+import org.me.joy.clinic.search.DiagnosisDictionary;
+import org.me.joy.clinic.search.MedicalRecordTextIndex;
 import org.me.joy.clinic.service.ElectronicMedicalRecordService;
+import org.me.joy.clinic.service.MedicalRecordRevisionService;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 /**
  * 电子病历服务实现类
@@ -28,6 +43,25 @@ import java.util.List;
 @Transactional
 public class ElectronicMedicalRecordServiceImpl implements ElectronicMedicalRecordService {
 
+    /**
+     * 批量加载诊断、处方时每条 IN 查询包含的病历ID数量上限
+     */
+    private static final int RELATED_BATCH_SIZE = 500;
+
+    /**
+     * 全文搜索单次返回数量上限
+     */
+    private static final int MAX_SEARCH_LIMIT = 100;
+
+    /**
+     * 诊断编码联想默认及最大返回数量
+     */
+    private static final int DEFAULT_SUGGEST_LIMIT = 10;
+    private static final int MAX_SUGGEST_LIMIT = 50;
+
+    @Value("${clinic.search.medical-record.top-k:20}")
+    private int searchTopK = 20;
+
     @Autowired
     private MedicalRecordMapper medicalRecordMapper;
 
@@ -37,6 +71,18 @@ public class ElectronicMedicalRecordServiceImpl implements ElectronicMedicalReco
     @Autowired
     private PrescriptionMapper prescriptionMapper;
 
+    @Autowired
+    private MedicalRecordTextIndex medicalRecordTextIndex;
+
+    @Autowired
+    private MedicalRecordColdStore medicalRecordColdStore;
+
+    @Autowired
+    private DiagnosisDictionary diagnosisDictionary;
+
+    @Autowired
+    private MedicalRecordRevisionService medicalRecordRevisionService;
+
     @Override
     public MedicalRecord createMedicalRecord(CreateMedicalRecordRequest request) {
         // 验证请求参数
@@ -51,6 +97,7 @@ public class ElectronicMedicalRecordServiceImpl implements ElectronicMedicalReco
         medicalRecord.setRecordNumber(recordNumber);
         medicalRecord.setCreatedBy(request.getDoctorId());
         medicalRecord.setLastUpdatedBy(request.getDoctorId());
+        medicalRecord.setUpdatedAt(indexVersionNow());
         
         if (request.getRecordDate() == null) {
             medicalRecord.setRecordDate(LocalDateTime.now());
@@ -62,6 +109,9 @@ public class ElectronicMedicalRecordServiceImpl implements ElectronicMedicalReco
         // 生成病历摘要
         medicalRecord.generateSummary();
         medicalRecordMapper.updateById(medicalRecord);
+        medicalRecordRevisionService.recordCreated(medicalRecord);
+
+        medicalRecordTextIndex.index(medicalRecord, Collections.emptyList());
 
         return medicalRecord;
     }
@@ -75,6 +125,8 @@ public class ElectronicMedicalRecordServiceImpl implements ElectronicMedicalReco
         if (!medicalRecord.canBeEdited()) {
             throw new BusinessException("3001", "病历状态为" + medicalRecord.getStatus() + "，不允许编辑");
         }
+        MedicalRecord before = new MedicalRecord();
+        BeanUtils.copyProperties(medicalRecord, before);
 
         // 更新病历信息
         if (request.getChiefComplaint() != null) {
@@ -133,13 +185,16 @@ public class ElectronicMedicalRecordServiceImpl implements ElectronicMedicalReco
         }
 
         // 更新最后修改信息
-        medicalRecord.setUpdatedAt(LocalDateTime.now());
+        medicalRecord.setUpdatedAt(indexVersionNow());
 
         // 重新生成病历摘要
         medicalRecord.generateSummary();
 
-        // 保存更新
+        // 保存更新，同一事务中追加修订记录
         medicalRecordMapper.updateById(medicalRecord);
+        medicalRecordRevisionService.recordUpdate(before, medicalRecord);
+
+        medicalRecordTextIndex.index(medicalRecord, medicalRecord.getDiagnoses());
 
         return medicalRecord;
     }
@@ -180,28 +235,38 @@ public class ElectronicMedicalRecordServiceImpl implements ElectronicMedicalReco
 
     @Override
     public List<MedicalRecord> getPatientMedicalRecords(Long patientId) {
+        return getPatientMedicalRecords(patientId, MedicalRecordInclude.ALL);
+    }
+
+    @Override
+    public List<MedicalRecord> getPatientMedicalRecords(Long patientId, MedicalRecordInclude include) {
         if (patientId == null) {
             throw new ValidationException("3006", "患者ID不能为空");
         }
 
         List<MedicalRecord> records = medicalRecordMapper.findByPatientId(patientId);
-        
-        // 为每个病历加载关联数据
-        records.forEach(this::loadRelatedData);
+
+        // 按需批量加载关联数据
+        loadRelatedData(records, include);
 
         return records;
     }
 
     @Override
     public List<MedicalRecord> getDoctorMedicalRecords(Long doctorId) {
+        return getDoctorMedicalRecords(doctorId, MedicalRecordInclude.ALL);
+    }
+
+    @Override
+    public List<MedicalRecord> getDoctorMedicalRecords(Long doctorId, MedicalRecordInclude include) {
         if (doctorId == null) {
             throw new ValidationException("3007", "医生ID不能为空");
         }
 
         List<MedicalRecord> records = medicalRecordMapper.findByDoctorId(doctorId);
-        
-        // 为每个病历加载关联数据
-        records.forEach(this::loadRelatedData);
+
+        // 按需批量加载关联数据
+        loadRelatedData(records, include);
 
         return records;
     }
@@ -225,6 +290,11 @@ public class ElectronicMedicalRecordServiceImpl implements ElectronicMedicalReco
 
     @Override
     public List<MedicalRecord> getMedicalRecordsByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
+        return getMedicalRecordsByDateRange(startDate, endDate, MedicalRecordInclude.ALL);
+    }
+
+    @Override
+    public List<MedicalRecord> getMedicalRecordsByDateRange(LocalDateTime startDate, LocalDateTime endDate, MedicalRecordInclude include) {
         if (startDate == null || endDate == null) {
             throw new ValidationException("3010", "开始时间和结束时间不能为空");
         }
@@ -234,15 +304,20 @@ public class ElectronicMedicalRecordServiceImpl implements ElectronicMedicalReco
         }
 
         List<MedicalRecord> records = medicalRecordMapper.findByDateRange(startDate, endDate);
-        
-        // 为每个病历加载关联数据
-        records.forEach(this::loadRelatedData);
+
+        // 按需批量加载关联数据
+        loadRelatedData(records, include);
 
         return records;
     }
 
     @Override
     public List<MedicalRecord> getPatientMedicalRecordsByDateRange(Long patientId, LocalDateTime startDate, LocalDateTime endDate) {
+        return getPatientMedicalRecordsByDateRange(patientId, startDate, endDate, MedicalRecordInclude.ALL);
+    }
+
+    @Override
+    public List<MedicalRecord> getPatientMedicalRecordsByDateRange(Long patientId, LocalDateTime startDate, LocalDateTime endDate, MedicalRecordInclude include) {
         if (patientId == null) {
             throw new ValidationException("3012", "患者ID不能为空");
         }
@@ -255,57 +330,114 @@ public class ElectronicMedicalRecordServiceImpl implements ElectronicMedicalReco
         }
 
         List<MedicalRecord> records = medicalRecordMapper.findByPatientIdAndDateRange(patientId, startDate, endDate);
-        
-        // 为每个病历加载关联数据
-        records.forEach(this::loadRelatedData);
+
+        // 按需批量加载关联数据
+        loadRelatedData(records, include);
 
         return records;
     }
 
     @Override
     public List<MedicalRecord> getMedicalRecordsByStatus(String status) {
+        return getMedicalRecordsByStatus(status, MedicalRecordInclude.ALL);
+    }
+
+    @Override
+    public List<MedicalRecord> getMedicalRecordsByStatus(String status, MedicalRecordInclude include) {
         if (status == null || status.trim().isEmpty()) {
             throw new ValidationException("3015", "病历状态不能为空");
         }
 
         List<MedicalRecord> records = medicalRecordMapper.findByStatus(status);
-        
-        // 为每个病历加载关联数据
-        records.forEach(this::loadRelatedData);
+
+        // 按需批量加载关联数据
+        loadRelatedData(records, include);
 
         return records;
     }
 
     @Override
     public List<MedicalRecord> getPendingReviewRecords() {
+        return getPendingReviewRecords(MedicalRecordInclude.ALL);
+    }
+
+    @Override
+    public List<MedicalRecord> getPendingReviewRecords(MedicalRecordInclude include) {
         List<MedicalRecord> records = medicalRecordMapper.findPendingReview();
-        
-        // 为每个病历加载关联数据
-        records.forEach(this::loadRelatedData);
+
+        // 按需批量加载关联数据
+        loadRelatedData(records, include);
 
         return records;
     }
 
     @Override
     public List<MedicalRecord> getInfectiousDiseaseRecords() {
+        return getInfectiousDiseaseRecords(MedicalRecordInclude.ALL);
+    }
+
+    @Override
+    public List<MedicalRecord> getInfectiousDiseaseRecords(MedicalRecordInclude include) {
         List<MedicalRecord> records = medicalRecordMapper.findInfectiousDiseaseRecords();
-        
-        // 为每个病历加载关联数据
-        records.forEach(this::loadRelatedData);
+
+        // 按需批量加载关联数据
+        loadRelatedData(records, include);
 
         return records;
     }
 
     @Override
     public List<MedicalRecord> getChronicDiseaseRecords() {
+        return getChronicDiseaseRecords(MedicalRecordInclude.ALL);
+    }
+
+    @Override
+    public List<MedicalRecord> getChronicDiseaseRecords(MedicalRecordInclude include) {
         List<MedicalRecord> records = medicalRecordMapper.findChronicDiseaseRecords();
-        
-        // 为每个病历加载关联数据
-        records.forEach(this::loadRelatedData);
+
+        // 按需批量加载关联数据
+        loadRelatedData(records, include);
 
         return records;
     }
 
+    @Override
+    public List<MedicalRecordSearchHit> searchMedicalRecords(String keyword, Long doctorId, String department,
+                                                           LocalDate startDate, LocalDate endDate, Integer limit) {
+        if (keyword == null || keyword.trim().isEmpty()) {
+            throw new ValidationException("3043", "搜索关键词不能为空");
+        }
+        if (startDate != null && endDate != null && startDate.isAfter(endDate)) {
+            throw new ValidationException("3044", "开始日期不能晚于结束日期");
+        }
+        int size = limit == null ? searchTopK : Math.max(1, Math.min(limit, MAX_SEARCH_LIMIT));
+
+        List<MedicalRecordSearchHit> hits = medicalRecordTextIndex.search(keyword, doctorId, department,
+                startDate, endDate, size);
+        if (hits == null) {
+            throw new BusinessException("3045", "病历全文索引尚未就绪，请稍后再试");
+        }
+        return hits;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<DiagnosisCodeSuggestion> suggestDiagnosisCodes(String keyword, Long doctorId, Integer limit) {
+        if (keyword == null || keyword.trim().isEmpty()) {
+            throw new ValidationException("3048", "诊断编码查询关键词不能为空");
+        }
+        if (!diagnosisDictionary.isReady()) {
+            throw new BusinessException("3049", "诊断编码字典尚未加载，请稍后再试");
+        }
+        int size = limit == null ? DEFAULT_SUGGEST_LIMIT : Math.max(1, Math.min(limit, MAX_SUGGEST_LIMIT));
+        return diagnosisDictionary.search(keyword, doctorId, size);
+    }
+
+    @Override
+    public int reloadDiagnosisDictionary() {
+        return diagnosisDictionary.reload();
+    }
+
     @Override
     public Diagnosis addDiagnosis(Long recordId, Diagnosis diagnosis) {
         // 验证病历是否存在
@@ -324,6 +456,10 @@ public class ElectronicMedicalRecordServiceImpl implements ElectronicMedicalReco
 
         // 保存诊断
         diagnosisMapper.insert(diagnosis);
+        diagnosisDictionary.recordUsage(diagnosis.getDoctorId(), diagnosis.getDiagnosisCode());
+
+        touchMedicalRecord(medicalRecord);
+        medicalRecordTextIndex.index(medicalRecord, getMedicalRecordDiagnoses(recordId));
 
         return diagnosis;
     }
@@ -350,6 +486,14 @@ public class ElectronicMedicalRecordServiceImpl implements ElectronicMedicalReco
         diagnosis.setId(diagnosisId);
         diagnosis.setMedicalRecordId(existingDiagnosis.getMedicalRecordId());
         diagnosisMapper.updateById(diagnosis);
+        // 编码或医生可能变化，按修改前后的医生使使用次数缓存失效
+        diagnosisDictionary.invalidateUsage(existingDiagnosis.getDoctorId());
+        if (diagnosis.getDoctorId() != null && !diagnosis.getDoctorId().equals(existingDiagnosis.getDoctorId())) {
+            diagnosisDictionary.invalidateUsage(diagnosis.getDoctorId());
+        }
+
+        touchMedicalRecord(medicalRecord);
+        medicalRecordTextIndex.index(medicalRecord, getMedicalRecordDiagnoses(medicalRecord.getId()));
 
         return diagnosis;
     }
@@ -374,6 +518,27 @@ public class ElectronicMedicalRecordServiceImpl implements ElectronicMedicalReco
 
         // 删除诊断
         diagnosisMapper.deleteById(diagnosisId);
+        diagnosisDictionary.invalidateUsage(existingDiagnosis.getDoctorId());
+
+        touchMedicalRecord(medicalRecord);
+        medicalRecordTextIndex.index(medicalRecord, getMedicalRecordDiagnoses(medicalRecord.getId()));
+    }
+
+    /**
+     * 诊断变更后刷新病历更新时间，全文索引重启比对时据此重建该病历
+     */
+    private void touchMedicalRecord(MedicalRecord medicalRecord) {
+        LocalDateTime now = indexVersionNow();
+        medicalRecordMapper.touchUpdatedAt(medicalRecord.getId(), now);
+        medicalRecord.setUpdatedAt(now);
+    }
+
+    /**
+     * 写入病历并同步全文索引时使用的更新时间
+     * 精确到秒，与 DATETIME 列一致，避免数据库舍入后比索引中记录的版本更新
+     */
+    private static LocalDateTime indexVersionNow() {
+        return LocalDateTime.now().withNano(0);
     }
 
     @Override
@@ -382,11 +547,10 @@ public class ElectronicMedicalRecordServiceImpl implements ElectronicMedicalReco
             throw new ValidationException("3023", "病历ID不能为空");
         }
 
-        QueryWrapper<Diagnosis> queryWrapper = new QueryWrapper<>();
-        queryWrapper.eq("medical_record_id", recordId)
-                   .orderByAsc("sort_order", "id");
-
-        return diagnosisMapper.selectList(queryWrapper);
+        // 已移入冷存储的病历，诊断的大文本字段从冷存储回填
+        List<Diagnosis> diagnoses = findHotDiagnoses(recordId);
+        MedicalRecordColdPayload payload = medicalRecordColdStore.load(Collections.singletonList(recordId)).get(recordId);
+        return payload != null ? payload.mergeDiagnoses(diagnoses) : diagnoses;
     }
 
     @Override
@@ -465,11 +629,10 @@ public class ElectronicMedicalRecordServiceImpl implements ElectronicMedicalReco
             throw new ValidationException("3031", "病历ID不能为空");
         }
 
-        QueryWrapper<Prescription> queryWrapper = new QueryWrapper<>();
-        queryWrapper.eq("medical_record_id", recordId)
-                   .orderByDesc("prescribed_at");
-
-        return prescriptionMapper.selectList(queryWrapper);
+        // 已移入冷存储的病历，处方的大文本字段从冷存储回填
+        List<Prescription> prescriptions = findHotPrescriptions(recordId);
+        MedicalRecordColdPayload payload = medicalRecordColdStore.load(Collections.singletonList(recordId)).get(recordId);
+        return payload != null ? payload.mergePrescriptions(prescriptions) : prescriptions;
     }
 
     @Override
@@ -528,6 +691,8 @@ public class ElectronicMedicalRecordServiceImpl implements ElectronicMedicalReco
         // 软删除病历
         medicalRecord.setDeleted(true);
         medicalRecordMapper.updateById(medicalRecord);
+
+        medicalRecordTextIndex.remove(recordId);
     }
 
     @Override
@@ -606,12 +771,93 @@ public class ElectronicMedicalRecordServiceImpl implements ElectronicMedicalReco
             return;
         }
 
+        // 已移入冷存储的病历回填大文本字段，诊断和处方的大文本字段同样取自冷存储
+        MedicalRecordColdPayload payload = medicalRecordColdStore.restore(Collections.singletonList(medicalRecord))
+            .get(medicalRecord.getId());
+
         // 加载诊断信息
-        List<Diagnosis> diagnoses = getMedicalRecordDiagnoses(medicalRecord.getId());
-        medicalRecord.setDiagnoses(diagnoses);
+        List<Diagnosis> diagnoses = findHotDiagnoses(medicalRecord.getId());
+        medicalRecord.setDiagnoses(payload != null ? payload.mergeDiagnoses(diagnoses) : diagnoses);
 
         // 加载处方信息
-        List<Prescription> prescriptions = getMedicalRecordPrescriptions(medicalRecord.getId());
-        medicalRecord.setPrescriptions(prescriptions);
+        List<Prescription> prescriptions = findHotPrescriptions(medicalRecord.getId());
+        medicalRecord.setPrescriptions(payload != null ? payload.mergePrescriptions(prescriptions) : prescriptions);
+    }
+
+    /**
+     * 批量加载病历列表的关联数据，每种关联数据按病历ID分批 IN 查询后在内存中分组
+     */
+    private void loadRelatedData(List<MedicalRecord> records, MedicalRecordInclude include) {
+        if (records == null || records.isEmpty()) {
+            return;
+        }
+        // 冷存储中的病历无论是否加载关联数据都要回填大文本字段
+        Map<Long, MedicalRecordColdPayload> coldPayloads = medicalRecordColdStore.restore(records);
+        if (include == null || include == MedicalRecordInclude.NONE) {
+            return;
+        }
+        List<Long> recordIds = new ArrayList<>(records.size());
+        for (MedicalRecord record : records) {
+            if (record.getId() != null) {
+                recordIds.add(record.getId());
+            }
+        }
+        if (recordIds.isEmpty()) {
+            return;
+        }
+
+        if (include.includesDiagnoses()) {
+            Map<Long, List<Diagnosis>> diagnoses = groupByRecordId(recordIds, batch -> {
+                QueryWrapper<Diagnosis> queryWrapper = new QueryWrapper<>();
+                queryWrapper.in("medical_record_id", batch)
+                           .orderByAsc("sort_order", "id");
+                return diagnosisMapper.selectList(queryWrapper);
+            }, Diagnosis::getMedicalRecordId);
+            coldPayloads.forEach((recordId, payload) -> diagnoses.put(recordId,
+                payload.mergeDiagnoses(diagnoses.getOrDefault(recordId, Collections.emptyList()))));
+            records.forEach(record -> record.setDiagnoses(
+                diagnoses.getOrDefault(record.getId(), Collections.emptyList())));
+        }
+
+        if (include.includesPrescriptions()) {
+            Map<Long, List<Prescription>> prescriptions = groupByRecordId(recordIds, batch -> {
+                QueryWrapper<Prescription> queryWrapper = new QueryWrapper<>();
+                queryWrapper.in("medical_record_id", batch)
+                           .orderByDesc("prescribed_at");
+                return prescriptionMapper.selectList(queryWrapper);
+            }, Prescription::getMedicalRecordId);
+            coldPayloads.forEach((recordId, payload) -> prescriptions.put(recordId,
+                payload.mergePrescriptions(prescriptions.getOrDefault(recordId, Collections.emptyList()))));
+            records.forEach(record -> record.setPrescriptions(
+                prescriptions.getOrDefault(record.getId(), Collections.emptyList())));
+        }
+    }
+
+    private List<Diagnosis> findHotDiagnoses(Long recordId) {
+        QueryWrapper<Diagnosis> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("medical_record_id", recordId)
+                   .orderByAsc("sort_order", "id");
+
+        return diagnosisMapper.selectList(queryWrapper);
+    }
+
+    private List<Prescription> findHotPrescriptions(Long recordId) {
+        QueryWrapper<Prescription> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("medical_record_id", recordId)
+                   .orderByDesc("prescribed_at");
+
+        return prescriptionMapper.selectList(queryWrapper);
+    }
+
+    private <T> Map<Long, List<T>> groupByRecordId(List<Long> recordIds, Function<List<Long>, List<T>> loader,
+                                                   Function<T, Long> recordIdOf) {
+        Map<Long, List<T>> grouped = new HashMap<>();
+        for (int from = 0; from < recordIds.size(); from += RELATED_BATCH_SIZE) {
+            List<Long> batch = recordIds.subList(from, Math.min(from + RELATED_BATCH_SIZE, recordIds.size()));
+            for (T item : loader.apply(batch)) {
+                grouped.computeIfAbsent(recordIdOf.apply(item), id -> new ArrayList<>()).add(item);
+            }
+        }
+        return grouped;
     }
-}
\ No newline at end of file
+}
@@ -6,6 +6,7 @@ import org.me.joy.clinic.entity.BillItem;
 import org.me.joy.clinic.mapper.BillMapper;
 import org.me.joy.clinic.mapper.BillItemMapper;
 import org.me.joy.clinic.service.FinancialReportService;
+import org.me.joy.clinic.datasource.ReportingQuery;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -21,6 +22,7 @@ import java.util.stream.Collectors;
  * 财务报表服务实现类
  */
 @Service
+@ReportingQuery
 public class FinancialReportServiceImpl implements FinancialReportService {
 
     @Autowired
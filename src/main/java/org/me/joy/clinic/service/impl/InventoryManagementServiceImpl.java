@@ -9,6 +9,7 @@ import org.me.joy.clinic.exception.BusinessException;
 import org.me.joy.clinic.mapper.InventoryLevelMapper;
 import org.me.joy.clinic.mapper.MedicineMapper;
 import org.me.joy.clinic.mapper.StockTransactionMapper;
+import org.me.joy.clinic.pharmacy.DrugInteractionEngine;
 import org.me.joy.clinic.service.InventoryManagementService;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,7 +20,9 @@ import org.springframework.util.StringUtils;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -38,6 +41,9 @@ public class InventoryManagementServiceImpl implements InventoryManagementServic
     @Autowired
     private InventoryLevelMapper inventoryLevelMapper;
 
+    @Autowired
+    private DrugInteractionEngine drugInteractionEngine;
+
     @Override
     public Medicine createMedicine(CreateMedicineRequest request) {
         // 检查药品编码是否已存在
@@ -153,6 +159,8 @@ public class InventoryManagementServiceImpl implements InventoryManagementServic
 
         medicine.setUpdatedAt(LocalDateTime.now());
         medicineMapper.updateById(medicine);
+        // 名称或通用名可能变化，重新解析药物成分
+        drugInteractionEngine.invalidateMedicine(medicineId);
         return medicine;
     }
 
@@ -238,23 +246,21 @@ public class InventoryManagementServiceImpl implements InventoryManagementServic
         
         List<Medicine> medicines = medicineMapper.selectList(queryWrapper);
         
-        // 根据库存状态进一步筛选
-        if (criteria.getNeedsRestock() != null && criteria.getNeedsRestock()) {
-            medicines = medicines.stream()
-                .filter(medicine -> {
-                    Integer currentStock = getCurrentStock(medicine.getId());
-                    return medicine.needsRestock(currentStock);
-                })
-                .toList();
-        }
-        
-        if (criteria.getIsOverstocked() != null && criteria.getIsOverstocked()) {
-            medicines = medicines.stream()
-                .filter(medicine -> {
-                    Integer currentStock = getCurrentStock(medicine.getId());
-                    return medicine.isOverstocked(currentStock);
-                })
-                .toList();
+        // 根据库存状态进一步筛选，全部药品的库存一次批量查询
+        boolean needsRestock = criteria.getNeedsRestock() != null && criteria.getNeedsRestock();
+        boolean overstocked = criteria.getIsOverstocked() != null && criteria.getIsOverstocked();
+        if (needsRestock || overstocked) {
+            Map<Long, StockSnapshot> stock = getStockSnapshots(medicines.stream().map(Medicine::getId).toList());
+            if (needsRestock) {
+                medicines = medicines.stream()
+                    .filter(medicine -> medicine.needsRestock(stock.get(medicine.getId()).getTotalStock()))
+                    .toList();
+            }
+            if (overstocked) {
+                medicines = medicines.stream()
+                    .filter(medicine -> medicine.isOverstocked(stock.get(medicine.getId()).getTotalStock()))
+                    .toList();
+            }
         }
         
         return medicines;
@@ -416,6 +422,11 @@ public class InventoryManagementServiceImpl implements InventoryManagementServic
         return stock != null ? stock : 0;
     }
 
+    @Override
+    public Map<Long, StockSnapshot> getStockSnapshots(Collection<Long> medicineIds) {
+        return inventoryLevelMapper.getStockSnapshots(medicineIds);
+    }
+
     @Override
     public boolean reserveStock(Long medicineId, Integer quantity) {
         if (quantity == null || quantity <= 0) {
@@ -0,0 +1,146 @@
+package org.me.joy.clinic.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import org.me.joy.clinic.archive.MedicalRecordColdPayload;
+import org.me.joy.clinic.archive.MedicalRecordColdStore;
+import org.me.joy.clinic.entity.Diagnosis;
+import org.me.joy.clinic.entity.MedicalRecord;
+import org.me.joy.clinic.entity.Prescription;
+import org.me.joy.clinic.mapper.DiagnosisMapper;
+import org.me.joy.clinic.mapper.MedicalRecordMapper;
+import org.me.joy.clinic.mapper.PrescriptionMapper;
+import org.me.joy.clinic.service.MedicalRecordArchiveService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 病历冷存储服务实现
+ * 按主键分批扫描候选病历，每份病历在独立事务中完成“写入冷存储 + 清理热表”，单份失败不影响其余病历。
+ * 病历、诊断和处方行都保留在热表，只清空大文本字段：诊断统计、处方统计、诊断编码排序、患者摘要和时间线
+ * 直接读取热表，编码、名称、医生、日期、金额以及主诉、诊断摘要等字段不能移出。
+ */
+@Service
+public class MedicalRecordArchiveServiceImpl implements MedicalRecordArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MedicalRecordArchiveServiceImpl.class);
+
+    @Autowired
+    private MedicalRecordMapper medicalRecordMapper;
+
+    @Autowired
+    private DiagnosisMapper diagnosisMapper;
+
+    @Autowired
+    private PrescriptionMapper prescriptionMapper;
+
+    @Autowired
+    private MedicalRecordColdStore medicalRecordColdStore;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${clinic.medical-record.cold-archive.enabled:true}")
+    private boolean enabled = true;
+
+    /**
+     * 归档超过多少个月的病历移入冷存储
+     */
+    @Value("${clinic.medical-record.cold-archive.after-months:12}")
+    private int afterMonths = 12;
+
+    /**
+     * 每批扫描的病历数量
+     */
+    @Value("${clinic.medical-record.cold-archive.batch-size:200}")
+    private int batchSize = 200;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    /**
+     * 定时迁移，默认每天凌晨执行一次
+     */
+    @Scheduled(cron = "${clinic.medical-record.cold-archive.cron:0 0 3 * * ?}")
+    public void scheduledArchive() {
+        if (enabled) {
+            archiveColdRecords();
+        }
+    }
+
+    @Override
+    public int archiveColdRecords() {
+        if (!running.compareAndSet(false, true)) {
+            logger.info("病历冷存储迁移任务正在执行，跳过本次触发");
+            return 0;
+        }
+        try {
+            long startedAt = System.currentTimeMillis();
+            LocalDateTime cutoff = LocalDateTime.now().minusMonths(afterMonths);
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            long afterId = 0L;
+            int scanned = 0;
+            int moved = 0;
+            int failed = 0;
+            List<Long> batch;
+            do {
+                batch = medicalRecordMapper.findColdArchiveCandidates(cutoff, afterId, batchSize);
+                for (Long recordId : batch) {
+                    try {
+                        if (Boolean.TRUE.equals(transactionTemplate.execute(status -> moveToColdTier(recordId)))) {
+                            moved++;
+                        }
+                    } catch (RuntimeException e) {
+                        failed++;
+                        logger.error("病历移入冷存储失败: recordId={}, error={}", recordId, e.getMessage());
+                    }
+                }
+                scanned += batch.size();
+                if (!batch.isEmpty()) {
+                    afterId = batch.get(batch.size() - 1);
+                }
+            } while (batch.size() == batchSize);
+
+            logger.info("病历冷存储迁移完成: 扫描 {} 条, 迁移 {} 条, 失败 {} 条, 耗时 {} ms", scanned, moved, failed,
+                System.currentTimeMillis() - startedAt);
+            return moved;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    @Override
+    public boolean moveToColdTier(Long recordId) {
+        MedicalRecord record = medicalRecordMapper.selectById(recordId);
+        if (record == null || !"已归档".equals(record.getStatus()) || record.isColdArchived()) {
+            return false;
+        }
+
+        QueryWrapper<Diagnosis> diagnosisQuery = new QueryWrapper<>();
+        diagnosisQuery.eq("medical_record_id", recordId).orderByAsc("sort_order", "id");
+        List<Diagnosis> diagnoses = diagnosisMapper.selectList(diagnosisQuery);
+
+        QueryWrapper<Prescription> prescriptionQuery = new QueryWrapper<>();
+        prescriptionQuery.eq("medical_record_id", recordId).orderByDesc("prescribed_at");
+        List<Prescription> prescriptions = prescriptionMapper.selectList(prescriptionQuery);
+
+        medicalRecordColdStore.save(new MedicalRecordColdPayload(record, diagnoses, prescriptions));
+
+        // 只清空大文本字段，统计查询依赖的编码、名称、医生、日期、金额等字段保留在热表
+        diagnosisMapper.clearColdArchivedColumns(recordId);
+        prescriptionMapper.clearColdArchivedColumns(recordId);
+        medicalRecordMapper.clearColdArchivedColumns(recordId);
+
+        logger.debug("病历已移入冷存储: recordId={}, diagnoses={}, prescriptions={}",
+            recordId, diagnoses.size(), prescriptions.size());
+        return true;
+    }
+}
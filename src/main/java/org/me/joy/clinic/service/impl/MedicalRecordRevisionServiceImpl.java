@@ -0,0 +1,139 @@
+package org.me.joy.clinic.service.impl;
+
+import org.me.joy.clinic.entity.MedicalRecord;
+import org.me.joy.clinic.entity.MedicalRecordRevision;
+import org.me.joy.clinic.exception.BusinessException;
+import org.me.joy.clinic.exception.ValidationException;
+import org.me.joy.clinic.mapper.MedicalRecordMapper;
+import org.me.joy.clinic.mapper.MedicalRecordRevisionMapper;
+import org.me.joy.clinic.revision.MedicalRecordRevisionCodec;
+import org.me.joy.clinic.service.MedicalRecordRevisionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * 病历修订记录服务实现
+ * 版本号按病历递增，(病历ID, 版本号) 唯一；并发修改同一病历时后提交的一方因版本号冲突回滚。
+ * 每 snapshot-interval 个版本写一次完整快照，重建任意版本最多回放 snapshot-interval - 1 个增量。
+ */
+@Service
+@Transactional
+public class MedicalRecordRevisionServiceImpl implements MedicalRecordRevisionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MedicalRecordRevisionServiceImpl.class);
+
+    @Autowired
+    private MedicalRecordRevisionMapper medicalRecordRevisionMapper;
+
+    @Autowired
+    private MedicalRecordMapper medicalRecordMapper;
+
+    /**
+     * 每隔多少个版本写一次完整快照
+     */
+    @Value("${clinic.medical-record.revision.snapshot-interval:20}")
+    private int snapshotInterval = 20;
+
+    @Override
+    public void recordCreated(MedicalRecord record) {
+        insert(record.getId(), 1, true, null, MedicalRecordRevisionCodec.encodeSnapshot(record));
+    }
+
+    @Override
+    public Integer recordUpdate(MedicalRecord before, MedicalRecord after) {
+        byte[] delta = MedicalRecordRevisionCodec.encodeDelta(before, after);
+        if (delta == null) {
+            return null;
+        }
+        Long recordId = after.getId();
+        Integer latest = medicalRecordRevisionMapper.findLatestRevision(recordId);
+        if (latest == null) {
+            // 启用修订记录前创建的病历：首次修改时先以修改前的内容作为版本1
+            insert(recordId, 1, true, null, MedicalRecordRevisionCodec.encodeSnapshot(before));
+            latest = 1;
+        }
+
+        int revision = latest + 1;
+        boolean snapshot = (revision - 1) % Math.max(1, snapshotInterval) == 0;
+        String changedFields = String.join(",", MedicalRecordRevisionCodec.changedFields(before, after));
+        insert(recordId, revision, snapshot, changedFields,
+                snapshot ? MedicalRecordRevisionCodec.encodeSnapshot(after) : delta);
+        return revision;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<MedicalRecordRevision> getRevisions(Long recordId) {
+        requireRecord(recordId);
+        return medicalRecordRevisionMapper.findSummariesByRecordId(recordId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public MedicalRecord getRevision(Long recordId, Integer revision) {
+        if (revision == null || revision < 1) {
+            throw new ValidationException("3051", "病历版本号无效");
+        }
+        MedicalRecord current = requireRecord(recordId);
+
+        List<MedicalRecordRevision> chain = medicalRecordRevisionMapper.findReconstructionChain(recordId, revision);
+        if (chain.isEmpty() || !revision.equals(chain.get(chain.size() - 1).getRevision())) {
+            throw new BusinessException("3052", "病历版本不存在");
+        }
+
+        // 非修订字段（编号、患者、状态等）取当前值，修订字段从快照开始逐个回放增量
+        MedicalRecord result = new MedicalRecord();
+        BeanUtils.copyProperties(current, result, "diagnoses", "prescriptions");
+        int expected = chain.get(0).getRevision();
+        try {
+            if (!Boolean.TRUE.equals(chain.get(0).getSnapshot())) {
+                throw new IllegalArgumentException("缺少起始快照");
+            }
+            for (MedicalRecordRevision row : chain) {
+                if (row.getRevision() != expected++) {
+                    throw new IllegalArgumentException("版本号不连续");
+                }
+                MedicalRecordRevisionCodec.apply(row.getPayload(), result);
+            }
+        } catch (IllegalArgumentException e) {
+            logger.error("重建病历版本失败: recordId={}, revision={}, {}", recordId, revision, e.getMessage());
+            throw new BusinessException("3053", "病历修订记录不完整，无法重建该版本", e);
+        }
+        result.generateSummary();
+        return result;
+    }
+
+    private void insert(Long recordId, int revision, boolean snapshot, String changedFields, byte[] payload) {
+        MedicalRecordRevision row = new MedicalRecordRevision();
+        row.setMedicalRecordId(recordId);
+        row.setRevision(revision);
+        row.setSnapshot(snapshot);
+        row.setChangedFields(changedFields);
+        row.setPayload(payload);
+        row.setPayloadSize(payload.length);
+        try {
+            medicalRecordRevisionMapper.insert(row);
+        } catch (DuplicateKeyException e) {
+            throw new BusinessException("3050", "病历已被他人修改，请刷新后重试");
+        }
+    }
+
+    private MedicalRecord requireRecord(Long recordId) {
+        if (recordId == null) {
+            throw new ValidationException("3002", "病历ID不能为空");
+        }
+        MedicalRecord record = medicalRecordMapper.selectById(recordId);
+        if (record == null) {
+            throw new BusinessException("3003", "病历不存在");
+        }
+        return record;
+    }
+}
@@ -1,9 +1,11 @@
 package org.me.joy.clinic.service.impl;
 
+import org.me.joy.clinic.analytics.RegistrationVisitCube;
 import org.me.joy.clinic.dto.DoctorPerformanceReport;
 import org.me.joy.clinic.dto.PatientVisitAnalytics;
 import org.me.joy.clinic.dto.PopularService;
 import org.me.joy.clinic.dto.WaitTimeAnalytics;
+import org.me.joy.clinic.entity.Staff;
 import org.me.joy.clinic.mapper.AppointmentMapper;
 import org.me.joy.clinic.mapper.BillMapper;
 import org.me.joy.clinic.mapper.MedicalRecordMapper;
@@ -12,6 +14,7 @@ import org.me.joy.clinic.mapper.PrescriptionMapper;
 import org.me.joy.clinic.mapper.RegistrationMapper;
 import org.me.joy.clinic.mapper.StaffMapper;
 import org.me.joy.clinic.service.OperationalAnalyticsService;
+import org.me.joy.clinic.datasource.ReportingQuery;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -20,6 +23,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -29,6 +33,7 @@ import java.util.stream.Collectors;
  * 运营分析服务实现类
  */
 @Service
+@ReportingQuery
 public class OperationalAnalyticsServiceImpl implements OperationalAnalyticsService {
 
     @Autowired
@@ -52,13 +57,24 @@ public class OperationalAnalyticsServiceImpl implements OperationalAnalyticsServ
     @Autowired
     private AppointmentMapper appointmentMapper;
 
+    @Autowired
+    private RegistrationVisitCube registrationVisitCube;
+
     @Override
     public PatientVisitAnalytics getPatientVisitAnalytics(LocalDate startDate, LocalDate endDate) {
-        // 获取总就诊量
-        Long totalVisits = registrationMapper.countRegistrationsByDateRange(startDate, endDate);
-        
-        // 获取新患者数量（首次就诊）
-        Long newPatients = registrationMapper.countNewPatientsByDateRange(startDate, endDate);
+        Long totalVisits;
+        Long newPatients;
+        if (registrationVisitCube.covers(startDate)) {
+            // 窗口内的统计直接从内存立方体获取
+            totalVisits = registrationVisitCube.countVisits(startDate, endDate);
+            newPatients = registrationVisitCube.countDistinctPatients(startDate, endDate, true);
+        } else {
+            // 获取总就诊量
+            totalVisits = registrationMapper.countRegistrationsByDateRange(startDate, endDate);
+
+            // 获取新患者数量（首次就诊）
+            newPatients = registrationMapper.countNewPatientsByDateRange(startDate, endDate);
+        }
         
         // 计算回访患者数量
         Long returningPatients = totalVisits - newPatients;
@@ -95,12 +111,17 @@ public class OperationalAnalyticsServiceImpl implements OperationalAnalyticsServ
         List<PopularService> popularServices = new ArrayList<>();
         
         // 获取各科室就诊量统计
-        List<Map<String, Object>> departmentStatsRaw = registrationMapper.getDepartmentVisitStatistics(startDate, endDate);
-        Map<String, Long> departmentStats = new HashMap<>();
-        for (Map<String, Object> entry : departmentStatsRaw) {
-            String department = (String) entry.get("department");
-            Long count = ((Number) entry.get("count")).longValue();
-            departmentStats.put(department, count);
+        Map<String, Long> departmentStats;
+        if (registrationVisitCube.covers(startDate)) {
+            departmentStats = registrationVisitCube.countByDepartment(startDate, endDate);
+        } else {
+            departmentStats = new HashMap<>();
+            List<Map<String, Object>> departmentStatsRaw = registrationMapper.getDepartmentVisitStatistics(startDate, endDate);
+            for (Map<String, Object> entry : departmentStatsRaw) {
+                String department = (String) entry.get("department");
+                Long count = ((Number) entry.get("count")).longValue();
+                departmentStats.put(department, count);
+            }
         }
         Long totalVisits = departmentStats.values().stream().mapToLong(Long::longValue).sum();
         
@@ -226,12 +247,42 @@ public class OperationalAnalyticsServiceImpl implements OperationalAnalyticsServ
         
         // 获取所有医生列表
         List<Long> doctorIds = staffMapper.getAllDoctorIds();
+        if (doctorIds.isEmpty()) {
+            return reports;
+        }
+        
+        // 批量获取医生基本信息及各项指标，查询次数与医生数量无关
+        Map<Long, Staff> doctors = staffMapper.selectBatchIds(doctorIds).stream()
+            .collect(Collectors.toMap(Staff::getId, staff -> staff, (a, b) -> a));
+        Map<Long, Map<String, Object>> consultationStats = groupByDoctorId(
+            medicalRecordMapper.getConsultationStatisticsGroupByDoctor(startDate, endDate));
+        Map<Long, Map<String, Object>> prescriptionStats = groupByDoctorId(
+            prescriptionMapper.countPrescriptionsGroupByDoctor(startDate, endDate));
+        Map<Long, Map<String, Object>> revenueStats = groupByDoctorId(
+            billMapper.sumRevenueGroupByDoctor(startDate, endDate));
         
         for (Long doctorId : doctorIds) {
-            DoctorPerformanceReport report = getDoctorPerformanceReport(doctorId, startDate, endDate);
-            if (report != null) {
-                reports.add(report);
+            Staff staff = doctors.get(doctorId);
+            if (staff == null) {
+                continue;
             }
+            
+            Map<String, Object> consultation = consultationStats.getOrDefault(doctorId, Collections.emptyMap());
+            Map<String, Object> prescription = prescriptionStats.getOrDefault(doctorId, Collections.emptyMap());
+            Map<String, Object> revenue = revenueStats.getOrDefault(doctorId, Collections.emptyMap());
+            
+            reports.add(new DoctorPerformanceReport(
+                doctorId,
+                staff.getName(),
+                staff.getDepartment(),
+                startDate,
+                toLong(consultation.get("total_patients")),
+                toLong(consultation.get("completed_consultations")),
+                toDouble(consultation.get("average_consultation_time")),
+                4.5, // 患者满意度评分（模拟数据，实际应从满意度调查表获取）
+                toLong(prescription.get("count")),
+                toDouble(revenue.get("revenue"))
+            ));
         }
         
         // 按总患者数降序排序
@@ -257,6 +308,14 @@ public class OperationalAnalyticsServiceImpl implements OperationalAnalyticsServ
             hourlyStats.put(timeSlot, 0L);
         }
         
+        if (registrationVisitCube.covers(startDate)) {
+            long[] hourlyCounts = registrationVisitCube.countByHour(startDate, endDate);
+            for (int hour = 0; hour < 24; hour++) {
+                hourlyStats.put(String.format("%02d:00-%02d:00", hour, hour + 1), hourlyCounts[hour]);
+            }
+            return hourlyStats;
+        }
+
         // 获取实际数据（这里需要根据实际数据库结构调整）
         List<Map<String, Object>> hourlyData = registrationMapper.getHourlyVisitStatistics(startDate, endDate);
         
@@ -298,6 +357,28 @@ public class OperationalAnalyticsServiceImpl implements OperationalAnalyticsServ
         return count > 0 ? totalMinutes / count : 0.0;
     }
 
+    /**
+     * 将按医生分组的统计结果转换为以医生ID为键的映射
+     */
+    private Map<Long, Map<String, Object>> groupByDoctorId(List<Map<String, Object>> rows) {
+        Map<Long, Map<String, Object>> result = new HashMap<>();
+        for (Map<String, Object> row : rows) {
+            Object doctorId = row.get("doctor_id");
+            if (doctorId != null) {
+                result.put(((Number) doctorId).longValue(), row);
+            }
+        }
+        return result;
+    }
+
+    private Long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+
+    private Double toDouble(Object value) {
+        return value != null ? ((Number) value).doubleValue() : 0.0;
+    }
+
     /**
      * 获取等待时间最长的时段
      */
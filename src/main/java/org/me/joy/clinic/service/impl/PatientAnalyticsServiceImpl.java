@@ -1,5 +1,6 @@
 package org.me.joy.clinic.service.impl;
 
+import org.me.joy.clinic.analytics.RegistrationVisitCube;
 import org.me.joy.clinic.dto.CommonDiagnosis;
 import org.me.joy.clinic.dto.PatientDemographics;
 import org.me.joy.clinic.dto.PatientRetentionReport;
@@ -8,14 +9,15 @@ import org.me.joy.clinic.mapper.DiagnosisMapper;
 import org.me.joy.clinic.mapper.PatientMapper;
 import org.me.joy.clinic.mapper.RegistrationMapper;
 import org.me.joy.clinic.service.PatientAnalyticsService;
+import org.me.joy.clinic.service.PatientDemographicCounterService;
 import org.me.joy.clinic.constants.BusinessConstants;
+import org.me.joy.clinic.datasource.ReportingQuery;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
-import java.time.Period;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -23,8 +25,13 @@ import java.util.stream.Collectors;
  * 患者分析服务实现
  */
 @Service
+@ReportingQuery
 public class PatientAnalyticsServiceImpl implements PatientAnalyticsService {
-    
+
+    /**
+     * 地区分布最多返回的地区数
+     */
+    private static final int LOCATION_DISTRIBUTION_LIMIT = 10;
     
     @Autowired
     private PatientMapper patientMapper;
@@ -34,35 +41,47 @@ public class PatientAnalyticsServiceImpl implements PatientAnalyticsService {
     
     @Autowired
     private RegistrationMapper registrationMapper;
+
+    @Autowired
+    private RegistrationVisitCube registrationVisitCube;
+
+    @Autowired
+    private PatientDemographicCounterService patientDemographicCounterService;
     
     @Override
     public PatientDemographics getPatientDemographics() {
         // 获取总患者数
         Long totalPatients = patientMapper.countTotalPatients();
-        
-        // 获取性别分布
-        Map<String, Long> genderDistribution = patientMapper.getGenderDistribution()
-                .stream()
-                .collect(Collectors.toMap(
-                    map -> (String) map.get("gender"),
-                    map -> ((Number) map.get("count")).longValue()
-                ));
-        
-        // 获取年龄组分布
-        List<Map<String, Object>> patients = patientMapper.getAllPatientsWithBirthDate();
-        Map<String, Long> ageGroupDistribution = calculateAgeGroupDistribution(patients);
-        
-        // 计算平均年龄
-        BigDecimal averageAge = calculateAverageAge(patients);
-        
-        // 获取地区分布
-        Map<String, Long> locationDistribution = patientMapper.getLocationDistribution()
+
+        Map<String, Long> genderDistribution;
+        Map<String, Long> ageGroupDistribution = initAgeGroups();
+        Map<String, Long> locationDistribution;
+        if (patientDemographicCounterService.isInitialized()) {
+            // 读取增量维护的计数表
+            genderDistribution = patientDemographicCounterService.getDistribution(
+                PatientDemographicCounterService.DIMENSION_GENDER);
+            ageGroupDistribution.putAll(patientDemographicCounterService.getDistribution(
+                PatientDemographicCounterService.DIMENSION_AGE_BAND));
+            locationDistribution = patientDemographicCounterService.getDistribution(
+                    PatientDemographicCounterService.DIMENSION_REGION)
+                .entrySet()
                 .stream()
-                .collect(Collectors.toMap(
-                    map -> (String) map.get("location"),
-                    map -> ((Number) map.get("count")).longValue()
-                ));
-        
+                .limit(LOCATION_DISTRIBUTION_LIMIT)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue,
+                    (a, b) -> a, LinkedHashMap::new));
+        } else {
+            // 计数表尚未初始化时使用数据库分组统计
+            genderDistribution = toCountMap(patientMapper.getGenderDistribution(), "gender");
+            ageGroupDistribution.putAll(toCountMap(patientMapper.getAgeGroupDistribution(), "age_group"));
+            locationDistribution = toCountMap(patientMapper.getLocationDistribution(), "location");
+        }
+
+        // 平均年龄在数据库中计算
+        BigDecimal averageAge = patientMapper.getAverageAge();
+        if (averageAge == null) {
+            averageAge = BigDecimal.ZERO;
+        }
+
         return new PatientDemographics(totalPatients, genderDistribution, 
                                      ageGroupDistribution, averageAge, locationDistribution);
     }
@@ -90,11 +109,17 @@ public class PatientAnalyticsServiceImpl implements PatientAnalyticsService {
         LocalDate reportDate = LocalDate.now();
         LocalDate thirtyDaysAgo = reportDate.minusDays(BusinessConstants.TimeConstants.RETENTION_REPORT_DAYS);
         
+        boolean useCube = registrationVisitCube.covers(thirtyDaysAgo);
+
         // 获取新患者数量（30天内首次就诊）
-        Long newPatients = registrationMapper.countNewPatients(thirtyDaysAgo, reportDate);
+        Long newPatients = useCube
+            ? registrationVisitCube.countDistinctPatients(thirtyDaysAgo, reportDate, true)
+            : registrationMapper.countNewPatients(thirtyDaysAgo, reportDate);
         
         // 获取回访患者数量（30天内有多次就诊记录）
-        Long returningPatients = registrationMapper.countReturningPatients(thirtyDaysAgo, reportDate);
+        Long returningPatients = useCube
+            ? registrationVisitCube.countDistinctPatients(thirtyDaysAgo, reportDate, false)
+            : registrationMapper.countReturningPatients(thirtyDaysAgo, reportDate);
         
         // 计算留存率
         Long totalPatients = newPatients + returningPatients;
@@ -103,7 +128,9 @@ public class PatientAnalyticsServiceImpl implements PatientAnalyticsService {
                 .setScale(2, RoundingMode.HALF_UP) : BigDecimal.ZERO;
         
         // 获取总就诊次数
-        Long totalVisits = registrationMapper.countTotalVisits(thirtyDaysAgo, reportDate);
+        Long totalVisits = useCube
+            ? registrationVisitCube.countVisits(thirtyDaysAgo, reportDate)
+            : registrationMapper.countTotalVisits(thirtyDaysAgo, reportDate);
         
         // 计算平均就诊次数
         BigDecimal averageVisitsPerPatient = totalPatients > 0 ?
@@ -122,61 +149,28 @@ public class PatientAnalyticsServiceImpl implements PatientAnalyticsService {
     }
     
     /**
-     * 计算年龄组分布
+     * 初始化年龄组，保证所有年龄组都出现在结果中
      */
-    private Map<String, Long> calculateAgeGroupDistribution(List<Map<String, Object>> patients) {
-        Map<String, Long> ageGroups = new HashMap<>();
+    private Map<String, Long> initAgeGroups() {
+        Map<String, Long> ageGroups = new LinkedHashMap<>();
         ageGroups.put("0-18", 0L);
         ageGroups.put("19-35", 0L);
         ageGroups.put("36-50", 0L);
         ageGroups.put("51-65", 0L);
         ageGroups.put("65+", 0L);
-        
-        for (Map<String, Object> patient : patients) {
-            LocalDate birthDate = (LocalDate) patient.get("birth_date");
-            if (birthDate != null) {
-                int age = Period.between(birthDate, LocalDate.now()).getYears();
-                String ageGroup = getAgeGroup(age);
-                ageGroups.put(ageGroup, ageGroups.get(ageGroup) + 1);
-            }
-        }
-        
         return ageGroups;
     }
     
     /**
-     * 计算平均年龄
+     * 将分组统计结果转换为计数映射
      */
-    private BigDecimal calculateAverageAge(List<Map<String, Object>> patients) {
-        if (patients.isEmpty()) {
-            return BigDecimal.ZERO;
-        }
-        
-        int totalAge = 0;
-        int validPatients = 0;
-        
-        for (Map<String, Object> patient : patients) {
-            LocalDate birthDate = (LocalDate) patient.get("birth_date");
-            if (birthDate != null) {
-                int age = Period.between(birthDate, LocalDate.now()).getYears();
-                totalAge += age;
-                validPatients++;
-            }
-        }
-        
-        return validPatients > 0 ? 
-            BigDecimal.valueOf((double) totalAge / validPatients).setScale(1, RoundingMode.HALF_UP) :
-            BigDecimal.ZERO;
-    }
-    
-    /**
-     * 根据年龄获取年龄组
-     */
-    private String getAgeGroup(int age) {
-        if (age <= 18) return "0-18";
-        if (age <= 35) return "19-35";
-        if (age <= 50) return "36-50";
-        if (age <= 65) return "51-65";
-        return "65+";
+    private Map<String, Long> toCountMap(List<Map<String, Object>> rows, String keyColumn) {
+        return rows.stream()
+                .collect(Collectors.toMap(
+                    map -> (String) map.get(keyColumn),
+                    map -> ((Number) map.get("count")).longValue(),
+                    (a, b) -> a,
+                    LinkedHashMap::new
+                ));
     }
-}
\ No newline at end of file
+}
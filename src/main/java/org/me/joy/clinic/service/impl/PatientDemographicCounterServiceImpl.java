@@ -0,0 +1,211 @@
+package org.me.joy.clinic.service.impl;
+
+import org.me.joy.clinic.entity.Patient;
+import org.me.joy.clinic.mapper.PatientDemographicCounterMapper;
+import org.me.joy.clinic.mapper.PatientMapper;
+import org.me.joy.clinic.service.PatientDemographicCounterService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.time.Period;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 患者人口统计计数服务实现
+ * 计数与患者写操作在同一事务中调整，年龄段由每日定时任务按生日平移
+ */
+@Service
+@Transactional
+public class PatientDemographicCounterServiceImpl implements PatientDemographicCounterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PatientDemographicCounterServiceImpl.class);
+
+    /**
+     * 各年龄段的起始年龄（第一个年龄段从0岁开始）
+     */
+    private static final List<Integer> AGE_BAND_LOWER_BOUNDS = Arrays.asList(19, 36, 51, 66);
+
+    /**
+     * 年龄段已平移到的日期在状态表中的键
+     */
+    private static final String AGE_BAND_SHIFT_STATE = "AGE_BAND_SHIFTED_THROUGH";
+
+    private static final DateTimeFormatter BIRTHDAY_FORMAT = DateTimeFormatter.ofPattern("MM-dd");
+
+    @Autowired
+    private PatientDemographicCounterMapper patientDemographicCounterMapper;
+
+    @Autowired
+    private PatientMapper patientMapper;
+
+    @Override
+    @Transactional(readOnly = true)
+    public boolean isInitialized() {
+        Long buckets = patientDemographicCounterMapper.countBuckets();
+        return buckets != null && buckets > 0;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Long> getDistribution(String dimension) {
+        Map<String, Long> distribution = new LinkedHashMap<>();
+        for (Map<String, Object> row : patientDemographicCounterMapper.findByDimension(dimension)) {
+            distribution.put((String) row.get("bucket"), ((Number) row.get("patient_count")).longValue());
+        }
+        return distribution;
+    }
+
+    @Override
+    public void recordPatientCreated(Patient patient) {
+        adjust(patient, 1);
+    }
+
+    @Override
+    public void recordPatientsCreated(List<Patient> patients) {
+        LocalDate today = LocalDate.now();
+        Map<String, Map<String, Long>> deltas = new LinkedHashMap<>();
+        for (Patient patient : patients) {
+            addDelta(deltas, DIMENSION_GENDER, patient.getGender());
+            addDelta(deltas, DIMENSION_AGE_BAND, ageBand(patient.getBirthDate(), today));
+            addDelta(deltas, DIMENSION_REGION, region(patient));
+            addDelta(deltas, DIMENSION_PROVINCE, patient.getProvince());
+        }
+        deltas.forEach((dimension, buckets) ->
+            buckets.forEach((bucket, delta) -> patientDemographicCounterMapper.adjust(dimension, bucket, delta)));
+    }
+
+    @Override
+    public void recordPatientUpdated(Patient before, Patient after) {
+        LocalDate today = LocalDate.now();
+        adjustIfChanged(DIMENSION_GENDER, before.getGender(), after.getGender());
+        adjustIfChanged(DIMENSION_AGE_BAND, ageBand(before.getBirthDate(), today), ageBand(after.getBirthDate(), today));
+        adjustIfChanged(DIMENSION_REGION, region(before), region(after));
+        adjustIfChanged(DIMENSION_PROVINCE, before.getProvince(), after.getProvince());
+    }
+
+    @Override
+    public void recordPatientDeleted(Patient patient) {
+        adjust(patient, -1);
+    }
+
+    /**
+     * 每日凌晨平移年龄段
+     */
+    @Scheduled(cron = "${clinic.analytics.demographics.age-band-shift-cron:0 5 0 * * ?}")
+    public void scheduledShiftAgeBands() {
+        shiftAgeBands(LocalDate.now());
+    }
+
+    @Override
+    public void rebuildRegionCounters() {
+        patientDemographicCounterMapper.deleteByDimension(DIMENSION_REGION);
+        patientDemographicCounterMapper.rebuildRegionCounters(DIMENSION_REGION);
+        patientDemographicCounterMapper.deleteByDimension(DIMENSION_PROVINCE);
+        patientDemographicCounterMapper.rebuildProvinceCounters(DIMENSION_PROVINCE);
+        logger.info("地区计数已根据患者省份/城市字段重建");
+    }
+
+    @Override
+    public void shiftAgeBands(LocalDate today) {
+        // 锁定状态行，多实例或重复触发时串行执行，后到者读到已推进的日期后不再重复平移
+        LocalDate shiftedThrough = patientDemographicCounterMapper.lockStateDate(AGE_BAND_SHIFT_STATE);
+        if (shiftedThrough == null) {
+            logger.warn("年龄段平移状态不存在，跳过平移");
+            return;
+        }
+        if (!shiftedThrough.isBefore(today)) {
+            return;
+        }
+        // 停机期间错过的日期逐日补齐
+        for (LocalDate day = shiftedThrough.plusDays(1); !day.isAfter(today); day = day.plusDays(1)) {
+            shiftAgeBandsOn(day);
+        }
+        patientDemographicCounterMapper.updateStateDate(AGE_BAND_SHIFT_STATE, today);
+    }
+
+    private void shiftAgeBandsOn(LocalDate day) {
+        List<String> birthdays = new ArrayList<>();
+        birthdays.add(day.format(BIRTHDAY_FORMAT));
+        // 非闰年的3月1日，2月29日出生的患者在这一天满周岁
+        if (!day.isLeapYear() && MonthDay.from(day).equals(MonthDay.of(3, 1))) {
+            birthdays.add("02-29");
+        }
+
+        List<Map<String, Object>> transitions = patientMapper.countBirthdaysReachingAges(day, birthdays, AGE_BAND_LOWER_BOUNDS);
+        for (Map<String, Object> transition : transitions) {
+            int age = ((Number) transition.get("age")).intValue();
+            long count = ((Number) transition.get("count")).longValue();
+            patientDemographicCounterMapper.adjust(DIMENSION_AGE_BAND, ageBand(age - 1), -count);
+            patientDemographicCounterMapper.adjust(DIMENSION_AGE_BAND, ageBand(age), count);
+            logger.info("年龄段平移({}): {} 名患者从 {} 移至 {}", day, count, ageBand(age - 1), ageBand(age));
+        }
+    }
+
+    private void adjust(Patient patient, long delta) {
+        LocalDate today = LocalDate.now();
+        adjustBucket(DIMENSION_GENDER, patient.getGender(), delta);
+        adjustBucket(DIMENSION_AGE_BAND, ageBand(patient.getBirthDate(), today), delta);
+        adjustBucket(DIMENSION_REGION, region(patient), delta);
+        adjustBucket(DIMENSION_PROVINCE, patient.getProvince(), delta);
+    }
+
+    private void addDelta(Map<String, Map<String, Long>> deltas, String dimension, String bucket) {
+        if (bucket != null) {
+            deltas.computeIfAbsent(dimension, key -> new LinkedHashMap<>()).merge(bucket, 1L, Long::sum);
+        }
+    }
+
+    private void adjustIfChanged(String dimension, String oldBucket, String newBucket) {
+        if (Objects.equals(oldBucket, newBucket)) {
+            return;
+        }
+        adjustBucket(dimension, oldBucket, -1);
+        adjustBucket(dimension, newBucket, 1);
+    }
+
+    private void adjustBucket(String dimension, String bucket, long delta) {
+        if (bucket != null) {
+            patientDemographicCounterMapper.adjust(dimension, bucket, delta);
+        }
+    }
+
+    /**
+     * 根据出生日期计算年龄段
+     */
+    static String ageBand(LocalDate birthDate, LocalDate today) {
+        if (birthDate == null) {
+            return null;
+        }
+        return ageBand(Period.between(birthDate, today).getYears());
+    }
+
+    /**
+     * 根据年龄获取年龄段
+     */
+    static String ageBand(int age) {
+        if (age <= 18) return "0-18";
+        if (age <= 35) return "19-35";
+        if (age <= 50) return "36-50";
+        if (age <= 65) return "51-65";
+        return "65+";
+    }
+
+    /**
+     * 地区分组：优先使用城市，无城市时使用省份
+     */
+    static String region(Patient patient) {
+        return patient.getCity() != null ? patient.getCity() : patient.getProvince();
+    }
+}
@@ -0,0 +1,467 @@
+package org.me.joy.clinic.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.me.joy.clinic.dto.CreatePatientRequest;
+import org.me.joy.clinic.dto.PatientImportError;
+import org.me.joy.clinic.dto.PatientImportFormat;
+import org.me.joy.clinic.dto.PatientImportResult;
+import org.me.joy.clinic.entity.Patient;
+import org.me.joy.clinic.exception.BusinessException;
+import org.me.joy.clinic.mapper.PatientMapper;
+import org.me.joy.clinic.search.NamePinyinIndex;
+import org.me.joy.clinic.search.PatientSearchIndex;
+import org.me.joy.clinic.service.PatientDemographicCounterService;
+import org.me.joy.clinic.service.PatientImportService;
+import org.me.joy.clinic.util.CsvReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.beans.PropertyDescriptor;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * 患者批量导入服务实现类
+ * 数据按分块流式读取：分块内各行在线程池中并行解析和校验，身份证号用一次 IN 查询去重，
+ * 患者编号按块分配（不再逐个探测），每个分块在一个事务中多行批量插入。
+ */
+@Service
+public class PatientImportServiceImpl implements PatientImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PatientImportServiceImpl.class);
+
+    /**
+     * 创建患者请求的属性名，键为去掉下划线、连字符并转小写后的名称，用于匹配CSV表头
+     */
+    private static final Map<String, String> CSV_COLUMNS = new HashMap<>();
+
+    static {
+        for (PropertyDescriptor descriptor : BeanUtils.getPropertyDescriptors(CreatePatientRequest.class)) {
+            if (descriptor.getWriteMethod() != null) {
+                CSV_COLUMNS.put(normalizeColumn(descriptor.getName()), descriptor.getName());
+            }
+        }
+    }
+
+    @Autowired
+    private PatientMapper patientMapper;
+
+    @Autowired
+    private PatientDemographicCounterService patientDemographicCounterService;
+
+    @Autowired
+    private PatientSearchIndex patientSearchIndex;
+
+    @Autowired
+    private NamePinyinIndex namePinyinIndex;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier("patientImportExecutor")
+    private Executor patientImportExecutor;
+
+    @Value("${clinic.patient.import.chunk-size:1000}")
+    private int chunkSize = 1000;
+
+    @Value("${clinic.patient.import.insert-batch-size:500}")
+    private int insertBatchSize = 500;
+
+    @Value("${clinic.patient.import.max-errors:1000}")
+    private int maxErrors = 1000;
+
+    @Value("${clinic.executor.patient-import.pool-size:4}")
+    private int parallelism = 4;
+
+    /**
+     * 同一时间只允许一个导入任务，避免并发导入分配到相同的患者编号
+     */
+    private final ReentrantLock importLock = new ReentrantLock();
+
+    @Override
+    public PatientImportResult importPatients(InputStream input, PatientImportFormat format) {
+        if (!importLock.tryLock()) {
+            throw new BusinessException("PATIENT_IMPORT_IN_PROGRESS", "已有患者导入任务正在执行，请稍后再试");
+        }
+        try {
+            return doImport(input, format);
+        } finally {
+            importLock.unlock();
+        }
+    }
+
+    private PatientImportResult doImport(InputStream input, PatientImportFormat format) {
+        long startedAt = System.nanoTime();
+        PatientImportResult result = new PatientImportResult();
+        ImportContext context = new ImportContext(result);
+        logger.info("开始批量导入患者: format={}", format);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        RowSource source = format == PatientImportFormat.CSV ? new CsvRowSource(reader) : new NdjsonRowSource(reader);
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        try {
+            ImportRow row;
+            while ((row = source.next()) != null) {
+                chunk.add(row);
+                if (chunk.size() >= chunkSize) {
+                    importChunk(chunk, context);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+        } catch (IOException e) {
+            // 已读取的行照常导入，读取失败的位置记为一条错误
+            result.addError(new PatientImportError(source.rowNumber(), null, "IMPORT_READ_FAILED",
+                "读取导入数据失败: " + e.getMessage()), maxErrors);
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, context);
+        }
+
+        result.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        logger.info("患者批量导入完成: 共 {} 行, 成功 {} 行, 失败 {} 行, 耗时 {} ms",
+            result.getTotalRows(), result.getImportedCount(), result.getFailedCount(), result.getElapsedMillis());
+        return result;
+    }
+
+    /**
+     * 导入一个分块：并行解析校验 -> 身份证号去重 -> 分配编号并批量插入
+     */
+    private void importChunk(List<ImportRow> chunk, ImportContext context) {
+        PatientImportResult result = context.result;
+        result.setTotalRows(result.getTotalRows() + chunk.size());
+        parseAndValidate(chunk);
+
+        List<ImportRow> accepted = new ArrayList<>(chunk.size());
+        for (ImportRow row : chunk) {
+            if (row.errorCode != null) {
+                reject(result, row, row.errorCode, row.errorMessage);
+                continue;
+            }
+            String idCard = row.request.getIdCard();
+            if (idCard != null && !context.seenIdCards.add(idCard)) {
+                reject(result, row, "DUPLICATE_ID_CARD_IN_FILE", "身份证号在导入数据中重复");
+                continue;
+            }
+            accepted.add(row);
+        }
+
+        List<String> idCards = accepted.stream()
+            .map(row -> row.request.getIdCard())
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+        if (!idCards.isEmpty()) {
+            Set<String> existing = new HashSet<>();
+            for (String idCard : patientMapper.findExistingIdCards(idCards)) {
+                existing.add(idCard.toUpperCase(Locale.ROOT));
+            }
+            List<ImportRow> unique = new ArrayList<>(accepted.size());
+            for (ImportRow row : accepted) {
+                String idCard = row.request.getIdCard();
+                if (idCard != null && existing.contains(idCard)) {
+                    reject(result, row, "PATIENT_ID_CARD_EXISTS", "身份证号已存在");
+                } else {
+                    unique.add(row);
+                }
+            }
+            accepted = unique;
+        }
+
+        if (!accepted.isEmpty()) {
+            insert(accepted, context);
+        }
+    }
+
+    /**
+     * 将分块切片后在线程池中并行解析和校验，结果写回各行
+     */
+    private void parseAndValidate(List<ImportRow> chunk) {
+        int slices = Math.max(1, Math.min(parallelism, chunk.size()));
+        int sliceSize = (chunk.size() + slices - 1) / slices;
+        List<CompletableFuture<Void>> futures = new ArrayList<>(slices);
+        for (int from = 0; from < chunk.size(); from += sliceSize) {
+            List<ImportRow> slice = chunk.subList(from, Math.min(from + sliceSize, chunk.size()));
+            futures.add(CompletableFuture.runAsync(() -> slice.forEach(this::parseAndValidate), patientImportExecutor));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    }
+
+    private void parseAndValidate(ImportRow row) {
+        try {
+            CreatePatientRequest request = row.json != null
+                ? objectMapper.readValue(row.json, CreatePatientRequest.class)
+                : objectMapper.convertValue(row.fields, CreatePatientRequest.class);
+            if (StringUtils.hasText(request.getIdCard())) {
+                request.setIdCard(request.getIdCard().trim().toUpperCase(Locale.ROOT));
+            } else {
+                request.setIdCard(null);
+            }
+            Set<ConstraintViolation<CreatePatientRequest>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                row.fail("VALIDATION_FAILED", violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+                row.idCard = request.getIdCard();
+                return;
+            }
+            row.request = request;
+        } catch (JsonProcessingException e) {
+            row.fail("INVALID_ROW", "数据格式错误: " + e.getOriginalMessage());
+        } catch (IllegalArgumentException e) {
+            row.fail("INVALID_ROW", "数据格式错误: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 分配患者编号并在一个事务中批量插入；编号与并发创建的患者冲突时重新分配并重试一次
+     */
+    private void insert(List<ImportRow> rows, ImportContext context) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Patient> patients = new ArrayList<>(rows.size());
+        for (ImportRow row : rows) {
+            Patient patient = PatientManagementServiceImpl.newPatient(row.request, null);
+            patient.setCreatedAt(now);
+            patient.setUpdatedAt(now);
+            patients.add(patient);
+        }
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        for (int attempt = 1; ; attempt++) {
+            context.assignNumbers(patients);
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    for (int from = 0; from < patients.size(); from += insertBatchSize) {
+                        patientMapper.batchInsert(patients.subList(from, Math.min(from + insertBatchSize, patients.size())));
+                    }
+                    patientDemographicCounterService.recordPatientsCreated(patients);
+                    for (Patient patient : patients) {
+                        patientSearchIndex.index(patient);
+                        namePinyinIndex.indexPatient(patient);
+                    }
+                });
+                context.result.setImportedCount(context.result.getImportedCount() + patients.size());
+                return;
+            } catch (DuplicateKeyException e) {
+                if (attempt >= 2) {
+                    rejectAll(context.result, rows, e);
+                    return;
+                }
+                logger.warn("患者编号冲突，重新分配后重试: {}", e.getMessage());
+                patients.forEach(patient -> patient.setId(null));
+                context.reloadSequence();
+            } catch (DataAccessException e) {
+                rejectAll(context.result, rows, e);
+                return;
+            }
+        }
+    }
+
+    private void rejectAll(PatientImportResult result, List<ImportRow> rows, RuntimeException e) {
+        logger.error("患者批量插入失败: rows={}, error={}", rows.size(), e.getMessage());
+        for (ImportRow row : rows) {
+            reject(result, row, "IMPORT_FAILED", "保存失败: " + e.getMessage());
+        }
+    }
+
+    private void reject(PatientImportResult result, ImportRow row, String code, String message) {
+        String idCard = row.request != null ? row.request.getIdCard() : row.idCard;
+        result.addError(new PatientImportError(row.rowNumber, idCard, code, message), maxErrors);
+    }
+
+    private static String normalizeColumn(String column) {
+        return column.trim().replace("_", "").replace("-", "").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 单次导入的状态：文件内已出现的身份证号和下一个可用的患者编号序号
+     */
+    private final class ImportContext {
+
+        private final PatientImportResult result;
+        private final Set<String> seenIdCards = new HashSet<>();
+        private final String numberPrefix = PatientManagementServiceImpl.patientNumberPrefix(LocalDate.now());
+        private int nextSequence;
+
+        ImportContext(PatientImportResult result) {
+            this.result = result;
+            reloadSequence();
+        }
+
+        void reloadSequence() {
+            int fromDatabase = PatientManagementServiceImpl.nextPatientSequence(numberPrefix,
+                patientMapper.findMaxPatientNumber(numberPrefix));
+            nextSequence = Math.max(nextSequence, fromDatabase);
+        }
+
+        void assignNumbers(List<Patient> patients) {
+            for (Patient patient : patients) {
+                patient.setPatientNumber(PatientManagementServiceImpl.formatPatientNumber(numberPrefix, nextSequence++));
+            }
+        }
+    }
+
+    /**
+     * 一行导入数据及其解析、校验结果
+     */
+    private static final class ImportRow {
+
+        private final long rowNumber;
+        private final String json;
+        private final Map<String, Object> fields;
+        private CreatePatientRequest request;
+        private String idCard;
+        private String errorCode;
+        private String errorMessage;
+
+        ImportRow(long rowNumber, String json, Map<String, Object> fields) {
+            this.rowNumber = rowNumber;
+            this.json = json;
+            this.fields = fields;
+        }
+
+        void fail(String code, String message) {
+            this.errorCode = code;
+            this.errorMessage = message;
+        }
+    }
+
+    private interface RowSource {
+
+        /**
+         * 读取下一行数据，跳过空行
+         * @return 数据行，已读完时返回null
+         */
+        ImportRow next() throws IOException;
+
+        /**
+         * 当前读取到的数据行号
+         */
+        long rowNumber();
+    }
+
+    /**
+     * CSV 数据源，首行为表头，无法识别的列忽略
+     */
+    private static final class CsvRowSource implements RowSource {
+
+        private final CsvReader csvReader;
+        private String[] columns;
+        private long rowNumber;
+
+        CsvRowSource(BufferedReader reader) {
+            this.csvReader = new CsvReader(reader);
+        }
+
+        @Override
+        public ImportRow next() throws IOException {
+            if (columns == null) {
+                readHeader();
+            }
+            List<String> record;
+            while ((record = csvReader.readRecord()) != null) {
+                rowNumber++;
+                if (record.size() == 1 && record.get(0).isBlank()) {
+                    continue;
+                }
+                Map<String, Object> fields = new LinkedHashMap<>();
+                for (int i = 0; i < record.size() && i < columns.length; i++) {
+                    String value = record.get(i).trim();
+                    if (columns[i] != null && !value.isEmpty()) {
+                        fields.put(columns[i], value);
+                    }
+                }
+                return new ImportRow(rowNumber, null, fields);
+            }
+            return null;
+        }
+
+        @Override
+        public long rowNumber() {
+            return rowNumber;
+        }
+
+        private void readHeader() throws IOException {
+            List<String> header = csvReader.readRecord();
+            if (header == null) {
+                columns = new String[0];
+                return;
+            }
+            columns = new String[header.size()];
+            for (int i = 0; i < header.size(); i++) {
+                columns[i] = CSV_COLUMNS.get(normalizeColumn(header.get(i)));
+            }
+            if (!header.stream().map(PatientImportServiceImpl::normalizeColumn).anyMatch("name"::equals)) {
+                throw new BusinessException("INVALID_IMPORT_HEADER", "CSV表头缺少name列");
+            }
+        }
+    }
+
+    /**
+     * NDJSON 数据源，每行一个JSON对象
+     */
+    private static final class NdjsonRowSource implements RowSource {
+
+        private final BufferedReader reader;
+        private long rowNumber;
+
+        NdjsonRowSource(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public ImportRow next() throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                rowNumber++;
+                if (!line.isBlank()) {
+                    return new ImportRow(rowNumber, line, null);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public long rowNumber() {
+            return rowNumber;
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package org.me.joy.clinic.service.impl;
 
+import org.me.joy.clinic.cache.PatientCache;
 import org.me.joy.clinic.dto.CreatePatientRequest;
+import org.me.joy.clinic.dto.CursorPage;
+import org.me.joy.clinic.dto.PatientInclude;
 import org.me.joy.clinic.dto.PatientResponse;
 import org.me.joy.clinic.dto.UpdatePatientRequest;
 import org.me.joy.clinic.entity.AllergyHistory;
@@ -11,10 +14,18 @@ import org.me.joy.clinic.exception.ValidationException;
 import org.me.joy.clinic.mapper.AllergyHistoryMapper;
 import org.me.joy.clinic.mapper.MedicalHistoryMapper;
 import org.me.joy.clinic.mapper.PatientMapper;
+import org.me.joy.clinic.pharmacy.AllergyEngine;
+import org.me.joy.clinic.search.NamePinyinIndex;
+import org.me.joy.clinic.search.PatientSearchIndex;
+import org.me.joy.clinic.service.PatientDemographicCounterService;
 import org.me.joy.clinic.service.PatientManagementService;
+import org.me.joy.clinic.util.KeysetPagination;
+import org.me.joy.clinic.util.RegionExtractor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
@@ -22,8 +33,14 @@ import org.springframework.util.StringUtils;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -35,6 +52,11 @@ public class PatientManagementServiceImpl implements PatientManagementService {
 
     private static final Logger logger = LoggerFactory.getLogger(PatientManagementServiceImpl.class);
 
+    /**
+     * 批量加载历史记录时单次 IN 查询的患者数
+     */
+    private static final int HISTORY_BATCH_SIZE = 500;
+
     @Autowired
     private PatientMapper patientMapper;
 
@@ -44,6 +66,27 @@ public class PatientManagementServiceImpl implements PatientManagementService {
     @Autowired
     private MedicalHistoryMapper medicalHistoryMapper;
 
+    @Autowired
+    private PatientDemographicCounterService patientDemographicCounterService;
+
+    @Autowired
+    private PatientSearchIndex patientSearchIndex;
+
+    @Autowired
+    private NamePinyinIndex namePinyinIndex;
+
+    @Autowired
+    private PatientCache patientCache;
+
+    @Autowired
+    private AllergyEngine allergyEngine;
+
+    /**
+     * 搜索索引最多返回的患者数
+     */
+    @Value("${clinic.search.patient.top-k:20}")
+    private int searchTopK = 20;
+
     @Override
     public PatientResponse createPatient(CreatePatientRequest createPatientRequest) {
         logger.info("创建新患者: {}", createPatientRequest.getName());
@@ -58,29 +101,13 @@ public class PatientManagementServiceImpl implements PatientManagementService {
         String patientNumber = generatePatientNumber();
 
         // 创建患者实体
-        Patient patient = new Patient();
-        patient.setPatientNumber(patientNumber);
-        patient.setName(createPatientRequest.getName());
-        patient.setPhone(createPatientRequest.getPhone());
-        patient.setIdCard(createPatientRequest.getIdCard());
-        patient.setBirthDate(createPatientRequest.getBirthDate());
-        patient.setGender(createPatientRequest.getGender());
-        patient.setAddress(createPatientRequest.getAddress());
-        patient.setEmergencyContactName(createPatientRequest.getEmergencyContactName());
-        patient.setEmergencyContactPhone(createPatientRequest.getEmergencyContactPhone());
-        patient.setEmergencyContactRelation(createPatientRequest.getEmergencyContactRelation());
-        patient.setBloodType(createPatientRequest.getBloodType());
-        patient.setMaritalStatus(createPatientRequest.getMaritalStatus());
-        patient.setOccupation(createPatientRequest.getOccupation());
-        patient.setEthnicity(createPatientRequest.getEthnicity());
-        patient.setInsuranceType(createPatientRequest.getInsuranceType());
-        patient.setInsuranceNumber(createPatientRequest.getInsuranceNumber());
-        patient.setRemarks(createPatientRequest.getRemarks());
-        patient.setIsVip(createPatientRequest.getIsVip() != null ? createPatientRequest.getIsVip() : false);
-        patient.setStatus("正常");
+        Patient patient = newPatient(createPatientRequest, patientNumber);
 
         // 保存患者
         patientMapper.insert(patient);
+        patientDemographicCounterService.recordPatientCreated(patient);
+        patientSearchIndex.index(patient);
+        namePinyinIndex.indexPatient(patient);
 
         logger.info("患者创建成功: {}, ID: {}", patient.getName(), patient.getId());
 
@@ -91,7 +118,9 @@ public class PatientManagementServiceImpl implements PatientManagementService {
     public PatientResponse updatePatient(Long patientId, UpdatePatientRequest updatePatientRequest) {
         logger.info("更新患者信息: {}", patientId);
 
-        Patient patient = getPatientEntityById(patientId);
+        Patient patient = getPatientEntityForUpdate(patientId);
+        Patient before = new Patient();
+        BeanUtils.copyProperties(patient, before);
 
         // 验证身份证号是否已被其他患者使用
         if (StringUtils.hasText(updatePatientRequest.getIdCard()) && 
@@ -104,6 +133,7 @@ public class PatientManagementServiceImpl implements PatientManagementService {
         // 更新患者信息
         if (StringUtils.hasText(updatePatientRequest.getName())) {
             patient.setName(updatePatientRequest.getName());
+            NamePinyinIndex.applyPinyin(patient);
         }
         if (StringUtils.hasText(updatePatientRequest.getPhone())) {
             patient.setPhone(updatePatientRequest.getPhone());
@@ -119,6 +149,7 @@ public class PatientManagementServiceImpl implements PatientManagementService {
         }
         if (updatePatientRequest.getAddress() != null) {
             patient.setAddress(updatePatientRequest.getAddress());
+            applyRegion(patient);
         }
         if (updatePatientRequest.getEmergencyContactName() != null) {
             patient.setEmergencyContactName(updatePatientRequest.getEmergencyContactName());
@@ -158,6 +189,10 @@ public class PatientManagementServiceImpl implements PatientManagementService {
         }
 
         patientMapper.updateById(patient);
+        patientCache.invalidate(patientId);
+        patientDemographicCounterService.recordPatientUpdated(before, patient);
+        patientSearchIndex.index(patient);
+        namePinyinIndex.indexPatient(patient);
 
         logger.info("患者信息更新成功: {}", patientId);
 
@@ -171,6 +206,13 @@ public class PatientManagementServiceImpl implements PatientManagementService {
         return convertToPatientResponse(patient);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public PatientResponse getPatientById(Long patientId, PatientInclude include) {
+        Patient patient = getPatientEntityById(patientId);
+        return convertToPatientResponses(Collections.singletonList(patient), include).get(0);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public PatientResponse getPatientByNumber(String patientNumber) {
@@ -178,7 +220,7 @@ public class PatientManagementServiceImpl implements PatientManagementService {
             throw new ValidationException("PATIENT_NUMBER_EMPTY", "患者编号不能为空");
         }
 
-        Optional<Patient> patientOpt = patientMapper.findByPatientNumber(patientNumber);
+        Optional<Patient> patientOpt = patientCache.getByPatientNumber(patientNumber);
         if (patientOpt.isEmpty()) {
             throw new BusinessException("PATIENT_NOT_FOUND", "患者不存在");
         }
@@ -193,7 +235,7 @@ public class PatientManagementServiceImpl implements PatientManagementService {
             throw new ValidationException("ID_CARD_EMPTY", "身份证号不能为空");
         }
 
-        Optional<Patient> patientOpt = patientMapper.findByIdCard(idCard);
+        Optional<Patient> patientOpt = patientCache.getByIdCard(idCard);
         if (patientOpt.isEmpty()) {
             throw new BusinessException("PATIENT_NOT_FOUND", "患者不存在");
         }
@@ -204,50 +246,79 @@ public class PatientManagementServiceImpl implements PatientManagementService {
     @Override
     @Transactional(readOnly = true)
     public List<PatientResponse> getAllPatients() {
+        return getAllPatients(PatientInclude.HISTORIES);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<PatientResponse> getAllPatients(PatientInclude include) {
         List<Patient> patients = patientMapper.selectList(null);
-        return patients.stream()
-                .map(this::convertToPatientResponse)
-                .collect(Collectors.toList());
+        return convertToPatientResponses(patients, include);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<PatientResponse> getPatientsPage(String cursor, Integer limit, PatientInclude include) {
+        CursorPage<Patient> page = KeysetPagination.byId(patientMapper, null, true, cursor, limit);
+        return new CursorPage<>(convertToPatientResponses(page.getItems(), include), page.getNextCursor(), page.getLimit());
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<PatientResponse> getPatientsByStatus(String status) {
+        return getPatientsByStatus(status, PatientInclude.HISTORIES);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<PatientResponse> getPatientsByStatus(String status, PatientInclude include) {
         if (!StringUtils.hasText(status)) {
             throw new ValidationException("STATUS_EMPTY", "患者状态不能为空");
         }
 
         List<Patient> patients = patientMapper.findByStatus(status);
-        return patients.stream()
-                .map(this::convertToPatientResponse)
-                .collect(Collectors.toList());
+        return convertToPatientResponses(patients, include);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<PatientResponse> getVipPatients() {
+        return getVipPatients(PatientInclude.HISTORIES);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<PatientResponse> getVipPatients(PatientInclude include) {
         List<Patient> patients = patientMapper.findVipPatients();
-        return patients.stream()
-                .map(this::convertToPatientResponse)
-                .collect(Collectors.toList());
+        return convertToPatientResponses(patients, include);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<PatientResponse> getPatientsByGender(String gender) {
+        return getPatientsByGender(gender, PatientInclude.HISTORIES);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<PatientResponse> getPatientsByGender(String gender, PatientInclude include) {
         if (!StringUtils.hasText(gender)) {
             throw new ValidationException("GENDER_EMPTY", "性别不能为空");
         }
 
         List<Patient> patients = patientMapper.findByGender(gender);
-        return patients.stream()
-                .map(this::convertToPatientResponse)
-                .collect(Collectors.toList());
+        return convertToPatientResponses(patients, include);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<PatientResponse> getPatientsByAgeRange(Integer minAge, Integer maxAge) {
+        return getPatientsByAgeRange(minAge, maxAge, PatientInclude.HISTORIES);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<PatientResponse> getPatientsByAgeRange(Integer minAge, Integer maxAge, PatientInclude include) {
         if (minAge == null || maxAge == null) {
             throw new ValidationException("AGE_RANGE_INVALID", "年龄范围不能为空");
         }
@@ -256,45 +327,78 @@ public class PatientManagementServiceImpl implements PatientManagementService {
         }
 
         List<Patient> patients = patientMapper.findByAgeRange(minAge, maxAge);
-        return patients.stream()
-                .map(this::convertToPatientResponse)
-                .collect(Collectors.toList());
+        return convertToPatientResponses(patients, include);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<PatientResponse> searchPatients(String keyword) {
+        return searchPatients(keyword, PatientInclude.HISTORIES);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<PatientResponse> searchPatients(String keyword, PatientInclude include) {
         if (!StringUtils.hasText(keyword)) {
-            return getAllPatients();
+            return getAllPatients(include);
+        }
+
+        String query = keyword.trim();
+
+        // 纯字母关键词先按姓名拼音/首字母前缀查找，其余优先使用内存N-gram索引，按主键取回患者
+        List<Long> patientIds = null;
+        if (NamePinyinIndex.isPinyinQuery(query)) {
+            patientIds = namePinyinIndex.searchPatients(query, searchTopK);
+        }
+        if (patientIds == null || patientIds.isEmpty()) {
+            patientIds = patientSearchIndex.search(query, searchTopK);
+        }
+        if (patientIds != null) {
+            if (patientIds.isEmpty()) {
+                return Collections.emptyList();
+            }
+            Map<Long, Patient> patientsById = patientMapper.selectBatchIds(patientIds).stream()
+                    .collect(Collectors.toMap(Patient::getId, Function.identity()));
+            List<Patient> rankedPatients = patientIds.stream()
+                    .map(patientsById::get)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+            return convertToPatientResponses(rankedPatients, include);
         }
 
-        List<Patient> patients = patientMapper.searchPatients(keyword.trim());
-        return patients.stream()
-                .map(this::convertToPatientResponse)
-                .collect(Collectors.toList());
+        List<Patient> patients = patientMapper.searchPatients(query);
+        return convertToPatientResponses(patients, include);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<PatientResponse> getTodayPatients(LocalDate date) {
+        return getTodayPatients(date, PatientInclude.HISTORIES);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<PatientResponse> getTodayPatients(LocalDate date, PatientInclude include) {
         if (date == null) {
             date = LocalDate.now();
         }
 
         List<Patient> patients = patientMapper.findTodayPatients(date);
-        return patients.stream()
-                .map(this::convertToPatientResponse)
-                .collect(Collectors.toList());
+        return convertToPatientResponses(patients, include);
     }
 
     @Override
     public void deletePatient(Long patientId) {
         logger.info("删除患者: {}", patientId);
 
-        Patient patient = getPatientEntityById(patientId);
+        Patient patient = getPatientEntityForUpdate(patientId);
 
         // 软删除
         patientMapper.deleteById(patientId);
+        patientCache.invalidate(patientId);
+        patientDemographicCounterService.recordPatientDeleted(patient);
+        patientSearchIndex.remove(patientId);
+        namePinyinIndex.removePatient(patientId);
 
         logger.info("患者删除成功: {}", patientId);
     }
@@ -303,9 +407,10 @@ public class PatientManagementServiceImpl implements PatientManagementService {
     public void setPatientAsVip(Long patientId) {
         logger.info("设置患者为VIP: {}", patientId);
 
-        Patient patient = getPatientEntityById(patientId);
+        Patient patient = getPatientEntityForUpdate(patientId);
         patient.setIsVip(true);
         patientMapper.updateById(patient);
+        patientCache.invalidate(patientId);
 
         logger.info("患者VIP设置成功: {}", patientId);
     }
@@ -314,9 +419,10 @@ public class PatientManagementServiceImpl implements PatientManagementService {
     public void removePatientVipStatus(Long patientId) {
         logger.info("取消患者VIP状态: {}", patientId);
 
-        Patient patient = getPatientEntityById(patientId);
+        Patient patient = getPatientEntityForUpdate(patientId);
         patient.setIsVip(false);
         patientMapper.updateById(patient);
+        patientCache.invalidate(patientId);
 
         logger.info("患者VIP状态取消成功: {}", patientId);
     }
@@ -329,9 +435,10 @@ public class PatientManagementServiceImpl implements PatientManagementService {
 
         logger.info("更新患者状态: patientId={}, status={}", patientId, status);
 
-        Patient patient = getPatientEntityById(patientId);
+        Patient patient = getPatientEntityForUpdate(patientId);
         patient.setStatus(status);
         patientMapper.updateById(patient);
+        patientCache.invalidate(patientId);
 
         logger.info("患者状态更新成功: patientId={}, status={}", patientId, status);
     }
@@ -340,9 +447,10 @@ public class PatientManagementServiceImpl implements PatientManagementService {
     public void recordPatientVisit(Long patientId) {
         logger.info("记录患者就诊: {}", patientId);
 
-        Patient patient = getPatientEntityById(patientId);
+        Patient patient = getPatientEntityForUpdate(patientId);
         patient.incrementVisitCount();
         patientMapper.updateById(patient);
+        patientCache.invalidate(patientId);
 
         logger.info("患者就诊记录成功: {}", patientId);
     }   
@@ -359,6 +467,7 @@ public class PatientManagementServiceImpl implements PatientManagementService {
 
         // 保存过敏史
         allergyHistoryMapper.insert(allergyHistory);
+        allergyEngine.invalidatePatient(patientId);
 
         logger.info("患者过敏史添加成功: patientId={}, allergyHistoryId={}", patientId, allergyHistory.getId());
 
@@ -404,6 +513,7 @@ public class PatientManagementServiceImpl implements PatientManagementService {
         }
 
         allergyHistoryMapper.updateById(existingHistory);
+        allergyEngine.invalidatePatient(existingHistory.getPatientId());
 
         logger.info("患者过敏史更新成功: {}", allergyHistoryId);
 
@@ -420,6 +530,7 @@ public class PatientManagementServiceImpl implements PatientManagementService {
         }
 
         allergyHistoryMapper.deleteById(allergyHistoryId);
+        allergyEngine.invalidatePatient(existingHistory.getPatientId());
 
         logger.info("患者过敏史删除成功: {}", allergyHistoryId);
     }
@@ -584,20 +695,75 @@ public class PatientManagementServiceImpl implements PatientManagementService {
     @Override
     public String generatePatientNumber() {
         // 生成格式：P + 年月日 + 4位序号，例如：P202401010001
-        String datePrefix = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-        String prefix = "P" + datePrefix;
+        String prefix = patientNumberPrefix(LocalDate.now());
         
-        // 查询当日最大序号
-        int sequence = 1;
+        // 从当日最大序号之后开始探测
+        int sequence = nextPatientSequence(prefix, patientMapper.findMaxPatientNumber(prefix));
         String patientNumber;
         do {
-            patientNumber = prefix + String.format("%04d", sequence);
+            patientNumber = formatPatientNumber(prefix, sequence);
             sequence++;
         } while (existsByPatientNumber(patientNumber));
         
         return patientNumber;
     }
 
+    /**
+     * 患者编号前缀：P + 年月日
+     */
+    static String patientNumberPrefix(LocalDate date) {
+        return "P" + date.format(DateTimeFormatter.ofPattern("yyyyMMdd"));
+    }
+
+    /**
+     * 根据前缀下最大的患者编号计算下一个序号
+     */
+    static int nextPatientSequence(String prefix, String maxPatientNumber) {
+        if (maxPatientNumber == null || !maxPatientNumber.startsWith(prefix)) {
+            return 1;
+        }
+        try {
+            return Integer.parseInt(maxPatientNumber.substring(prefix.length())) + 1;
+        } catch (NumberFormatException e) {
+            return 1;
+        }
+    }
+
+    static String formatPatientNumber(String prefix, int sequence) {
+        return prefix + String.format("%04d", sequence);
+    }
+
+    /**
+     * 根据创建请求构建患者实体（生成姓名拼音，从地址提取省份和城市）
+     */
+    static Patient newPatient(CreatePatientRequest request, String patientNumber) {
+        Patient patient = new Patient();
+        patient.setPatientNumber(patientNumber);
+        patient.setName(request.getName());
+        NamePinyinIndex.applyPinyin(patient);
+        patient.setPhone(request.getPhone());
+        patient.setIdCard(request.getIdCard());
+        patient.setBirthDate(request.getBirthDate());
+        patient.setGender(request.getGender());
+        patient.setAddress(request.getAddress());
+        RegionExtractor.Region region = RegionExtractor.extract(patient.getAddress());
+        patient.setProvince(region.getProvince());
+        patient.setCity(region.getCity());
+        patient.setEmergencyContactName(request.getEmergencyContactName());
+        patient.setEmergencyContactPhone(request.getEmergencyContactPhone());
+        patient.setEmergencyContactRelation(request.getEmergencyContactRelation());
+        patient.setBloodType(request.getBloodType());
+        patient.setMaritalStatus(request.getMaritalStatus());
+        patient.setOccupation(request.getOccupation());
+        patient.setEthnicity(request.getEthnicity());
+        patient.setInsuranceType(request.getInsuranceType());
+        patient.setInsuranceNumber(request.getInsuranceNumber());
+        patient.setRemarks(request.getRemarks());
+        patient.setIsVip(request.getIsVip() != null ? request.getIsVip() : false);
+        patient.setStatus("正常");
+        return patient;
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Long countAllPatients() {
@@ -627,6 +793,21 @@ public class PatientManagementServiceImpl implements PatientManagementService {
             throw new ValidationException("PATIENT_ID_NULL", "患者ID不能为空");
         }
 
+        Patient patient = patientCache.getById(patientId);
+        if (patient == null) {
+            throw new BusinessException("PATIENT_NOT_FOUND", "患者不存在");
+        }
+        return patient;
+    }
+
+    /**
+     * 根据ID从数据库获取患者实体（修改前使用，不读缓存）
+     */
+    private Patient getPatientEntityForUpdate(Long patientId) {
+        if (patientId == null) {
+            throw new ValidationException("PATIENT_ID_NULL", "患者ID不能为空");
+        }
+
         Patient patient = patientMapper.selectById(patientId);
         if (patient == null) {
             throw new BusinessException("PATIENT_NOT_FOUND", "患者不存在");
@@ -634,10 +815,92 @@ public class PatientManagementServiceImpl implements PatientManagementService {
         return patient;
     }
 
+    /**
+     * 从地址中提取省份和城市
+     */
+    private void applyRegion(Patient patient) {
+        RegionExtractor.Region region = RegionExtractor.extract(patient.getAddress());
+        patient.setProvince(region.getProvince());
+        patient.setCity(region.getCity());
+    }
+
     /**
      * 将患者实体转换为响应DTO
      */
     private PatientResponse convertToPatientResponse(Patient patient) {
+        PatientResponse response = toPatientResponse(patient);
+
+        // 获取过敏史和病史
+        try {
+            List<AllergyHistory> allergyHistories = allergyHistoryMapper.findByPatientId(patient.getId());
+            response.setAllergyHistories(allergyHistories);
+
+            List<MedicalHistory> medicalHistories = medicalHistoryMapper.findByPatientId(patient.getId());
+            response.setMedicalHistories(medicalHistories);
+        } catch (Exception e) {
+            logger.warn("获取患者历史记录失败: patientId={}", patient.getId(), e);
+        }
+
+        return response;
+    }
+
+    /**
+     * 将患者列表转换为响应DTO，过敏史和病史按类型各用一次 IN 查询批量加载后在内存中分组
+     */
+    private List<PatientResponse> convertToPatientResponses(List<Patient> patients, PatientInclude include) {
+        if (patients.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Long> patientIds = patients.stream().map(Patient::getId).collect(Collectors.toList());
+
+        Map<Long, List<AllergyHistory>> allergiesByPatient = Collections.emptyMap();
+        Map<Long, List<MedicalHistory>> historiesByPatient = Collections.emptyMap();
+        try {
+            if (include.includesAllergies()) {
+                allergiesByPatient = loadByPatientIds(patientIds, allergyHistoryMapper::findByPatientIds,
+                        AllergyHistory::getPatientId);
+            }
+            if (include.includesMedicalHistories()) {
+                historiesByPatient = loadByPatientIds(patientIds, medicalHistoryMapper::findByPatientIds,
+                        MedicalHistory::getPatientId);
+            }
+        } catch (Exception e) {
+            logger.warn("批量获取患者历史记录失败: patientCount={}", patientIds.size(), e);
+        }
+
+        List<PatientResponse> responses = new ArrayList<>(patients.size());
+        for (Patient patient : patients) {
+            PatientResponse response = toPatientResponse(patient);
+            if (include.includesAllergies()) {
+                response.setAllergyHistories(allergiesByPatient.getOrDefault(patient.getId(), Collections.emptyList()));
+            }
+            if (include.includesMedicalHistories()) {
+                response.setMedicalHistories(historiesByPatient.getOrDefault(patient.getId(), Collections.emptyList()));
+            }
+            responses.add(response);
+        }
+        return responses;
+    }
+
+    /**
+     * 按批次查询患者关联记录并按患者ID分组（保持查询结果的顺序）
+     */
+    private <T> Map<Long, List<T>> loadByPatientIds(List<Long> patientIds, Function<List<Long>, List<T>> loader,
+                                                     Function<T, Long> patientIdOf) {
+        Map<Long, List<T>> grouped = new HashMap<>();
+        for (int from = 0; from < patientIds.size(); from += HISTORY_BATCH_SIZE) {
+            List<Long> batch = patientIds.subList(from, Math.min(from + HISTORY_BATCH_SIZE, patientIds.size()));
+            for (T record : loader.apply(batch)) {
+                grouped.computeIfAbsent(patientIdOf.apply(record), id -> new ArrayList<>()).add(record);
+            }
+        }
+        return grouped;
+    }
+
+    /**
+     * 复制患者基本信息到响应DTO
+     */
+    private PatientResponse toPatientResponse(Patient patient) {
         PatientResponse response = new PatientResponse();
         response.setId(patient.getId());
         response.setPatientNumber(patient.getPatientNumber());
@@ -665,18 +928,6 @@ public class PatientManagementServiceImpl implements PatientManagementService {
         response.setVisitCount(patient.getVisitCount());
         response.setCreatedAt(patient.getCreatedAt());
         response.setUpdatedAt(patient.getUpdatedAt());
-
-        // 获取过敏史和病史
-        try {
-            List<AllergyHistory> allergyHistories = allergyHistoryMapper.findByPatientId(patient.getId());
-            response.setAllergyHistories(allergyHistories);
-
-            List<MedicalHistory> medicalHistories = medicalHistoryMapper.findByPatientId(patient.getId());
-            response.setMedicalHistories(medicalHistories);
-        } catch (Exception e) {
-            logger.warn("获取患者历史记录失败: patientId={}", patient.getId(), e);
-        }
-
         return response;
     }
 }
\ No newline at end of file
@@ -0,0 +1,112 @@
+package org.me.joy.clinic.service.impl;
+
+import org.me.joy.clinic.cache.PatientCache;
+import org.me.joy.clinic.entity.Patient;
+import org.me.joy.clinic.mapper.PatientMapper;
+import org.me.joy.clinic.service.PatientDemographicCounterService;
+import org.me.joy.clinic.service.PatientRegionBackfillService;
+import org.me.joy.clinic.util.RegionExtractor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 患者地区回填服务实现
+ * 按主键分批读取地址、在内存中提取地区后批量更新，每批一条UPDATE语句，避免长事务锁表
+ */
+@Service
+public class PatientRegionBackfillServiceImpl implements PatientRegionBackfillService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PatientRegionBackfillServiceImpl.class);
+
+    @Autowired
+    private PatientMapper patientMapper;
+
+    @Autowired
+    private PatientDemographicCounterService patientDemographicCounterService;
+
+    @Autowired
+    private PatientCache patientCache;
+
+    /**
+     * 每批处理的患者数量
+     */
+    @Value("${clinic.patient.region-backfill.batch-size:500}")
+    private int batchSize = 500;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    /**
+     * 应用启动完成后执行一次，尽快按提取后的省份、城市重建地区计数
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            backfill();
+        } catch (RuntimeException e) {
+            logger.error("启动时患者地区回填失败，将在下次定时任务重试: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 定时回填，默认每天凌晨执行一次
+     */
+    @Scheduled(cron = "${clinic.patient.region-backfill.cron:0 30 2 * * ?}")
+    public void scheduledBackfill() {
+        backfill();
+    }
+
+    @Override
+    public int backfill() {
+        if (!running.compareAndSet(false, true)) {
+            logger.info("患者地区回填任务正在执行，跳过本次触发");
+            return 0;
+        }
+        try {
+            long startedAt = System.currentTimeMillis();
+            long afterId = 0L;
+            int scanned = 0;
+            int updated = 0;
+            List<Patient> batch;
+            do {
+                batch = patientMapper.findPatientsWithoutRegion(afterId, batchSize);
+                List<Patient> resolved = new ArrayList<>();
+                for (Patient patient : batch) {
+                    RegionExtractor.Region region = RegionExtractor.extract(patient.getAddress());
+                    if (region.getProvince() != null || region.getCity() != null) {
+                        patient.setProvince(region.getProvince());
+                        patient.setCity(region.getCity());
+                        resolved.add(patient);
+                    }
+                }
+                if (!resolved.isEmpty()) {
+                    patientMapper.batchUpdateRegion(resolved);
+                    // 批量UPDATE绕过业务服务，逐个使缓存失效，避免缓存返回旧的省份、城市
+                    resolved.forEach(patient -> patientCache.invalidate(patient.getId()));
+                    updated += resolved.size();
+                }
+                scanned += batch.size();
+                if (!batch.isEmpty()) {
+                    afterId = batch.get(batch.size() - 1).getId();
+                }
+            } while (batch.size() == batchSize);
+
+            // 即使本次没有更新也重建，纠正与写入口径不一致的历史计数（如按地址原文初始化的计数）
+            patientDemographicCounterService.rebuildRegionCounters();
+            logger.info("患者地区回填完成: 扫描 {} 条, 更新 {} 条, 耗时 {} ms", scanned, updated,
+                System.currentTimeMillis() - startedAt);
+            return updated;
+        } finally {
+            running.set(false);
+        }
+    }
+}
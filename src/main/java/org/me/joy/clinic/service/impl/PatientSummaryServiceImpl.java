@@ -0,0 +1,176 @@
+package org.me.joy.clinic.service.impl;
+
+import org.me.joy.clinic.dto.PatientInclude;
+import org.me.joy.clinic.dto.PatientResponse;
+import org.me.joy.clinic.dto.PatientSummary;
+import org.me.joy.clinic.mapper.AllergyHistoryMapper;
+import org.me.joy.clinic.mapper.BillMapper;
+import org.me.joy.clinic.mapper.DispenseRecordMapper;
+import org.me.joy.clinic.mapper.MedicalHistoryMapper;
+import org.me.joy.clinic.mapper.MedicalRecordMapper;
+import org.me.joy.clinic.mapper.VitalSignsMapper;
+import org.me.joy.clinic.service.PatientManagementService;
+import org.me.joy.clinic.service.PatientSummaryService;
+import org.me.joy.clinic.util.DeadlineTasks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 患者概览服务实现类
+ * 先校验一次患者，再将各分区查询直接提交到有界线程池并发执行（不经过各业务服务，避免重复校验患者），
+ * 整体耗时取决于最慢的分区而非各分区之和
+ */
+@Service
+public class PatientSummaryServiceImpl implements PatientSummaryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PatientSummaryServiceImpl.class);
+
+    static final String SECTION_MEDICAL_RECORDS = "medicalRecords";
+    static final String SECTION_VITAL_SIGNS = "vitalSigns";
+    static final String SECTION_ALLERGY_HISTORIES = "allergyHistories";
+    static final String SECTION_MEDICAL_HISTORIES = "medicalHistories";
+    static final String SECTION_BILLS = "bills";
+    static final String SECTION_DISPENSE_RECORDS = "dispenseRecords";
+
+    /**
+     * 每个分区最多返回的记录数上限
+     */
+    static final int MAX_SECTION_LIMIT = 50;
+
+    @Autowired
+    private PatientManagementService patientManagementService;
+
+    @Autowired
+    private MedicalRecordMapper medicalRecordMapper;
+
+    @Autowired
+    private VitalSignsMapper vitalSignsMapper;
+
+    @Autowired
+    private AllergyHistoryMapper allergyHistoryMapper;
+
+    @Autowired
+    private MedicalHistoryMapper medicalHistoryMapper;
+
+    @Autowired
+    private BillMapper billMapper;
+
+    @Autowired
+    private DispenseRecordMapper dispenseRecordMapper;
+
+    @Autowired
+    @Qualifier("patientSummaryExecutor")
+    private Executor patientSummaryExecutor;
+
+    /**
+     * 每个分区默认返回的最近记录数
+     */
+    @Value("${clinic.patient.summary.section-limit:10}")
+    private int defaultSectionLimit = 10;
+
+    /**
+     * 等待所有分区的时间上限（毫秒），各分区同时开始，共享同一截止时间
+     */
+    @Value("${clinic.patient.summary.section-timeout-ms:2000}")
+    private long sectionTimeoutMillis = 2000;
+
+    @Override
+    public PatientSummary getPatientSummary(Long patientId, Integer limit) {
+        long startedAt = System.nanoTime();
+        int sectionLimit = normalizeLimit(limit);
+
+        // 患者不存在时直接抛出异常，不再提交分区查询
+        PatientResponse patient = patientManagementService.getPatientById(patientId, PatientInclude.NONE);
+        PatientSummary summary = new PatientSummary(patient, sectionLimit);
+        Map<String, Long> elapsed = new ConcurrentHashMap<>();
+
+        // 过敏史和病史关系到用药安全，完整返回；其余按时间倒序只取最近记录
+        CompletableFuture<?> medicalRecords = submit(SECTION_MEDICAL_RECORDS, elapsed,
+            () -> medicalRecordMapper.findRecentByPatientId(patientId, sectionLimit));
+        CompletableFuture<?> vitalSigns = submit(SECTION_VITAL_SIGNS, elapsed,
+            () -> vitalSignsMapper.findRecentByPatientId(patientId, sectionLimit));
+        CompletableFuture<?> allergyHistories = submit(SECTION_ALLERGY_HISTORIES, elapsed,
+            () -> allergyHistoryMapper.findByPatientId(patientId));
+        CompletableFuture<?> medicalHistories = submit(SECTION_MEDICAL_HISTORIES, elapsed,
+            () -> medicalHistoryMapper.findByPatientId(patientId));
+        CompletableFuture<?> bills = submit(SECTION_BILLS, elapsed,
+            () -> billMapper.findRecentByPatientId(patientId, sectionLimit));
+        CompletableFuture<?> dispenseRecords = submit(SECTION_DISPENSE_RECORDS, elapsed,
+            () -> dispenseRecordMapper.findRecentByPatientId(patientId, sectionLimit));
+
+        long deadline = startedAt + TimeUnit.MILLISECONDS.toNanos(sectionTimeoutMillis);
+        await(summary, SECTION_MEDICAL_RECORDS, medicalRecords, elapsed, startedAt, deadline,
+            value -> summary.setMedicalRecords(cast(value)));
+        await(summary, SECTION_VITAL_SIGNS, vitalSigns, elapsed, startedAt, deadline,
+            value -> summary.setVitalSigns(cast(value)));
+        await(summary, SECTION_ALLERGY_HISTORIES, allergyHistories, elapsed, startedAt, deadline,
+            value -> summary.setAllergyHistories(cast(value)));
+        await(summary, SECTION_MEDICAL_HISTORIES, medicalHistories, elapsed, startedAt, deadline,
+            value -> summary.setMedicalHistories(cast(value)));
+        await(summary, SECTION_BILLS, bills, elapsed, startedAt, deadline,
+            value -> summary.setBills(cast(value)));
+        await(summary, SECTION_DISPENSE_RECORDS, dispenseRecords, elapsed, startedAt, deadline,
+            value -> summary.setDispenseRecords(cast(value)));
+
+        summary.setTotalElapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        if (summary.isPartial()) {
+            logger.warn("患者概览部分分区未能返回: patientId={}, status={}", patientId, summary.getSectionStatus());
+        }
+        return summary;
+    }
+
+    private int normalizeLimit(Integer limit) {
+        if (limit == null) {
+            return defaultSectionLimit;
+        }
+        return Math.max(1, Math.min(limit, MAX_SECTION_LIMIT));
+    }
+
+    /**
+     * 提交分区查询到线程池，并记录分区自身的执行耗时
+     */
+    private CompletableFuture<Object> submit(String section, Map<String, Long> elapsed, Supplier<Object> loader) {
+        return DeadlineTasks.submit(patientSummaryExecutor, section, elapsed, loader);
+    }
+
+    /**
+     * 在截止时间内等待分区结果，超时（含线程池已满被拒绝）或失败时该分区留空并记录状态
+     * 超时的分区只会被建议性取消：尚未开始的查询被跳过，已在执行的查询不会被中断
+     */
+    private void await(PatientSummary summary, String section, CompletableFuture<?> future,
+                       Map<String, Long> elapsed, long startedAt, long deadline, Consumer<Object> setter) {
+        String status;
+        try {
+            setter.accept(DeadlineTasks.await(future, deadline));
+            summary.recordSection(section, PatientSummary.SECTION_OK, elapsed.get(section));
+            return;
+        } catch (TimeoutException e) {
+            logger.warn("患者概览分区 {} 超时: {}", section, e.getMessage());
+            status = PatientSummary.SECTION_TIMEOUT;
+        } catch (ExecutionException e) {
+            logger.error("患者概览分区 {} 加载失败: {}", section, e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+            status = PatientSummary.SECTION_FAILED;
+        }
+        summary.recordSection(section, status, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(Object value) {
+        return (T) value;
+    }
+}
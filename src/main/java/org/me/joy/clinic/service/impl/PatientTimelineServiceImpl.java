@@ -0,0 +1,287 @@
+package org.me.joy.clinic.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.me.joy.clinic.dto.CursorPage;
+import org.me.joy.clinic.dto.PatientInclude;
+import org.me.joy.clinic.dto.PatientTimelineEntry;
+import org.me.joy.clinic.dto.PatientTimelineSource;
+import org.me.joy.clinic.entity.BaseEntity;
+import org.me.joy.clinic.entity.DispenseRecord;
+import org.me.joy.clinic.entity.MedicalOrder;
+import org.me.joy.clinic.entity.MedicalRecord;
+import org.me.joy.clinic.entity.Registration;
+import org.me.joy.clinic.entity.VitalSigns;
+import org.me.joy.clinic.exception.BusinessException;
+import org.me.joy.clinic.mapper.DispenseRecordMapper;
+import org.me.joy.clinic.mapper.MedicalOrderMapper;
+import org.me.joy.clinic.mapper.MedicalRecordMapper;
+import org.me.joy.clinic.mapper.RegistrationMapper;
+import org.me.joy.clinic.mapper.VitalSignsMapper;
+import org.me.joy.clinic.service.PatientManagementService;
+import org.me.joy.clinic.service.PatientTimelineService;
+import org.me.joy.clinic.util.KeysetPagination;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.StringJoiner;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 患者时间线服务实现类
+ * 每个来源按 (时间, ID) 倒序做键集查询，只取 limit+1 行，再用小顶堆多路归并为一个时间倒序序列。
+ * 全局排序键为 (时间倒序, 来源顺序, ID倒序)，续页令牌记录上一页最后一条的排序键，
+ * 各来源据此推导自己的起始位置，因此无论患者有多少历史记录，每页读取的行数都不超过 来源数 × (limit+1)。
+ */
+@Service
+public class PatientTimelineServiceImpl implements PatientTimelineService {
+
+    private static final String CURSOR_PREFIX = "tl:";
+
+    private static final String ID_COLUMN = "id";
+
+    private static final String PATIENT_ID_COLUMN = "patient_id";
+
+    /**
+     * 时间线排序：时间倒序，同一时刻按来源声明顺序，同一来源按ID倒序
+     */
+    static final Comparator<PatientTimelineEntry> TIMELINE_ORDER = Comparator
+        .comparing(PatientTimelineEntry::getOccurredAt, Comparator.reverseOrder())
+        .thenComparing(PatientTimelineEntry::getSource)
+        .thenComparing(PatientTimelineEntry::getSourceId, Comparator.reverseOrder());
+
+    @Autowired
+    private PatientManagementService patientManagementService;
+
+    @Autowired
+    private MedicalRecordMapper medicalRecordMapper;
+
+    @Autowired
+    private MedicalOrderMapper medicalOrderMapper;
+
+    @Autowired
+    private DispenseRecordMapper dispenseRecordMapper;
+
+    @Autowired
+    private VitalSignsMapper vitalSignsMapper;
+
+    @Autowired
+    private RegistrationMapper registrationMapper;
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<PatientTimelineEntry> getPatientTimeline(Long patientId, String cursor, Integer limit) {
+        int pageSize = KeysetPagination.normalizeLimit(limit);
+        TimelineKey after = decodeCursor(cursor);
+
+        // 患者不存在时直接抛出异常
+        patientManagementService.getPatientById(patientId, PatientInclude.NONE);
+
+        // 多取一行用于判断是否还有下一页；各来源在同一只读事务内查询
+        int fetchSize = pageSize + 1;
+        List<List<PatientTimelineEntry>> sources = new ArrayList<>();
+        sources.add(fetch(medicalRecordMapper, patientId, PatientTimelineSource.MEDICAL_RECORD, after, fetchSize,
+            this::toEntry, "id", "record_date", "record_number", "chief_complaint", "final_diagnosis", "status", "department"));
+        sources.add(fetch(medicalOrderMapper, patientId, PatientTimelineSource.MEDICAL_ORDER, after, fetchSize,
+            this::toEntry, "id", "prescribed_at", "order_type", "content", "status"));
+        sources.add(fetch(dispenseRecordMapper, patientId, PatientTimelineSource.DISPENSE, after, fetchSize,
+            this::toEntry, "id", "created_at", "prescription_number", "status", "total_amount"));
+        sources.add(fetch(vitalSignsMapper, patientId, PatientTimelineSource.VITAL_SIGNS, after, fetchSize,
+            this::toEntry, "id", "recorded_at", "systolic_bp", "diastolic_bp", "temperature", "heart_rate",
+            "oxygen_saturation", "is_abnormal"));
+        sources.add(fetch(registrationMapper, patientId, PatientTimelineSource.REGISTRATION, after, fetchSize,
+            this::toEntry, "id", "registration_time", "registration_number", "department", "doctor_name", "status",
+            "chief_complaint"));
+
+        List<PatientTimelineEntry> merged = merge(sources, fetchSize);
+        if (merged.size() <= pageSize) {
+            return new CursorPage<>(merged, null, pageSize);
+        }
+        List<PatientTimelineEntry> items = new ArrayList<>(merged.subList(0, pageSize));
+        return new CursorPage<>(items, encodeCursor(items.get(pageSize - 1)), pageSize);
+    }
+
+    /**
+     * 查询单个来源中排在续页位置之后的记录，按 (时间, ID) 倒序，最多 limit 行
+     * 同一时刻的记录按来源顺序排列：排在续页来源之前的来源只取更早的时间，之后的来源包含同一时刻
+     */
+    private <T extends BaseEntity> List<PatientTimelineEntry> fetch(BaseMapper<T> mapper, Long patientId,
+                                                                   PatientTimelineSource source, TimelineKey after,
+                                                                   int limit, Function<T, PatientTimelineEntry> converter,
+                                                                   String... columns) {
+        String timeColumn = source.getTimeColumn();
+        QueryWrapper<T> query = new QueryWrapper<>();
+        query.select(columns).eq(PATIENT_ID_COLUMN, patientId);
+        if (after != null) {
+            int order = source.compareTo(after.source);
+            if (order < 0) {
+                query.lt(timeColumn, after.time);
+            } else if (order > 0) {
+                query.le(timeColumn, after.time);
+            } else {
+                query.and(w -> w.lt(timeColumn, after.time)
+                    .or(o -> o.eq(timeColumn, after.time).lt(ID_COLUMN, after.id)));
+            }
+        }
+        query.orderByDesc(timeColumn, ID_COLUMN);
+        query.last("LIMIT " + limit);
+
+        return mapper.selectList(query).stream().map(converter).collect(Collectors.toList());
+    }
+
+    /**
+     * 多路归并各来源的有序结果，最多取 limit 条
+     */
+    static List<PatientTimelineEntry> merge(List<List<PatientTimelineEntry>> sources, int limit) {
+        PriorityQueue<Head> heads = new PriorityQueue<>((a, b) -> TIMELINE_ORDER.compare(a.entry, b.entry));
+        for (List<PatientTimelineEntry> entries : sources) {
+            Iterator<PatientTimelineEntry> iterator = entries.iterator();
+            if (iterator.hasNext()) {
+                heads.add(new Head(iterator.next(), iterator));
+            }
+        }
+        List<PatientTimelineEntry> merged = new ArrayList<>(limit);
+        while (merged.size() < limit && !heads.isEmpty()) {
+            Head head = heads.poll();
+            merged.add(head.entry);
+            if (head.rest.hasNext()) {
+                heads.add(new Head(head.rest.next(), head.rest));
+            }
+        }
+        return merged;
+    }
+
+    // ========== 来源记录转换 ==========
+
+    private PatientTimelineEntry toEntry(MedicalRecord record) {
+        PatientTimelineEntry entry = new PatientTimelineEntry(PatientTimelineSource.MEDICAL_RECORD,
+            record.getId(), record.getRecordDate());
+        entry.setTitle("病历 " + record.getRecordNumber());
+        entry.setSummary(record.getFinalDiagnosis() != null ? record.getFinalDiagnosis() : record.getChiefComplaint());
+        entry.setStatus(record.getStatus());
+        entry.setDepartment(record.getDepartment());
+        return entry;
+    }
+
+    private PatientTimelineEntry toEntry(MedicalOrder order) {
+        PatientTimelineEntry entry = new PatientTimelineEntry(PatientTimelineSource.MEDICAL_ORDER,
+            order.getId(), order.getPrescribedAt());
+        entry.setTitle("医嘱 " + order.getOrderType());
+        entry.setSummary(order.getContent());
+        entry.setStatus(order.getStatus());
+        return entry;
+    }
+
+    private PatientTimelineEntry toEntry(DispenseRecord record) {
+        PatientTimelineEntry entry = new PatientTimelineEntry(PatientTimelineSource.DISPENSE,
+            record.getId(), record.getCreatedAt());
+        entry.setTitle("调剂 " + record.getPrescriptionNumber());
+        entry.setSummary(record.getTotalAmount() != null ? "金额 " + record.getTotalAmount() : null);
+        entry.setStatus(record.getStatus());
+        return entry;
+    }
+
+    private PatientTimelineEntry toEntry(VitalSigns vitalSigns) {
+        PatientTimelineEntry entry = new PatientTimelineEntry(PatientTimelineSource.VITAL_SIGNS,
+            vitalSigns.getId(), vitalSigns.getRecordedAt());
+        entry.setTitle("生命体征");
+        StringJoiner summary = new StringJoiner("，");
+        if (vitalSigns.getSystolicBp() != null && vitalSigns.getDiastolicBp() != null) {
+            summary.add("血压 " + vitalSigns.getSystolicBp() + "/" + vitalSigns.getDiastolicBp() + "mmHg");
+        }
+        if (vitalSigns.getTemperature() != null) {
+            summary.add("体温 " + vitalSigns.getTemperature() + "℃");
+        }
+        if (vitalSigns.getHeartRate() != null) {
+            summary.add("心率 " + vitalSigns.getHeartRate() + "次/分");
+        }
+        if (vitalSigns.getOxygenSaturation() != null) {
+            summary.add("血氧 " + vitalSigns.getOxygenSaturation() + "%");
+        }
+        entry.setSummary(summary.length() > 0 ? summary.toString() : null);
+        entry.setStatus(Boolean.TRUE.equals(vitalSigns.getIsAbnormal()) ? "异常" : "正常");
+        return entry;
+    }
+
+    private PatientTimelineEntry toEntry(Registration registration) {
+        PatientTimelineEntry entry = new PatientTimelineEntry(PatientTimelineSource.REGISTRATION,
+            registration.getId(), registration.getRegistrationTime());
+        entry.setTitle("挂号 " + registration.getRegistrationNumber()
+            + (registration.getDoctorName() != null ? " " + registration.getDoctorName() : ""));
+        entry.setSummary(registration.getChiefComplaint());
+        entry.setStatus(registration.getStatus());
+        entry.setDepartment(registration.getDepartment());
+        return entry;
+    }
+
+    // ========== 游标编解码 ==========
+
+    static String encodeCursor(PatientTimelineEntry last) {
+        String payload = CURSOR_PREFIX + last.getOccurredAt() + "|" + last.getSource().name() + "|" + last.getSourceId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static TimelineKey decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        String payload;
+        try {
+            payload = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw invalidCursor();
+        }
+        if (!payload.startsWith(CURSOR_PREFIX)) {
+            throw invalidCursor();
+        }
+        String[] parts = payload.substring(CURSOR_PREFIX.length()).split("\\|");
+        if (parts.length != 3) {
+            throw invalidCursor();
+        }
+        try {
+            return new TimelineKey(LocalDateTime.parse(parts[0]), PatientTimelineSource.valueOf(parts[1]),
+                Long.parseLong(parts[2]));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw invalidCursor();
+        }
+    }
+
+    private static BusinessException invalidCursor() {
+        return new BusinessException("INVALID_CURSOR", "分页游标无效");
+    }
+
+    private static final class TimelineKey {
+
+        private final LocalDateTime time;
+        private final PatientTimelineSource source;
+        private final Long id;
+
+        TimelineKey(LocalDateTime time, PatientTimelineSource source, Long id) {
+            this.time = time;
+            this.source = source;
+            this.id = id;
+        }
+    }
+
+    private static final class Head {
+
+        private final PatientTimelineEntry entry;
+        private final Iterator<PatientTimelineEntry> rest;
+
+        Head(PatientTimelineEntry entry, Iterator<PatientTimelineEntry> rest) {
+            this.entry = entry;
+            this.rest = rest;
+        }
+    }
+}
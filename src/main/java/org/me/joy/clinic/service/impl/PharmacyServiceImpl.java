@@ -1,18 +1,38 @@
 package org.me.joy.clinic.service.impl;
 
+import org.me.joy.clinic.cache.PatientCache;
+import org.me.joy.clinic.dto.StockSnapshot;
 import org.me.joy.clinic.entity.*;
 import org.me.joy.clinic.exception.BusinessException;
 import org.me.joy.clinic.mapper.*;
 import org.me.joy.clinic.service.PharmacyService;
 import org.me.joy.clinic.service.PrescriptionValidationService;
+import org.me.joy.clinic.util.DeadlineTasks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -22,6 +42,18 @@ import java.util.stream.Collectors;
 @Transactional
 public class PharmacyServiceImpl implements PharmacyService {
 
+    private static final Logger logger = LoggerFactory.getLogger(PharmacyServiceImpl.class);
+
+    static final String CHECK_VALIDATION = "处方验证";
+    static final String CHECK_STOCK = "库存检查";
+    static final String CHECK_DRUG_INTERACTION = "相互作用";
+    static final String CHECK_ALLERGY = "过敏检查";
+
+    /**
+     * 批次条件扣减冲突时的最大尝试次数
+     */
+    static final int MAX_ALLOCATION_ATTEMPTS = 3;
+
     @Autowired
     private PrescriptionMapper prescriptionMapper;
 
@@ -35,7 +67,7 @@ public class PharmacyServiceImpl implements PharmacyService {
     private DispenseItemMapper dispenseItemMapper;
 
     @Autowired
-    private PatientMapper patientMapper;
+    private PatientCache patientCache;
 
     @Autowired
     private MedicineMapper medicineMapper;
@@ -52,36 +84,40 @@ public class PharmacyServiceImpl implements PharmacyService {
     @Autowired
     private PrescriptionValidationService prescriptionValidationService;
 
+    @Autowired
+    private AllergyHistoryMapper allergyHistoryMapper;
+
+    @Autowired
+    @Qualifier("safetyCheckExecutor")
+    private Executor safetyCheckExecutor;
+
+    /**
+     * 是否并行执行调剂前安全检查
+     */
+    @Value("${clinic.pharmacy.safety-check.parallel:true}")
+    private boolean parallelSafetyChecks = true;
+
+    /**
+     * 等待全部安全检查的时间上限（毫秒），各检查同时开始，共享同一截止时间
+     */
+    @Value("${clinic.pharmacy.safety-check.timeout-ms:3000}")
+    private long safetyCheckTimeoutMillis = 3000;
+
     @Override
     public DispenseRecord startDispensing(Long prescriptionId, Long pharmacistId, String pharmacistName) {
-        // 验证处方
-        Prescription prescription = prescriptionMapper.selectById(prescriptionId);
-        if (prescription == null) {
-            throw new BusinessException("PRESCRIPTION_NOT_FOUND", "处方不存在");
-        }
+        // 一次性加载处方、项目、病历、患者、过敏史和库存快照，后续检查都基于该上下文
+        DispensingContext context = loadDispensingContext(prescriptionId);
+        Prescription prescription = context.prescription;
+        List<PrescriptionItem> prescriptionItems = context.prescriptionItems;
 
         // 检查处方是否可以调剂
-        DispenseEligibilityResult eligibility = checkDispenseEligibility(prescriptionId);
+        DispenseEligibilityResult eligibility = evaluateEligibility(prescription, prescriptionItems,
+            context.dispenseRecordExists);
         if (!eligibility.isEligible()) {
             throw new BusinessException("PRESCRIPTION_NOT_ELIGIBLE", "处方不符合调剂条件：" + eligibility.getReason());
         }
 
-        // 检查是否已有调剂记录
-        if (dispenseRecordMapper.existsByPrescriptionId(prescriptionId)) {
-            throw new BusinessException("DISPENSE_RECORD_EXISTS", "该处方已有调剂记录");
-        }
-
-        // 获取病历信息来获取患者ID
-        MedicalRecord medicalRecord = medicalRecordMapper.selectById(prescription.getMedicalRecordId());
-        if (medicalRecord == null) {
-            throw new BusinessException("MEDICAL_RECORD_NOT_FOUND", "病历信息不存在");
-        }
-        
-        // 获取患者信息
-        Patient patient = patientMapper.selectById(medicalRecord.getPatientId());
-        if (patient == null) {
-            throw new BusinessException("PATIENT_NOT_FOUND", "患者信息不存在");
-        }
+        Patient patient = context.requirePatient();
 
         // 创建调剂记录
         DispenseRecord dispenseRecord = new DispenseRecord(
@@ -93,42 +129,8 @@ public class PharmacyServiceImpl implements PharmacyService {
             pharmacistName
         );
 
-        // 执行处方验证
-        PrescriptionValidationService.PrescriptionValidationResult validationResult = 
-            prescriptionValidationService.validatePrescription(prescription);
-        dispenseRecord.setValidationResult(validationResult.getResult());
-
-        // 获取处方项目
-        List<PrescriptionItem> prescriptionItems = prescriptionItemMapper.findByPrescriptionId(prescriptionId);
-        
-        // 执行库存检查
-        PrescriptionValidationService.StockCheckResult stockResult = 
-            prescriptionValidationService.checkStock(prescriptionItems);
-        dispenseRecord.setStockCheckResult(stockResult.getResult());
-
-        // 执行药品相互作用检查
-        PrescriptionValidationService.DrugInteractionResult interactionResult = 
-            prescriptionValidationService.checkDrugInteractions(prescriptionItems);
-        if (interactionResult.isHasInteractions()) {
-            String interactionInfo = interactionResult.getInteractions().stream()
-                .map(interaction -> interaction.getDrug1() + " 与 " + interaction.getDrug2() + " 有相互作用")
-                .collect(Collectors.joining("; "));
-            dispenseRecord.setDrugInteractionCheck("发现药物相互作用警告: " + interactionInfo);
-        } else {
-            dispenseRecord.setDrugInteractionCheck("无药物相互作用");
-        }
-
-        // 执行过敏检查
-        PrescriptionValidationService.AllergyCheckResult allergyResult = 
-            prescriptionValidationService.checkAllergies(patient, prescriptionItems);
-        if (allergyResult.isHasAllergyRisk()) {
-            String allergyInfo = allergyResult.getAllergyRisks().stream()
-                .map(risk -> risk.getMedicineName() + " 可能引起过敏反应")
-                .collect(Collectors.joining("; "));
-            dispenseRecord.setAllergyCheck("发现过敏风险: " + allergyInfo);
-        } else {
-            dispenseRecord.setAllergyCheck("无过敏风险");
-        }
+        // 处方验证、库存、相互作用和过敏检查互不依赖，基于同一只读上下文执行（可并行）
+        runSafetyChecks(context, dispenseRecord);
 
         // 设置处方总金额
         dispenseRecord.setTotalAmount(prescription.getTotalAmount());
@@ -138,7 +140,7 @@ public class PharmacyServiceImpl implements PharmacyService {
         dispenseRecordMapper.insert(dispenseRecord);
 
         // 创建调剂项目明细
-        createDispenseItems(dispenseRecord, prescriptionItems);
+        createDispenseItems(dispenseRecord, prescriptionItems, context.stockByMedicine);
 
         // 开始调剂
         dispenseRecord.startDispensing();
@@ -159,38 +161,31 @@ public class PharmacyServiceImpl implements PharmacyService {
             throw new BusinessException("DISPENSE_ITEM_INVALID_STATUS", "调剂项目状态不正确，无法调剂");
         }
 
-        // 检查库存
-        Integer totalStock = inventoryLevelMapper.getTotalStockByMedicine(request.getMedicineId());
-        if (totalStock == null || totalStock < request.getDispensedQuantity()) {
+        // 检查库存（预留、锁定的库存不可调剂，与批次分摊使用同一口径）
+        StockSnapshot stock = getStockSnapshot(request.getMedicineId());
+        if (stock.getAvailableStock() < request.getDispensedQuantity()) {
             throw new BusinessException("INSUFFICIENT_STOCK", "库存不足，无法调剂");
         }
 
-        // 获取最早过期的批次进行调剂
-        InventoryLevel inventory = inventoryLevelMapper.getEarliestExpiringBatch(request.getMedicineId());
-        if (inventory == null || inventory.getCurrentStock() < request.getDispensedQuantity()) {
-            throw new BusinessException("INSUFFICIENT_STOCK", "库存不足，无法调剂");
-        }
+        // 按近效期先出扣减批次库存，单个批次不足时分摊到后续批次
+        List<StockTransaction> allocations = updateStock(request.getMedicineId(), -request.getDispensedQuantity(),
+                   "处方调剂", "调剂记录ID: " + dispenseItem.getDispenseRecordId());
 
         // 更新调剂项目信息
         dispenseItem.setDispensedQuantity(request.getDispensedQuantity());
-        dispenseItem.setBatchNumber(request.getBatchNumber());
-        dispenseItem.setExpiryDate(request.getExpiryDate());
         dispenseItem.setDispenseNotes(request.getDispenseNotes());
-        
-        // 调剂药品
+
+        // 调剂药品，记录实际扣减的批次（多个批次以逗号分隔，效期取最早批次，库存为所用批次合计）
         dispenseItem.dispense(
             request.getDispensedBy(),
             request.getDispensedByName(),
-            request.getBatchNumber(),
-            request.getExpiryDate(),
-            inventory.getCurrentStock(),
-            inventory.getCurrentStock() - request.getDispensedQuantity()
+            allocations.stream().map(StockTransaction::getBatchNumber).filter(Objects::nonNull)
+                .distinct().collect(Collectors.joining(",")),
+            allocations.get(0).getExpiryDate(),
+            allocations.stream().mapToInt(StockTransaction::getStockBefore).sum(),
+            allocations.stream().mapToInt(StockTransaction::getStockAfter).sum()
         );
 
-        // 更新库存
-        updateStock(request.getMedicineId(), -request.getDispensedQuantity(), 
-                   "处方调剂", "调剂记录ID: " + dispenseItem.getDispenseRecordId());
-
         // 保存调剂项目
         dispenseItemMapper.updateById(dispenseItem);
 
@@ -343,8 +338,8 @@ public class PharmacyServiceImpl implements PharmacyService {
         }
 
         // 检查新药品库存
-        Integer totalStock = inventoryLevelMapper.getTotalStockByMedicine(newMedicineId);
-        if (totalStock == null || totalStock < dispenseItem.getPrescribedQuantity()) {
+        StockSnapshot stock = getStockSnapshot(newMedicineId);
+        if (stock.getTotalStock() < dispenseItem.getPrescribedQuantity()) {
             throw new BusinessException("SUBSTITUTE_MEDICINE_INSUFFICIENT_STOCK", "替代药品库存不足");
         }
 
@@ -422,18 +417,28 @@ public class PharmacyServiceImpl implements PharmacyService {
 
     @Override
     public DispenseEligibilityResult checkDispenseEligibility(Long prescriptionId) {
-        DispenseEligibilityResult result = new DispenseEligibilityResult();
-        List<String> issues = new ArrayList<>();
-        List<String> warnings = new ArrayList<>();
-
         // 获取处方信息
         Prescription prescription = prescriptionMapper.selectById(prescriptionId);
         if (prescription == null) {
+            DispenseEligibilityResult result = new DispenseEligibilityResult();
             result.setEligible(false);
             result.setReason("处方不存在");
             return result;
         }
 
+        return evaluateEligibility(prescription, prescriptionItemMapper.findByPrescriptionId(prescriptionId),
+            dispenseRecordMapper.existsByPrescriptionId(prescriptionId));
+    }
+
+    /**
+     * 根据已加载的处方、项目和调剂记录是否存在判断调剂条件
+     */
+    private DispenseEligibilityResult evaluateEligibility(Prescription prescription, List<PrescriptionItem> items,
+                                                          boolean dispenseRecordExists) {
+        DispenseEligibilityResult result = new DispenseEligibilityResult();
+        List<String> issues = new ArrayList<>();
+        List<String> warnings = new ArrayList<>();
+
         // 检查处方状态
         if (!"已审核".equals(prescription.getStatus())) {
             issues.add("处方未经审核");
@@ -445,12 +450,11 @@ public class PharmacyServiceImpl implements PharmacyService {
         }
 
         // 检查是否已有调剂记录
-        if (dispenseRecordMapper.existsByPrescriptionId(prescriptionId)) {
+        if (dispenseRecordExists) {
             issues.add("处方已有调剂记录");
         }
 
         // 检查处方项目
-        List<PrescriptionItem> items = prescriptionItemMapper.findByPrescriptionId(prescriptionId);
         if (items == null || items.isEmpty()) {
             issues.add("处方无药品项目");
         }
@@ -477,7 +481,8 @@ public class PharmacyServiceImpl implements PharmacyService {
     /**
      * 创建调剂项目明细
      */
-    private void createDispenseItems(DispenseRecord dispenseRecord, List<PrescriptionItem> prescriptionItems) {
+    private void createDispenseItems(DispenseRecord dispenseRecord, List<PrescriptionItem> prescriptionItems,
+                                     Map<Long, StockSnapshot> stockByMedicine) {
         for (PrescriptionItem prescriptionItem : prescriptionItems) {
             DispenseItem dispenseItem = new DispenseItem(
                 dispenseRecord.getId(),
@@ -498,7 +503,8 @@ public class PharmacyServiceImpl implements PharmacyService {
             dispenseItem.setSpecification(prescriptionItem.getSpecification());
 
             // 检查库存状态
-            Integer totalStock = inventoryLevelMapper.getTotalStockByMedicine(prescriptionItem.getMedicineId());
+            StockSnapshot stock = stockByMedicine.get(prescriptionItem.getMedicineId());
+            Integer totalStock = stock != null ? stock.getTotalStock() : null;
             if (totalStock == null || totalStock == 0) {
                 dispenseItem.setStockStatus("无库存");
             } else if (totalStock < prescriptionItem.getQuantity()) {
@@ -512,35 +518,260 @@ public class PharmacyServiceImpl implements PharmacyService {
     }
 
     /**
-     * 更新库存
+     * 加载调剂所需的全部数据：处方、处方项目、是否已有调剂记录、病历、患者、过敏史，
+     * 以及处方中全部药品的库存快照（一次分组查询）
+     */
+    private DispensingContext loadDispensingContext(Long prescriptionId) {
+        Prescription prescription = prescriptionMapper.selectById(prescriptionId);
+        if (prescription == null) {
+            throw new BusinessException("PRESCRIPTION_NOT_FOUND", "处方不存在");
+        }
+
+        DispensingContext context = new DispensingContext(prescription);
+        context.dispenseRecordExists = dispenseRecordMapper.existsByPrescriptionId(prescriptionId);
+        List<PrescriptionItem> items = prescriptionItemMapper.findByPrescriptionId(prescriptionId);
+        context.prescriptionItems = items != null ? items : Collections.emptyList();
+        if (context.dispenseRecordExists || context.prescriptionItems.isEmpty()) {
+            // 不符合调剂条件，无需继续加载
+            return context;
+        }
+
+        context.medicalRecord = medicalRecordMapper.selectById(prescription.getMedicalRecordId());
+        if (context.medicalRecord != null) {
+            context.patient = patientCache.getById(context.medicalRecord.getPatientId());
+        }
+        if (context.patient != null) {
+            context.allergies = allergyHistoryMapper.findByPatientId(context.patient.getId());
+        }
+
+        Set<Long> medicineIds = context.prescriptionItems.stream()
+            .map(PrescriptionItem::getMedicineId)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+        context.stockByMedicine = inventoryLevelMapper.getStockSnapshots(medicineIds);
+        return context;
+    }
+
+    /**
+     * 查询单个药品的库存快照
+     */
+    private StockSnapshot getStockSnapshot(Long medicineId) {
+        if (medicineId == null) {
+            return StockSnapshot.empty(null);
+        }
+        return inventoryLevelMapper.getStockSnapshots(Collections.singleton(medicineId)).get(medicineId);
+    }
+
+    /**
+     * 执行调剂前安全检查并写入调剂记录的审计字段
+     * 并行模式下各检查提交到有界线程池，共享同一截止时间；超时或失败的检查不会被跳过，调剂记录标记为需要复核
      */
-    private void updateStock(Long medicineId, Integer quantity, String transactionType, String notes) {
-        // 获取最早过期的批次进行库存更新
+    private void runSafetyChecks(DispensingContext context, DispenseRecord dispenseRecord) {
+        long startedAt = System.nanoTime();
+        Prescription prescription = context.prescription;
+        List<PrescriptionItem> prescriptionItems = context.prescriptionItems;
+        Map<String, Long> elapsed = new ConcurrentHashMap<>();
+
+        CompletableFuture<PrescriptionValidationService.PrescriptionValidationResult> validation = submitCheck(
+            CHECK_VALIDATION, elapsed, () -> prescriptionValidationService.validatePrescription(prescription, prescriptionItems));
+        CompletableFuture<PrescriptionValidationService.StockCheckResult> stock = submitCheck(
+            CHECK_STOCK, elapsed, () -> prescriptionValidationService.checkStock(prescriptionItems, context.stockByMedicine));
+        CompletableFuture<PrescriptionValidationService.DrugInteractionResult> interaction = submitCheck(
+            CHECK_DRUG_INTERACTION, elapsed, () -> prescriptionValidationService.checkDrugInteractions(prescriptionItems));
+        CompletableFuture<PrescriptionValidationService.AllergyCheckResult> allergy = submitCheck(
+            CHECK_ALLERGY, elapsed, () -> prescriptionValidationService.checkAllergies(context.allergies, prescriptionItems));
+
+        long deadline = startedAt + TimeUnit.MILLISECONDS.toNanos(safetyCheckTimeoutMillis);
+        Map<String, String> timings = new LinkedHashMap<>();
+        PrescriptionValidationService.PrescriptionValidationResult validationResult =
+            awaitCheck(CHECK_VALIDATION, validation, elapsed, deadline, timings);
+        PrescriptionValidationService.StockCheckResult stockResult =
+            awaitCheck(CHECK_STOCK, stock, elapsed, deadline, timings);
+        PrescriptionValidationService.DrugInteractionResult interactionResult =
+            awaitCheck(CHECK_DRUG_INTERACTION, interaction, elapsed, deadline, timings);
+        PrescriptionValidationService.AllergyCheckResult allergyResult =
+            awaitCheck(CHECK_ALLERGY, allergy, elapsed, deadline, timings);
+
+        boolean incomplete = validationResult == null || stockResult == null
+            || interactionResult == null || allergyResult == null;
+
+        if (validationResult != null) {
+            dispenseRecord.setValidationResult(validationResult.getResult());
+        }
+        if (stockResult != null) {
+            dispenseRecord.setStockCheckResult(stockResult.getResult());
+        }
+
+        if (interactionResult == null) {
+            dispenseRecord.setDrugInteractionCheck("药物相互作用检查未完成，需人工复核");
+        } else if (interactionResult.isHasInteractions()) {
+            String interactionInfo = interactionResult.getInteractions().stream()
+                .map(item -> item.getDrug1() + " 与 " + item.getDrug2() + " 有相互作用")
+                .collect(Collectors.joining("; "));
+            dispenseRecord.setDrugInteractionCheck("发现药物相互作用警告: " + interactionInfo);
+        } else {
+            dispenseRecord.setDrugInteractionCheck("无药物相互作用");
+        }
+
+        if (allergyResult == null) {
+            dispenseRecord.setAllergyCheck("过敏检查未完成，需人工复核");
+        } else if (allergyResult.isHasAllergyRisk()) {
+            String allergyInfo = allergyResult.getAllergyRisks().stream()
+                .map(risk -> risk.getMedicineName() + " 可能引起过敏反应")
+                .collect(Collectors.joining("; "));
+            dispenseRecord.setAllergyCheck("发现过敏风险: " + allergyInfo);
+        } else {
+            dispenseRecord.setAllergyCheck("无过敏风险");
+        }
+
+        if (incomplete && !"不通过".equals(dispenseRecord.getValidationResult())) {
+            dispenseRecord.setValidationResult("需要复核");
+        }
+
+        timings.put("总计", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt) + "ms");
+        dispenseRecord.setSafetyCheckTimings(timings.entrySet().stream()
+            .map(entry -> entry.getKey() + "=" + entry.getValue())
+            .collect(Collectors.joining(", ")));
+    }
+
+    /**
+     * 提交单项安全检查并记录检查自身的执行耗时；关闭并行模式时在调用线程中依次执行
+     */
+    private <T> CompletableFuture<T> submitCheck(String check, Map<String, Long> elapsed, Supplier<T> task) {
+        Executor executor = parallelSafetyChecks ? safetyCheckExecutor : Runnable::run;
+        return DeadlineTasks.submit(executor, check, elapsed, task);
+    }
+
+    /**
+     * 在截止时间内等待检查结果，超时（含线程池已满被拒绝）或失败时返回 null 并记录状态
+     * 超时的检查只会被建议性取消，已在执行的检查会继续运行到结束，但其结果不再采用
+     */
+    private <T> T awaitCheck(String check, CompletableFuture<T> future, Map<String, Long> elapsed,
+                             long deadline, Map<String, String> timings) {
+        try {
+            T result = DeadlineTasks.await(future, deadline);
+            timings.put(check, elapsed.get(check) + "ms");
+            return result;
+        } catch (TimeoutException e) {
+            logger.warn("调剂安全检查 {} 超时: {}", check, e.getMessage());
+            timings.put(check, "超时");
+        } catch (ExecutionException e) {
+            logger.error("调剂安全检查 {} 失败: {}", check, e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+            timings.put(check, "失败");
+        }
+        return null;
+    }
+
+    /**
+     * 调剂上下文，加载后只读
+     */
+    private static final class DispensingContext {
+
+        private final Prescription prescription;
+        private List<PrescriptionItem> prescriptionItems;
+        private boolean dispenseRecordExists;
+        private MedicalRecord medicalRecord;
+        private Patient patient;
+        private List<AllergyHistory> allergies = Collections.emptyList();
+        private Map<Long, StockSnapshot> stockByMedicine = Collections.emptyMap();
+
+        DispensingContext(Prescription prescription) {
+            this.prescription = prescription;
+        }
+
+        Patient requirePatient() {
+            if (medicalRecord == null) {
+                throw new BusinessException("MEDICAL_RECORD_NOT_FOUND", "病历信息不存在");
+            }
+            if (patient == null) {
+                throw new BusinessException("PATIENT_NOT_FOUND", "患者信息不存在");
+            }
+            return patient;
+        }
+    }
+
+    /**
+     * 更新库存：出库按近效期先出分摊到多个批次，退回计入最早过期批次
+     * @return 实际变动的各批次交易记录
+     */
+    private List<StockTransaction> updateStock(Long medicineId, Integer quantity, String transactionType, String notes) {
+        String transactionNumber = "TXN" + System.currentTimeMillis();
+        if (quantity < 0) {
+            List<StockTransaction> transactions = allocateStock(medicineId, -quantity, transactionType, notes, transactionNumber);
+            stockTransactionMapper.batchInsert(transactions);
+            return transactions;
+        }
+
         InventoryLevel inventory = inventoryLevelMapper.getEarliestExpiringBatch(medicineId);
         if (inventory == null) {
             throw new BusinessException("INVENTORY_NOT_FOUND", "药品库存记录不存在");
         }
+        inventoryLevelMapper.incrementBatchStock(inventory.getId(), quantity);
+        StockTransaction transaction = createStockTransaction(transactionNumber, medicineId, inventory,
+            quantity, transactionType, notes);
+        stockTransactionMapper.insert(transaction);
+        return Collections.singletonList(transaction);
+    }
 
-        // 更新库存数量
-        int newStock = inventory.getCurrentStock() + quantity;
-        if (newStock < 0) {
-            throw new BusinessException("INSUFFICIENT_STOCK", "库存不足，无法完成操作");
+    /**
+     * 按近效期先出（FEFO）将出库数量分摊到多个批次
+     * 批次使用加锁读取（当前读），重试时能读到其他事务已提交的库存，而不是事务开始时的快照；
+     * 每个批次仍使用条件更新扣减，失败时由事务回滚已扣减的批次
+     */
+    private List<StockTransaction> allocateStock(Long medicineId, int quantity, String transactionType,
+                                                 String notes, String transactionNumber) {
+        List<StockTransaction> transactions = new ArrayList<>();
+        int remaining = quantity;
+        for (int attempt = 0; attempt < MAX_ALLOCATION_ATTEMPTS && remaining > 0; attempt++) {
+            List<InventoryLevel> batches = inventoryLevelMapper.findDispensableBatchesForUpdate(medicineId);
+            if (batches.isEmpty() && transactions.isEmpty()) {
+                throw new BusinessException("INVENTORY_NOT_FOUND", "药品库存记录不存在");
+            }
+            int available = batches.stream().mapToInt(InventoryLevel::getAvailableStock).sum();
+            if (available < remaining) {
+                throw new BusinessException("INSUFFICIENT_STOCK", "库存不足，当前可用库存: " + available +
+                                          "，需要出库: " + remaining);
+            }
+
+            for (InventoryLevel batch : batches) {
+                if (remaining == 0) {
+                    break;
+                }
+                int take = Math.min(remaining, batch.getAvailableStock());
+                if (inventoryLevelMapper.decrementBatchStock(batch.getId(), take) == 0) {
+                    // 批次已被并发扣减，下一轮重新读取
+                    continue;
+                }
+                remaining -= take;
+                transactions.add(createStockTransaction(transactionNumber + "-" + (transactions.size() + 1),
+                    medicineId, batch, -take, transactionType, notes));
+            }
         }
 
-        inventory.setCurrentStock(newStock);
-        inventoryLevelMapper.updateById(inventory);
+        if (remaining > 0) {
+            throw new BusinessException("STOCK_ALLOCATION_CONFLICT", "库存扣减冲突，请稍后重试");
+        }
+        return transactions;
+    }
 
-        // 创建库存交易记录
+    /**
+     * 创建单个批次的库存交易记录，数量正负表示方向
+     */
+    private StockTransaction createStockTransaction(String transactionNumber, Long medicineId, InventoryLevel batch,
+                                                    int quantity, String transactionType, String notes) {
         StockTransaction transaction = new StockTransaction();
-        transaction.setTransactionNumber("TXN" + System.currentTimeMillis());
+        transaction.setTransactionNumber(transactionNumber);
         transaction.setMedicineId(medicineId);
         transaction.setTransactionType(transactionType);
-        transaction.setQuantity(quantity); // 保持原始数量（正负表示方向）
-        transaction.setStockBefore(inventory.getCurrentStock() - quantity);
-        transaction.setStockAfter(newStock);
+        transaction.setQuantity(quantity);
+        transaction.setUnitPrice(batch.getPurchasePrice());
+        transaction.setBatchNumber(batch.getBatchNumber());
+        transaction.setExpiryDate(batch.getExpiryDate());
+        transaction.setStockBefore(batch.getCurrentStock());
+        transaction.setStockAfter(batch.getCurrentStock() + quantity);
         transaction.setTransactionDate(LocalDateTime.now());
         transaction.setRemarks(notes);
-
-        stockTransactionMapper.insert(transaction);
+        transaction.calculateTotalAmount();
+        return transaction;
     }
-}
\ No newline at end of file
+}
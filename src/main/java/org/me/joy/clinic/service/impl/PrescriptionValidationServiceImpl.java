@@ -1,15 +1,20 @@
 package org.me.joy.clinic.service.impl;
 
+import org.me.joy.clinic.dto.StockSnapshot;
 import org.me.joy.clinic.entity.*;
 import org.me.joy.clinic.mapper.*;
+import org.me.joy.clinic.pharmacy.AllergyEngine;
+import org.me.joy.clinic.pharmacy.DrugInteractionEngine;
 import org.me.joy.clinic.service.PrescriptionValidationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * 处方验证服务实现类
@@ -32,8 +37,21 @@ public class PrescriptionValidationServiceImpl implements PrescriptionValidation
     @Autowired
     private UserMapper userMapper;
 
+    @Autowired
+    private DrugInteractionEngine drugInteractionEngine;
+
+    @Autowired
+    private AllergyEngine allergyEngine;
+
     @Override
     public PrescriptionValidationResult validatePrescription(Prescription prescription) {
+        List<PrescriptionItem> items = prescription == null
+            ? null : prescriptionItemMapper.findByPrescriptionId(prescription.getId());
+        return validatePrescription(prescription, items);
+    }
+
+    @Override
+    public PrescriptionValidationResult validatePrescription(Prescription prescription, List<PrescriptionItem> items) {
         PrescriptionValidationResult result = new PrescriptionValidationResult();
         List<String> issues = new ArrayList<>();
         List<String> warnings = new ArrayList<>();
@@ -63,7 +81,6 @@ public class PrescriptionValidationServiceImpl implements PrescriptionValidation
         }
 
         // 检查处方项目
-        List<PrescriptionItem> items = prescriptionItemMapper.findByPrescriptionId(prescription.getId());
         if (items == null || items.isEmpty()) {
             issues.add("处方无药品项目");
         } else {
@@ -97,6 +114,17 @@ public class PrescriptionValidationServiceImpl implements PrescriptionValidation
 
     @Override
     public StockCheckResult checkStock(List<PrescriptionItem> prescriptionItems) {
+        Set<Long> medicineIds = new HashSet<>();
+        if (prescriptionItems != null) {
+            for (PrescriptionItem item : prescriptionItems) {
+                medicineIds.add(item.getMedicineId());
+            }
+        }
+        return checkStock(prescriptionItems, inventoryLevelMapper.getStockSnapshots(medicineIds));
+    }
+
+    @Override
+    public StockCheckResult checkStock(List<PrescriptionItem> prescriptionItems, Map<Long, StockSnapshot> stockByMedicine) {
         StockCheckResult result = new StockCheckResult();
         List<StockCheckResult.StockIssue> stockIssues = new ArrayList<>();
 
@@ -109,8 +137,9 @@ public class PrescriptionValidationServiceImpl implements PrescriptionValidation
         boolean hasPartialIssues = false;
 
         for (PrescriptionItem item : prescriptionItems) {
-            // 查询当前库存
-            Integer totalStock = inventoryLevelMapper.getTotalStockByMedicine(item.getMedicineId());
+            // 当前库存
+            StockSnapshot snapshot = stockByMedicine.get(item.getMedicineId());
+            Integer totalStock = snapshot != null ? snapshot.getTotalStock() : null;
             
             if (totalStock == null || totalStock == 0) {
                 stockIssues.add(new StockCheckResult.StockIssue(
@@ -167,30 +196,8 @@ public class PrescriptionValidationServiceImpl implements PrescriptionValidation
             return result;
         }
 
-        // 简化的药品相互作用检查逻辑
-        // 在实际应用中，这里应该连接专业的药品相互作用数据库
-        List<String> medicineNames = prescriptionItems.stream()
-            .map(PrescriptionItem::getMedicineName)
-            .collect(Collectors.toList());
-
-        // 检查常见的药品相互作用
-        for (int i = 0; i < medicineNames.size(); i++) {
-            for (int j = i + 1; j < medicineNames.size(); j++) {
-                String drug1 = medicineNames.get(i);
-                String drug2 = medicineNames.get(j);
-                
-                // 示例：检查一些常见的相互作用
-                if (hasKnownInteraction(drug1, drug2)) {
-                    interactions.add(new DrugInteractionResult.DrugInteraction(
-                        drug1,
-                        drug2,
-                        "药效相互作用",
-                        "中等",
-                        "可能影响药效，建议监测"
-                    ));
-                }
-            }
-        }
+        // 按成分对查询相互作用知识库
+        interactions.addAll(drugInteractionEngine.findInteractions(prescriptionItems));
 
         result.setHasInteractions(!interactions.isEmpty());
         result.setInteractions(interactions);
@@ -199,37 +206,30 @@ public class PrescriptionValidationServiceImpl implements PrescriptionValidation
 
     @Override
     public AllergyCheckResult checkAllergies(Patient patient, List<PrescriptionItem> prescriptionItems) {
-        AllergyCheckResult result = new AllergyCheckResult();
-        List<AllergyCheckResult.AllergyRisk> allergyRisks = new ArrayList<>();
-
         if (patient == null || prescriptionItems == null || prescriptionItems.isEmpty()) {
+            AllergyCheckResult result = new AllergyCheckResult();
             result.setHasAllergyRisk(false);
-            result.setAllergyRisks(allergyRisks);
+            result.setAllergyRisks(new ArrayList<>());
             return result;
         }
 
         // 查询患者过敏史
-        List<AllergyHistory> allergies = allergyHistoryMapper.findByPatientId(patient.getId());
-        
-        if (allergies == null || allergies.isEmpty()) {
+        return checkAllergies(allergyHistoryMapper.findByPatientId(patient.getId()), prescriptionItems);
+    }
+
+    @Override
+    public AllergyCheckResult checkAllergies(List<AllergyHistory> allergies, List<PrescriptionItem> prescriptionItems) {
+        AllergyCheckResult result = new AllergyCheckResult();
+        List<AllergyCheckResult.AllergyRisk> allergyRisks = new ArrayList<>();
+
+        if (prescriptionItems == null || prescriptionItems.isEmpty() || allergies == null || allergies.isEmpty()) {
             result.setHasAllergyRisk(false);
             result.setAllergyRisks(allergyRisks);
             return result;
         }
 
-        // 检查处方药品是否与过敏史冲突
-        for (PrescriptionItem item : prescriptionItems) {
-            for (AllergyHistory allergy : allergies) {
-                if (isAllergyRisk(item.getMedicineName(), allergy.getAllergen())) {
-                    allergyRisks.add(new AllergyCheckResult.AllergyRisk(
-                        item.getMedicineName(),
-                        allergy.getAllergen(),
-                        allergy.getSeverity(),
-                        "患者对 " + allergy.getAllergen() + " 过敏，使用 " + item.getMedicineName() + " 可能有风险"
-                    ));
-                }
-            }
-        }
+        // 过敏原按交叉过敏分类扩展后编译为自动机，每个药品只扫描一次
+        allergyRisks.addAll(allergyEngine.screen(allergies, prescriptionItems));
 
         result.setHasAllergyRisk(!allergyRisks.isEmpty());
         result.setAllergyRisks(allergyRisks);
@@ -319,55 +319,6 @@ public class PrescriptionValidationServiceImpl implements PrescriptionValidation
         return result;
     }
 
-    /**
-     * 检查两个药品是否有已知的相互作用
-     */
-    private boolean hasKnownInteraction(String drug1, String drug2) {
-        // 简化的相互作用检查逻辑
-        // 在实际应用中，这里应该查询专业的药品相互作用数据库
-        
-        // 示例：一些常见的相互作用检查
-        if ((drug1.contains("阿司匹林") && drug2.contains("华法林")) ||
-            (drug1.contains("华法林") && drug2.contains("阿司匹林"))) {
-            return true;
-        }
-        
-        if ((drug1.contains("地高辛") && drug2.contains("维拉帕米")) ||
-            (drug1.contains("维拉帕米") && drug2.contains("地高辛"))) {
-            return true;
-        }
-        
-        return false;
-    }
-
-    /**
-     * 检查药品是否与过敏原有关联
-     */
-    private boolean isAllergyRisk(String medicineName, String allergen) {
-        if (medicineName == null || allergen == null) {
-            return false;
-        }
-        
-        // 简化的过敏风险检查
-        // 在实际应用中，这里应该有更完善的过敏原-药品关联数据库
-        
-        // 检查药品名称是否包含过敏原
-        if (medicineName.toLowerCase().contains(allergen.toLowerCase())) {
-            return true;
-        }
-        
-        // 检查一些常见的过敏关联
-        if ("青霉素".equals(allergen) && medicineName.contains("青霉素")) {
-            return true;
-        }
-        
-        if ("磺胺".equals(allergen) && medicineName.contains("磺胺")) {
-            return true;
-        }
-        
-        return false;
-    }
-
     /**
      * 检查用户是否有特殊处方调剂权限
      */
@@ -1,12 +1,16 @@
 package org.me.joy.clinic.service.impl;
 
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import org.me.joy.clinic.analytics.RegistrationVisitCube;
 import org.me.joy.clinic.dto.CreateRegistrationRequest;
+import org.me.joy.clinic.dto.CursorPage;
 import org.me.joy.clinic.entity.Appointment;
 import org.me.joy.clinic.entity.Registration;
 import org.me.joy.clinic.exception.BusinessException;
 import org.me.joy.clinic.mapper.AppointmentMapper;
 import org.me.joy.clinic.mapper.RegistrationMapper;
 import org.me.joy.clinic.service.RegistrationService;
+import org.me.joy.clinic.util.KeysetPagination;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -30,6 +34,9 @@ public class RegistrationServiceImpl implements RegistrationService {
     @Autowired
     private AppointmentMapper appointmentMapper;
 
+    @Autowired
+    private RegistrationVisitCube registrationVisitCube;
+
     @Override
     public Registration createRegistration(CreateRegistrationRequest request) {
         // 生成挂号编号
@@ -62,6 +69,7 @@ public class RegistrationServiceImpl implements RegistrationService {
 
         // 保存挂号记录
         registrationMapper.insert(registration);
+        registrationVisitCube.recordCreated(registration);
         return registration;
     }
 
@@ -153,6 +161,7 @@ public class RegistrationServiceImpl implements RegistrationService {
         Registration registration = getRegistrationById(registrationId);
         registration.call();
         registrationMapper.updateById(registration);
+        registrationVisitCube.recordStatusChanged(registration.getId(), registration.getStatus());
     }
 
     @Override
@@ -160,6 +169,7 @@ public class RegistrationServiceImpl implements RegistrationService {
         Registration registration = getRegistrationById(registrationId);
         registration.markArrived();
         registrationMapper.updateById(registration);
+        registrationVisitCube.recordStatusChanged(registration.getId(), registration.getStatus());
     }
 
     @Override
@@ -167,6 +177,7 @@ public class RegistrationServiceImpl implements RegistrationService {
         Registration registration = getRegistrationById(registrationId);
         registration.startConsultation();
         registrationMapper.updateById(registration);
+        registrationVisitCube.recordStatusChanged(registration.getId(), registration.getStatus());
     }
 
     @Override
@@ -174,6 +185,7 @@ public class RegistrationServiceImpl implements RegistrationService {
         Registration registration = getRegistrationById(registrationId);
         registration.complete();
         registrationMapper.updateById(registration);
+        registrationVisitCube.recordStatusChanged(registration.getId(), registration.getStatus());
     }
 
     @Override
@@ -181,6 +193,7 @@ public class RegistrationServiceImpl implements RegistrationService {
         Registration registration = getRegistrationById(registrationId);
         registration.cancel(reason);
         registrationMapper.updateById(registration);
+        registrationVisitCube.recordStatusChanged(registration.getId(), registration.getStatus());
     }
 
     @Override
@@ -188,6 +201,7 @@ public class RegistrationServiceImpl implements RegistrationService {
         Registration registration = getRegistrationById(registrationId);
         registration.markNoShow();
         registrationMapper.updateById(registration);
+        registrationVisitCube.recordStatusChanged(registration.getId(), registration.getStatus());
     }
 
     @Override
@@ -195,6 +209,7 @@ public class RegistrationServiceImpl implements RegistrationService {
         Registration registration = getRegistrationById(registrationId);
         registration.markPaid(paymentMethod);
         registrationMapper.updateById(registration);
+        registrationVisitCube.recordStatusChanged(registration.getId(), registration.getStatus());
     }
 
     @Override
@@ -203,6 +218,14 @@ public class RegistrationServiceImpl implements RegistrationService {
         registration.setStatus(status);
         registration.setUpdatedAt(LocalDateTime.now());
         registrationMapper.updateById(registration);
+        registrationVisitCube.recordStatusChanged(registration.getId(), registration.getStatus());
+    }
+
+    @Override
+    public void deleteRegistration(Long registrationId) {
+        Registration registration = getRegistrationById(registrationId);
+        registrationMapper.deleteById(registration.getId());
+        registrationVisitCube.recordDeleted(registration.getId());
     }
 
     @Override
@@ -210,6 +233,13 @@ public class RegistrationServiceImpl implements RegistrationService {
         return registrationMapper.findByStatus(status);
     }
 
+    @Override
+    public CursorPage<Registration> getRegistrationsByStatusPage(String status, String cursor, Integer limit) {
+        QueryWrapper<Registration> wrapper = new QueryWrapper<>();
+        wrapper.eq("status", status);
+        return KeysetPagination.byId(registrationMapper, wrapper, false, cursor, limit);
+    }
+
     @Override
     public List<Registration> getRegistrationsByPaymentStatus(String paymentStatus) {
         return registrationMapper.findByPaymentStatus(paymentStatus);
@@ -327,6 +357,7 @@ public class RegistrationServiceImpl implements RegistrationService {
         
         // 保存挂号记录
         registrationMapper.insert(registration);
+        registrationVisitCube.recordCreated(registration);
         
         // 更新预约状态
         appointment.setStatus("已转挂号");
@@ -1,6 +1,7 @@
 package org.me.joy.clinic.service.impl;
 
 import org.me.joy.clinic.dto.CreateStaffRequest;
+import org.me.joy.clinic.dto.CursorPage;
 import org.me.joy.clinic.dto.StaffResponse;
 import org.me.joy.clinic.dto.UpdateStaffRequest;
 import org.me.joy.clinic.entity.Schedule;
@@ -9,10 +10,13 @@ import org.me.joy.clinic.exception.BusinessException;
 import org.me.joy.clinic.exception.ValidationException;
 import org.me.joy.clinic.mapper.ScheduleMapper;
 import org.me.joy.clinic.mapper.StaffMapper;
+import org.me.joy.clinic.search.NamePinyinIndex;
 import org.me.joy.clinic.service.StaffManagementService;
+import org.me.joy.clinic.util.KeysetPagination;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
@@ -21,7 +25,10 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.TemporalAdjusters;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -39,6 +46,15 @@ public class StaffManagementServiceImpl implements StaffManagementService {
     @Autowired
     private ScheduleMapper scheduleMapper;
 
+    @Autowired
+    private NamePinyinIndex namePinyinIndex;
+
+    /**
+     * 拼音索引最多返回的员工数
+     */
+    @Value("${clinic.search.staff.top-k:20}")
+    private int searchTopK = 20;
+
     @Override
     public StaffResponse createStaff(CreateStaffRequest createStaffRequest) {
         logger.info("创建新员工: {}", createStaffRequest.getName());
@@ -56,6 +72,7 @@ public class StaffManagementServiceImpl implements StaffManagementService {
         Staff staff = new Staff();
         staff.setStaffNumber(staffNumber);
         staff.setName(createStaffRequest.getName());
+        NamePinyinIndex.applyPinyin(staff);
         staff.setPhone(createStaffRequest.getPhone());
         staff.setIdCard(createStaffRequest.getIdCard());
         staff.setBirthDate(createStaffRequest.getBirthDate());
@@ -84,6 +101,7 @@ public class StaffManagementServiceImpl implements StaffManagementService {
 
         // 保存员工
         staffMapper.insert(staff);
+        namePinyinIndex.indexStaff(staff);
 
         logger.info("员工创建成功: {}, ID: {}", staff.getName(), staff.getId());
 
@@ -107,6 +125,7 @@ public class StaffManagementServiceImpl implements StaffManagementService {
         // 更新员工信息
         if (StringUtils.hasText(updateStaffRequest.getName())) {
             staff.setName(updateStaffRequest.getName());
+            NamePinyinIndex.applyPinyin(staff);
         }
         if (StringUtils.hasText(updateStaffRequest.getPhone())) {
             staff.setPhone(updateStaffRequest.getPhone());
@@ -182,6 +201,7 @@ public class StaffManagementServiceImpl implements StaffManagementService {
         }
 
         staffMapper.updateById(staff);
+        namePinyinIndex.indexStaff(staff);
 
         logger.info("员工信息更新成功: {}", staffId);
 
@@ -249,6 +269,12 @@ public class StaffManagementServiceImpl implements StaffManagementService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<StaffResponse> getStaffPage(String cursor, Integer limit) {
+        return KeysetPagination.byId(staffMapper, null, true, cursor, limit).map(this::convertToStaffResponse);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<StaffResponse> getStaffByPosition(String position) {
@@ -329,7 +355,23 @@ public class StaffManagementServiceImpl implements StaffManagementService {
             return getAllStaff();
         }
 
-        List<Staff> staffList = staffMapper.searchStaff(keyword.trim());
+        String query = keyword.trim();
+
+        // 纯字母关键词按姓名拼音/首字母前缀查找，按主键取回员工
+        if (NamePinyinIndex.isPinyinQuery(query)) {
+            List<Long> staffIds = namePinyinIndex.searchStaff(query, searchTopK);
+            if (staffIds != null && !staffIds.isEmpty()) {
+                Map<Long, Staff> staffById = staffMapper.selectBatchIds(staffIds).stream()
+                        .collect(Collectors.toMap(Staff::getId, Function.identity()));
+                return staffIds.stream()
+                        .map(staffById::get)
+                        .filter(Objects::nonNull)
+                        .map(this::convertToStaffResponse)
+                        .collect(Collectors.toList());
+            }
+        }
+
+        List<Staff> staffList = staffMapper.searchStaff(query);
         return staffList.stream()
                 .map(this::convertToStaffResponse)
                 .collect(Collectors.toList());
@@ -356,6 +398,7 @@ public class StaffManagementServiceImpl implements StaffManagementService {
 
         // 软删除
         staffMapper.deleteById(staffId);
+        namePinyinIndex.removeStaff(staffId);
 
         logger.info("员工删除成功: {}", staffId);
     }
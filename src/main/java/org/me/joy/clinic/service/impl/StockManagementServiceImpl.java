@@ -11,6 +11,7 @@ import org.me.joy.clinic.mapper.InventoryLevelMapper;
 import org.me.joy.clinic.mapper.MedicineMapper;
 import org.me.joy.clinic.mapper.StockTransactionMapper;
 import org.me.joy.clinic.service.StockManagementService;
+import org.me.joy.clinic.util.KeysetPagination;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -290,6 +291,17 @@ public class StockManagementServiceImpl implements StockManagementService {
         return stockTransactionMapper.selectList(wrapper);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<StockTransaction> getStockTransactionsPage(LocalDate startDate, LocalDate endDate,
+                                                                 String cursor, Integer limit) {
+        QueryWrapper<StockTransaction> wrapper = new QueryWrapper<>();
+        wrapper.ge("transaction_date", startDate.atStartOfDay())
+               .le("transaction_date", endDate.atTime(23, 59, 59));
+        return KeysetPagination.byTimeDesc(stockTransactionMapper, wrapper, "transaction_date",
+                StockTransaction::getTransactionDate, cursor, limit);
+    }
+
     @Override
     public List<StockTransaction> getStockTransactions(Long medicineId, LocalDate startDate, LocalDate endDate) {
         QueryWrapper<StockTransaction> wrapper = new QueryWrapper<>();
@@ -301,6 +313,7 @@ public class StockManagementServiceImpl implements StockManagementService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<StockTransaction> getAllStockTransactions(LocalDate startDate, LocalDate endDate) {
         QueryWrapper<StockTransaction> wrapper = new QueryWrapper<>();
         wrapper.ge("transaction_date", startDate.atStartOfDay())
@@ -368,6 +381,7 @@ public class StockManagementServiceImpl implements StockManagementService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<StockTransaction> getStockTakingRecords(LocalDate startDate, LocalDate endDate) {
         QueryWrapper<StockTransaction> wrapper = new QueryWrapper<>();
         wrapper.eq("transaction_type", "盘点")
@@ -475,6 +489,7 @@ public class StockManagementServiceImpl implements StockManagementService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Double getTotalInventoryValue() {
         QueryWrapper<InventoryLevel> wrapper = new QueryWrapper<>();
         wrapper.gt("current_stock", 0);
@@ -487,6 +502,7 @@ public class StockManagementServiceImpl implements StockManagementService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Double getInventoryValueByMedicine(Long medicineId) {
         QueryWrapper<InventoryLevel> wrapper = new QueryWrapper<>();
         wrapper.eq("medicine_id", medicineId)
@@ -500,6 +516,7 @@ public class StockManagementServiceImpl implements StockManagementService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Double getInventoryTurnoverRate(Long medicineId, LocalDate startDate, LocalDate endDate) {
         // 获取期间内的出库总量
         List<StockTransaction> outboundTransactions = getStockTransactions(medicineId, startDate, endDate)
@@ -523,6 +540,7 @@ public class StockManagementServiceImpl implements StockManagementService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<String> getInventoryAlerts() {
         List<String> alerts = new ArrayList<>();
 
@@ -554,6 +572,7 @@ public class StockManagementServiceImpl implements StockManagementService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Object generateInventoryReport(LocalDate startDate, LocalDate endDate, String reportType) {
         // 这里可以根据reportType生成不同类型的报表
         Map<String, Object> report = new HashMap<>();
@@ -2,6 +2,7 @@ package org.me.joy.clinic.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import org.me.joy.clinic.dto.CreateUserRequest;
+import org.me.joy.clinic.dto.CursorPage;
 import org.me.joy.clinic.dto.UpdateUserRequest;
 import org.me.joy.clinic.dto.UserResponse;
 import org.me.joy.clinic.entity.Role;
@@ -13,6 +14,7 @@ import org.me.joy.clinic.mapper.UserMapper;
 import org.me.joy.clinic.service.PasswordService;
 import org.me.joy.clinic.service.RoleManagementService;
 import org.me.joy.clinic.service.UserManagementService;
+import org.me.joy.clinic.util.KeysetPagination;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -159,6 +161,11 @@ public class UserManagementServiceImpl implements UserManagementService {
             .collect(Collectors.toList());
     }
 
+    @Override
+    public CursorPage<UserResponse> getUsersPage(String cursor, Integer limit) {
+        return KeysetPagination.byId(userMapper, null, true, cursor, limit).map(this::convertToUserResponse);
+    }
+
     @Override
     public List<UserResponse> getUsersByEnabled(Boolean enabled) {
         QueryWrapper<User> queryWrapper = new QueryWrapper<>();
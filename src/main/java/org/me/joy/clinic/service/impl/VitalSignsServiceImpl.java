@@ -1,12 +1,12 @@
 package org.me.joy.clinic.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import org.me.joy.clinic.cache.PatientCache;
 import org.me.joy.clinic.dto.VitalSignsRequest;
 import org.me.joy.clinic.entity.Patient;
 import org.me.joy.clinic.entity.VitalSigns;
 import org.me.joy.clinic.exception.BusinessException;
 import org.me.joy.clinic.exception.ValidationException;
-import org.me.joy.clinic.mapper.PatientMapper;
 import org.me.joy.clinic.mapper.VitalSignsMapper;
 import org.me.joy.clinic.service.VitalSignsService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,12 +31,12 @@ public class VitalSignsServiceImpl implements VitalSignsService {
     private VitalSignsMapper vitalSignsMapper;
 
     @Autowired
-    private PatientMapper patientMapper;
+    private PatientCache patientCache;
 
     @Override
     public VitalSigns recordVitalSigns(VitalSignsRequest request, Long recordedBy) {
         // 验证患者是否存在
-        Patient patient = patientMapper.selectById(request.getPatientId());
+        Patient patient = patientCache.getById(request.getPatientId());
         if (patient == null) {
             throw new BusinessException("3001", "患者不存在");
         }
@@ -98,7 +98,7 @@ public class VitalSignsServiceImpl implements VitalSignsService {
     @Override
     public List<VitalSigns> getPatientVitalSigns(Long patientId) {
         // 验证患者是否存在
-        Patient patient = patientMapper.selectById(patientId);
+        Patient patient = patientCache.getById(patientId);
         if (patient == null) {
             throw new BusinessException("3001", "患者不存在");
         }
@@ -109,7 +109,7 @@ public class VitalSignsServiceImpl implements VitalSignsService {
     @Override
     public List<VitalSigns> getPatientVitalSignsByTimeRange(Long patientId, LocalDateTime startTime, LocalDateTime endTime) {
         // 验证患者是否存在
-        Patient patient = patientMapper.selectById(patientId);
+        Patient patient = patientCache.getById(patientId);
         if (patient == null) {
             throw new BusinessException("3001", "患者不存在");
         }
@@ -125,7 +125,7 @@ public class VitalSignsServiceImpl implements VitalSignsService {
     @Override
     public VitalSigns getLatestVitalSigns(Long patientId) {
         // 验证患者是否存在
-        Patient patient = patientMapper.selectById(patientId);
+        Patient patient = patientCache.getById(patientId);
         if (patient == null) {
             throw new BusinessException("3001", "患者不存在");
         }
@@ -0,0 +1,153 @@
+package org.me.joy.clinic.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Aho-Corasick多模式匹配器
+ * 构建后只读，可被多个线程共享；一次扫描文本即可找出所有关键词的出现位置
+ *
+ * @param <V> 关键词关联的值类型
+ */
+public final class AhoCorasickMatcher<V> {
+
+    private final Node<V> root = new Node<>();
+
+    private AhoCorasickMatcher() {
+    }
+
+    /**
+     * 根据关键词字典构建匹配器
+     * @param dictionary 关键词到关联值的映射，空关键词会被忽略
+     * @return 匹配器
+     */
+    public static <V> AhoCorasickMatcher<V> build(Map<String, V> dictionary) {
+        AhoCorasickMatcher<V> matcher = new AhoCorasickMatcher<>();
+        for (Map.Entry<String, V> entry : dictionary.entrySet()) {
+            matcher.insert(entry.getKey(), entry.getValue());
+        }
+        matcher.buildFailureLinks();
+        return matcher;
+    }
+
+    /**
+     * 查找文本中所有关键词的出现位置，按起始位置升序，起始位置相同时较长的关键词在前
+     * @param text 待匹配文本
+     * @return 匹配结果
+     */
+    public List<Match<V>> findAll(String text) {
+        if (text == null || text.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Match<V>> matches = new ArrayList<>();
+        Node<V> node = root;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            while (node != root && !node.children.containsKey(c)) {
+                node = node.failure;
+            }
+            node = node.children.getOrDefault(c, root);
+            for (Node<V> output = node; output != root; output = output.output) {
+                if (output.keyword != null) {
+                    int start = i - output.keyword.length() + 1;
+                    matches.add(new Match<>(start, output.keyword, output.value));
+                }
+            }
+        }
+        matches.sort((a, b) -> a.getStart() != b.getStart()
+            ? Integer.compare(a.getStart(), b.getStart())
+            : Integer.compare(b.getKeyword().length(), a.getKeyword().length()));
+        return matches;
+    }
+
+    /**
+     * 文本中是否包含任一关键词
+     */
+    public boolean containsAny(String text) {
+        return !findAll(text).isEmpty();
+    }
+
+    private void insert(String keyword, V value) {
+        if (keyword == null || keyword.isEmpty()) {
+            return;
+        }
+        Node<V> node = root;
+        for (int i = 0; i < keyword.length(); i++) {
+            node = node.children.computeIfAbsent(keyword.charAt(i), c -> new Node<>());
+        }
+        node.keyword = keyword;
+        node.value = value;
+    }
+
+    private void buildFailureLinks() {
+        Queue<Node<V>> queue = new ArrayDeque<>();
+        root.failure = root;
+        root.output = root;
+        for (Node<V> child : root.children.values()) {
+            child.failure = root;
+            child.output = root;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            Node<V> node = queue.poll();
+            for (Map.Entry<Character, Node<V>> entry : node.children.entrySet()) {
+                char c = entry.getKey();
+                Node<V> child = entry.getValue();
+                Node<V> failure = node.failure;
+                while (failure != root && !failure.children.containsKey(c)) {
+                    failure = failure.failure;
+                }
+                Node<V> target = failure.children.get(c);
+                child.failure = target != null && target != child ? target : root;
+                // 输出链只指向以关键词结尾的节点，匹配时无需遍历整条失败链
+                child.output = child.failure.keyword != null ? child.failure : child.failure.output;
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * 匹配结果
+     */
+    public static final class Match<V> {
+
+        private final int start;
+        private final String keyword;
+        private final V value;
+
+        Match(int start, String keyword, V value) {
+            this.start = start;
+            this.keyword = keyword;
+            this.value = value;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public int getEnd() {
+            return start + keyword.length();
+        }
+
+        public String getKeyword() {
+            return keyword;
+        }
+
+        public V getValue() {
+            return value;
+        }
+    }
+
+    private static final class Node<V> {
+        private final Map<Character, Node<V>> children = new HashMap<>();
+        private Node<V> failure;
+        private Node<V> output;
+        private String keyword;
+        private V value;
+    }
+}
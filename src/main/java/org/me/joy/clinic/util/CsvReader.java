@@ -0,0 +1,102 @@
+package org.me.joy.clinic.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 流式CSV读取器
+ * 逐条读取记录，不把整个文件加载到内存。支持双引号包裹的字段（字段内可含逗号、换行，"" 表示一个双引号），
+ * 兼容 CRLF 换行和开头的 UTF-8 BOM。
+ */
+public class CsvReader {
+
+    private static final int EOF = -1;
+
+    private static final int NO_PENDING = -2;
+
+    private final Reader reader;
+
+    private int pending = NO_PENDING;
+
+    private boolean started;
+
+    /**
+     * @param reader 字符输入，按字符读取，调用方应传入带缓冲的Reader
+     */
+    public CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * 读取下一条记录
+     * @return 字段列表，已到文件末尾时返回null
+     * @throws IOException 读取失败或引号未闭合
+     */
+    public List<String> readRecord() throws IOException {
+        int c = next();
+        if (!started) {
+            started = true;
+            if (c == '\uFEFF') {
+                c = next();
+            }
+        }
+        if (c == EOF) {
+            return null;
+        }
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean fieldStart = true;
+        while (true) {
+            if (quoted) {
+                if (c == EOF) {
+                    throw new IOException("CSV引号未闭合");
+                }
+                if (c == '"') {
+                    int following = next();
+                    if (following == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        c = following;
+                        continue;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && fieldStart) {
+                quoted = true;
+                fieldStart = false;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                fieldStart = true;
+            } else if (c == '\r' || c == '\n' || c == EOF) {
+                if (c == '\r') {
+                    int following = next();
+                    if (following != '\n') {
+                        pending = following;
+                    }
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+                fieldStart = false;
+            }
+            c = next();
+        }
+    }
+
+    private int next() throws IOException {
+        if (pending != NO_PENDING) {
+            int c = pending;
+            pending = NO_PENDING;
+            return c;
+        }
+        return reader.read();
+    }
+}
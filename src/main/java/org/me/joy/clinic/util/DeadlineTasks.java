@@ -0,0 +1,89 @@
+package org.me.joy.clinic.util;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 带截止时间的并发任务工具
+ * 将一组任务提交到有界线程池并在共享截止时间内等待结果，供仪表盘、患者概览、调剂安全检查等并发加载使用。
+ * 线程池应使用 AbortPolicy：队列满时任务被拒绝并按超时处理，而不是在请求线程中执行导致截止时间失效。
+ * 超时后的取消是建议性的：尚未开始执行的任务会被跳过，已在执行的任务不会被中断，会继续占用线程直到完成。
+ */
+public final class DeadlineTasks {
+
+    private DeadlineTasks() {
+    }
+
+    /**
+     * 提交任务并记录任务自身的执行耗时
+     * @param executor 线程池，传入 Runnable::run 时在调用线程中同步执行
+     * @param name 任务名称，作为耗时记录的键
+     * @param elapsed 各任务执行耗时（毫秒）
+     * @param task 任务
+     * @return 任务结果；线程池拒绝时返回以 RejectedExecutionException 失败的结果
+     */
+    public static <T> CompletableFuture<T> submit(Executor executor, String name, Map<String, Long> elapsed,
+                                                  Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                // 等待期间已超时取消的任务不再执行
+                if (future.isDone()) {
+                    return;
+                }
+                long startedAt = System.nanoTime();
+                T result;
+                try {
+                    result = task.get();
+                } catch (Throwable e) {
+                    recordElapsed(elapsed, name, startedAt);
+                    future.completeExceptionally(e);
+                    return;
+                }
+                // 先记录耗时再完成，等待方被唤醒时一定能读到该任务的耗时
+                recordElapsed(elapsed, name, startedAt);
+                future.complete(result);
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private static void recordElapsed(Map<String, Long> elapsed, String name, long startedAt) {
+        elapsed.put(name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+    }
+
+    /**
+     * 在截止时间内等待任务结果
+     * 超时、线程池拒绝或等待被中断均抛出 TimeoutException，并取消尚未开始的任务
+     * @param future 任务结果
+     * @param deadline 截止时间（System.nanoTime() 时间基准）
+     * @throws TimeoutException 未在截止时间内完成
+     * @throws ExecutionException 任务执行失败
+     */
+    public static <T> T await(CompletableFuture<T> future, long deadline) throws TimeoutException, ExecutionException {
+        long remaining = Math.max(0, deadline - System.nanoTime());
+        try {
+            return future.get(remaining, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(false);
+            throw new TimeoutException("等待被中断");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RejectedExecutionException) {
+                throw new TimeoutException("线程池已满，任务被拒绝");
+            }
+            throw e;
+        }
+    }
+}
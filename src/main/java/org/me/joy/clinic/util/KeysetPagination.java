@@ -0,0 +1,193 @@
+package org.me.joy.clinic.util;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.me.joy.clinic.dto.CursorPage;
+import org.me.joy.clinic.entity.BaseEntity;
+import org.me.joy.clinic.exception.BusinessException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 键集（游标）分页工具
+ * 以上一页最后一行的排序键作为查询条件（WHERE id > ? 或 (time, id) < (?, ?)），配合索引直接定位，
+ * 任意深度的翻页与首页代价相同，不受 OFFSET 扫描行数影响。
+ * 游标令牌为排序键的 Base64 编码，对调用方不透明。
+ */
+public final class KeysetPagination {
+
+    public static final int DEFAULT_LIMIT = 50;
+
+    public static final int MAX_LIMIT = 200;
+
+    private static final String ID_PREFIX = "i:";
+
+    private static final String TIME_PREFIX = "t:";
+
+    private static final String ID_COLUMN = "id";
+
+    private KeysetPagination() {
+    }
+
+    /**
+     * 规范化每页数量
+     * @param limit 请求的每页数量，为空时取默认值
+     * @return 1 到 {@link #MAX_LIMIT} 之间的每页数量
+     */
+    public static int normalizeLimit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    /**
+     * 按主键分页
+     * @param mapper 实体Mapper
+     * @param wrapper 过滤条件（不含排序），可为null
+     * @param ascending true 按ID升序，false 按ID降序（最新记录在前）
+     * @param cursor 上一页返回的续页令牌，首页为null
+     * @param limit 每页数量
+     * @return 分页结果
+     */
+    public static <T extends BaseEntity> CursorPage<T> byId(BaseMapper<T> mapper, QueryWrapper<T> wrapper,
+                                                            boolean ascending, String cursor, Integer limit) {
+        int pageSize = normalizeLimit(limit);
+        QueryWrapper<T> query = wrapper != null ? wrapper : new QueryWrapper<>();
+        Long afterId = decodeId(cursor);
+        if (afterId != null) {
+            if (ascending) {
+                query.gt(ID_COLUMN, afterId);
+            } else {
+                query.lt(ID_COLUMN, afterId);
+            }
+        }
+        if (ascending) {
+            query.orderByAsc(ID_COLUMN);
+        } else {
+            query.orderByDesc(ID_COLUMN);
+        }
+        query.last("LIMIT " + (pageSize + 1));
+
+        List<T> rows = mapper.selectList(query);
+        return toPage(rows, pageSize, last -> encodeId(last.getId()));
+    }
+
+    /**
+     * 按时间列降序分页，时间相同时按ID降序
+     * @param mapper 实体Mapper
+     * @param wrapper 过滤条件（不含排序），可为null
+     * @param timeColumn 时间列名
+     * @param timeOf 从实体读取时间列的值
+     * @param cursor 上一页返回的续页令牌，首页为null
+     * @param limit 每页数量
+     * @return 分页结果
+     */
+    public static <T extends BaseEntity> CursorPage<T> byTimeDesc(BaseMapper<T> mapper, QueryWrapper<T> wrapper,
+                                                                  String timeColumn, Function<T, LocalDateTime> timeOf,
+                                                                  String cursor, Integer limit) {
+        int pageSize = normalizeLimit(limit);
+        QueryWrapper<T> query = wrapper != null ? wrapper : new QueryWrapper<>();
+        TimeKey after = decodeTime(cursor);
+        if (after != null) {
+            query.and(w -> w.lt(timeColumn, after.time)
+                    .or(o -> o.eq(timeColumn, after.time).lt(ID_COLUMN, after.id)));
+        }
+        query.orderByDesc(timeColumn, ID_COLUMN);
+        query.last("LIMIT " + (pageSize + 1));
+
+        List<T> rows = mapper.selectList(query);
+        return toPage(rows, pageSize, last -> encodeTime(timeOf.apply(last), last.getId()));
+    }
+
+    // ========== 游标编解码 ==========
+
+    static String encodeId(Long id) {
+        return encode(ID_PREFIX + id);
+    }
+
+    static String encodeTime(LocalDateTime time, Long id) {
+        return encode(TIME_PREFIX + time + "|" + id);
+    }
+
+    private static Long decodeId(String cursor) {
+        String payload = decode(cursor, ID_PREFIX);
+        if (payload == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(payload);
+        } catch (NumberFormatException e) {
+            throw invalidCursor();
+        }
+    }
+
+    private static TimeKey decodeTime(String cursor) {
+        String payload = decode(cursor, TIME_PREFIX);
+        if (payload == null) {
+            return null;
+        }
+        int separator = payload.lastIndexOf('|');
+        if (separator < 0) {
+            throw invalidCursor();
+        }
+        try {
+            return new TimeKey(LocalDateTime.parse(payload.substring(0, separator)),
+                    Long.parseLong(payload.substring(separator + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw invalidCursor();
+        }
+    }
+
+    private static String encode(String payload) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String cursor, String expectedPrefix) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        String payload;
+        try {
+            payload = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw invalidCursor();
+        }
+        if (!payload.startsWith(expectedPrefix)) {
+            throw invalidCursor();
+        }
+        return payload.substring(expectedPrefix.length());
+    }
+
+    private static BusinessException invalidCursor() {
+        return new BusinessException("INVALID_CURSOR", "分页游标无效");
+    }
+
+    /**
+     * 多查询的一行用于判断是否还有下一页
+     */
+    private static <T> CursorPage<T> toPage(List<T> rows, int pageSize, Function<T, String> cursorOf) {
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null, pageSize);
+        }
+        List<T> items = new ArrayList<>(rows.subList(0, pageSize));
+        return new CursorPage<>(items, cursorOf.apply(items.get(pageSize - 1)), pageSize);
+    }
+
+    private static final class TimeKey {
+
+        private final LocalDateTime time;
+        private final Long id;
+
+        TimeKey(LocalDateTime time, Long id) {
+            this.time = time;
+            this.id = id;
+        }
+    }
+}
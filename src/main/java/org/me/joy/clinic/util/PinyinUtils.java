@@ -0,0 +1,116 @@
+package org.me.joy.clinic.util;
+
+import net.sourceforge.pinyin4j.PinyinHelper;
+import net.sourceforge.pinyin4j.format.HanyuPinyinCaseType;
+import net.sourceforge.pinyin4j.format.HanyuPinyinOutputFormat;
+import net.sourceforge.pinyin4j.format.HanyuPinyinToneType;
+import net.sourceforge.pinyin4j.format.HanyuPinyinVCharType;
+import net.sourceforge.pinyin4j.format.exception.BadHanyuPinyinOutputFormatCombination;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 中文姓名拼音工具
+ * 生成无声调的小写全拼（如 张三 -> zhangsan）和首字母（如 张三 -> zs），ü 以 v 表示。
+ * 多音字取第一个读音，常见多音姓氏按姓氏读音处理；非汉字的字母和数字保留为小写，其余字符忽略。
+ */
+public final class PinyinUtils {
+
+    private static final HanyuPinyinOutputFormat FORMAT = new HanyuPinyinOutputFormat();
+
+    /**
+     * 多音字作为姓氏时的读音
+     */
+    private static final Map<Character, String> SURNAME_READINGS = new HashMap<>();
+
+    static {
+        FORMAT.setToneType(HanyuPinyinToneType.WITHOUT_TONE);
+        FORMAT.setCaseType(HanyuPinyinCaseType.LOWERCASE);
+        FORMAT.setVCharType(HanyuPinyinVCharType.WITH_V);
+
+        SURNAME_READINGS.put('曾', "zeng");
+        SURNAME_READINGS.put('单', "shan");
+        SURNAME_READINGS.put('解', "xie");
+        SURNAME_READINGS.put('仇', "qiu");
+        SURNAME_READINGS.put('朴', "piao");
+        SURNAME_READINGS.put('查', "zha");
+        SURNAME_READINGS.put('区', "ou");
+        SURNAME_READINGS.put('覃', "qin");
+        SURNAME_READINGS.put('盖', "ge");
+        SURNAME_READINGS.put('乐', "yue");
+        SURNAME_READINGS.put('尉', "yu");
+        SURNAME_READINGS.put('缪', "miao");
+    }
+
+    private PinyinUtils() {
+    }
+
+    /**
+     * 获取姓名全拼
+     * @param name 姓名
+     * @return 小写全拼，姓名为空时返回空字符串
+     */
+    public static String toPinyin(String name) {
+        return convert(name, false, true);
+    }
+
+    /**
+     * 获取姓名拼音首字母
+     * @param name 姓名
+     * @return 小写首字母，姓名为空时返回空字符串
+     */
+    public static String toInitials(String name) {
+        return convert(name, true, true);
+    }
+
+    /**
+     * 获取普通文本（非姓名，如诊断名称）的拼音首字母，首字不按姓氏读音处理
+     * @param text 文本
+     * @return 小写首字母，文本为空时返回空字符串
+     */
+    public static String toTextInitials(String text) {
+        return convert(text, true, false);
+    }
+
+    private static String convert(String name, boolean initialsOnly, boolean personName) {
+        if (name == null) {
+            return "";
+        }
+        String trimmed = name.trim();
+        StringBuilder result = new StringBuilder(trimmed.length() * (initialsOnly ? 1 : 4));
+        boolean surname = personName;
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            String reading = surname ? SURNAME_READINGS.get(c) : null;
+            if (reading == null) {
+                reading = readingOf(c);
+            }
+            if (reading != null) {
+                result.append(initialsOnly ? reading.substring(0, 1) : reading);
+                surname = false;
+            } else if (c < 128 && Character.isLetterOrDigit(c)) {
+                // 英文名按单词首字母生成缩写
+                boolean wordStart = i == 0 || !Character.isLetterOrDigit(trimmed.charAt(i - 1));
+                if (!initialsOnly || wordStart) {
+                    result.append(Character.toLowerCase(c));
+                }
+                surname = false;
+            }
+        }
+        return result.toString().toLowerCase(Locale.ROOT);
+    }
+
+    private static String readingOf(char c) {
+        if (Character.UnicodeScript.of(c) != Character.UnicodeScript.HAN) {
+            return null;
+        }
+        try {
+            String[] readings = PinyinHelper.toHanyuPinyinStringArray(c, FORMAT);
+            return readings != null && readings.length > 0 && !readings[0].isEmpty() ? readings[0] : null;
+        } catch (BadHanyuPinyinOutputFormatCombination e) {
+            return null;
+        }
+    }
+}
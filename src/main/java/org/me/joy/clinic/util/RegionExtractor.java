@@ -0,0 +1,152 @@
+package org.me.joy.clinic.util;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 地址地区提取工具
+ * 使用内存中的省份/城市字典和Aho-Corasick匹配，从自由文本地址中识别标准化的省份和城市
+ */
+public final class RegionExtractor {
+
+    private static final String[] MUNICIPALITIES = {"北京", "上海", "天津", "重庆"};
+
+    private static final String[][] PROVINCES = {
+        {"河北", "河北省"}, {"山西", "山西省"}, {"辽宁", "辽宁省"}, {"吉林", "吉林省"},
+        {"黑龙江", "黑龙江省"}, {"江苏", "江苏省"}, {"浙江", "浙江省"}, {"安徽", "安徽省"},
+        {"福建", "福建省"}, {"江西", "江西省"}, {"山东", "山东省"}, {"河南", "河南省"},
+        {"湖北", "湖北省"}, {"湖南", "湖南省"}, {"广东", "广东省"}, {"海南", "海南省"},
+        {"四川", "四川省"}, {"贵州", "贵州省"}, {"云南", "云南省"}, {"陕西", "陕西省"},
+        {"甘肃", "甘肃省"}, {"青海", "青海省"}, {"台湾", "台湾省"},
+        {"内蒙古", "内蒙古自治区"}, {"广西", "广西壮族自治区"}, {"西藏", "西藏自治区"},
+        {"宁夏", "宁夏回族自治区"}, {"新疆", "新疆维吾尔自治区"},
+        {"香港", "香港特别行政区"}, {"澳门", "澳门特别行政区"}
+    };
+
+    /**
+     * 城市简称与所属省份
+     */
+    private static final String[][] CITIES = {
+        {"石家庄", "河北省"}, {"唐山", "河北省"}, {"保定", "河北省"},
+        {"太原", "山西省"}, {"大同", "山西省"},
+        {"沈阳", "辽宁省"}, {"大连", "辽宁省"},
+        {"长春", "吉林省"}, {"哈尔滨", "黑龙江省"},
+        {"南京", "江苏省"}, {"苏州", "江苏省"}, {"无锡", "江苏省"}, {"常州", "江苏省"}, {"徐州", "江苏省"},
+        {"南通", "江苏省"},
+        {"杭州", "浙江省"}, {"宁波", "浙江省"}, {"温州", "浙江省"}, {"绍兴", "浙江省"}, {"嘉兴", "浙江省"},
+        {"金华", "浙江省"},
+        {"合肥", "安徽省"}, {"芜湖", "安徽省"},
+        {"福州", "福建省"}, {"厦门", "福建省"}, {"泉州", "福建省"},
+        {"南昌", "江西省"},
+        {"济南", "山东省"}, {"青岛", "山东省"}, {"烟台", "山东省"}, {"潍坊", "山东省"},
+        {"郑州", "河南省"}, {"洛阳", "河南省"},
+        {"武汉", "湖北省"}, {"宜昌", "湖北省"}, {"襄阳", "湖北省"},
+        {"长沙", "湖南省"},
+        {"广州", "广东省"}, {"深圳", "广东省"}, {"东莞", "广东省"}, {"佛山", "广东省"}, {"珠海", "广东省"},
+        {"惠州", "广东省"}, {"汕头", "广东省"},
+        {"南宁", "广西壮族自治区"}, {"桂林", "广西壮族自治区"},
+        {"海口", "海南省"}, {"三亚", "海南省"},
+        {"成都", "四川省"}, {"绵阳", "四川省"},
+        {"贵阳", "贵州省"}, {"昆明", "云南省"}, {"拉萨", "西藏自治区"},
+        {"西安", "陕西省"}, {"兰州", "甘肃省"}, {"西宁", "青海省"}, {"银川", "宁夏回族自治区"},
+        {"乌鲁木齐", "新疆维吾尔自治区"}, {"呼和浩特", "内蒙古自治区"}, {"包头", "内蒙古自治区"}
+    };
+
+    private static final AhoCorasickMatcher<Region> MATCHER = AhoCorasickMatcher.build(buildDictionary());
+
+    private RegionExtractor() {
+    }
+
+    private static Map<String, Region> buildDictionary() {
+        Map<String, Region> dictionary = new HashMap<>();
+        for (String municipality : MUNICIPALITIES) {
+            Region region = new Region(municipality + "市", municipality + "市");
+            dictionary.put(municipality, region);
+            dictionary.put(municipality + "市", region);
+        }
+        for (String[] province : PROVINCES) {
+            Region region = new Region(province[1], null);
+            dictionary.put(province[0], region);
+            dictionary.put(province[1], region);
+        }
+        for (String[] city : CITIES) {
+            Region region = new Region(city[1], city[0] + "市");
+            dictionary.put(city[0], region);
+            dictionary.put(city[0] + "市", region);
+        }
+        return dictionary;
+    }
+
+    /**
+     * 从地址中提取省份和城市
+     * 取最先出现的城市；若地址中已出现省份，则跳过不属于该省份的城市（如"浙江省杭州市南京路"中的"南京"）
+     * @param address 地址
+     * @return 识别结果，无法识别时省份和城市均为null
+     */
+    public static Region extract(String address) {
+        List<AhoCorasickMatcher.Match<Region>> matches = MATCHER.findAll(address);
+        String province = null;
+        String city = null;
+        int coveredUntil = -1;
+        for (AhoCorasickMatcher.Match<Region> match : matches) {
+            // 起始位置相同时较长的关键词在前，跳过被其覆盖的短关键词
+            if (match.getStart() < coveredUntil) {
+                continue;
+            }
+            coveredUntil = match.getEnd();
+            Region region = match.getValue();
+            if (province == null) {
+                province = region.getProvince();
+            } else if (!province.equals(region.getProvince())) {
+                continue;
+            }
+            if (region.getCity() != null) {
+                city = region.getCity();
+                break;
+            }
+        }
+        return new Region(province, city);
+    }
+
+    /**
+     * 地区识别结果
+     */
+    public static final class Region {
+
+        private final String province;
+        private final String city;
+
+        public Region(String province, String city) {
+            this.province = province;
+            this.city = city;
+        }
+
+        public String getProvince() {
+            return province;
+        }
+
+        public String getCity() {
+            return city;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Region region = (Region) o;
+            return Objects.equals(province, region.province) && Objects.equals(city, region.city);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(province, city);
+        }
+
+        @Override
+        public String toString() {
+            return "Region{province='" + province + "', city='" + city + "'}";
+        }
+    }
+}
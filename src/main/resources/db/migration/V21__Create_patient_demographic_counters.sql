@@ -0,0 +1,57 @@
+-- 创建患者人口统计计数表
+-- 由患者新增、修改、删除时增量维护，年龄段每日由定时任务按生日平移
+CREATE TABLE patient_demographic_counters (
+    dimension VARCHAR(20) NOT NULL COMMENT '统计维度：GENDER/AGE_BAND/REGION',
+    bucket VARCHAR(100) NOT NULL COMMENT '分组值',
+    patient_count BIGINT NOT NULL DEFAULT 0 COMMENT '患者数量',
+    updated_at DATETIME NOT NULL COMMENT '更新时间',
+    PRIMARY KEY (dimension, bucket)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='患者人口统计计数表';
+
+-- 初始化性别计数
+INSERT INTO patient_demographic_counters (dimension, bucket, patient_count, updated_at)
+SELECT 'GENDER', gender, COUNT(*), NOW()
+FROM patients
+WHERE deleted = 0 AND gender IS NOT NULL
+GROUP BY gender;
+
+-- 初始化年龄段计数
+INSERT INTO patient_demographic_counters (dimension, bucket, patient_count, updated_at)
+SELECT 'AGE_BAND', age_group, COUNT(*), NOW()
+FROM (
+    SELECT
+        CASE
+            WHEN TIMESTAMPDIFF(YEAR, birth_date, CURDATE()) <= 18 THEN '0-18'
+            WHEN TIMESTAMPDIFF(YEAR, birth_date, CURDATE()) <= 35 THEN '19-35'
+            WHEN TIMESTAMPDIFF(YEAR, birth_date, CURDATE()) <= 50 THEN '36-50'
+            WHEN TIMESTAMPDIFF(YEAR, birth_date, CURDATE()) <= 65 THEN '51-65'
+            ELSE '65+'
+        END AS age_group
+    FROM patients
+    WHERE deleted = 0 AND birth_date IS NOT NULL
+) t
+GROUP BY age_group;
+
+-- 初始化地区计数
+INSERT INTO patient_demographic_counters (dimension, bucket, patient_count, updated_at)
+SELECT 'REGION', location, COUNT(*), NOW()
+FROM (
+    SELECT
+        CASE
+            WHEN address LIKE '%北京%' THEN '北京'
+            WHEN address LIKE '%上海%' THEN '上海'
+            WHEN address LIKE '%广州%' THEN '广州'
+            WHEN address LIKE '%深圳%' THEN '深圳'
+            WHEN address LIKE '%杭州%' THEN '杭州'
+            WHEN address LIKE '%南京%' THEN '南京'
+            WHEN address LIKE '%武汉%' THEN '武汉'
+            WHEN address LIKE '%成都%' THEN '成都'
+            WHEN address LIKE '%西安%' THEN '西安'
+            WHEN address LIKE '%重庆%' THEN '重庆'
+            ELSE SUBSTRING_INDEX(address, ' ', 1)
+        END AS location
+    FROM patients
+    WHERE deleted = 0 AND address IS NOT NULL AND address != ''
+) t
+WHERE location IS NOT NULL AND location != ''
+GROUP BY location;
@@ -0,0 +1,12 @@
+-- 患者表增加标准化的省份和城市字段
+-- 新增和修改患者时由应用从地址中提取，存量数据由地区回填任务分批处理
+ALTER TABLE patients
+ADD COLUMN province VARCHAR(50) NULL COMMENT '省份' AFTER address,
+ADD COLUMN city VARCHAR(50) NULL COMMENT '城市' AFTER province;
+
+CREATE INDEX idx_patients_province ON patients(province);
+CREATE INDEX idx_patients_city ON patients(city);
+
+-- V21 按地址原文初始化的地区计数与应用写入时的分组（RegionExtractor 提取的城市，无城市时取省份）不一致，
+-- 清除后由地区回填任务在填充省份、城市字段后按相同口径重建
+DELETE FROM patient_demographic_counters WHERE dimension = 'REGION';
@@ -0,0 +1,15 @@
+-- 患者和员工表增加姓名全拼和首字母字段，用于拼音/首字母前缀搜索
+-- 新增和修改时由应用写入，存量数据在应用启动构建拼音索引时分批回填
+ALTER TABLE patients
+ADD COLUMN name_pinyin VARCHAR(200) NULL COMMENT '姓名全拼' AFTER name,
+ADD COLUMN name_initials VARCHAR(50) NULL COMMENT '姓名拼音首字母' AFTER name_pinyin;
+
+CREATE INDEX idx_patients_name_pinyin ON patients(name_pinyin);
+CREATE INDEX idx_patients_name_initials ON patients(name_initials);
+
+ALTER TABLE staff
+ADD COLUMN name_pinyin VARCHAR(200) NULL COMMENT '姓名全拼' AFTER name,
+ADD COLUMN name_initials VARCHAR(50) NULL COMMENT '姓名拼音首字母' AFTER name_pinyin;
+
+CREATE INDEX idx_staff_name_pinyin ON staff(name_pinyin);
+CREATE INDEX idx_staff_name_initials ON staff(name_initials);
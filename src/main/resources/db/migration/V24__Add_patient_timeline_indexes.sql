@@ -0,0 +1,7 @@
+-- 患者时间线按 (patient_id, 时间) 倒序做键集查询，为各来源表增加组合索引
+-- InnoDB 二级索引末尾隐含主键，(patient_id, 时间) 即可覆盖 (时间, id) 排序，避免按患者读出全部记录再排序
+CREATE INDEX idx_medical_records_patient_date ON medical_records(patient_id, record_date);
+CREATE INDEX idx_medical_orders_patient_prescribed ON medical_orders(patient_id, prescribed_at);
+CREATE INDEX idx_dispense_records_patient_created ON dispense_records(patient_id, created_at);
+CREATE INDEX idx_vital_signs_patient_recorded ON vital_signs(patient_id, recorded_at);
+CREATE INDEX idx_registrations_patient_time ON registrations(patient_id, registration_time);
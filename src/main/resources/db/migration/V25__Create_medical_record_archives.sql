@@ -0,0 +1,19 @@
+-- 病历冷存储：归档超过一定时间的病历，其大文本字段、诊断和可迁移的处方压缩后移入归档表，
+-- 热表只保留检索和外键所需的字段，减少缓冲池占用和索引扫描开销
+ALTER TABLE medical_records
+ADD COLUMN archived_at DATETIME NULL COMMENT '归档时间' AFTER review_comments,
+ADD COLUMN cold_archived_at DATETIME NULL COMMENT '移入冷存储时间' AFTER archived_at;
+
+CREATE TABLE medical_record_archives (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    medical_record_id BIGINT NOT NULL COMMENT '病历ID',
+    patient_id BIGINT NOT NULL COMMENT '患者ID',
+    payload MEDIUMBLOB NOT NULL COMMENT 'GZIP压缩的病历、诊断和处方JSON',
+    raw_size INT NOT NULL COMMENT '压缩前字节数',
+    stored_size INT NOT NULL COMMENT '压缩后字节数',
+    created_at DATETIME NOT NULL COMMENT '创建时间',
+    updated_at DATETIME NOT NULL COMMENT '更新时间',
+    deleted INT NOT NULL DEFAULT 0 COMMENT '逻辑删除标识',
+    UNIQUE KEY uk_medical_record_archives_record (medical_record_id),
+    INDEX idx_patient_id (patient_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='病历冷存储表';
@@ -0,0 +1,15 @@
+-- 病历修订记录：每次修改只追加变更字段的二进制增量，每隔若干个版本记录一次完整快照，限制重建某一版本时需要回放的增量数量
+CREATE TABLE medical_record_revisions (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    medical_record_id BIGINT NOT NULL COMMENT '病历ID',
+    revision INT NOT NULL COMMENT '版本号，从1开始',
+    snapshot BOOLEAN NOT NULL DEFAULT FALSE COMMENT '是否完整快照',
+    changed_fields VARCHAR(500) COMMENT '本次修改的字段，逗号分隔',
+    payload MEDIUMBLOB NOT NULL COMMENT '增量或快照的二进制编码',
+    payload_size INT NOT NULL COMMENT '编码字节数',
+    created_at DATETIME NOT NULL COMMENT '创建时间',
+    updated_at DATETIME NOT NULL COMMENT '更新时间',
+    deleted INT NOT NULL DEFAULT 0 COMMENT '逻辑删除标识',
+    UNIQUE KEY uk_medical_record_revisions_revision (medical_record_id, revision),
+    FOREIGN KEY (medical_record_id) REFERENCES medical_records(id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='病历修订记录表';
@@ -0,0 +1,8 @@
+-- 库存快照：按药品分组汇总正常批次的总库存、可用、预留和锁定库存。
+-- 实体和库存查询已使用 status、locked_stock，但 V5 建表时缺少这两列，这里补齐后再建复合索引
+ALTER TABLE inventory_levels
+ADD COLUMN locked_stock INT NOT NULL DEFAULT 0 COMMENT '锁定库存量' AFTER reserved_stock,
+ADD COLUMN status VARCHAR(20) NOT NULL DEFAULT '正常' COMMENT '库存状态：正常、预警、过期、损坏、冻结' AFTER warehouse_location;
+
+CREATE INDEX idx_inventory_levels_medicine_status_available
+    ON inventory_levels (medicine_id, status, available_stock);
@@ -0,0 +1,3 @@
+-- 调剂前安全检查耗时：记录处方验证、库存、相互作用、过敏各项检查的耗时或超时状态，便于审计
+ALTER TABLE dispense_records
+ADD COLUMN safety_check_timings VARCHAR(200) COMMENT '安全检查耗时' AFTER allergy_check;
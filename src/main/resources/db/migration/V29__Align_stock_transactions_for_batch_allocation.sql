@@ -0,0 +1,16 @@
+-- 多批次出库：每个批次写一条库存交易记录，记录批次扣减前后的库存。
+-- 实体已使用 transaction_number、stock_before、stock_after、status，但 V5 建表时缺少这些列，这里补齐；
+-- 药房调剂、退回和取消不关联操作员，且使用处方调剂/处方退回/调剂取消交易类型，同步放宽约束
+ALTER TABLE stock_transactions
+ADD COLUMN transaction_number VARCHAR(50) COMMENT '交易编号' AFTER id,
+ADD COLUMN stock_before INT COMMENT '交易前库存' AFTER supplier_id,
+ADD COLUMN stock_after INT COMMENT '交易后库存' AFTER stock_before,
+ADD COLUMN status VARCHAR(20) NOT NULL DEFAULT '待审核' COMMENT '交易状态' AFTER reason,
+MODIFY COLUMN operator_id BIGINT NULL COMMENT '操作员ID',
+DROP CHECK chk_stock_transaction_type;
+
+ALTER TABLE stock_transactions
+ADD CONSTRAINT chk_stock_transaction_type CHECK (transaction_type IN
+    ('入库', '出库', '调拨', '盘点', '报损', '退货', '其他', '过期处理', '处方调剂', '处方退回', '调剂取消'));
+
+CREATE INDEX idx_stock_transactions_transaction_number ON stock_transactions (transaction_number);
@@ -0,0 +1,3 @@
+-- 跨批次调剂：调剂明细记录实际扣减的全部批次号（逗号分隔）
+ALTER TABLE dispense_items
+MODIFY COLUMN batch_number VARCHAR(500) COMMENT '批号，跨批次调剂时以逗号分隔';
@@ -0,0 +1,30 @@
+-- 患者人口统计计数状态表
+-- 记录年龄段最后平移到的日期，定时任务从该日期之后逐日补齐，避免停机漏平移或重复平移
+CREATE TABLE patient_demographic_counter_state (
+    state_key VARCHAR(50) NOT NULL COMMENT '状态键',
+    state_date DATE NOT NULL COMMENT '状态日期',
+    updated_at DATETIME NOT NULL COMMENT '更新时间',
+    PRIMARY KEY (state_key)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='患者人口统计计数状态表';
+
+-- 此前的平移没有记录进度，按当前日期重建年龄段计数后从今天开始记录
+DELETE FROM patient_demographic_counters WHERE dimension = 'AGE_BAND';
+
+INSERT INTO patient_demographic_counters (dimension, bucket, patient_count, updated_at)
+SELECT 'AGE_BAND', age_group, COUNT(*), NOW()
+FROM (
+    SELECT
+        CASE
+            WHEN TIMESTAMPDIFF(YEAR, birth_date, CURDATE()) <= 18 THEN '0-18'
+            WHEN TIMESTAMPDIFF(YEAR, birth_date, CURDATE()) <= 35 THEN '19-35'
+            WHEN TIMESTAMPDIFF(YEAR, birth_date, CURDATE()) <= 50 THEN '36-50'
+            WHEN TIMESTAMPDIFF(YEAR, birth_date, CURDATE()) <= 65 THEN '51-65'
+            ELSE '65+'
+        END AS age_group
+    FROM patients
+    WHERE deleted = 0 AND birth_date IS NOT NULL
+) t
+GROUP BY age_group;
+
+INSERT INTO patient_demographic_counter_state (state_key, state_date, updated_at)
+VALUES ('AGE_BAND_SHIFTED_THROUGH', CURDATE(), NOW());
@@ -0,0 +1,156 @@
+package org.me.joy.clinic.analytics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.me.joy.clinic.entity.Registration;
+import org.me.joy.clinic.mapper.RegistrationMapper;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * 挂号就诊立方体测试
+ */
+@ExtendWith(MockitoExtension.class)
+class RegistrationVisitCubeTest {
+
+    @Mock
+    private RegistrationMapper registrationMapper;
+
+    @InjectMocks
+    private RegistrationVisitCube registrationVisitCube;
+
+    private LocalDate today;
+
+    @BeforeEach
+    void setUp() {
+        today = LocalDate.now();
+        when(registrationMapper.findVisitCubeRows(any(LocalDate.class))).thenReturn(Arrays.asList(
+            registration(1L, 100L, today.minusDays(1), 9, "内科", 10L, true, "已完成"),
+            registration(2L, 101L, today.minusDays(1), 9, "内科", 10L, false, "已完成"),
+            registration(3L, 101L, today, 14, "外科", 11L, false, "已挂号"),
+            registration(4L, 102L, today, 9, "内科", 10L, true, "就诊中")
+        ));
+        registrationVisitCube.rebuild();
+    }
+
+    private Registration registration(Long id, Long patientId, LocalDate date, int hour, String department,
+                                      Long doctorId, Boolean firstVisit, String status) {
+        Registration registration = new Registration();
+        registration.setId(id);
+        registration.setPatientId(patientId);
+        registration.setRegistrationDate(date);
+        registration.setRegistrationTime(date.atTime(hour, 15));
+        registration.setDepartment(department);
+        registration.setDoctorId(doctorId);
+        registration.setIsFirstVisit(firstVisit);
+        registration.setStatus(status);
+        return registration;
+    }
+
+    @Test
+    void testSlicesAnsweredFromMemory() {
+        // When
+        Map<String, Long> byDepartment = registrationVisitCube.countByDepartment(today.minusDays(1), today);
+        Map<Long, Long> byDoctor = registrationVisitCube.countByDoctor(today.minusDays(1), today);
+        long[] byHour = registrationVisitCube.countByHour(today.minusDays(1), today);
+        Map<LocalDate, Long> byDay = registrationVisitCube.countByDay(today.minusDays(1), today);
+
+        // Then
+        assertEquals(4, registrationVisitCube.countVisits(today.minusDays(1), today));
+        assertEquals(2, registrationVisitCube.countVisits(today.minusDays(1), today.minusDays(1)));
+        assertEquals(2, registrationVisitCube.countDistinctPatients(today.minusDays(1), today, true));
+        assertEquals(1, registrationVisitCube.countDistinctPatients(today.minusDays(1), today, false));
+        assertEquals(3L, byDepartment.get("内科"));
+        assertEquals("内科", byDepartment.keySet().iterator().next());
+        assertEquals(3L, byDoctor.get(10L));
+        assertEquals(3L, byHour[9]);
+        assertEquals(1L, byHour[14]);
+        assertEquals(2L, byDay.get(today));
+        assertEquals(2L, registrationVisitCube.countByStatus(today.minusDays(1), today).get("已完成"));
+    }
+
+    @Test
+    void testIncrementalUpdatesApplied() {
+        // Given
+        Registration created = registration(5L, 103L, today, 10, "儿科", 12L, true, "已挂号");
+
+        // When
+        registrationVisitCube.recordCreated(created);
+        registrationVisitCube.recordStatusChanged(3L, "已完成");
+        registrationVisitCube.recordDeleted(4L);
+
+        // Then
+        assertEquals(2, registrationVisitCube.countVisits(today, today));
+        assertEquals(1L, registrationVisitCube.countByDepartment(today, today).get("儿科"));
+        assertEquals(3L, registrationVisitCube.countByStatus(today.minusDays(1), today).get("已完成"));
+        assertNull(registrationVisitCube.countByStatus(today, today).get("就诊中"));
+    }
+
+    @Test
+    void testWritesCommittedDuringRebuildReplayedAfterSnapshot() {
+        // Given 加载查询期间有新挂号和状态变更提交，返回的快照不包含它们
+        Registration created = registration(5L, 103L, today, 10, "儿科", 12L, true, "已挂号");
+        when(registrationMapper.findVisitCubeRows(any(LocalDate.class))).thenAnswer(invocation -> {
+            registrationVisitCube.recordCreated(created);
+            registrationVisitCube.recordStatusChanged(3L, "已完成");
+            registrationVisitCube.recordDeleted(4L);
+            return Arrays.asList(
+                registration(1L, 100L, today.minusDays(1), 9, "内科", 10L, true, "已完成"),
+                registration(3L, 101L, today, 14, "外科", 11L, false, "已挂号"),
+                registration(4L, 102L, today, 9, "内科", 10L, true, "就诊中")
+            );
+        });
+
+        // When
+        registrationVisitCube.rebuild();
+
+        // Then
+        assertEquals(2, registrationVisitCube.countVisits(today, today));
+        assertEquals(1L, registrationVisitCube.countByDepartment(today, today).get("儿科"));
+        assertEquals(2L, registrationVisitCube.countByStatus(today.minusDays(1), today).get("已完成"));
+        assertNull(registrationVisitCube.countByStatus(today, today).get("就诊中"));
+    }
+
+    @Test
+    void testRebuildFailureKeepsDataAndAppliesBufferedWrites() {
+        // Given
+        when(registrationMapper.findVisitCubeRows(any(LocalDate.class))).thenAnswer(invocation -> {
+            registrationVisitCube.recordDeleted(4L);
+            throw new IllegalStateException("db down");
+        });
+
+        // When
+        assertThrows(IllegalStateException.class, () -> registrationVisitCube.rebuild());
+
+        // Then
+        assertEquals(3, registrationVisitCube.countVisits(today.minusDays(1), today));
+        assertTrue(registrationVisitCube.covers(today.minusDays(30)));
+    }
+
+    @Test
+    void testNullFirstVisitExcludedFromFirstAndReturningCounts() {
+        // Given
+        registrationVisitCube.recordCreated(registration(5L, 103L, today, 10, "儿科", 12L, null, "已挂号"));
+
+        // Then
+        assertEquals(5, registrationVisitCube.countVisits(today.minusDays(1), today));
+        assertEquals(2, registrationVisitCube.countDistinctPatients(today.minusDays(1), today, true));
+        assertEquals(1, registrationVisitCube.countDistinctPatients(today.minusDays(1), today, false));
+    }
+
+    @Test
+    void testCoversOnlyRollingWindow() {
+        assertTrue(registrationVisitCube.covers(today.minusDays(30)));
+        assertFalse(registrationVisitCube.covers(today.minusDays(401)));
+    }
+}
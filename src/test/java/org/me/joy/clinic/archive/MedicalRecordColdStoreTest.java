@@ -0,0 +1,125 @@
+package org.me.joy.clinic.archive;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.me.joy.clinic.entity.Diagnosis;
+import org.me.joy.clinic.entity.MedicalRecord;
+import org.me.joy.clinic.entity.MedicalRecordArchive;
+import org.me.joy.clinic.entity.Prescription;
+import org.me.joy.clinic.entity.PrescriptionItem;
+import org.me.joy.clinic.exception.BusinessException;
+import org.me.joy.clinic.mapper.MedicalRecordArchiveMapper;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 病历冷存储测试
+ */
+@ExtendWith(MockitoExtension.class)
+class MedicalRecordColdStoreTest {
+
+    @Mock
+    private MedicalRecordArchiveMapper medicalRecordArchiveMapper;
+
+    @InjectMocks
+    private MedicalRecordColdStore medicalRecordColdStore;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(medicalRecordColdStore, "objectMapper", new ObjectMapper().findAndRegisterModules());
+    }
+
+    private MedicalRecord archivedRecord() {
+        MedicalRecord record = new MedicalRecord();
+        record.setId(1L);
+        record.setPatientId(10L);
+        record.setRecordNumber("MR1");
+        record.setStatus("已归档");
+        record.setRecordDate(LocalDateTime.of(2023, 1, 5, 9, 0));
+        record.setChiefComplaint("头痛三天");
+        record.setPresentIllness(String.join("", Collections.nCopies(200, "患者三天前无明显诱因出现头痛。")));
+        record.setTreatmentPlan("布洛芬口服");
+        return record;
+    }
+
+    private MedicalRecordArchive saveArchive() {
+        Diagnosis diagnosis = new Diagnosis(1L, "紧张性头痛", 2L);
+        diagnosis.setId(5L);
+        Prescription prescription = new Prescription(1L, 2L, "RX1");
+        prescription.setId(7L);
+        PrescriptionItem item = new PrescriptionItem();
+        item.setPrescriptionId(7L);
+        item.setMedicineName("布洛芬缓释胶囊");
+        prescription.setPrescriptionItems(Arrays.asList(item));
+
+        medicalRecordColdStore.save(new MedicalRecordColdPayload(archivedRecord(), Arrays.asList(diagnosis),
+            Arrays.asList(prescription)));
+        ArgumentCaptor<MedicalRecordArchive> captor = ArgumentCaptor.forClass(MedicalRecordArchive.class);
+        verify(medicalRecordArchiveMapper).insert(captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    void saveAndRestore_ShouldRoundTripCompressedPayload() {
+        // Given
+        MedicalRecordArchive archive = saveArchive();
+        when(medicalRecordArchiveMapper.selectList(any(QueryWrapper.class))).thenReturn(Arrays.asList(archive));
+        MedicalRecord stub = new MedicalRecord();
+        stub.setId(1L);
+        stub.setColdArchivedAt(LocalDateTime.now());
+
+        // When
+        Map<Long, MedicalRecordColdPayload> payloads = medicalRecordColdStore.restore(Arrays.asList(stub));
+
+        // Then
+        assertEquals(1L, archive.getMedicalRecordId());
+        assertEquals(10L, archive.getPatientId());
+        assertTrue(archive.getStoredSize() < archive.getRawSize());
+        assertEquals("头痛三天", stub.getChiefComplaint());
+        assertEquals(archivedRecord().getPresentIllness(), stub.getPresentIllness());
+        assertEquals("布洛芬口服", stub.getTreatmentPlan());
+        MedicalRecordColdPayload payload = payloads.get(1L);
+        assertEquals("紧张性头痛", payload.getDiagnoses().get(0).getDiagnosisName());
+        assertEquals(7L, payload.getPrescriptions().get(0).getId());
+        assertEquals("布洛芬缓释胶囊", payload.getPrescriptions().get(0).getPrescriptionItems().get(0).getMedicineName());
+    }
+
+    @Test
+    void restore_WithHotRecordsOnly_ShouldNotQueryColdTier() {
+        // When
+        Map<Long, MedicalRecordColdPayload> payloads = medicalRecordColdStore.restore(Arrays.asList(archivedRecord()));
+
+        // Then
+        assertTrue(payloads.isEmpty());
+        verify(medicalRecordArchiveMapper, never()).selectList(any(QueryWrapper.class));
+    }
+
+    @Test
+    void restore_WithMissingPayload_ShouldThrowBusinessException() {
+        // Given
+        when(medicalRecordArchiveMapper.selectList(any(QueryWrapper.class))).thenReturn(Collections.emptyList());
+        MedicalRecord stub = new MedicalRecord();
+        stub.setId(1L);
+        stub.setColdArchivedAt(LocalDateTime.now());
+
+        // When & Then
+        assertThrows(BusinessException.class, () -> medicalRecordColdStore.restore(Arrays.asList(stub)));
+    }
+}
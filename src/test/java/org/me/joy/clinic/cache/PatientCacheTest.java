@@ -0,0 +1,149 @@
+package org.me.joy.clinic.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.me.joy.clinic.entity.Patient;
+import org.me.joy.clinic.mapper.PatientMapper;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 患者实体缓存测试
+ */
+@ExtendWith(MockitoExtension.class)
+class PatientCacheTest {
+
+    @Mock
+    private PatientMapper patientMapper;
+
+    @InjectMocks
+    private PatientCache patientCache;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(patientCache, "maxSize", 2);
+        ReflectionTestUtils.setField(patientCache, "ttlSeconds", 300L);
+    }
+
+    private Patient patient(long id) {
+        Patient patient = new Patient();
+        patient.setId(id);
+        patient.setName("患者" + id);
+        patient.setPatientNumber("P00" + id);
+        patient.setIdCard("11010119900101000" + id);
+        return patient;
+    }
+
+    @Test
+    void getById_ShouldLoadOnceAndServeFromCache() {
+        // Given
+        when(patientMapper.selectById(1L)).thenReturn(patient(1L));
+
+        // When
+        Patient first = patientCache.getById(1L);
+        Patient second = patientCache.getById(1L);
+
+        // Then
+        assertEquals("患者1", first.getName());
+        assertEquals("患者1", second.getName());
+        verify(patientMapper, times(1)).selectById(1L);
+        Map<String, Object> metrics = patientCache.snapshot();
+        assertEquals(1L, metrics.get("hits"));
+        assertEquals(1L, metrics.get("misses"));
+        assertEquals(0.5, metrics.get("hitRate"));
+    }
+
+    @Test
+    void getById_ShouldReturnCopies() {
+        // Given
+        when(patientMapper.selectById(1L)).thenReturn(patient(1L));
+
+        // When
+        patientCache.getById(1L).setName("已修改");
+
+        // Then
+        assertEquals("患者1", patientCache.getById(1L).getName());
+    }
+
+    @Test
+    void getBySecondaryKeys_ShouldHitEntryLoadedById() {
+        // Given
+        when(patientMapper.selectById(1L)).thenReturn(patient(1L));
+        patientCache.getById(1L);
+
+        // When
+        Optional<Patient> byNumber = patientCache.getByPatientNumber("P001");
+        Optional<Patient> byIdCard = patientCache.getByIdCard("110101199001010001");
+
+        // Then
+        assertTrue(byNumber.isPresent());
+        assertTrue(byIdCard.isPresent());
+        assertEquals(1L, byNumber.get().getId());
+        verify(patientMapper, never()).findByPatientNumber("P001");
+        verify(patientMapper, never()).findByIdCard("110101199001010001");
+    }
+
+    @Test
+    void getByPatientNumber_WithMissingPatient_ShouldReturnEmpty() {
+        // Given
+        when(patientMapper.findByPatientNumber("P404")).thenReturn(Optional.empty());
+
+        // When
+        Optional<Patient> result = patientCache.getByPatientNumber("P404");
+
+        // Then
+        assertFalse(result.isPresent());
+        assertEquals(0, patientCache.size());
+    }
+
+    @Test
+    void invalidate_ShouldReloadFromDatabase() {
+        // Given
+        Patient updated = patient(1L);
+        updated.setName("新名字");
+        when(patientMapper.selectById(1L)).thenReturn(patient(1L), updated);
+        patientCache.getById(1L);
+
+        // When
+        patientCache.invalidate(1L);
+        Patient reloaded = patientCache.getById(1L);
+
+        // Then
+        assertEquals("新名字", reloaded.getName());
+        verify(patientMapper, times(2)).selectById(1L);
+        assertEquals(1L, patientCache.snapshot().get("invalidations"));
+    }
+
+    @Test
+    void getById_WhenFull_ShouldEvictLeastRecentlyUsed() {
+        // Given
+        when(patientMapper.selectById(1L)).thenReturn(patient(1L));
+        when(patientMapper.selectById(2L)).thenReturn(patient(2L));
+        when(patientMapper.selectById(3L)).thenReturn(patient(3L));
+        when(patientMapper.findByPatientNumber("P002")).thenReturn(Optional.of(patient(2L)));
+        patientCache.getById(1L);
+        patientCache.getById(2L);
+        patientCache.getById(1L);
+
+        // When
+        patientCache.getById(3L);
+
+        // Then
+        assertEquals(2, patientCache.size());
+        assertEquals(1L, patientCache.snapshot().get("evictions"));
+        patientCache.getByPatientNumber("P002");
+        verify(patientMapper).findByPatientNumber("P002");
+    }
+}
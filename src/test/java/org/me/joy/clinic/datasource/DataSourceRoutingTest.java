@@ -0,0 +1,138 @@
+package org.me.joy.clinic.datasource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 数据源路由测试
+ * 使用两个H2内存库分别模拟主库和报表库
+ */
+class DataSourceRoutingTest {
+
+    private ReportingDataSourceHealthChecker healthChecker;
+    private DataSourceRoutingMetrics metrics;
+    private JdbcDataSource reportingDataSource;
+    private SampleReportService service;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primaryDataSource = createDatabase("routing_primary", "primary");
+        reportingDataSource = (JdbcDataSource) createDatabase("routing_reporting", "reporting");
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new RoutingDataSource(primaryDataSource, reportingDataSource));
+        healthChecker = new ReportingDataSourceHealthChecker(reportingDataSource, "SELECT lag_seconds FROM replica_lag", 30);
+        metrics = new DataSourceRoutingMetrics();
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(new SampleReportService(jdbcTemplate));
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new DataSourceRoutingAspect(healthChecker, metrics));
+        service = factory.getProxy();
+    }
+
+    private DataSource createDatabase(String name, String marker) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS db_marker");
+        jdbcTemplate.execute("CREATE TABLE db_marker (name VARCHAR(20))");
+        jdbcTemplate.update("INSERT INTO db_marker VALUES (?)", marker);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS replica_lag");
+        jdbcTemplate.execute("CREATE TABLE replica_lag (lag_seconds BIGINT)");
+        jdbcTemplate.update("INSERT INTO replica_lag VALUES (0)");
+        return dataSource;
+    }
+
+    @Test
+    void testReportingQueryRoutesToReportingDatabase() {
+        assertEquals("reporting", service.report());
+        assertEquals(1, metrics.getServedCount("SampleReportService.report", DataSourceType.REPORTING));
+    }
+
+    @Test
+    void testReadOnlyTransactionRoutesToReportingDatabase() {
+        assertEquals("reporting", service.readOnlyQuery());
+        assertEquals(1, metrics.getServedCount(DataSourceType.REPORTING));
+    }
+
+    @Test
+    void testWriteMethodStaysOnPrimaryDatabase() {
+        assertEquals("primary", service.write());
+        assertEquals("primary", service.plain());
+        assertEquals(0, metrics.getServedCount(DataSourceType.REPORTING));
+    }
+
+    @Test
+    void testFallbackToPrimaryWhenReplicaLagExceedsThreshold() {
+        // Given
+        new JdbcTemplate(reportingDataSource).update("UPDATE replica_lag SET lag_seconds = 120");
+
+        // When
+        healthChecker.check();
+
+        // Then
+        assertFalse(healthChecker.isAvailable());
+        assertEquals(120L, healthChecker.getLastLagSeconds());
+        assertEquals("primary", service.report());
+        assertEquals(1, metrics.getServedCount("SampleReportService.report", DataSourceType.PRIMARY));
+        assertEquals(1, metrics.getFallbackCount());
+
+        // 延迟恢复后重新路由到报表库
+        new JdbcTemplate(reportingDataSource).update("UPDATE replica_lag SET lag_seconds = 1");
+        healthChecker.check();
+        assertTrue(healthChecker.isAvailable());
+        assertEquals("reporting", service.report());
+    }
+
+    @Test
+    void testContextIsRestoredAfterCall() {
+        service.report();
+        assertEquals(DataSourceType.PRIMARY, DataSourceContextHolder.get());
+    }
+
+    /**
+     * 模拟的报表服务
+     */
+    public static class SampleReportService {
+
+        private final JdbcTemplate jdbcTemplate;
+
+        SampleReportService() {
+            this(null);
+        }
+
+        SampleReportService(JdbcTemplate jdbcTemplate) {
+            this.jdbcTemplate = jdbcTemplate;
+        }
+
+        @ReportingQuery
+        public String report() {
+            return currentDatabase();
+        }
+
+        @Transactional(readOnly = true)
+        public String readOnlyQuery() {
+            return currentDatabase();
+        }
+
+        @Transactional
+        public String write() {
+            return currentDatabase();
+        }
+
+        public String plain() {
+            return currentDatabase();
+        }
+
+        private String currentDatabase() {
+            return jdbcTemplate.queryForObject("SELECT name FROM db_marker", String.class);
+        }
+    }
+}
@@ -133,6 +133,7 @@ class MedicalRecordTest {
         medicalRecord.setStatus("已审核");
         medicalRecord.archive();
         assertEquals("已归档", medicalRecord.getStatus());
+        assertNotNull(medicalRecord.getArchivedAt());
 
         // 其他状态不能归档
         medicalRecord.setStatus("草稿");
@@ -0,0 +1,148 @@
+package org.me.joy.clinic.pharmacy;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.me.joy.clinic.entity.AllergyHistory;
+import org.me.joy.clinic.entity.Medicine;
+import org.me.joy.clinic.entity.PrescriptionItem;
+import org.me.joy.clinic.mapper.MedicineMapper;
+import org.me.joy.clinic.service.PrescriptionValidationService.AllergyCheckResult.AllergyRisk;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 过敏筛查测试
+ */
+@ExtendWith(MockitoExtension.class)
+class AllergyEngineTest {
+
+    @Mock
+    private MedicineMapper medicineMapper;
+
+    @InjectMocks
+    private AllergyEngine engine;
+
+    private AllergyHistory allergy(Long id, String allergen, String severity) {
+        AllergyHistory allergy = new AllergyHistory();
+        allergy.setId(id);
+        allergy.setPatientId(1L);
+        allergy.setAllergen(allergen);
+        allergy.setSeverity(severity);
+        return allergy;
+    }
+
+    private PrescriptionItem item(Long medicineId, String medicineName) {
+        PrescriptionItem item = new PrescriptionItem();
+        item.setMedicineId(medicineId);
+        item.setMedicineName(medicineName);
+        return item;
+    }
+
+    private Medicine medicine(Long id, String name, String genericName, String brandName) {
+        Medicine medicine = new Medicine();
+        medicine.setId(id);
+        medicine.setName(name);
+        medicine.setGenericName(genericName);
+        medicine.setBrandName(brandName);
+        return medicine;
+    }
+
+    @Test
+    void screen_ShouldExpandAllergenThroughCrossReactivityClasses() {
+        // Given：青霉素过敏，处方含同类的阿莫西林、交叉过敏的头孢呋辛和无关的布洛芬
+        List<AllergyHistory> allergies = Collections.singletonList(allergy(1L, "青霉素", "严重"));
+
+        // When
+        List<AllergyRisk> risks = engine.screen(allergies, Arrays.asList(
+            item(null, "阿莫西林胶囊"), item(null, "头孢呋辛酯片"), item(null, "布洛芬缓释胶囊")));
+
+        // Then
+        assertEquals(2, risks.size());
+        assertEquals("阿莫西林胶囊", risks.get(0).getMedicineName());
+        assertEquals("青霉素", risks.get(0).getAllergen());
+        assertEquals("严重", risks.get(0).getSeverity());
+        assertTrue(risks.get(0).getDescription().contains("青霉素类"));
+        assertEquals("头孢呋辛酯片", risks.get(1).getMedicineName());
+        assertTrue(risks.get(1).getDescription().contains("交叉过敏"));
+    }
+
+    @Test
+    void screen_ShouldScanGenericAndBrandNameOnceAndReportDirectMatchFirst() {
+        // Given：商品名不含过敏原，通用名含
+        when(medicineMapper.selectBatchIds(any())).thenReturn(Collections.singletonList(
+            medicine(5L, "芬必得", "布洛芬缓释胶囊", "Fenbid")));
+        List<AllergyHistory> allergies = Arrays.asList(
+            allergy(1L, "布洛芬", "中等"), allergy(2L, "阿司匹林", "严重"), allergy(3L, "鸡蛋", "轻微"));
+
+        // When
+        List<AllergyRisk> risks = engine.screen(allergies, Collections.singletonList(item(5L, "芬必得")));
+
+        // Then：布洛芬直接命中，阿司匹林过敏按同属非甾体抗炎药命中，每条过敏史只报一次
+        assertEquals(2, risks.size());
+        assertEquals("患者对 布洛芬 过敏，使用 芬必得 可能有风险", risks.get(0).getDescription());
+        assertEquals("阿司匹林", risks.get(1).getAllergen());
+        assertTrue(risks.get(1).getDescription().contains("非甾体抗炎药"));
+    }
+
+    @Test
+    void screen_ShouldIgnoreCaseAndFullWidthCharacters() {
+        // When
+        List<AllergyRisk> risks = engine.screen(
+            Collections.singletonList(allergy(1L, "Penicillin", "严重")),
+            Collections.singletonList(item(null, "ＰＥＮＩＣＩＬＬＩＮ　Ｖ")));
+
+        // Then
+        assertEquals(1, risks.size());
+    }
+
+    @Test
+    void screen_ShouldCacheAutomatonPerPatientUntilHistoryChanges() {
+        // Given
+        List<AllergyHistory> allergies = Collections.singletonList(allergy(1L, "磺胺", "严重"));
+        List<PrescriptionItem> items = Collections.singletonList(item(null, "复方磺胺甲噁唑片"));
+
+        // When
+        engine.screen(allergies, items);
+        engine.screen(allergies, items);
+        List<AllergyRisk> changed = engine.screen(
+            Collections.singletonList(allergy(1L, "碘海醇", "严重")), items);
+
+        // Then：过敏史指纹变化后重新编译，不会沿用旧的自动机
+        assertTrue(changed.isEmpty());
+        assertEquals(1, engine.cachedPatients());
+        verify(medicineMapper, never()).selectBatchIds(any());
+    }
+
+    @Test
+    void invalidatePatient_ShouldRemoveCachedAutomaton() {
+        // Given
+        engine.screen(Collections.singletonList(allergy(1L, "磺胺", "严重")),
+            Collections.singletonList(item(null, "磺胺嘧啶片")));
+        assertEquals(1, engine.cachedPatients());
+
+        // When
+        engine.invalidatePatient(1L);
+
+        // Then
+        assertEquals(0, engine.cachedPatients());
+    }
+
+    @Test
+    void screen_WithoutAllergies_ShouldNotQueryMedicines() {
+        assertTrue(engine.screen(Collections.emptyList(),
+            Collections.singletonList(item(1L, "阿莫西林胶囊"))).isEmpty());
+        verify(medicineMapper, times(0)).selectBatchIds(any());
+    }
+}
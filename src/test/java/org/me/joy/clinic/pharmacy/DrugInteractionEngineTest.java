@@ -0,0 +1,194 @@
+package org.me.joy.clinic.pharmacy;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.me.joy.clinic.entity.Medicine;
+import org.me.joy.clinic.entity.PrescriptionItem;
+import org.me.joy.clinic.mapper.MedicineMapper;
+import org.me.joy.clinic.service.PrescriptionValidationService.DrugInteractionResult.DrugInteraction;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 药物相互作用知识库测试
+ */
+@ExtendWith(MockitoExtension.class)
+class DrugInteractionEngineTest {
+
+    @Mock
+    private MedicineMapper medicineMapper;
+
+    @InjectMocks
+    private DrugInteractionEngine engine;
+
+    @TempDir
+    Path dir;
+
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = dir.resolve("drug-interactions.csv");
+        Files.writeString(file, String.join("\n",
+            "ingredient_a,ingredient_b,severity,advice",
+            "阿司匹林|乙酰水杨酸,华法林,严重,出血风险增加",
+            "地高辛,维拉帕米,严重,\"监测血药浓度,减量\"",
+            "茶碱|氨茶碱,环丙沙星,严重,茶碱浓度升高",
+            "格式错误的行"));
+        ReflectionTestUtils.setField(engine, "tablePath", file.toString());
+        engine.reload();
+    }
+
+    private Medicine medicine(Long id, String name, String genericName) {
+        Medicine medicine = new Medicine();
+        medicine.setId(id);
+        medicine.setName(name);
+        medicine.setGenericName(genericName);
+        return medicine;
+    }
+
+    private PrescriptionItem item(Long medicineId, String medicineName) {
+        PrescriptionItem item = new PrescriptionItem();
+        item.setMedicineId(medicineId);
+        item.setMedicineName(medicineName);
+        return item;
+    }
+
+    @Test
+    void reload_ShouldSkipHeaderAndMalformedRows() {
+        assertTrue(engine.isReady());
+        assertEquals(3, engine.size());
+    }
+
+    @Test
+    void findInteractions_ShouldResolveIngredientsByGenericNameAndAlias() {
+        // Given：商品名不含成分，通过通用名解析；乙酰水杨酸为阿司匹林的别名
+        when(medicineMapper.selectBatchIds(any())).thenReturn(Arrays.asList(
+            medicine(1L, "拜阿司匹灵", "乙酰水杨酸肠溶片"),
+            medicine(2L, "华法林钠片", null),
+            medicine(3L, "布洛芬缓释胶囊", "布洛芬")));
+
+        // When
+        List<DrugInteraction> result = engine.findInteractions(Arrays.asList(
+            item(2L, "华法林钠片"), item(3L, "布洛芬缓释胶囊"), item(1L, "拜阿司匹灵")));
+
+        // Then
+        assertEquals(1, result.size());
+        DrugInteraction interaction = result.get(0);
+        assertEquals("华法林钠片", interaction.getDrug1());
+        assertEquals("拜阿司匹灵", interaction.getDrug2());
+        assertEquals("严重", interaction.getSeverity());
+        assertEquals("阿司匹林 与 华法林：出血风险增加", interaction.getDescription());
+    }
+
+    @Test
+    void findInteractions_ShouldCacheIngredientsPerMedicine() {
+        // Given
+        when(medicineMapper.selectBatchIds(any())).thenReturn(Arrays.asList(
+            medicine(1L, "地高辛片", "地高辛"),
+            medicine(2L, "盐酸维拉帕米片", "维拉帕米")));
+        List<PrescriptionItem> items = Arrays.asList(item(1L, "地高辛片"), item(2L, "盐酸维拉帕米片"));
+
+        // When
+        List<DrugInteraction> first = engine.findInteractions(items);
+        List<DrugInteraction> second = engine.findInteractions(items);
+
+        // Then：药品只查询一次，带引号的建议字段完整保留
+        assertEquals(1, first.size());
+        assertEquals(1, second.size());
+        assertEquals("地高辛 与 维拉帕米：监测血药浓度,减量", second.get(0).getDescription());
+        verify(medicineMapper, times(1)).selectBatchIds(any());
+    }
+
+    @Test
+    void invalidateMedicine_ShouldResolveAgainOnNextCheck() {
+        // Given
+        when(medicineMapper.selectBatchIds(any()))
+            .thenReturn(Arrays.asList(medicine(1L, "地高辛片", "地高辛"), medicine(2L, "维生素C片", null)))
+            .thenReturn(Collections.singletonList(medicine(2L, "盐酸维拉帕米片", "维拉帕米")));
+        List<PrescriptionItem> items = Arrays.asList(item(1L, "地高辛片"), item(2L, "维生素C片"));
+        assertTrue(engine.findInteractions(items).isEmpty());
+
+        // When
+        engine.invalidateMedicine(2L);
+        List<DrugInteraction> result = engine.findInteractions(items);
+
+        // Then
+        assertEquals(1, result.size());
+        verify(medicineMapper, times(2)).selectBatchIds(any());
+    }
+
+    @Test
+    void findInteractions_WithoutMedicineId_ShouldUseItemNameAndLongestMatch() {
+        // When：氨茶碱整体匹配为一个成分，不再额外匹配其中的茶碱
+        List<DrugInteraction> result = engine.findInteractions(Arrays.asList(
+            item(null, "氨茶碱注射液"), item(null, "乳酸环丙沙星片")));
+
+        // Then
+        assertEquals(1, result.size());
+        assertEquals("茶碱 与 环丙沙星：茶碱浓度升高", result.get(0).getDescription());
+    }
+
+    @Test
+    void reloadIfChanged_ShouldSwapSnapshotWhenFileModified() throws IOException {
+        // Given
+        Files.writeString(file, "ingredient_a,ingredient_b,severity,advice\n西地那非,硝酸甘油,严重,禁止合用\n");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 10_000));
+
+        // When
+        engine.reloadIfChanged();
+
+        // Then
+        assertEquals(1, engine.size());
+        assertEquals(1, engine.findInteractions(Arrays.asList(
+            item(null, "西地那非片"), item(null, "硝酸甘油片"))).size());
+        assertTrue(engine.findInteractions(Arrays.asList(
+            item(null, "阿司匹林肠溶片"), item(null, "华法林钠片"))).isEmpty());
+    }
+
+    @Test
+    void reload_WithoutPath_ShouldUseBuiltinTable() {
+        // Given
+        ReflectionTestUtils.setField(engine, "tablePath", "");
+
+        // When
+        int size = engine.reload();
+
+        // Then
+        assertTrue(size > 30);
+        assertEquals(1, engine.findInteractions(Arrays.asList(
+            item(null, "阿司匹林肠溶片"), item(null, "华法林钠片"))).size());
+    }
+
+    @Test
+    void pairIndex_ShouldStorePackedKeysRegardlessOfOrder() {
+        // Given
+        DrugInteractionEngine.PairIndex index = new DrugInteractionEngine.PairIndex(100);
+        for (int i = 1; i <= 100; i++) {
+            index.put(DrugInteractionEngine.pairKey(i, i + 1000), i);
+        }
+
+        // When & Then
+        assertEquals(7, index.get(DrugInteractionEngine.pairKey(1007, 7)));
+        assertEquals(100, index.get(DrugInteractionEngine.pairKey(100, 1100)));
+        assertEquals(-1, index.get(DrugInteractionEngine.pairKey(1, 2)));
+    }
+}
@@ -0,0 +1,146 @@
+package org.me.joy.clinic.revision;
+
+import org.junit.jupiter.api.Test;
+import org.me.joy.clinic.entity.MedicalRecord;
+import org.springframework.beans.BeanUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 病历修订记录编解码测试
+ */
+class MedicalRecordRevisionCodecTest {
+
+    private MedicalRecord record() {
+        MedicalRecord record = new MedicalRecord();
+        record.setChiefComplaint("反复咳嗽3天");
+        record.setPresentIllness("患者3天前受凉后出现咳嗽，咳少量白痰，无发热。".repeat(20));
+        record.setTreatmentPlan("对症治疗，多饮水，注意休息。");
+        record.setDepartment("内科");
+        record.setIsInfectious(false);
+        return record;
+    }
+
+    private MedicalRecord copy(MedicalRecord source) {
+        MedicalRecord copy = new MedicalRecord();
+        BeanUtils.copyProperties(source, copy);
+        return copy;
+    }
+
+    private void assertSameContent(MedicalRecord expected, MedicalRecord actual) {
+        assertEquals(expected.getChiefComplaint(), actual.getChiefComplaint());
+        assertEquals(expected.getPresentIllness(), actual.getPresentIllness());
+        assertEquals(expected.getTreatmentPlan(), actual.getTreatmentPlan());
+        assertEquals(expected.getDepartment(), actual.getDepartment());
+        assertEquals(expected.getIsInfectious(), actual.getIsInfectious());
+        assertEquals(expected.getRemarks(), actual.getRemarks());
+    }
+
+    @Test
+    void snapshot_ShouldRestoreAllFieldsIndependently() {
+        // Given
+        MedicalRecord original = record();
+
+        // When
+        MedicalRecord restored = new MedicalRecord();
+        restored.setRemarks("旧备注");
+        MedicalRecordRevisionCodec.apply(MedicalRecordRevisionCodec.encodeSnapshot(original), restored);
+
+        // Then
+        assertSameContent(original, restored);
+        assertNull(restored.getRemarks());
+    }
+
+    @Test
+    void delta_ShouldOnlyEncodeChangedFieldsAsEdits() {
+        // Given：在长文本末尾追加一句，并修改布尔字段和清空科室
+        MedicalRecord before = record();
+        MedicalRecord after = copy(before);
+        after.setPresentIllness(before.getPresentIllness() + "今日出现低热。");
+        after.setIsInfectious(true);
+        after.setDepartment(null);
+
+        // When
+        byte[] delta = MedicalRecordRevisionCodec.encodeDelta(before, after);
+        MedicalRecord restored = copy(before);
+        MedicalRecordRevisionCodec.apply(delta, restored);
+
+        // Then：增量只包含追加的内容，远小于完整文本
+        assertSameContent(after, restored);
+        assertEquals(Arrays.asList("presentIllness", "department", "isInfectious"),
+            MedicalRecordRevisionCodec.changedFields(before, after));
+        assertTrue(delta.length < 40, "delta size " + delta.length);
+    }
+
+    @Test
+    void delta_WithoutChanges_ShouldReturnNull() {
+        MedicalRecord before = record();
+        assertNull(MedicalRecordRevisionCodec.encodeDelta(before, copy(before)));
+        assertEquals(Collections.emptyList(), MedicalRecordRevisionCodec.changedFields(before, copy(before)));
+    }
+
+    @Test
+    void delta_ShouldNotSplitSurrogatePairs() {
+        // Given：前后版本共享代理对的高位
+        MedicalRecord before = record();
+        before.setRemarks("备注😀结束");
+        MedicalRecord after = copy(before);
+        after.setRemarks("备注😁结束");
+
+        // When
+        MedicalRecord restored = copy(before);
+        MedicalRecordRevisionCodec.apply(MedicalRecordRevisionCodec.encodeDelta(before, after), restored);
+
+        // Then
+        assertEquals(after.getRemarks(), restored.getRemarks());
+    }
+
+    @Test
+    void apply_WithMismatchedBase_ShouldThrow() {
+        // Given
+        MedicalRecord before = record();
+        MedicalRecord after = copy(before);
+        after.setPresentIllness(before.getPresentIllness() + "补充");
+        byte[] delta = MedicalRecordRevisionCodec.encodeDelta(before, after);
+
+        // When & Then
+        MedicalRecord wrongBase = new MedicalRecord();
+        wrongBase.setPresentIllness("短");
+        assertThrows(IllegalArgumentException.class, () -> MedicalRecordRevisionCodec.apply(delta, wrongBase));
+        assertThrows(IllegalArgumentException.class,
+            () -> MedicalRecordRevisionCodec.apply(Arrays.copyOf(delta, delta.length - 1), copy(before)));
+    }
+
+    @Test
+    void storageGrowth_ShouldStayFarBelowFullCopies() {
+        // Given：100 次修改，每次在现病史或治疗方案后追加一句，每 20 个版本一次快照
+        int revisions = 100;
+        int snapshotInterval = 20;
+        MedicalRecord current = record();
+        long fullCopyBytes = MedicalRecordRevisionCodec.encodeSnapshot(current).length;
+        long revisionBytes = fullCopyBytes;
+
+        // When
+        for (int revision = 2; revision <= revisions; revision++) {
+            MedicalRecord next = copy(current);
+            if (revision % 2 == 0) {
+                next.setPresentIllness(current.getPresentIllness() + "第" + revision + "次复诊症状好转。");
+            } else {
+                next.setTreatmentPlan(current.getTreatmentPlan() + "调整用药" + revision + "。");
+            }
+            byte[] snapshot = MedicalRecordRevisionCodec.encodeSnapshot(next);
+            fullCopyBytes += snapshot.length;
+            revisionBytes += (revision - 1) % snapshotInterval == 0
+                ? snapshot.length
+                : MedicalRecordRevisionCodec.encodeDelta(current, next).length;
+            current = next;
+        }
+
+        // Then：修订记录总大小不到全量复制的 10%
+        assertTrue(revisionBytes * 10 < fullCopyBytes,
+            "revision log " + revisionBytes + " bytes vs full copies " + fullCopyBytes + " bytes");
+    }
+}
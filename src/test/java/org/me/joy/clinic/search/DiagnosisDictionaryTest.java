@@ -0,0 +1,170 @@
+package org.me.joy.clinic.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.me.joy.clinic.dto.DiagnosisCodeSuggestion;
+import org.me.joy.clinic.mapper.DiagnosisMapper;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 诊断编码字典测试
+ */
+@ExtendWith(MockitoExtension.class)
+class DiagnosisDictionaryTest {
+
+    @Mock
+    private DiagnosisMapper diagnosisMapper;
+
+    @InjectMocks
+    private DiagnosisDictionary dictionary;
+
+    @TempDir
+    Path dir;
+
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = dir.resolve("icd10.tsv");
+        Files.writeString(file, String.join("\n",
+            "# 测试字典",
+            "J06.9\t急性上呼吸道感染",
+            "J02.9\t急性咽炎",
+            "I10\t原发性高血压",
+            "N39.0\t泌尿道感染",
+            "A09\t感染性腹泻",
+            "格式错误的行"));
+        ReflectionTestUtils.setField(dictionary, "dictionaryPath", file.toString());
+        dictionary.reload();
+    }
+
+    private List<String> codes(List<DiagnosisCodeSuggestion> suggestions) {
+        return suggestions.stream().map(DiagnosisCodeSuggestion::getCode).collect(Collectors.toList());
+    }
+
+    private Map<String, Object> usageRow(String code, long count) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("diagnosis_code", code);
+        row.put("count", count);
+        return row;
+    }
+
+    @Test
+    void reload_ShouldSkipCommentsAndMalformedLines() {
+        assertTrue(dictionary.isReady());
+        assertEquals(5, dictionary.size());
+    }
+
+    @Test
+    void search_ByCodePrefix_ShouldIgnoreCaseAndDot() {
+        // When & Then
+        assertEquals(Arrays.asList("J02.9", "J06.9"), codes(dictionary.search("j0", null, 10)));
+        assertEquals(Collections.singletonList("J06.9"), codes(dictionary.search("J069", null, 10)));
+        assertEquals("J06.9", dictionary.search("j06.9", null, 10).get(0).getCode());
+    }
+
+    @Test
+    void search_ByNameSubstring_ShouldRankNamePrefixFirst() {
+        // When
+        List<DiagnosisCodeSuggestion> result = dictionary.search("感染", null, 10);
+
+        // Then：名称以查询词开头的排在前面，其余按编码排序
+        assertEquals(Arrays.asList("A09", "J06.9", "N39.0"), codes(result));
+        assertEquals("感染性腹泻", result.get(0).getName());
+    }
+
+    @Test
+    void search_ByPinyinInitials_ShouldMatchInsideName() {
+        // When & Then
+        assertEquals(Collections.singletonList("I10"), codes(dictionary.search("gxy", null, 10)));
+        assertEquals(Collections.singletonList("J02.9"), codes(dictionary.search("jxyy", null, 10)));
+    }
+
+    @Test
+    void search_WithDoctorUsage_ShouldRankFrequentCodesFirstAndCacheCounts() {
+        // Given
+        when(diagnosisMapper.countCodesByDoctor(2L))
+            .thenReturn(Collections.singletonList(usageRow("N39.0", 3L)));
+
+        // When
+        List<DiagnosisCodeSuggestion> first = dictionary.search("感染", 2L, 10);
+        dictionary.recordUsage(2L, "j06.9");
+        dictionary.recordUsage(2L, "J06.9");
+        dictionary.recordUsage(2L, "J06.9");
+        dictionary.recordUsage(2L, "J06.9");
+        List<DiagnosisCodeSuggestion> second = dictionary.search("感染", 2L, 10);
+
+        // Then
+        assertEquals(Arrays.asList("N39.0", "A09", "J06.9"), codes(first));
+        assertEquals(3, first.get(0).getUsageCount());
+        assertEquals(Arrays.asList("J06.9", "N39.0", "A09"), codes(second));
+        assertEquals(4, second.get(0).getUsageCount());
+        verify(diagnosisMapper, times(1)).countCodesByDoctor(2L);
+    }
+
+    @Test
+    void invalidateUsage_ShouldReloadCountsFromDatabase() {
+        // Given - 医生的 N39.0 诊断被删除后数据库中不再有使用记录
+        when(diagnosisMapper.countCodesByDoctor(2L))
+            .thenReturn(Collections.singletonList(usageRow("N39.0", 3L)))
+            .thenReturn(Collections.emptyList());
+        dictionary.search("感染", 2L, 10);
+
+        // When
+        dictionary.invalidateUsage(2L);
+        List<DiagnosisCodeSuggestion> result = dictionary.search("感染", 2L, 10);
+
+        // Then
+        assertEquals(0, result.get(0).getUsageCount());
+        verify(diagnosisMapper, times(2)).countCodesByDoctor(2L);
+    }
+
+    @Test
+    void reloadIfChanged_ShouldSwapSnapshotWhenFileModified() throws IOException {
+        // Given
+        Files.writeString(file, "K29.7\t胃炎\n");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 10_000));
+
+        // When
+        dictionary.reloadIfChanged();
+
+        // Then
+        assertEquals(1, dictionary.size());
+        assertEquals(Collections.singletonList("K29.7"), codes(dictionary.search("wy", null, 10)));
+        assertTrue(dictionary.search("J06", null, 10).isEmpty());
+    }
+
+    @Test
+    void reload_WithoutPath_ShouldUseBuiltinDictionary() {
+        // Given
+        ReflectionTestUtils.setField(dictionary, "dictionaryPath", "");
+
+        // When
+        int size = dictionary.reload();
+
+        // Then
+        assertTrue(size > 50);
+        assertEquals("I10", dictionary.search("I10", null, 5).get(0).getCode());
+    }
+}
@@ -0,0 +1,201 @@
+package org.me.joy.clinic.search;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.me.joy.clinic.archive.MedicalRecordColdStore;
+import org.me.joy.clinic.dto.MedicalRecordSearchHit;
+import org.me.joy.clinic.entity.Diagnosis;
+import org.me.joy.clinic.entity.MedicalRecord;
+import org.me.joy.clinic.mapper.DiagnosisMapper;
+import org.me.joy.clinic.mapper.MedicalRecordMapper;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * 病历全文索引测试
+ */
+@ExtendWith(MockitoExtension.class)
+class MedicalRecordTextIndexTest {
+
+    @Mock
+    private MedicalRecordMapper medicalRecordMapper;
+
+    @Mock
+    private DiagnosisMapper diagnosisMapper;
+
+    @Mock
+    private MedicalRecordColdStore medicalRecordColdStore;
+
+    @InjectMocks
+    private MedicalRecordTextIndex index;
+
+    @TempDir
+    Path indexDir;
+
+    private final LocalDateTime updatedAt = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(index, "indexDir", indexDir.toString());
+    }
+
+    private MedicalRecord record(long id, long doctorId, String department, LocalDate date, String chiefComplaint) {
+        MedicalRecord record = new MedicalRecord();
+        record.setId(id);
+        record.setPatientId(100L + id);
+        record.setDoctorId(doctorId);
+        record.setDepartment(department);
+        record.setRecordNumber("MR" + id);
+        record.setRecordDate(date.atTime(9, 0));
+        record.setChiefComplaint(chiefComplaint);
+        record.setUpdatedAt(updatedAt);
+        return record;
+    }
+
+    private List<MedicalRecord> records() {
+        MedicalRecord first = record(1L, 10L, "内科", LocalDate.of(2024, 1, 5), "头痛三天，伴发热");
+        MedicalRecord second = record(2L, 11L, "神经内科", LocalDate.of(2024, 3, 1), "反复头痛");
+        second.setFinalDiagnosis("紧张性头痛");
+        second.setPresentIllness("头痛加重一周");
+        MedicalRecord third = record(3L, 10L, "内科", LocalDate.of(2024, 3, 2), "咳嗽咳痰");
+        return Arrays.asList(first, second, third);
+    }
+
+    private void rebuildWith(List<MedicalRecord> records) {
+        Diagnosis diagnosis = new Diagnosis();
+        diagnosis.setMedicalRecordId(1L);
+        diagnosis.setDiagnosisName("上呼吸道感染");
+        when(medicalRecordMapper.findTextIndexRows(0L, 2000)).thenReturn(records);
+        when(diagnosisMapper.selectList(any(QueryWrapper.class))).thenReturn(Collections.singletonList(diagnosis));
+        index.onApplicationReady();
+    }
+
+    private List<Long> ids(List<MedicalRecordSearchHit> hits) {
+        return hits.stream().map(MedicalRecordSearchHit::getRecordId).collect(Collectors.toList());
+    }
+
+    private long segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(indexDir)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".seg")).count();
+        }
+    }
+
+    @Test
+    void search_ShouldRankByRelevanceAndApplyFilters() {
+        // Given
+        rebuildWith(records());
+
+        // When & Then
+        assertTrue(index.isReady());
+        assertEquals(3, index.size());
+        assertEquals(Arrays.asList(2L, 1L), ids(index.search("头痛", null, null, null, null, 10)));
+        assertEquals(Collections.singletonList(1L), ids(index.search("头痛", 10L, null, null, null, 10)));
+        assertEquals(Collections.singletonList(1L), ids(index.search("头痛", null, "内科", null, null, 10)));
+        assertEquals(Collections.singletonList(2L),
+            ids(index.search("头痛", null, null, LocalDate.of(2024, 2, 1), null, 10)));
+        assertEquals(Collections.singletonList(1L), ids(index.search("感染", null, null, null, null, 10)));
+        assertEquals(Collections.singletonList(3L), ids(index.search("咳", null, null, null, null, 10)));
+        assertTrue(index.search("胸闷", null, null, null, null, 10).isEmpty());
+
+        MedicalRecordSearchHit hit = index.search("发热", null, null, null, null, 10).get(0);
+        assertEquals("MR1", hit.getRecordNumber());
+        assertEquals(101L, hit.getPatientId());
+        assertEquals("内科", hit.getDepartment());
+        assertEquals(LocalDate.of(2024, 1, 5), hit.getRecordDate());
+    }
+
+    @Test
+    void indexAndRemove_ShouldReplacePreviousVersion() {
+        // Given
+        rebuildWith(records());
+        MedicalRecord updated = record(3L, 10L, "内科", LocalDate.of(2024, 3, 2), "头痛伴咳嗽");
+
+        // When
+        index.index(updated, Collections.emptyList());
+        index.remove(1L);
+
+        // Then
+        assertEquals(Arrays.asList(2L, 3L), ids(index.search("头痛", null, null, null, null, 10)));
+        assertEquals(Collections.singletonList(3L), ids(index.search("咳嗽", null, null, null, null, 10)));
+        assertTrue(index.search("咳痰", null, null, null, null, 10).isEmpty());
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void restart_ShouldLoadSegmentsAndReconcileWithDatabase() {
+        // Given
+        rebuildWith(records());
+        MedicalRecord updated = record(2L, 11L, "神经内科", LocalDate.of(2024, 3, 1), "眩晕");
+        updated.setUpdatedAt(updatedAt.plusHours(1));
+        index.index(updated, Collections.emptyList());
+        index.flush();
+
+        MedicalRecord deleted = new MedicalRecord();
+        deleted.setId(1L);
+        deleted.setDeleted(true);
+        deleted.setUpdatedAt(updatedAt);
+        MedicalRecord unchanged = new MedicalRecord();
+        unchanged.setId(2L);
+        unchanged.setUpdatedAt(updatedAt.plusHours(1));
+        MedicalRecord added = record(4L, 12L, "内科", LocalDate.of(2024, 4, 1), "头痛");
+        MedicalRecord addedVersion = new MedicalRecord();
+        addedVersion.setId(4L);
+        addedVersion.setUpdatedAt(updatedAt);
+        when(medicalRecordMapper.findTextIndexVersions(0L, 2000)).thenReturn(Arrays.asList(deleted, unchanged, addedVersion));
+        when(medicalRecordMapper.selectBatchIds(Collections.singletonList(4L))).thenReturn(Collections.singletonList(added));
+
+        // When（记录3在数据库中已不存在）
+        MedicalRecordTextIndex restarted = new MedicalRecordTextIndex();
+        ReflectionTestUtils.setField(restarted, "medicalRecordMapper", medicalRecordMapper);
+        ReflectionTestUtils.setField(restarted, "diagnosisMapper", diagnosisMapper);
+        ReflectionTestUtils.setField(restarted, "medicalRecordColdStore", medicalRecordColdStore);
+        ReflectionTestUtils.setField(restarted, "indexDir", indexDir.toString());
+        restarted.onApplicationReady();
+
+        // Then
+        assertTrue(restarted.isReady());
+        assertEquals(2, restarted.size());
+        assertEquals(Collections.singletonList(4L), ids(restarted.search("头痛", null, null, null, null, 10)));
+        assertEquals(Collections.singletonList(2L), ids(restarted.search("眩晕", null, null, null, null, 10)));
+        assertTrue(restarted.search("咳嗽", null, null, null, null, 10).isEmpty());
+    }
+
+    @Test
+    void flush_WithTooManySegments_ShouldMergeThem() throws IOException {
+        // Given
+        ReflectionTestUtils.setField(index, "flushDocs", 1);
+        ReflectionTestUtils.setField(index, "maxSegments", 2);
+        rebuildWith(records());
+        index.remove(3L);
+        assertEquals(4, segmentFiles());
+
+        // When
+        index.flush();
+
+        // Then
+        assertEquals(1, segmentFiles());
+        assertEquals(2, index.size());
+        assertEquals(Arrays.asList(2L, 1L), ids(index.search("头痛", null, null, null, null, 10)));
+        assertTrue(index.search("咳嗽", null, null, null, null, 10).isEmpty());
+    }
+}
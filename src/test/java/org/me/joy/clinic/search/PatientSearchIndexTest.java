@@ -0,0 +1,124 @@
+package org.me.joy.clinic.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.me.joy.clinic.entity.Patient;
+import org.me.joy.clinic.mapper.PatientMapper;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+/**
+ * 患者搜索N-gram索引测试
+ */
+@ExtendWith(MockitoExtension.class)
+class PatientSearchIndexTest {
+
+    @Mock
+    private PatientMapper patientMapper;
+
+    @InjectMocks
+    private PatientSearchIndex patientSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        when(patientMapper.findSearchIndexRows(anyLong(), anyInt())).thenReturn(Arrays.asList(
+            patient(1L, "张三", "13800138000", "P202401010001", "110101199001011234"),
+            patient(2L, "张三丰", "13900139000", "P202401010002", "110101199002021234"),
+            patient(3L, "李四", "13700137000", "P202401010003", null),
+            patient(4L, "王张三", "13600136000", "P202401010004", "11010119900303123X")
+        ));
+        patientSearchIndex.rebuild();
+    }
+
+    private Patient patient(Long id, String name, String phone, String number, String idCard) {
+        Patient patient = new Patient();
+        patient.setId(id);
+        patient.setName(name);
+        patient.setPhone(phone);
+        patient.setPatientNumber(number);
+        patient.setIdCard(idCard);
+        return patient;
+    }
+
+    @Test
+    void testExactNameMatchRanksFirst() {
+        List<Long> result = patientSearchIndex.search("张三", 10);
+        assertEquals(Arrays.asList(1L, 4L, 2L), result);
+    }
+
+    @Test
+    void testSingleCharacterNameSearch() {
+        List<Long> result = patientSearchIndex.search("李", 10);
+        assertEquals(Arrays.asList(3L), result);
+    }
+
+    @Test
+    void testDigitAndCodeSearch() {
+        assertEquals(Arrays.asList(2L), patientSearchIndex.search("139001", 10));
+        assertEquals(Arrays.asList(3L), patientSearchIndex.search("P202401010003", 10));
+        assertEquals(Arrays.asList(4L), patientSearchIndex.search("0303123x", 10));
+        assertTrue(patientSearchIndex.search("999", 10).isEmpty());
+    }
+
+    @Test
+    void testTopKLimit() {
+        assertEquals(2, patientSearchIndex.search("p2024", 2).size());
+    }
+
+    @Test
+    void testShortCodeKeywordFallsBackToDatabase() {
+        assertNull(patientSearchIndex.search("13", 10));
+    }
+
+    @Test
+    void testIndexUpdateAndRemove() {
+        // When
+        patientSearchIndex.index(patient(3L, "李思思", "13700137000", "P202401010003", null));
+        patientSearchIndex.remove(1L);
+
+        // Then
+        assertEquals(Arrays.asList(3L), patientSearchIndex.search("思思", 10));
+        assertEquals(Arrays.asList(4L, 2L), patientSearchIndex.search("张三", 10));
+        assertEquals(3, patientSearchIndex.size());
+    }
+
+    @Test
+    void testUpdatedPatientKeepsCreationOrder() {
+        // When
+        patientSearchIndex.index(patient(2L, "张三丰", "13900139999", "P202401010002", "110101199002021234"));
+
+        // Then 修改不改变按创建顺序（患者ID倒序）的排名
+        assertEquals(Arrays.asList(1L, 4L, 2L), patientSearchIndex.search("张三", 10));
+    }
+
+    @Test
+    void testWritesCommittedDuringRebuildAreReplayed() {
+        // Given 加载期间有患者新增和删除提交，读到的批次不包含这些变化
+        when(patientMapper.findSearchIndexRows(anyLong(), anyInt())).thenAnswer(invocation -> {
+            patientSearchIndex.index(patient(5L, "张三四", "13500135000", "P202401010005", null));
+            patientSearchIndex.remove(4L);
+            return Arrays.asList(
+                patient(1L, "张三", "13800138000", "P202401010001", "110101199001011234"),
+                patient(4L, "王张三", "13600136000", "P202401010004", "11010119900303123X")
+            );
+        });
+
+        // When
+        patientSearchIndex.rebuild();
+
+        // Then
+        assertTrue(patientSearchIndex.isReady());
+        assertEquals(Arrays.asList(1L, 5L), patientSearchIndex.search("张三", 10));
+        assertEquals(2, patientSearchIndex.size());
+    }
+}
@@ -0,0 +1,57 @@
+package org.me.joy.clinic.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 拼音前缀字典树测试
+ */
+class PinyinPrefixTrieTest {
+
+    private PinyinPrefixTrie trie() {
+        PinyinPrefixTrie trie = new PinyinPrefixTrie();
+        trie.put(1L, "zhangsan", "zs");
+        trie.put(2L, "zhangsanfeng", "zsf");
+        trie.put(3L, "zhaosi", "zs");
+        trie.put(4L, "lisi", "ls");
+        return trie;
+    }
+
+    @Test
+    void testInitialsPrefixReturnsShortestKeysFirst() {
+        // When
+        List<Long> result = trie().prefixSearch("zs", 10);
+
+        // Then
+        assertEquals(Arrays.asList(1L, 3L, 2L), result);
+    }
+
+    @Test
+    void testFullPinyinPrefixAndLimit() {
+        PinyinPrefixTrie trie = trie();
+
+        assertEquals(Arrays.asList(1L, 2L), trie.prefixSearch("zhangs", 10));
+        assertEquals(1, trie.prefixSearch("z", 1).size());
+        assertTrue(trie.prefixSearch("wang", 10).isEmpty());
+    }
+
+    @Test
+    void testPutReplacesAndRemoveDropsKeys() {
+        // Given
+        PinyinPrefixTrie trie = trie();
+
+        // When
+        trie.put(1L, "wangwu", "ww");
+        trie.remove(4L);
+
+        // Then
+        assertEquals(Arrays.asList(3L, 2L), trie.prefixSearch("zs", 10));
+        assertEquals(Arrays.asList(1L), trie.prefixSearch("ww", 10));
+        assertTrue(trie.prefixSearch("ls", 10).isEmpty());
+        assertEquals(3, trie.size());
+    }
+}
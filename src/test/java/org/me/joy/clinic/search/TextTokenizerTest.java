@@ -0,0 +1,39 @@
+package org.me.joy.clinic.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 中文文本分词器测试
+ */
+class TextTokenizerTest {
+
+    @Test
+    void testIndexTokensIncludeUnigramsAndBigrams() {
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = TextTokenizer.tokenize("头痛，头晕", 2, frequencies);
+
+        assertEquals(6, length);
+        assertEquals(4, frequencies.get("头"));
+        assertEquals(2, frequencies.get("头痛"));
+        assertEquals(2, frequencies.get("头晕"));
+        assertNull(frequencies.get("痛头"));
+    }
+
+    @Test
+    void testQueryTermsUseBigramsAndWords() {
+        assertEquals(Arrays.asList("头痛", "痛加", "加重"), TextTokenizer.queryTerms("头痛加重"));
+        assertEquals(Collections.singletonList("咳"), TextTokenizer.queryTerms("咳"));
+        // 全角字母转半角并转小写
+        assertEquals(Arrays.asList("ct", "检查"), TextTokenizer.queryTerms("ＣＴ检查"));
+        assertEquals(Arrays.asList("j06", "903"), TextTokenizer.queryTerms("J06.903"));
+        assertTrue(TextTokenizer.queryTerms(" ，。").isEmpty());
+        assertTrue(TextTokenizer.queryTerms(null).isEmpty());
+    }
+}
@@ -0,0 +1,173 @@
+package org.me.joy.clinic.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.me.joy.clinic.dto.*;
+import org.me.joy.clinic.service.FinancialReportService;
+import org.me.joy.clinic.service.OperationalAnalyticsService;
+import org.me.joy.clinic.service.PatientAnalyticsService;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * 分析仪表盘服务实现类测试
+ */
+@ExtendWith(MockitoExtension.class)
+class AnalyticsDashboardServiceImplTest {
+
+    @Mock
+    private FinancialReportService financialReportService;
+
+    @Mock
+    private OperationalAnalyticsService operationalAnalyticsService;
+
+    @Mock
+    private PatientAnalyticsService patientAnalyticsService;
+
+    @InjectMocks
+    private AnalyticsDashboardServiceImpl analyticsDashboardService;
+
+    private ExecutorService executor;
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(6);
+        ReflectionTestUtils.setField(analyticsDashboardService, "analyticsExecutor", executor);
+        ReflectionTestUtils.setField(analyticsDashboardService, "sectionTimeoutMillis", 500L);
+        ReflectionTestUtils.setField(analyticsDashboardService, "totalBudgetMillis", 1000L);
+        startDate = LocalDate.of(2024, 1, 1);
+        endDate = LocalDate.of(2024, 1, 31);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private void stubOperationalSections() {
+        when(financialReportService.generateDailyReport(any(LocalDate.class)))
+            .thenReturn(new DailyFinancialReport(LocalDate.now()));
+        when(operationalAnalyticsService.getPatientVisitAnalytics(startDate, endDate))
+            .thenReturn(new PatientVisitAnalytics(startDate, 150L, 50L, 100L, 4.84, 25L, "09:00-10:00"));
+        when(operationalAnalyticsService.getWaitTimeAnalytics(startDate, endDate))
+            .thenReturn(new WaitTimeAnalytics(startDate, 20.0, 18.0, 40.0, 5.0, 10L, 8L, 80.0, "09:00-10:00"));
+        when(operationalAnalyticsService.getPopularServices(startDate, endDate))
+            .thenReturn(Collections.singletonList(new PopularService("内科科", "内科", 80L, 100.0, "内科")));
+    }
+
+    private void stubCommonDiagnoses() {
+        when(patientAnalyticsService.getCommonDiagnoses(startDate, endDate))
+            .thenReturn(Collections.singletonList(new CommonDiagnosis("J00", "急性鼻咽炎", 12L, 100.0)));
+    }
+
+    @Test
+    void testGetDashboardLoadsAllSections() {
+        // Given
+        PatientDemographics demographics = new PatientDemographics(100L, Collections.emptyMap(),
+            Collections.emptyMap(), new BigDecimal("35.0"), Collections.emptyMap());
+        stubOperationalSections();
+        stubCommonDiagnoses();
+        when(patientAnalyticsService.getPatientDemographics()).thenReturn(demographics);
+
+        // When
+        AnalyticsDashboard dashboard = analyticsDashboardService.getDashboard(startDate, endDate);
+
+        // Then
+        assertNotNull(dashboard);
+        assertFalse(dashboard.isPartial());
+        assertNotNull(dashboard.getTodayFinancialReport());
+        assertEquals(150L, dashboard.getPatientVisitAnalytics().getTotalVisits());
+        assertEquals(20.0, dashboard.getWaitTimeAnalytics().getAverageWaitTime());
+        assertEquals(1, dashboard.getPopularServices().size());
+        assertSame(demographics, dashboard.getPatientDemographics());
+        assertEquals(1, dashboard.getCommonDiagnoses().size());
+        assertEquals(6, dashboard.getSectionStatus().size());
+        assertTrue(dashboard.getSectionStatus().values().stream().allMatch(AnalyticsDashboard.SECTION_OK::equals));
+        assertNotNull(dashboard.getTotalElapsedMillis());
+    }
+
+    @Test
+    void testSlowSectionFallsBackToStaleCache() {
+        // Given - 第一次请求正常加载，写入降级缓存
+        PatientDemographics cachedDemographics = new PatientDemographics(100L, Collections.emptyMap(),
+            Collections.emptyMap(), new BigDecimal("35.0"), Collections.emptyMap());
+        stubOperationalSections();
+        stubCommonDiagnoses();
+        when(patientAnalyticsService.getPatientDemographics()).thenReturn(cachedDemographics);
+        analyticsDashboardService.getDashboard(startDate, endDate);
+
+        // 第二次请求人口统计分区超时
+        when(patientAnalyticsService.getPatientDemographics()).thenAnswer(invocation -> {
+            Thread.sleep(2000);
+            return new PatientDemographics();
+        });
+
+        // When
+        AnalyticsDashboard dashboard = analyticsDashboardService.getDashboard(startDate, endDate);
+
+        // Then
+        assertTrue(dashboard.isPartial());
+        assertEquals(AnalyticsDashboard.SECTION_STALE,
+            dashboard.getSectionStatus().get(AnalyticsDashboardServiceImpl.SECTION_DEMOGRAPHICS));
+        assertSame(cachedDemographics, dashboard.getPatientDemographics());
+        assertEquals(AnalyticsDashboard.SECTION_OK,
+            dashboard.getSectionStatus().get(AnalyticsDashboardServiceImpl.SECTION_PATIENT_VISITS));
+        assertTrue(dashboard.getTotalElapsedMillis() < 2000);
+    }
+
+    @Test
+    void testFailedSectionWithoutCacheIsReported() {
+        // Given
+        stubOperationalSections();
+        when(patientAnalyticsService.getPatientDemographics()).thenReturn(new PatientDemographics());
+        when(patientAnalyticsService.getCommonDiagnoses(startDate, endDate))
+            .thenThrow(new RuntimeException("数据库异常"));
+
+        // When
+        AnalyticsDashboard dashboard = analyticsDashboardService.getDashboard(startDate, endDate);
+
+        // Then
+        assertTrue(dashboard.isPartial());
+        assertNull(dashboard.getCommonDiagnoses());
+        assertEquals(AnalyticsDashboard.SECTION_FAILED,
+            dashboard.getSectionStatus().get(AnalyticsDashboardServiceImpl.SECTION_COMMON_DIAGNOSES));
+        assertEquals(AnalyticsDashboard.SECTION_OK,
+            dashboard.getSectionStatus().get(AnalyticsDashboardServiceImpl.SECTION_WAIT_TIME));
+    }
+
+    @Test
+    void testRejectedSectionsTimeOutWithoutRunningOnCaller() {
+        // Given - 线程池队列已满，所有分区提交均被拒绝
+        ReflectionTestUtils.setField(analyticsDashboardService, "analyticsExecutor", (Executor) command -> {
+            throw new RejectedExecutionException("queue full");
+        });
+
+        // When
+        AnalyticsDashboard dashboard = analyticsDashboardService.getDashboard(startDate, endDate);
+
+        // Then
+        assertTrue(dashboard.isPartial());
+        assertEquals(6, dashboard.getSectionStatus().size());
+        assertTrue(dashboard.getSectionStatus().values().stream().allMatch(AnalyticsDashboard.SECTION_TIMEOUT::equals));
+        verifyNoInteractions(financialReportService, operationalAnalyticsService, patientAnalyticsService);
+    }
+}
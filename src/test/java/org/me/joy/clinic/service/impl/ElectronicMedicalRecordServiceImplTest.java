@@ -4,7 +4,12 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.me.joy.clinic.archive.MedicalRecordColdPayload;
+import org.me.joy.clinic.archive.MedicalRecordColdStore;
 import org.me.joy.clinic.dto.CreateMedicalRecordRequest;
+import org.me.joy.clinic.dto.DiagnosisCodeSuggestion;
+import org.me.joy.clinic.dto.MedicalRecordInclude;
+import org.me.joy.clinic.dto.MedicalRecordSearchHit;
 import org.me.joy.clinic.dto.UpdateMedicalRecordRequest;
 import org.me.joy.clinic.entity.Diagnosis;
 import org.me.joy.clinic.entity.MedicalRecord;
@@ -14,14 +19,19 @@ import org.me.joy.clinic.exception.ValidationException;
 import org.me.joy.clinic.mapper.DiagnosisMapper;
 import org.me.joy.clinic.mapper.MedicalRecordMapper;
 import org.me.joy.clinic.mapper.PrescriptionMapper;
+import org.me.joy.clinic.search.DiagnosisDictionary;
+import org.me.joy.clinic.search.MedicalRecordTextIndex;
 import org.me.joy.clinic.service.ElectronicMedicalRecordService;
+import org.me.joy.clinic.service.MedicalRecordRevisionService;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -42,6 +52,18 @@ class ElectronicMedicalRecordServiceImplTest {
     @Mock
     private PrescriptionMapper prescriptionMapper;
 
+    @Mock
+    private MedicalRecordTextIndex medicalRecordTextIndex;
+
+    @Mock
+    private MedicalRecordColdStore medicalRecordColdStore;
+
+    @Mock
+    private DiagnosisDictionary diagnosisDictionary;
+
+    @Mock
+    private MedicalRecordRevisionService medicalRecordRevisionService;
+
     @InjectMocks
     private ElectronicMedicalRecordServiceImpl medicalRecordService;
 
@@ -121,8 +143,12 @@ class ElectronicMedicalRecordServiceImplTest {
         assertNotNull(result.getRecordNumber());
         assertTrue(result.getRecordNumber().startsWith("MR"));
 
+        assertEquals(0, result.getUpdatedAt().getNano());
+
         verify(medicalRecordMapper).insert(any(MedicalRecord.class));
         verify(medicalRecordMapper).updateById(any(MedicalRecord.class));
+        verify(medicalRecordRevisionService).recordCreated(result);
+        verify(medicalRecordTextIndex).index(result, Collections.emptyList());
     }
 
     @Test
@@ -143,6 +169,8 @@ class ElectronicMedicalRecordServiceImplTest {
         when(medicalRecordMapper.selectById(1L)).thenReturn(medicalRecord);
         when(medicalRecordMapper.updateById(any(MedicalRecord.class))).thenReturn(1);
 
+        String originalComplaint = medicalRecord.getChiefComplaint();
+
         // 执行
         MedicalRecord result = medicalRecordService.updateMedicalRecord(1L, updateRequest);
 
@@ -151,9 +179,12 @@ class ElectronicMedicalRecordServiceImplTest {
         assertEquals(updateRequest.getChiefComplaint(), result.getChiefComplaint());
         assertEquals(updateRequest.getFinalDiagnosis(), result.getFinalDiagnosis());
         assertEquals(updateRequest.getTreatmentPlan(), result.getTreatmentPlan());
+        assertEquals(0, result.getUpdatedAt().getNano());
 
         verify(medicalRecordMapper).selectById(1L);
         verify(medicalRecordMapper).updateById(any(MedicalRecord.class));
+        verify(medicalRecordRevisionService).recordUpdate(
+            argThat(before -> Objects.equals(originalComplaint, before.getChiefComplaint())), eq(result));
     }
 
     @Test
@@ -238,6 +269,127 @@ class ElectronicMedicalRecordServiceImplTest {
         verify(medicalRecordMapper).findByPatientId(1L);
     }
 
+    @Test
+    void testGetDoctorMedicalRecords_ShouldBatchLoadRelatedData() {
+        // Mock
+        MedicalRecord otherRecord = new MedicalRecord();
+        otherRecord.setId(2L);
+        otherRecord.setDoctorId(2L);
+        Diagnosis otherDiagnosis = new Diagnosis();
+        otherDiagnosis.setId(2L);
+        otherDiagnosis.setMedicalRecordId(2L);
+        when(medicalRecordMapper.findByDoctorId(2L)).thenReturn(Arrays.asList(medicalRecord, otherRecord));
+        when(diagnosisMapper.selectList(any(QueryWrapper.class))).thenReturn(Arrays.asList(diagnosis, otherDiagnosis));
+        when(prescriptionMapper.selectList(any(QueryWrapper.class))).thenReturn(Arrays.asList(prescription));
+
+        // 执行
+        List<MedicalRecord> result = medicalRecordService.getDoctorMedicalRecords(2L, MedicalRecordInclude.ALL);
+
+        // 验证
+        assertEquals(1, result.get(0).getDiagnoses().size());
+        assertEquals(1L, result.get(0).getDiagnoses().get(0).getId());
+        assertEquals(2L, result.get(1).getDiagnoses().get(0).getId());
+        assertEquals(1, result.get(0).getPrescriptions().size());
+        assertTrue(result.get(1).getPrescriptions().isEmpty());
+
+        verify(diagnosisMapper, times(1)).selectList(any(QueryWrapper.class));
+        verify(prescriptionMapper, times(1)).selectList(any(QueryWrapper.class));
+    }
+
+    @Test
+    void testGetPatientMedicalRecords_WithoutInclude_ShouldNotLoadRelatedData() {
+        // Mock
+        when(medicalRecordMapper.findByPatientId(1L)).thenReturn(Arrays.asList(medicalRecord));
+
+        // 执行
+        List<MedicalRecord> result = medicalRecordService.getPatientMedicalRecords(1L,
+            MedicalRecordInclude.fromValue(null));
+
+        // 验证
+        assertEquals(1, result.size());
+        verify(diagnosisMapper, never()).selectList(any(QueryWrapper.class));
+        verify(prescriptionMapper, never()).selectList(any(QueryWrapper.class));
+    }
+
+    @Test
+    void testGetPatientMedicalRecords_WithColdArchivedRecord_ShouldMergeColdTier() {
+        // Given：早期版本移入冷存储的病历，诊断和一张处方整行在冷存储中，另一张处方仍在热表
+        medicalRecord.setStatus("已归档");
+        medicalRecord.setColdArchivedAt(LocalDateTime.now());
+        Prescription coldPrescription = new Prescription();
+        coldPrescription.setId(2L);
+        coldPrescription.setMedicalRecordId(1L);
+        coldPrescription.setPrescribedAt(prescription.getPrescribedAt().minusDays(1));
+        MedicalRecordColdPayload payload = new MedicalRecordColdPayload(new MedicalRecord(),
+            Arrays.asList(diagnosis), Arrays.asList(coldPrescription));
+        when(medicalRecordMapper.findByPatientId(1L)).thenReturn(Arrays.asList(medicalRecord));
+        when(medicalRecordColdStore.restore(anyCollection())).thenReturn(Collections.singletonMap(1L, payload));
+        when(diagnosisMapper.selectList(any(QueryWrapper.class))).thenReturn(Collections.emptyList());
+        when(prescriptionMapper.selectList(any(QueryWrapper.class))).thenReturn(Arrays.asList(prescription));
+
+        // When
+        List<MedicalRecord> result = medicalRecordService.getPatientMedicalRecords(1L);
+
+        // Then
+        assertEquals(Arrays.asList(diagnosis), result.get(0).getDiagnoses());
+        assertEquals(2, result.get(0).getPrescriptions().size());
+        assertEquals(1L, result.get(0).getPrescriptions().get(0).getId());
+        assertEquals(2L, result.get(0).getPrescriptions().get(1).getId());
+    }
+
+    @Test
+    void testSearchMedicalRecords_ShouldClampLimitAndDelegateToIndex() {
+        // Mock
+        MedicalRecordSearchHit hit = new MedicalRecordSearchHit();
+        hit.setRecordId(1L);
+        when(medicalRecordTextIndex.search("头痛", 2L, null, null, null, 100)).thenReturn(Arrays.asList(hit));
+
+        // 执行
+        List<MedicalRecordSearchHit> result = medicalRecordService.searchMedicalRecords("头痛", 2L, null, null, null, 500);
+
+        // 验证
+        assertEquals(1, result.size());
+        assertEquals(1L, result.get(0).getRecordId());
+    }
+
+    @Test
+    void testSearchMedicalRecords_IndexNotReady() {
+        // Mock
+        when(medicalRecordTextIndex.search("头痛", null, null, null, null, 20)).thenReturn(null);
+
+        // 执行和验证
+        BusinessException exception = assertThrows(BusinessException.class,
+            () -> medicalRecordService.searchMedicalRecords("头痛", null, null, null, null, null));
+        assertEquals("3045", exception.getErrorCode());
+    }
+
+    @Test
+    void testSuggestDiagnosisCodes_ShouldClampLimitAndDelegateToDictionary() {
+        // Mock
+        when(diagnosisDictionary.isReady()).thenReturn(true);
+        when(diagnosisDictionary.search("gxy", 2L, 50))
+            .thenReturn(Arrays.asList(new DiagnosisCodeSuggestion("I10", "原发性高血压", 3)));
+
+        // 执行
+        List<DiagnosisCodeSuggestion> result = medicalRecordService.suggestDiagnosisCodes("gxy", 2L, 500);
+
+        // 验证
+        assertEquals(1, result.size());
+        assertEquals("I10", result.get(0).getCode());
+    }
+
+    @Test
+    void testSuggestDiagnosisCodes_DictionaryNotReady() {
+        // Mock
+        when(diagnosisDictionary.isReady()).thenReturn(false);
+
+        // 执行和验证
+        BusinessException exception = assertThrows(BusinessException.class,
+            () -> medicalRecordService.suggestDiagnosisCodes("J06", null, null));
+        assertEquals("3049", exception.getErrorCode());
+        verify(diagnosisDictionary, never()).search(anyString(), any(), anyInt());
+    }
+
     @Test
     void testGetMedicalRecordsByDateRange_Success() {
         // Mock
@@ -287,6 +439,8 @@ class ElectronicMedicalRecordServiceImplTest {
         assertNotNull(result.getDiagnosisTime());
 
         verify(diagnosisMapper).insert(any(Diagnosis.class));
+        verify(diagnosisDictionary).recordUsage(diagnosis.getDoctorId(), diagnosis.getDiagnosisCode());
+        verify(medicalRecordMapper).touchUpdatedAt(eq(1L), any(LocalDateTime.class));
     }
 
     @Test
@@ -324,6 +478,8 @@ class ElectronicMedicalRecordServiceImplTest {
         assertEquals(1L, result.getMedicalRecordId());
 
         verify(diagnosisMapper).updateById(any(Diagnosis.class));
+        verify(diagnosisDictionary).invalidateUsage(diagnosis.getDoctorId());
+        verify(medicalRecordMapper).touchUpdatedAt(eq(1L), any(LocalDateTime.class));
     }
 
     @Test
@@ -340,6 +496,8 @@ class ElectronicMedicalRecordServiceImplTest {
 
         // 验证
         verify(diagnosisMapper).deleteById(1L);
+        verify(diagnosisDictionary).invalidateUsage(diagnosis.getDoctorId());
+        verify(medicalRecordMapper).touchUpdatedAt(eq(1L), any(LocalDateTime.class));
     }
 
     @Test
@@ -16,6 +16,7 @@ import org.me.joy.clinic.exception.BusinessException;
 import org.me.joy.clinic.mapper.InventoryLevelMapper;
 import org.me.joy.clinic.mapper.MedicineMapper;
 import org.me.joy.clinic.mapper.StockTransactionMapper;
+import org.me.joy.clinic.pharmacy.DrugInteractionEngine;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -42,6 +43,9 @@ class InventoryManagementServiceImplTest {
     @Mock
     private InventoryLevelMapper inventoryLevelMapper;
 
+    @Mock
+    private DrugInteractionEngine drugInteractionEngine;
+
     @InjectMocks
     private InventoryManagementServiceImpl inventoryManagementService;
 
@@ -131,6 +135,7 @@ class InventoryManagementServiceImplTest {
 
         verify(medicineMapper).selectById(1L);
         verify(medicineMapper).updateById(any(Medicine.class));
+        verify(drugInteractionEngine).invalidateMedicine(1L);
     }
 
     @Test
@@ -0,0 +1,158 @@
+package org.me.joy.clinic.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.me.joy.clinic.archive.MedicalRecordColdPayload;
+import org.me.joy.clinic.archive.MedicalRecordColdStore;
+import org.me.joy.clinic.entity.Diagnosis;
+import org.me.joy.clinic.entity.MedicalRecord;
+import org.me.joy.clinic.entity.Prescription;
+import org.me.joy.clinic.mapper.DiagnosisMapper;
+import org.me.joy.clinic.mapper.MedicalRecordMapper;
+import org.me.joy.clinic.mapper.PrescriptionMapper;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 病历冷存储服务实现类测试
+ */
+@ExtendWith(MockitoExtension.class)
+class MedicalRecordArchiveServiceImplTest {
+
+    @Mock
+    private MedicalRecordMapper medicalRecordMapper;
+
+    @Mock
+    private DiagnosisMapper diagnosisMapper;
+
+    @Mock
+    private PrescriptionMapper prescriptionMapper;
+
+    @Mock
+    private MedicalRecordColdStore medicalRecordColdStore;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private MedicalRecordArchiveServiceImpl medicalRecordArchiveService;
+
+    private MedicalRecord record(String status) {
+        MedicalRecord record = new MedicalRecord();
+        record.setId(1L);
+        record.setPatientId(10L);
+        record.setStatus(status);
+        record.setChiefComplaint("头痛");
+        return record;
+    }
+
+    private Prescription prescription(long id) {
+        Prescription prescription = new Prescription();
+        prescription.setId(id);
+        prescription.setMedicalRecordId(1L);
+        return prescription;
+    }
+
+    @Test
+    void moveToColdTier_ShouldSnapshotAndClearOnlyLargeText() {
+        // Given
+        when(medicalRecordMapper.selectById(1L)).thenReturn(record("已归档"));
+        Diagnosis diagnosis = new Diagnosis(1L, "偏头痛", 2L);
+        when(diagnosisMapper.selectList(any(QueryWrapper.class))).thenReturn(Arrays.asList(diagnosis));
+        when(prescriptionMapper.selectList(any(QueryWrapper.class))).thenReturn(Arrays.asList(prescription(7L), prescription(8L)));
+
+        // When
+        boolean moved = medicalRecordArchiveService.moveToColdTier(1L);
+
+        // Then：诊断和处方行留在热表供统计查询使用，只清空大文本字段
+        assertTrue(moved);
+        ArgumentCaptor<MedicalRecordColdPayload> captor = ArgumentCaptor.forClass(MedicalRecordColdPayload.class);
+        verify(medicalRecordColdStore).save(captor.capture());
+        MedicalRecordColdPayload payload = captor.getValue();
+        assertEquals("头痛", payload.getRecord().getChiefComplaint());
+        assertEquals(Arrays.asList(diagnosis), payload.getDiagnoses());
+        assertEquals(2, payload.getPrescriptions().size());
+
+        verify(diagnosisMapper).clearColdArchivedColumns(1L);
+        verify(prescriptionMapper).clearColdArchivedColumns(1L);
+        verify(medicalRecordMapper).clearColdArchivedColumns(1L);
+    }
+
+    @Test
+    void coldPayload_ShouldRefillHotRowsAndKeepLegacyMovedRows() {
+        // Given：诊断留在热表但描述已清空；处方7留在热表，处方9为早期版本整行迁出
+        Diagnosis hotDiagnosis = new Diagnosis(1L, "偏头痛", 2L);
+        hotDiagnosis.setId(3L);
+        Diagnosis coldDiagnosis = new Diagnosis(1L, "偏头痛", 2L);
+        coldDiagnosis.setId(3L);
+        coldDiagnosis.setDescription("反复发作性单侧头痛");
+        Prescription hot = prescription(7L);
+        hot.setPrescribedAt(LocalDateTime.of(2024, 1, 2, 9, 0));
+        Prescription cold = prescription(7L);
+        cold.setDosageInstructions("每日三次");
+        Prescription legacy = prescription(9L);
+        legacy.setPrescribedAt(LocalDateTime.of(2024, 1, 3, 9, 0));
+        MedicalRecordColdPayload payload = new MedicalRecordColdPayload(record("已归档"),
+            Arrays.asList(coldDiagnosis), Arrays.asList(cold, legacy));
+
+        // When
+        List<Diagnosis> diagnoses = payload.mergeDiagnoses(Arrays.asList(hotDiagnosis));
+        List<Prescription> prescriptions = payload.mergePrescriptions(Arrays.asList(hot));
+
+        // Then
+        assertSame(hotDiagnosis, diagnoses.get(0));
+        assertEquals("反复发作性单侧头痛", diagnoses.get(0).getDescription());
+        assertEquals(Arrays.asList(9L, 7L), Arrays.asList(prescriptions.get(0).getId(), prescriptions.get(1).getId()));
+        assertEquals("每日三次", prescriptions.get(1).getDosageInstructions());
+        assertEquals(Arrays.asList(coldDiagnosis), payload.mergeDiagnoses(Collections.emptyList()));
+    }
+
+    @Test
+    void moveToColdTier_WithRecordNotArchived_ShouldSkip() {
+        // Given
+        when(medicalRecordMapper.selectById(1L)).thenReturn(record("已审核"));
+
+        // When & Then
+        assertFalse(medicalRecordArchiveService.moveToColdTier(1L));
+        verify(medicalRecordColdStore, never()).save(any());
+        verify(medicalRecordMapper, never()).clearColdArchivedColumns(anyLong());
+    }
+
+    @Test
+    void archiveColdRecords_ShouldContinueAfterSingleRecordFailure() {
+        // Given：病历1迁移失败，病历2成功
+        when(medicalRecordMapper.findColdArchiveCandidates(any(LocalDateTime.class), eq(0L), eq(200)))
+            .thenReturn(Arrays.asList(1L, 2L));
+        when(medicalRecordMapper.selectById(1L)).thenThrow(new IllegalStateException("connection reset"));
+        MedicalRecord second = record("已归档");
+        second.setId(2L);
+        when(medicalRecordMapper.selectById(2L)).thenReturn(second);
+        when(diagnosisMapper.selectList(any(QueryWrapper.class))).thenReturn(Collections.emptyList());
+        when(prescriptionMapper.selectList(any(QueryWrapper.class))).thenReturn(Collections.emptyList());
+
+        // When
+        int moved = medicalRecordArchiveService.archiveColdRecords();
+
+        // Then
+        assertEquals(1, moved);
+        verify(medicalRecordMapper).clearColdArchivedColumns(2L);
+        verify(medicalRecordMapper, never()).clearColdArchivedColumns(1L);
+    }
+}
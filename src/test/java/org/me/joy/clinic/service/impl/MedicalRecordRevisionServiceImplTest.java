@@ -0,0 +1,198 @@
+package org.me.joy.clinic.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.me.joy.clinic.entity.MedicalRecord;
+import org.me.joy.clinic.entity.MedicalRecordRevision;
+import org.me.joy.clinic.exception.BusinessException;
+import org.me.joy.clinic.mapper.MedicalRecordMapper;
+import org.me.joy.clinic.mapper.MedicalRecordRevisionMapper;
+import org.me.joy.clinic.revision.MedicalRecordRevisionCodec;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.BeanUtils;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 病历修订记录服务实现类测试
+ */
+@ExtendWith(MockitoExtension.class)
+class MedicalRecordRevisionServiceImplTest {
+
+    @Mock
+    private MedicalRecordRevisionMapper medicalRecordRevisionMapper;
+
+    @Mock
+    private MedicalRecordMapper medicalRecordMapper;
+
+    @InjectMocks
+    private MedicalRecordRevisionServiceImpl medicalRecordRevisionService;
+
+    private MedicalRecord record(String chiefComplaint) {
+        MedicalRecord record = new MedicalRecord();
+        record.setId(1L);
+        record.setRecordNumber("MR001");
+        record.setChiefComplaint(chiefComplaint);
+        record.setPresentIllness("头痛3天，伴恶心。");
+        return record;
+    }
+
+    private MedicalRecord edited(MedicalRecord source, String chiefComplaint) {
+        MedicalRecord copy = new MedicalRecord();
+        BeanUtils.copyProperties(source, copy);
+        copy.setChiefComplaint(chiefComplaint);
+        return copy;
+    }
+
+    private MedicalRecordRevision row(int revision, boolean snapshot, byte[] payload) {
+        MedicalRecordRevision row = new MedicalRecordRevision();
+        row.setMedicalRecordId(1L);
+        row.setRevision(revision);
+        row.setSnapshot(snapshot);
+        row.setPayload(payload);
+        return row;
+    }
+
+    @Test
+    void recordUpdate_ShouldAppendDeltaWithChangedFields() {
+        // Given
+        MedicalRecord before = record("头痛");
+        MedicalRecord after = edited(before, "头痛加重");
+        when(medicalRecordRevisionMapper.findLatestRevision(1L)).thenReturn(3);
+
+        // When
+        Integer revision = medicalRecordRevisionService.recordUpdate(before, after);
+
+        // Then
+        assertEquals(4, revision);
+        ArgumentCaptor<MedicalRecordRevision> captor = ArgumentCaptor.forClass(MedicalRecordRevision.class);
+        verify(medicalRecordRevisionMapper).insert(captor.capture());
+        MedicalRecordRevision saved = captor.getValue();
+        assertEquals(4, saved.getRevision());
+        assertFalse(saved.getSnapshot());
+        assertEquals("chiefComplaint", saved.getChangedFields());
+        assertEquals(saved.getPayload().length, saved.getPayloadSize());
+    }
+
+    @Test
+    void recordUpdate_ForLegacyRecord_ShouldSnapshotPreviousContentFirst() {
+        // Given
+        MedicalRecord before = record("头痛");
+        when(medicalRecordRevisionMapper.findLatestRevision(1L)).thenReturn(null);
+
+        // When
+        Integer revision = medicalRecordRevisionService.recordUpdate(before, edited(before, "头晕"));
+
+        // Then
+        assertEquals(2, revision);
+        ArgumentCaptor<MedicalRecordRevision> captor = ArgumentCaptor.forClass(MedicalRecordRevision.class);
+        verify(medicalRecordRevisionMapper, times(2)).insert(captor.capture());
+        assertEquals(1, captor.getAllValues().get(0).getRevision());
+        assertTrue(captor.getAllValues().get(0).getSnapshot());
+        MedicalRecord restored = new MedicalRecord();
+        MedicalRecordRevisionCodec.apply(captor.getAllValues().get(0).getPayload(), restored);
+        assertEquals("头痛", restored.getChiefComplaint());
+    }
+
+    @Test
+    void recordUpdate_AtSnapshotInterval_ShouldWriteFullSnapshot() {
+        // Given
+        ReflectionTestUtils.setField(medicalRecordRevisionService, "snapshotInterval", 5);
+        MedicalRecord before = record("头痛");
+        when(medicalRecordRevisionMapper.findLatestRevision(1L)).thenReturn(5);
+
+        // When
+        medicalRecordRevisionService.recordUpdate(before, edited(before, "头晕"));
+
+        // Then
+        ArgumentCaptor<MedicalRecordRevision> captor = ArgumentCaptor.forClass(MedicalRecordRevision.class);
+        verify(medicalRecordRevisionMapper).insert(captor.capture());
+        assertEquals(6, captor.getValue().getRevision());
+        assertTrue(captor.getValue().getSnapshot());
+    }
+
+    @Test
+    void recordUpdate_WithoutChanges_ShouldSkip() {
+        // Given
+        MedicalRecord before = record("头痛");
+
+        // When & Then
+        assertNull(medicalRecordRevisionService.recordUpdate(before, edited(before, "头痛")));
+        verify(medicalRecordRevisionMapper, times(0)).insert(any(MedicalRecordRevision.class));
+    }
+
+    @Test
+    void recordUpdate_WithConcurrentRevision_ShouldThrowBusinessException() {
+        // Given
+        MedicalRecord before = record("头痛");
+        when(medicalRecordRevisionMapper.findLatestRevision(1L)).thenReturn(2);
+        when(medicalRecordRevisionMapper.insert(any(MedicalRecordRevision.class)))
+            .thenThrow(new DuplicateKeyException("uk_medical_record_revisions_revision"));
+
+        // When & Then
+        BusinessException exception = assertThrows(BusinessException.class,
+            () -> medicalRecordRevisionService.recordUpdate(before, edited(before, "头晕")));
+        assertEquals("3050", exception.getErrorCode());
+    }
+
+    @Test
+    void getRevision_ShouldReplayDeltasFromLatestSnapshot() {
+        // Given：版本1快照，版本2、3为增量，当前病历已是版本3的内容
+        MedicalRecord v1 = record("头痛");
+        MedicalRecord v2 = edited(v1, "头痛加重");
+        MedicalRecord v3 = edited(v2, "头痛伴呕吐");
+        List<MedicalRecordRevision> chain = Arrays.asList(
+            row(1, true, MedicalRecordRevisionCodec.encodeSnapshot(v1)),
+            row(2, false, MedicalRecordRevisionCodec.encodeDelta(v1, v2)));
+        when(medicalRecordMapper.selectById(1L)).thenReturn(v3);
+        when(medicalRecordRevisionMapper.findReconstructionChain(1L, 2)).thenReturn(chain);
+
+        // When
+        MedicalRecord result = medicalRecordRevisionService.getRevision(1L, 2);
+
+        // Then
+        assertEquals("头痛加重", result.getChiefComplaint());
+        assertEquals("MR001", result.getRecordNumber());
+        assertEquals("头痛伴呕吐", v3.getChiefComplaint());
+    }
+
+    @Test
+    void getRevision_WithGapInChain_ShouldThrowBusinessException() {
+        // Given
+        MedicalRecord v1 = record("头痛");
+        MedicalRecord v2 = edited(v1, "头痛加重");
+        when(medicalRecordMapper.selectById(1L)).thenReturn(v2);
+        when(medicalRecordRevisionMapper.findReconstructionChain(1L, 3)).thenReturn(Arrays.asList(
+            row(1, true, MedicalRecordRevisionCodec.encodeSnapshot(v1)),
+            row(3, false, MedicalRecordRevisionCodec.encodeDelta(v1, v2))));
+
+        // When & Then
+        BusinessException exception = assertThrows(BusinessException.class,
+            () -> medicalRecordRevisionService.getRevision(1L, 3));
+        assertEquals("3053", exception.getErrorCode());
+    }
+
+    @Test
+    void getRevision_NotFound_ShouldThrowBusinessException() {
+        // Given
+        when(medicalRecordMapper.selectById(1L)).thenReturn(record("头痛"));
+        when(medicalRecordRevisionMapper.findReconstructionChain(1L, 9)).thenReturn(List.of());
+
+        // When & Then
+        BusinessException exception = assertThrows(BusinessException.class,
+            () -> medicalRecordRevisionService.getRevision(1L, 9));
+        assertEquals("3052", exception.getErrorCode());
+    }
+}
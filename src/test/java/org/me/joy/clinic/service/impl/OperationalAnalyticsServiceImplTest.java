@@ -3,6 +3,7 @@ package org.me.joy.clinic.service.impl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.me.joy.clinic.analytics.RegistrationVisitCube;
 import org.me.joy.clinic.dto.DoctorPerformanceReport;
 import org.me.joy.clinic.dto.PatientVisitAnalytics;
 import org.me.joy.clinic.dto.PopularService;
@@ -47,6 +48,9 @@ class OperationalAnalyticsServiceImplTest {
     @Mock
     private AppointmentMapper appointmentMapper;
 
+    @Mock
+    private RegistrationVisitCube registrationVisitCube;
+
     @InjectMocks
     private OperationalAnalyticsServiceImpl operationalAnalyticsService;
 
@@ -90,6 +94,28 @@ class OperationalAnalyticsServiceImplTest {
         verify(registrationMapper).getHourlyVisitStatistics(startDate, endDate);
     }
 
+    @Test
+    void testGetPatientVisitAnalyticsFromVisitCube() {
+        // Given
+        long[] hourlyCounts = new long[24];
+        hourlyCounts[10] = 30L;
+        when(registrationVisitCube.covers(startDate)).thenReturn(true);
+        when(registrationVisitCube.countVisits(startDate, endDate)).thenReturn(150L);
+        when(registrationVisitCube.countDistinctPatients(startDate, endDate, true)).thenReturn(50L);
+        when(registrationVisitCube.countByHour(startDate, endDate)).thenReturn(hourlyCounts);
+
+        // When
+        PatientVisitAnalytics result = operationalAnalyticsService.getPatientVisitAnalytics(startDate, endDate);
+
+        // Then
+        assertEquals(150L, result.getTotalVisits());
+        assertEquals(50L, result.getNewPatients());
+        assertEquals(100L, result.getReturningPatients());
+        assertEquals("10:00-11:00", result.getPeakHour());
+        assertEquals(30L, result.getPeakHourVisits());
+        verifyNoInteractions(registrationMapper);
+    }
+
     @Test
     void testGetPopularServices() {
         // Given
@@ -247,22 +273,19 @@ class OperationalAnalyticsServiceImplTest {
         staff2.setDepartment("外科");
 
         when(staffMapper.getAllDoctorIds()).thenReturn(doctorIds);
-        when(staffMapper.selectById(1L)).thenReturn(staff1);
-        when(staffMapper.selectById(2L)).thenReturn(staff2);
-        
-        // Mock data for doctor 1
-        when(medicalRecordMapper.countPatientsByDoctorAndDateRange(1L, startDate, endDate)).thenReturn(50L);
-        when(medicalRecordMapper.countCompletedConsultationsByDoctorAndDateRange(1L, startDate, endDate)).thenReturn(45L);
-        when(medicalRecordMapper.getConsultationTimesByDoctorAndDateRange(1L, startDate, endDate)).thenReturn(new ArrayList<>());
-        when(prescriptionMapper.countPrescriptionsByDoctorAndDateRange(1L, startDate, endDate)).thenReturn(40L);
-        when(billMapper.sumRevenueByDoctorAndDateRange(1L, startDate, endDate)).thenReturn(15000.0);
+        when(staffMapper.selectBatchIds(doctorIds)).thenReturn(Arrays.asList(staff1, staff2));
         
-        // Mock data for doctor 2
-        when(medicalRecordMapper.countPatientsByDoctorAndDateRange(2L, startDate, endDate)).thenReturn(30L);
-        when(medicalRecordMapper.countCompletedConsultationsByDoctorAndDateRange(2L, startDate, endDate)).thenReturn(28L);
-        when(medicalRecordMapper.getConsultationTimesByDoctorAndDateRange(2L, startDate, endDate)).thenReturn(new ArrayList<>());
-        when(prescriptionMapper.countPrescriptionsByDoctorAndDateRange(2L, startDate, endDate)).thenReturn(25L);
-        when(billMapper.sumRevenueByDoctorAndDateRange(2L, startDate, endDate)).thenReturn(12000.0);
+        when(medicalRecordMapper.getConsultationStatisticsGroupByDoctor(startDate, endDate)).thenReturn(Arrays.asList(
+            doctorRow(1L, "total_patients", 50L, "completed_consultations", 45L, "average_consultation_time", 12.5),
+            doctorRow(2L, "total_patients", 30L, "completed_consultations", 28L, "average_consultation_time", null)
+        ));
+        when(prescriptionMapper.countPrescriptionsGroupByDoctor(startDate, endDate)).thenReturn(Arrays.asList(
+            doctorRow(1L, "count", 40L),
+            doctorRow(2L, "count", 25L)
+        ));
+        when(billMapper.sumRevenueGroupByDoctor(startDate, endDate)).thenReturn(Arrays.asList(
+            doctorRow(1L, "revenue", new java.math.BigDecimal("15000.00"))
+        ));
 
         // When
         List<DoctorPerformanceReport> result = operationalAnalyticsService.getAllDoctorsPerformanceReport(startDate, endDate);
@@ -272,14 +295,51 @@ class OperationalAnalyticsServiceImplTest {
         assertEquals(2, result.size());
         
         // Should be sorted by total patients descending
-        assertEquals("张医生", result.get(0).getDoctorName());
-        assertEquals(50L, result.get(0).getTotalPatients());
+        DoctorPerformanceReport first = result.get(0);
+        assertEquals("张医生", first.getDoctorName());
+        assertEquals(50L, first.getTotalPatients());
+        assertEquals(45L, first.getCompletedConsultations());
+        assertEquals(12.5, first.getAverageConsultationTime());
+        assertEquals(40L, first.getPrescriptionsIssued());
+        assertEquals(15000.0, first.getRevenueGenerated());
         
-        assertEquals("李医生", result.get(1).getDoctorName());
-        assertEquals(30L, result.get(1).getTotalPatients());
-
+        DoctorPerformanceReport second = result.get(1);
+        assertEquals("李医生", second.getDoctorName());
+        assertEquals(30L, second.getTotalPatients());
+        assertEquals(0.0, second.getAverageConsultationTime());
+        assertEquals(25L, second.getPrescriptionsIssued());
+        assertEquals(0.0, second.getRevenueGenerated());
+
+        // 查询次数固定，不随医生数量增长
         verify(staffMapper).getAllDoctorIds();
-        verify(staffMapper, times(2)).selectById(anyLong());
+        verify(staffMapper).selectBatchIds(doctorIds);
+        verify(staffMapper, never()).selectById(anyLong());
+        verify(medicalRecordMapper, never()).countPatientsByDoctorAndDateRange(anyLong(), any(), any());
+        verify(prescriptionMapper, never()).countPrescriptionsByDoctorAndDateRange(anyLong(), any(), any());
+        verify(billMapper, never()).sumRevenueByDoctorAndDateRange(anyLong(), any(), any());
+    }
+
+    @Test
+    void testGetAllDoctorsPerformanceReportWithNoDoctors() {
+        // Given
+        when(staffMapper.getAllDoctorIds()).thenReturn(new ArrayList<>());
+
+        // When
+        List<DoctorPerformanceReport> result = operationalAnalyticsService.getAllDoctorsPerformanceReport(startDate, endDate);
+
+        // Then
+        assertNotNull(result);
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(medicalRecordMapper, prescriptionMapper, billMapper);
+    }
+
+    private Map<String, Object> doctorRow(Long doctorId, Object... keyValues) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("doctor_id", doctorId);
+        for (int i = 0; i < keyValues.length; i += 2) {
+            row.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return row;
     }
 
     @Test
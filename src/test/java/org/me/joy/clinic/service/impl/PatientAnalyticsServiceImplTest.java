@@ -3,6 +3,7 @@ package org.me.joy.clinic.service.impl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.me.joy.clinic.analytics.RegistrationVisitCube;
 import org.me.joy.clinic.dto.CommonDiagnosis;
 import org.me.joy.clinic.dto.PatientDemographics;
 import org.me.joy.clinic.dto.PatientRetentionReport;
@@ -10,6 +11,7 @@ import org.me.joy.clinic.dto.PatientSatisfactionScore;
 import org.me.joy.clinic.mapper.DiagnosisMapper;
 import org.me.joy.clinic.mapper.PatientMapper;
 import org.me.joy.clinic.mapper.RegistrationMapper;
+import org.me.joy.clinic.service.PatientDemographicCounterService;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -36,6 +38,12 @@ class PatientAnalyticsServiceImplTest {
     
     @Mock
     private RegistrationMapper registrationMapper;
+
+    @Mock
+    private RegistrationVisitCube registrationVisitCube;
+
+    @Mock
+    private PatientDemographicCounterService patientDemographicCounterService;
     
     @InjectMocks
     private PatientAnalyticsServiceImpl patientAnalyticsService;
@@ -53,10 +61,9 @@ class PatientAnalyticsServiceImplTest {
             createMap("gender", "男", "count", 600L),
             createMap("gender", "女", "count", 400L)
         );
-        List<Map<String, Object>> patientBirthData = Arrays.asList(
-            createMap("id", 1L, "birth_date", LocalDate.of(1990, 1, 1)),
-            createMap("id", 2L, "birth_date", LocalDate.of(1985, 5, 15)),
-            createMap("id", 3L, "birth_date", LocalDate.of(2000, 12, 31))
+        List<Map<String, Object>> ageGroupData = Arrays.asList(
+            createMap("age_group", "19-35", "count", 700L),
+            createMap("age_group", "36-50", "count", 300L)
         );
         List<Map<String, Object>> locationData = Arrays.asList(
             createMap("location", "北京", "count", 300L),
@@ -65,8 +72,9 @@ class PatientAnalyticsServiceImplTest {
         
         when(patientMapper.countTotalPatients()).thenReturn(totalPatients);
         when(patientMapper.getGenderDistribution()).thenReturn(genderData);
-        when(patientMapper.getAllPatientsWithBirthDate()).thenReturn(patientBirthData);
+        when(patientMapper.getAgeGroupDistribution()).thenReturn(ageGroupData);
         when(patientMapper.getLocationDistribution()).thenReturn(locationData);
+        when(patientMapper.getAverageAge()).thenReturn(new BigDecimal("34.2"));
         
         // When
         PatientDemographics result = patientAnalyticsService.getPatientDemographics();
@@ -79,12 +87,15 @@ class PatientAnalyticsServiceImplTest {
         assertEquals(400L, result.getGenderDistribution().get("女"));
         assertNotNull(result.getAverageAge());
         assertTrue(result.getAverageAge().compareTo(BigDecimal.ZERO) > 0);
+        assertEquals(700L, result.getAgeGroupDistribution().get("19-35"));
+        assertEquals(0L, result.getAgeGroupDistribution().get("65+"));
         assertEquals(2, result.getLocationDistribution().size());
         
         verify(patientMapper).countTotalPatients();
         verify(patientMapper).getGenderDistribution();
-        verify(patientMapper).getAllPatientsWithBirthDate();
+        verify(patientMapper).getAgeGroupDistribution();
         verify(patientMapper).getLocationDistribution();
+        verify(patientMapper, never()).getAllPatientsWithBirthDate();
     }
     
     @Test
@@ -237,8 +248,9 @@ class PatientAnalyticsServiceImplTest {
         // Given
         when(patientMapper.countTotalPatients()).thenReturn(0L);
         when(patientMapper.getGenderDistribution()).thenReturn(new ArrayList<>());
-        when(patientMapper.getAllPatientsWithBirthDate()).thenReturn(new ArrayList<>());
+        when(patientMapper.getAgeGroupDistribution()).thenReturn(new ArrayList<>());
         when(patientMapper.getLocationDistribution()).thenReturn(new ArrayList<>());
+        when(patientMapper.getAverageAge()).thenReturn(null);
         
         // When
         PatientDemographics result = patientAnalyticsService.getPatientDemographics();
@@ -252,20 +264,28 @@ class PatientAnalyticsServiceImplTest {
     }
     
     @Test
-    void testAgeGroupCalculation() {
-        // Given - 测试年龄组计算
-        List<Map<String, Object>> patientBirthData = Arrays.asList(
-            createMap("id", 1L, "birth_date", LocalDate.now().minusYears(10)), // 0-18
-            createMap("id", 2L, "birth_date", LocalDate.now().minusYears(25)), // 19-35
-            createMap("id", 3L, "birth_date", LocalDate.now().minusYears(40)), // 36-50
-            createMap("id", 4L, "birth_date", LocalDate.now().minusYears(60)), // 51-65
-            createMap("id", 5L, "birth_date", LocalDate.now().minusYears(70))  // 65+
-        );
+    void testGetPatientDemographicsFromCounters() {
+        // Given - 计数表已初始化时不再执行分组统计
+        Map<String, Long> ageBands = new LinkedHashMap<>();
+        ageBands.put("0-18", 1L);
+        ageBands.put("19-35", 1L);
+        ageBands.put("36-50", 1L);
+        ageBands.put("51-65", 1L);
+        ageBands.put("65+", 1L);
+        Map<String, Long> regions = new LinkedHashMap<>();
+        for (int i = 0; i < 12; i++) {
+            regions.put("地区" + i, 12L - i);
+        }
         
         when(patientMapper.countTotalPatients()).thenReturn(5L);
-        when(patientMapper.getGenderDistribution()).thenReturn(new ArrayList<>());
-        when(patientMapper.getAllPatientsWithBirthDate()).thenReturn(patientBirthData);
-        when(patientMapper.getLocationDistribution()).thenReturn(new ArrayList<>());
+        when(patientDemographicCounterService.isInitialized()).thenReturn(true);
+        when(patientDemographicCounterService.getDistribution(PatientDemographicCounterService.DIMENSION_GENDER))
+            .thenReturn(Collections.singletonMap("男", 5L));
+        when(patientDemographicCounterService.getDistribution(PatientDemographicCounterService.DIMENSION_AGE_BAND))
+            .thenReturn(ageBands);
+        when(patientDemographicCounterService.getDistribution(PatientDemographicCounterService.DIMENSION_REGION))
+            .thenReturn(regions);
+        when(patientMapper.getAverageAge()).thenReturn(new BigDecimal("41.0"));
         
         // When
         PatientDemographics result = patientAnalyticsService.getPatientDemographics();
@@ -277,6 +297,12 @@ class PatientAnalyticsServiceImplTest {
         assertEquals(1L, ageGroups.get("36-50"));
         assertEquals(1L, ageGroups.get("51-65"));
         assertEquals(1L, ageGroups.get("65+"));
+        assertEquals(5L, result.getGenderDistribution().get("男"));
+        assertEquals(10, result.getLocationDistribution().size());
+        assertEquals(new BigDecimal("41.0"), result.getAverageAge());
+        verify(patientMapper, never()).getGenderDistribution();
+        verify(patientMapper, never()).getAgeGroupDistribution();
+        verify(patientMapper, never()).getLocationDistribution();
     }
     
     /**
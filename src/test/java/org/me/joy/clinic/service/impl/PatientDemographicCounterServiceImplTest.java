@@ -0,0 +1,185 @@
+package org.me.joy.clinic.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.me.joy.clinic.entity.Patient;
+import org.me.joy.clinic.mapper.PatientDemographicCounterMapper;
+import org.me.joy.clinic.mapper.PatientMapper;
+import org.me.joy.clinic.service.PatientDemographicCounterService;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 患者人口统计计数服务测试
+ */
+@ExtendWith(MockitoExtension.class)
+class PatientDemographicCounterServiceImplTest {
+
+    private static final String AGE_BAND_SHIFT_STATE = "AGE_BAND_SHIFTED_THROUGH";
+
+    @Mock
+    private PatientDemographicCounterMapper patientDemographicCounterMapper;
+
+    @Mock
+    private PatientMapper patientMapper;
+
+    @InjectMocks
+    private PatientDemographicCounterServiceImpl patientDemographicCounterService;
+
+    private Patient patient(String gender, LocalDate birthDate, String province, String city) {
+        Patient patient = new Patient();
+        patient.setGender(gender);
+        patient.setBirthDate(birthDate);
+        patient.setProvince(province);
+        patient.setCity(city);
+        return patient;
+    }
+
+    @Test
+    void testRecordPatientCreatedIncrementsAllDimensions() {
+        // When
+        patientDemographicCounterService.recordPatientCreated(
+            patient("男", LocalDate.now().minusYears(30), "北京市", "北京市"));
+
+        // Then
+        verify(patientDemographicCounterMapper).adjust(PatientDemographicCounterService.DIMENSION_GENDER, "男", 1);
+        verify(patientDemographicCounterMapper).adjust(PatientDemographicCounterService.DIMENSION_AGE_BAND, "19-35", 1);
+        verify(patientDemographicCounterMapper).adjust(PatientDemographicCounterService.DIMENSION_REGION, "北京市", 1);
+        verify(patientDemographicCounterMapper).adjust(PatientDemographicCounterService.DIMENSION_PROVINCE, "北京市", 1);
+    }
+
+    @Test
+    void testRecordPatientUpdatedOnlyAdjustsChangedDimensions() {
+        // Given
+        LocalDate birthDate = LocalDate.now().minusYears(40);
+        Patient before = patient("女", birthDate, "浙江省", "宁波市");
+        Patient after = patient("女", birthDate, "浙江省", "杭州市");
+
+        // When
+        patientDemographicCounterService.recordPatientUpdated(before, after);
+
+        // Then
+        verify(patientDemographicCounterMapper).adjust(PatientDemographicCounterService.DIMENSION_REGION, "宁波市", -1);
+        verify(patientDemographicCounterMapper).adjust(PatientDemographicCounterService.DIMENSION_REGION, "杭州市", 1);
+        verify(patientDemographicCounterMapper, never()).adjust(eq(PatientDemographicCounterService.DIMENSION_PROVINCE), anyString(), anyLong());
+        verify(patientDemographicCounterMapper, never()).adjust(eq(PatientDemographicCounterService.DIMENSION_GENDER), anyString(), anyLong());
+        verify(patientDemographicCounterMapper, never()).adjust(eq(PatientDemographicCounterService.DIMENSION_AGE_BAND), anyString(), anyLong());
+    }
+
+    @Test
+    void testRecordPatientDeletedSkipsMissingFields() {
+        // When
+        patientDemographicCounterService.recordPatientDeleted(patient("男", null, null, null));
+
+        // Then
+        verify(patientDemographicCounterMapper).adjust(PatientDemographicCounterService.DIMENSION_GENDER, "男", -1);
+        verifyNoMoreInteractions(patientDemographicCounterMapper);
+    }
+
+    @Test
+    void testShiftAgeBandsMovesPatientsCrossingBoundary() {
+        // Given
+        LocalDate today = LocalDate.of(2025, 6, 15);
+        Map<String, Object> row = new HashMap<>();
+        row.put("age", 19L);
+        row.put("count", 3L);
+        when(patientDemographicCounterMapper.lockStateDate(AGE_BAND_SHIFT_STATE)).thenReturn(today.minusDays(1));
+        when(patientMapper.countBirthdaysReachingAges(eq(today), eq(Collections.singletonList("06-15")), anyList()))
+            .thenReturn(Collections.singletonList(row));
+
+        // When
+        patientDemographicCounterService.shiftAgeBands(today);
+
+        // Then
+        verify(patientDemographicCounterMapper).adjust(PatientDemographicCounterService.DIMENSION_AGE_BAND, "0-18", -3);
+        verify(patientDemographicCounterMapper).adjust(PatientDemographicCounterService.DIMENSION_AGE_BAND, "19-35", 3);
+        verify(patientDemographicCounterMapper).updateStateDate(AGE_BAND_SHIFT_STATE, today);
+    }
+
+    @Test
+    void testShiftAgeBandsIncludesLeapDayBirthdaysInNonLeapYear() {
+        // Given
+        LocalDate today = LocalDate.of(2025, 3, 1);
+        List<String> expectedBirthdays = Arrays.asList("03-01", "02-29");
+        when(patientDemographicCounterMapper.lockStateDate(AGE_BAND_SHIFT_STATE)).thenReturn(today.minusDays(1));
+        when(patientMapper.countBirthdaysReachingAges(eq(today), eq(expectedBirthdays), anyList()))
+            .thenReturn(Collections.emptyList());
+
+        // When
+        patientDemographicCounterService.shiftAgeBands(today);
+
+        // Then
+        verify(patientMapper).countBirthdaysReachingAges(eq(today), eq(expectedBirthdays), anyList());
+        verify(patientDemographicCounterMapper, never()).adjust(anyString(), anyString(), anyLong());
+    }
+
+    @Test
+    void testShiftAgeBandsCatchesUpMissedDays() {
+        // Given
+        LocalDate today = LocalDate.of(2025, 6, 15);
+        when(patientDemographicCounterMapper.lockStateDate(AGE_BAND_SHIFT_STATE)).thenReturn(today.minusDays(3));
+        when(patientMapper.countBirthdaysReachingAges(any(LocalDate.class), anyList(), anyList()))
+            .thenReturn(Collections.emptyList());
+
+        // When
+        patientDemographicCounterService.shiftAgeBands(today);
+
+        // Then
+        verify(patientMapper).countBirthdaysReachingAges(eq(LocalDate.of(2025, 6, 13)), eq(Collections.singletonList("06-13")), anyList());
+        verify(patientMapper).countBirthdaysReachingAges(eq(LocalDate.of(2025, 6, 14)), eq(Collections.singletonList("06-14")), anyList());
+        verify(patientMapper).countBirthdaysReachingAges(eq(today), eq(Collections.singletonList("06-15")), anyList());
+        verify(patientDemographicCounterMapper).updateStateDate(AGE_BAND_SHIFT_STATE, today);
+    }
+
+    @Test
+    void testShiftAgeBandsSkipsWhenAlreadyShifted() {
+        // Given
+        LocalDate today = LocalDate.of(2025, 6, 15);
+        when(patientDemographicCounterMapper.lockStateDate(AGE_BAND_SHIFT_STATE)).thenReturn(today);
+
+        // When
+        patientDemographicCounterService.shiftAgeBands(today);
+
+        // Then
+        verifyNoInteractions(patientMapper);
+        verify(patientDemographicCounterMapper, never()).adjust(anyString(), anyString(), anyLong());
+        verify(patientDemographicCounterMapper, never()).updateStateDate(anyString(), any());
+    }
+
+    @Test
+    void testShiftAgeBandsSkipsWhenStateMissing() {
+        // Given
+        when(patientDemographicCounterMapper.lockStateDate(AGE_BAND_SHIFT_STATE)).thenReturn(null);
+
+        // When
+        patientDemographicCounterService.shiftAgeBands(LocalDate.of(2025, 6, 15));
+
+        // Then
+        verifyNoInteractions(patientMapper);
+        verify(patientDemographicCounterMapper, never()).updateStateDate(anyString(), any());
+    }
+
+    @Test
+    void testRebuildRegionCounters() {
+        // When
+        patientDemographicCounterService.rebuildRegionCounters();
+
+        // Then
+        verify(patientDemographicCounterMapper).deleteByDimension(PatientDemographicCounterService.DIMENSION_REGION);
+        verify(patientDemographicCounterMapper).rebuildRegionCounters(PatientDemographicCounterService.DIMENSION_REGION);
+        verify(patientDemographicCounterMapper).deleteByDimension(PatientDemographicCounterService.DIMENSION_PROVINCE);
+        verify(patientDemographicCounterMapper).rebuildProvinceCounters(PatientDemographicCounterService.DIMENSION_PROVINCE);
+    }
+}
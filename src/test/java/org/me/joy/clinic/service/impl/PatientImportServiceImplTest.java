@@ -0,0 +1,174 @@
+package org.me.joy.clinic.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.me.joy.clinic.dto.PatientImportError;
+import org.me.joy.clinic.dto.PatientImportFormat;
+import org.me.joy.clinic.dto.PatientImportResult;
+import org.me.joy.clinic.entity.Patient;
+import org.me.joy.clinic.exception.BusinessException;
+import org.me.joy.clinic.mapper.PatientMapper;
+import org.me.joy.clinic.search.NamePinyinIndex;
+import org.me.joy.clinic.search.PatientSearchIndex;
+import org.me.joy.clinic.service.PatientDemographicCounterService;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 患者批量导入服务实现类测试
+ */
+@ExtendWith(MockitoExtension.class)
+class PatientImportServiceImplTest {
+
+    @Mock
+    private PatientMapper patientMapper;
+
+    @Mock
+    private PatientDemographicCounterService patientDemographicCounterService;
+
+    @Mock
+    private PatientSearchIndex patientSearchIndex;
+
+    @Mock
+    private NamePinyinIndex namePinyinIndex;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private PatientImportServiceImpl patientImportService;
+
+    private String prefix;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(patientImportService, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(patientImportService, "validator",
+            Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(patientImportService, "patientImportExecutor", (Executor) Runnable::run);
+        ReflectionTestUtils.setField(patientImportService, "chunkSize", 2);
+        prefix = PatientManagementServiceImpl.patientNumberPrefix(LocalDate.now());
+    }
+
+    private InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void importPatients_WithCsv_ShouldInsertValidRowsAndReportErrors() {
+        // Given
+        when(patientMapper.findMaxPatientNumber(prefix)).thenReturn(prefix + "0007");
+        List<Patient> inserted = new ArrayList<>();
+        when(patientMapper.batchInsert(anyList())).thenAnswer(invocation -> {
+            inserted.addAll(invocation.getArgument(0));
+            return 1;
+        });
+        String csv = "name,gender,id_card,address\n"
+            + "张三,男,110101199001011234,北京市朝阳区\n"
+            + "李四,不详,,\n"
+            + "\n"
+            + "王五,女,110101199001011234,\n";
+
+        // When
+        PatientImportResult result = patientImportService.importPatients(stream(csv), PatientImportFormat.CSV);
+
+        // Then
+        assertEquals(3, result.getTotalRows());
+        assertEquals(1, result.getImportedCount());
+        assertEquals(2, result.getFailedCount());
+        assertEquals(1, inserted.size());
+        assertEquals(prefix + "0008", inserted.get(0).getPatientNumber());
+        assertEquals("zhangsan", inserted.get(0).getNamePinyin());
+
+        PatientImportError invalid = result.getErrors().get(0);
+        assertEquals(2, invalid.getRow());
+        assertEquals("VALIDATION_FAILED", invalid.getCode());
+        PatientImportError duplicate = result.getErrors().get(1);
+        assertEquals(4, duplicate.getRow());
+        assertEquals("DUPLICATE_ID_CARD_IN_FILE", duplicate.getCode());
+        verify(patientDemographicCounterService).recordPatientsCreated(inserted);
+    }
+
+    @Test
+    void importPatients_WithNdjson_ShouldDedupeAgainstExistingIdCards() {
+        // Given
+        when(patientMapper.findExistingIdCards(anyList())).thenReturn(Collections.singletonList("11010119900202123x"));
+        when(patientMapper.batchInsert(anyList())).thenReturn(1);
+        String ndjson = "{\"name\":\"张三\",\"gender\":\"男\",\"idCard\":\"11010119900202123X\"}\n"
+            + "{\"name\":\"李四\",\"gender\":\"女\",\"birthDate\":\"1990-13-40\"}\n"
+            + "{\"name\":\"王五\",\"gender\":\"女\",\"idCard\":\"110101199003031234\"}\n";
+
+        // When
+        PatientImportResult result = patientImportService.importPatients(stream(ndjson), PatientImportFormat.NDJSON);
+
+        // Then
+        assertEquals(3, result.getTotalRows());
+        assertEquals(1, result.getImportedCount());
+        assertEquals("INVALID_ROW", result.getErrors().get(0).getCode());
+        assertEquals(2, result.getErrors().get(0).getRow());
+        assertEquals("PATIENT_ID_CARD_EXISTS", result.getErrors().get(1).getCode());
+        assertEquals("11010119900202123X", result.getErrors().get(1).getIdCard());
+    }
+
+    @Test
+    void importPatients_WithPatientNumberConflict_ShouldReallocateAndRetry() {
+        // Given
+        when(patientMapper.findMaxPatientNumber(prefix)).thenReturn(null, prefix + "0005");
+        List<String> numbers = new ArrayList<>();
+        when(patientMapper.batchInsert(anyList()))
+            .thenThrow(new DuplicateKeyException("Duplicate entry"))
+            .thenAnswer(invocation -> {
+                List<Patient> patients = invocation.getArgument(0);
+                patients.forEach(patient -> numbers.add(patient.getPatientNumber()));
+                return patients.size();
+            });
+        String csv = "name,gender\n张三,男\n";
+
+        // When
+        PatientImportResult result = patientImportService.importPatients(stream(csv), PatientImportFormat.CSV);
+
+        // Then
+        assertEquals(1, result.getImportedCount());
+        assertEquals(0, result.getFailedCount());
+        assertEquals(Collections.singletonList(prefix + "0006"), numbers);
+        verify(patientMapper, times(2)).batchInsert(anyList());
+    }
+
+    @Test
+    void importPatients_WithCsvMissingNameColumn_ShouldThrowBusinessException() {
+        // When & Then
+        assertThrows(BusinessException.class, () ->
+            patientImportService.importPatients(stream("gender,phone\n男,13800000000\n"), PatientImportFormat.CSV));
+        verify(patientMapper, times(0)).batchInsert(anyList());
+    }
+
+    @Test
+    void fromValue_ShouldResolveFormatFromParameterOrContentType() {
+        assertEquals(PatientImportFormat.NDJSON, PatientImportFormat.fromValue(null, "application/x-ndjson"));
+        assertEquals(PatientImportFormat.CSV, PatientImportFormat.fromValue(null, "text/csv"));
+        assertEquals(PatientImportFormat.NDJSON, PatientImportFormat.fromValue("ndjson", "text/csv"));
+        assertThrows(BusinessException.class, () -> PatientImportFormat.fromValue("xlsx", null));
+    }
+}
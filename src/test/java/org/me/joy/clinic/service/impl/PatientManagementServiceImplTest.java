@@ -3,7 +3,9 @@ package org.me.joy.clinic.service.impl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.me.joy.clinic.cache.PatientCache;
 import org.me.joy.clinic.dto.CreatePatientRequest;
+import org.me.joy.clinic.dto.PatientInclude;
 import org.me.joy.clinic.dto.PatientResponse;
 import org.me.joy.clinic.dto.UpdatePatientRequest;
 import org.me.joy.clinic.entity.AllergyHistory;
@@ -14,6 +16,10 @@ import org.me.joy.clinic.exception.ValidationException;
 import org.me.joy.clinic.mapper.AllergyHistoryMapper;
 import org.me.joy.clinic.mapper.MedicalHistoryMapper;
 import org.me.joy.clinic.mapper.PatientMapper;
+import org.me.joy.clinic.pharmacy.AllergyEngine;
+import org.me.joy.clinic.search.NamePinyinIndex;
+import org.me.joy.clinic.search.PatientSearchIndex;
+import org.me.joy.clinic.service.PatientDemographicCounterService;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -43,6 +49,21 @@ class PatientManagementServiceImplTest {
     @Mock
     private MedicalHistoryMapper medicalHistoryMapper;
 
+    @Mock
+    private PatientDemographicCounterService patientDemographicCounterService;
+
+    @Mock
+    private PatientSearchIndex patientSearchIndex;
+
+    @Mock
+    private NamePinyinIndex namePinyinIndex;
+
+    @Mock
+    private PatientCache patientCache;
+
+    @Mock
+    private AllergyEngine allergyEngine;
+
     @InjectMocks
     private PatientManagementServiceImpl patientManagementService;
 
@@ -102,7 +123,9 @@ class PatientManagementServiceImplTest {
         assertEquals("正常", response.getStatus());
         assertFalse(response.getIsVip());
 
-        verify(patientMapper).insert(any(Patient.class));
+        verify(patientMapper).insert(argThat((Patient patient) ->
+            "北京市".equals(patient.getProvince()) && "北京市".equals(patient.getCity())));
+        verify(patientDemographicCounterService).recordPatientCreated(any(Patient.class));
     }
 
     @Test
@@ -134,6 +157,8 @@ class PatientManagementServiceImplTest {
         assertEquals(updatePatientRequest.getAddress(), response.getAddress());
 
         verify(patientMapper).updateById(any(Patient.class));
+        verify(patientDemographicCounterService).recordPatientUpdated(argThat(before ->
+            !updatePatientRequest.getAddress().equals(before.getAddress())), eq(testPatient));
     }
 
     @Test
@@ -152,7 +177,7 @@ class PatientManagementServiceImplTest {
     @Test
     void getPatientById_WithValidId_ShouldReturnPatient() {
         // Given
-        when(patientMapper.selectById(1L)).thenReturn(testPatient);
+        when(patientCache.getById(1L)).thenReturn(testPatient);
         when(allergyHistoryMapper.findByPatientId(1L)).thenReturn(Arrays.asList());
         when(medicalHistoryMapper.findByPatientId(1L)).thenReturn(Arrays.asList());
 
@@ -165,13 +190,13 @@ class PatientManagementServiceImplTest {
         assertEquals(testPatient.getName(), response.getName());
         assertEquals(testPatient.getPatientNumber(), response.getPatientNumber());
 
-        verify(patientMapper).selectById(1L);
+        verify(patientCache).getById(1L);
     }
 
     @Test
     void getPatientById_WithNonExistentId_ShouldThrowBusinessException() {
         // Given
-        when(patientMapper.selectById(1L)).thenReturn(null);
+        when(patientCache.getById(1L)).thenReturn(null);
 
         // When & Then
         assertThrows(BusinessException.class, () -> {
@@ -182,7 +207,7 @@ class PatientManagementServiceImplTest {
     @Test
     void getPatientByNumber_WithValidNumber_ShouldReturnPatient() {
         // Given
-        when(patientMapper.findByPatientNumber("P202401010001")).thenReturn(Optional.of(testPatient));
+        when(patientCache.getByPatientNumber("P202401010001")).thenReturn(Optional.of(testPatient));
         when(allergyHistoryMapper.findByPatientId(1L)).thenReturn(Arrays.asList());
         when(medicalHistoryMapper.findByPatientId(1L)).thenReturn(Arrays.asList());
 
@@ -194,13 +219,13 @@ class PatientManagementServiceImplTest {
         assertEquals(testPatient.getPatientNumber(), response.getPatientNumber());
         assertEquals(testPatient.getName(), response.getName());
 
-        verify(patientMapper).findByPatientNumber("P202401010001");
+        verify(patientCache).getByPatientNumber("P202401010001");
     }
 
     @Test
     void getPatientByNumber_WithNonExistentNumber_ShouldThrowBusinessException() {
         // Given
-        when(patientMapper.findByPatientNumber("P202401010001")).thenReturn(Optional.empty());
+        when(patientCache.getByPatientNumber("P202401010001")).thenReturn(Optional.empty());
 
         // When & Then
         assertThrows(BusinessException.class, () -> {
@@ -211,7 +236,7 @@ class PatientManagementServiceImplTest {
     @Test
     void getPatientByIdCard_WithValidIdCard_ShouldReturnPatient() {
         // Given
-        when(patientMapper.findByIdCard("110101199001011234")).thenReturn(Optional.of(testPatient));
+        when(patientCache.getByIdCard("110101199001011234")).thenReturn(Optional.of(testPatient));
         when(allergyHistoryMapper.findByPatientId(1L)).thenReturn(Arrays.asList());
         when(medicalHistoryMapper.findByPatientId(1L)).thenReturn(Arrays.asList());
 
@@ -223,7 +248,7 @@ class PatientManagementServiceImplTest {
         assertEquals(testPatient.getIdCard(), response.getIdCard());
         assertEquals(testPatient.getName(), response.getName());
 
-        verify(patientMapper).findByIdCard("110101199001011234");
+        verify(patientCache).getByIdCard("110101199001011234");
     }
 
     @Test
@@ -231,8 +256,8 @@ class PatientManagementServiceImplTest {
         // Given
         List<Patient> patients = Arrays.asList(testPatient);
         when(patientMapper.selectList(null)).thenReturn(patients);
-        when(allergyHistoryMapper.findByPatientId(anyLong())).thenReturn(Arrays.asList());
-        when(medicalHistoryMapper.findByPatientId(anyLong())).thenReturn(Arrays.asList());
+        when(allergyHistoryMapper.findByPatientIds(anyList())).thenReturn(Arrays.asList());
+        when(medicalHistoryMapper.findByPatientIds(anyList())).thenReturn(Arrays.asList());
 
         // When
         List<PatientResponse> responses = patientManagementService.getAllPatients();
@@ -245,13 +270,56 @@ class PatientManagementServiceImplTest {
         verify(patientMapper).selectList(null);
     }
 
+    @Test
+    void getAllPatients_WithHistories_ShouldBatchLoadAndGroupByPatient() {
+        // Given
+        Patient otherPatient = new Patient();
+        otherPatient.setId(2L);
+        otherPatient.setName("李四");
+        AllergyHistory allergy = new AllergyHistory();
+        allergy.setPatientId(2L);
+        allergy.setAllergen("青霉素");
+        MedicalHistory history = new MedicalHistory();
+        history.setPatientId(1L);
+        history.setDiseaseName("高血压");
+        when(patientMapper.selectList(null)).thenReturn(Arrays.asList(testPatient, otherPatient));
+        when(allergyHistoryMapper.findByPatientIds(Arrays.asList(1L, 2L))).thenReturn(Arrays.asList(allergy));
+        when(medicalHistoryMapper.findByPatientIds(Arrays.asList(1L, 2L))).thenReturn(Arrays.asList(history));
+
+        // When
+        List<PatientResponse> responses = patientManagementService.getAllPatients(PatientInclude.HISTORIES);
+
+        // Then
+        assertEquals(2, responses.size());
+        assertTrue(responses.get(0).getAllergyHistories().isEmpty());
+        assertEquals("高血压", responses.get(0).getMedicalHistories().get(0).getDiseaseName());
+        assertEquals("青霉素", responses.get(1).getAllergyHistories().get(0).getAllergen());
+        assertTrue(responses.get(1).getMedicalHistories().isEmpty());
+        verify(allergyHistoryMapper, never()).findByPatientId(anyLong());
+        verify(medicalHistoryMapper, never()).findByPatientId(anyLong());
+    }
+
+    @Test
+    void getVipPatients_WithIncludeNone_ShouldNotLoadHistories() {
+        // Given
+        when(patientMapper.findVipPatients()).thenReturn(Arrays.asList(testPatient));
+
+        // When
+        List<PatientResponse> responses = patientManagementService.getVipPatients(PatientInclude.NONE);
+
+        // Then
+        assertEquals(1, responses.size());
+        assertNull(responses.get(0).getAllergyHistories());
+        verifyNoInteractions(allergyHistoryMapper, medicalHistoryMapper);
+    }
+
     @Test
     void getPatientsByStatus_WithValidStatus_ShouldReturnPatients() {
         // Given
         List<Patient> patients = Arrays.asList(testPatient);
         when(patientMapper.findByStatus("正常")).thenReturn(patients);
-        when(allergyHistoryMapper.findByPatientId(anyLong())).thenReturn(Arrays.asList());
-        when(medicalHistoryMapper.findByPatientId(anyLong())).thenReturn(Arrays.asList());
+        when(allergyHistoryMapper.findByPatientIds(anyList())).thenReturn(Arrays.asList());
+        when(medicalHistoryMapper.findByPatientIds(anyList())).thenReturn(Arrays.asList());
 
         // When
         List<PatientResponse> responses = patientManagementService.getPatientsByStatus("正常");
@@ -270,8 +338,8 @@ class PatientManagementServiceImplTest {
         testPatient.setIsVip(true);
         List<Patient> patients = Arrays.asList(testPatient);
         when(patientMapper.findVipPatients()).thenReturn(patients);
-        when(allergyHistoryMapper.findByPatientId(anyLong())).thenReturn(Arrays.asList());
-        when(medicalHistoryMapper.findByPatientId(anyLong())).thenReturn(Arrays.asList());
+        when(allergyHistoryMapper.findByPatientIds(anyList())).thenReturn(Arrays.asList());
+        when(medicalHistoryMapper.findByPatientIds(anyList())).thenReturn(Arrays.asList());
 
         // When
         List<PatientResponse> responses = patientManagementService.getVipPatients();
@@ -288,9 +356,10 @@ class PatientManagementServiceImplTest {
     void searchPatients_WithKeyword_ShouldReturnMatchingPatients() {
         // Given
         List<Patient> patients = Arrays.asList(testPatient);
+        when(patientSearchIndex.search(eq("张三"), anyInt())).thenReturn(null);
         when(patientMapper.searchPatients("张三")).thenReturn(patients);
-        when(allergyHistoryMapper.findByPatientId(anyLong())).thenReturn(Arrays.asList());
-        when(medicalHistoryMapper.findByPatientId(anyLong())).thenReturn(Arrays.asList());
+        when(allergyHistoryMapper.findByPatientIds(anyList())).thenReturn(Arrays.asList());
+        when(medicalHistoryMapper.findByPatientIds(anyList())).thenReturn(Arrays.asList());
 
         // When
         List<PatientResponse> responses = patientManagementService.searchPatients("张三");
@@ -303,6 +372,46 @@ class PatientManagementServiceImplTest {
         verify(patientMapper).searchPatients("张三");
     }
 
+    @Test
+    void searchPatients_WithSearchIndex_ShouldFetchRankedPatientsById() {
+        // Given
+        Patient otherPatient = new Patient();
+        otherPatient.setId(2L);
+        otherPatient.setName("张三丰");
+        otherPatient.setGender("男");
+        when(patientSearchIndex.search(eq("张三"), anyInt())).thenReturn(Arrays.asList(1L, 2L));
+        when(patientMapper.selectBatchIds(Arrays.asList(1L, 2L))).thenReturn(Arrays.asList(otherPatient, testPatient));
+        when(allergyHistoryMapper.findByPatientIds(anyList())).thenReturn(Arrays.asList());
+        when(medicalHistoryMapper.findByPatientIds(anyList())).thenReturn(Arrays.asList());
+
+        // When
+        List<PatientResponse> responses = patientManagementService.searchPatients("张三");
+
+        // Then
+        assertEquals(2, responses.size());
+        assertEquals("张三", responses.get(0).getName());
+        assertEquals("张三丰", responses.get(1).getName());
+        verify(patientMapper, never()).searchPatients(anyString());
+    }
+
+    @Test
+    void searchPatients_WithPinyinInitials_ShouldUsePinyinIndex() {
+        // Given
+        when(namePinyinIndex.searchPatients(eq("zs"), anyInt())).thenReturn(Arrays.asList(1L));
+        when(patientMapper.selectBatchIds(Arrays.asList(1L))).thenReturn(Arrays.asList(testPatient));
+        when(allergyHistoryMapper.findByPatientIds(anyList())).thenReturn(Arrays.asList());
+        when(medicalHistoryMapper.findByPatientIds(anyList())).thenReturn(Arrays.asList());
+
+        // When
+        List<PatientResponse> responses = patientManagementService.searchPatients("zs");
+
+        // Then
+        assertEquals(1, responses.size());
+        assertEquals("张三", responses.get(0).getName());
+        verify(patientSearchIndex, never()).search(anyString(), anyInt());
+        verify(patientMapper, never()).searchPatients(anyString());
+    }
+
     @Test
     void deletePatient_WithValidId_ShouldDeletePatient() {
         // Given
@@ -314,6 +423,8 @@ class PatientManagementServiceImplTest {
 
         // Then
         verify(patientMapper).deleteById(1L);
+        verify(patientCache).invalidate(1L);
+        verify(patientDemographicCounterService).recordPatientDeleted(testPatient);
     }
 
     @Test
@@ -328,6 +439,7 @@ class PatientManagementServiceImplTest {
         // Then
         assertTrue(testPatient.getIsVip());
         verify(patientMapper).updateById(testPatient);
+        verify(patientCache).invalidate(1L);
     }
 
     @Test
@@ -378,7 +490,7 @@ class PatientManagementServiceImplTest {
     @Test
     void addAllergyHistory_WithValidData_ShouldAddAllergyHistory() {
         // Given
-        when(patientMapper.selectById(1L)).thenReturn(testPatient);
+        when(patientCache.getById(1L)).thenReturn(testPatient);
         when(allergyHistoryMapper.insert(any(AllergyHistory.class))).thenReturn(1);
 
         AllergyHistory allergyHistory = new AllergyHistory();
@@ -397,12 +509,13 @@ class PatientManagementServiceImplTest {
         assertNotNull(result.getRecordedTime());
 
         verify(allergyHistoryMapper).insert(allergyHistory);
+        verify(allergyEngine).invalidatePatient(1L);
     }
 
     @Test
     void addMedicalHistory_WithValidData_ShouldAddMedicalHistory() {
         // Given
-        when(patientMapper.selectById(1L)).thenReturn(testPatient);
+        when(patientCache.getById(1L)).thenReturn(testPatient);
         when(medicalHistoryMapper.insert(any(MedicalHistory.class))).thenReturn(1);
 
         MedicalHistory medicalHistory = new MedicalHistory();
@@ -0,0 +1,89 @@
+package org.me.joy.clinic.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.me.joy.clinic.cache.PatientCache;
+import org.me.joy.clinic.entity.Patient;
+import org.me.joy.clinic.mapper.PatientMapper;
+import org.me.joy.clinic.service.PatientDemographicCounterService;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 患者地区回填服务测试
+ */
+@ExtendWith(MockitoExtension.class)
+class PatientRegionBackfillServiceImplTest {
+
+    @Mock
+    private PatientMapper patientMapper;
+
+    @Mock
+    private PatientDemographicCounterService patientDemographicCounterService;
+
+    @Mock
+    private PatientCache patientCache;
+
+    @InjectMocks
+    private PatientRegionBackfillServiceImpl patientRegionBackfillService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(patientRegionBackfillService, "batchSize", 2);
+    }
+
+    private Patient patient(Long id, String address) {
+        Patient patient = new Patient();
+        patient.setId(id);
+        patient.setAddress(address);
+        return patient;
+    }
+
+    @Test
+    void testBackfillProcessesAllBatches() {
+        // Given
+        when(patientMapper.findPatientsWithoutRegion(0L, 2))
+            .thenReturn(Arrays.asList(patient(1L, "北京市海淀区"), patient(2L, "某某街道1号")));
+        when(patientMapper.findPatientsWithoutRegion(2L, 2))
+            .thenReturn(Collections.singletonList(patient(5L, "四川省成都市武侯区")));
+
+        // When
+        int updated = patientRegionBackfillService.backfill();
+
+        // Then
+        assertEquals(2, updated);
+        verify(patientMapper).batchUpdateRegion(argThat((List<Patient> patients) ->
+            patients.size() == 1 && patients.get(0).getId() == 1L && "北京市".equals(patients.get(0).getCity())));
+        verify(patientMapper).batchUpdateRegion(argThat((List<Patient> patients) ->
+            patients.size() == 1 && "四川省".equals(patients.get(0).getProvince())));
+        verify(patientDemographicCounterService).rebuildRegionCounters();
+        verify(patientCache).invalidate(1L);
+        verify(patientCache).invalidate(5L);
+        verify(patientCache, never()).invalidate(2L);
+    }
+
+    @Test
+    void testBackfillWithNothingToUpdate() {
+        // Given
+        when(patientMapper.findPatientsWithoutRegion(0L, 2)).thenReturn(Collections.emptyList());
+
+        // When
+        int updated = patientRegionBackfillService.backfill();
+
+        // Then
+        assertEquals(0, updated);
+        verify(patientMapper, never()).batchUpdateRegion(anyList());
+        verify(patientDemographicCounterService).rebuildRegionCounters();
+    }
+}
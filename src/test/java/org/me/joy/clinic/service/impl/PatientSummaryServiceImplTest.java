@@ -0,0 +1,171 @@
+package org.me.joy.clinic.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.me.joy.clinic.dto.PatientInclude;
+import org.me.joy.clinic.dto.PatientResponse;
+import org.me.joy.clinic.dto.PatientSummary;
+import org.me.joy.clinic.entity.AllergyHistory;
+import org.me.joy.clinic.entity.Bill;
+import org.me.joy.clinic.entity.DispenseRecord;
+import org.me.joy.clinic.entity.MedicalRecord;
+import org.me.joy.clinic.entity.VitalSigns;
+import org.me.joy.clinic.exception.BusinessException;
+import org.me.joy.clinic.mapper.AllergyHistoryMapper;
+import org.me.joy.clinic.mapper.BillMapper;
+import org.me.joy.clinic.mapper.DispenseRecordMapper;
+import org.me.joy.clinic.mapper.MedicalHistoryMapper;
+import org.me.joy.clinic.mapper.MedicalRecordMapper;
+import org.me.joy.clinic.mapper.VitalSignsMapper;
+import org.me.joy.clinic.service.PatientManagementService;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * 患者概览服务实现类测试
+ */
+@ExtendWith(MockitoExtension.class)
+class PatientSummaryServiceImplTest {
+
+    @Mock
+    private PatientManagementService patientManagementService;
+
+    @Mock
+    private MedicalRecordMapper medicalRecordMapper;
+
+    @Mock
+    private VitalSignsMapper vitalSignsMapper;
+
+    @Mock
+    private AllergyHistoryMapper allergyHistoryMapper;
+
+    @Mock
+    private MedicalHistoryMapper medicalHistoryMapper;
+
+    @Mock
+    private BillMapper billMapper;
+
+    @Mock
+    private DispenseRecordMapper dispenseRecordMapper;
+
+    @InjectMocks
+    private PatientSummaryServiceImpl patientSummaryService;
+
+    private ExecutorService executor;
+    private PatientResponse patient;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(6);
+        ReflectionTestUtils.setField(patientSummaryService, "patientSummaryExecutor", executor);
+        ReflectionTestUtils.setField(patientSummaryService, "defaultSectionLimit", 10);
+        ReflectionTestUtils.setField(patientSummaryService, "sectionTimeoutMillis", 500L);
+
+        patient = new PatientResponse();
+        patient.setId(1L);
+        patient.setName("张三");
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void getPatientSummary_ShouldLoadAllSections() {
+        // Given
+        when(patientManagementService.getPatientById(1L, PatientInclude.NONE)).thenReturn(patient);
+        when(medicalRecordMapper.findRecentByPatientId(1L, 10))
+            .thenReturn(Arrays.asList(new MedicalRecord(), new MedicalRecord()));
+        when(vitalSignsMapper.findRecentByPatientId(1L, 10)).thenReturn(Collections.singletonList(new VitalSigns()));
+        when(allergyHistoryMapper.findByPatientId(1L)).thenReturn(Collections.singletonList(new AllergyHistory()));
+        when(medicalHistoryMapper.findByPatientId(1L)).thenReturn(Collections.emptyList());
+        when(billMapper.findRecentByPatientId(1L, 10)).thenReturn(Collections.singletonList(new Bill()));
+        when(dispenseRecordMapper.findRecentByPatientId(1L, 10))
+            .thenReturn(Collections.singletonList(new DispenseRecord()));
+
+        // When
+        PatientSummary summary = patientSummaryService.getPatientSummary(1L, null);
+
+        // Then
+        assertSame(patient, summary.getPatient());
+        assertEquals(10, summary.getSectionLimit());
+        assertEquals(2, summary.getMedicalRecords().size());
+        assertEquals(1, summary.getVitalSigns().size());
+        assertEquals(1, summary.getAllergyHistories().size());
+        assertTrue(summary.getMedicalHistories().isEmpty());
+        assertEquals(1, summary.getBills().size());
+        assertEquals(1, summary.getDispenseRecords().size());
+        assertFalse(summary.isPartial());
+        assertEquals(6, summary.getSectionElapsedMillis().size());
+        assertNotNull(summary.getTotalElapsedMillis());
+    }
+
+    @Test
+    void getPatientSummary_ShouldCapSectionLimit() {
+        // Given
+        when(patientManagementService.getPatientById(1L, PatientInclude.NONE)).thenReturn(patient);
+
+        // When
+        PatientSummary summary = patientSummaryService.getPatientSummary(1L, 1000);
+
+        // Then
+        assertEquals(PatientSummaryServiceImpl.MAX_SECTION_LIMIT, summary.getSectionLimit());
+        verify(medicalRecordMapper).findRecentByPatientId(1L, PatientSummaryServiceImpl.MAX_SECTION_LIMIT);
+        verify(billMapper).findRecentByPatientId(1L, PatientSummaryServiceImpl.MAX_SECTION_LIMIT);
+    }
+
+    @Test
+    void getPatientSummary_WithFailedSection_ShouldReportSectionStatus() {
+        // Given
+        when(patientManagementService.getPatientById(1L, PatientInclude.NONE)).thenReturn(patient);
+        when(billMapper.findRecentByPatientId(anyLong(), anyInt())).thenThrow(new RuntimeException("数据库异常"));
+        when(dispenseRecordMapper.findRecentByPatientId(anyLong(), anyInt())).thenAnswer(invocation -> {
+            Thread.sleep(2000);
+            return Collections.emptyList();
+        });
+
+        // When
+        PatientSummary summary = patientSummaryService.getPatientSummary(1L, 5);
+
+        // Then
+        assertTrue(summary.isPartial());
+        assertNull(summary.getBills());
+        assertNull(summary.getDispenseRecords());
+        assertEquals(PatientSummary.SECTION_FAILED,
+            summary.getSectionStatus().get(PatientSummaryServiceImpl.SECTION_BILLS));
+        assertEquals(PatientSummary.SECTION_TIMEOUT,
+            summary.getSectionStatus().get(PatientSummaryServiceImpl.SECTION_DISPENSE_RECORDS));
+        assertEquals(PatientSummary.SECTION_OK,
+            summary.getSectionStatus().get(PatientSummaryServiceImpl.SECTION_MEDICAL_RECORDS));
+        assertTrue(summary.getTotalElapsedMillis() < 2000);
+    }
+
+    @Test
+    void getPatientSummary_WithMissingPatient_ShouldNotLoadSections() {
+        // Given
+        when(patientManagementService.getPatientById(99L, PatientInclude.NONE))
+            .thenThrow(new BusinessException("PATIENT_NOT_FOUND", "患者不存在"));
+
+        // When & Then
+        assertThrows(BusinessException.class, () -> patientSummaryService.getPatientSummary(99L, null));
+        verifyNoInteractions(medicalRecordMapper, vitalSignsMapper, allergyHistoryMapper,
+            medicalHistoryMapper, billMapper, dispenseRecordMapper);
+    }
+}
@@ -0,0 +1,168 @@
+package org.me.joy.clinic.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.me.joy.clinic.dto.CursorPage;
+import org.me.joy.clinic.dto.PatientInclude;
+import org.me.joy.clinic.dto.PatientTimelineEntry;
+import org.me.joy.clinic.dto.PatientTimelineSource;
+import org.me.joy.clinic.entity.DispenseRecord;
+import org.me.joy.clinic.entity.MedicalOrder;
+import org.me.joy.clinic.entity.MedicalRecord;
+import org.me.joy.clinic.entity.Registration;
+import org.me.joy.clinic.entity.VitalSigns;
+import org.me.joy.clinic.exception.BusinessException;
+import org.me.joy.clinic.mapper.DispenseRecordMapper;
+import org.me.joy.clinic.mapper.MedicalOrderMapper;
+import org.me.joy.clinic.mapper.MedicalRecordMapper;
+import org.me.joy.clinic.mapper.RegistrationMapper;
+import org.me.joy.clinic.mapper.VitalSignsMapper;
+import org.me.joy.clinic.service.PatientManagementService;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 患者时间线服务实现类测试
+ */
+@ExtendWith(MockitoExtension.class)
+class PatientTimelineServiceImplTest {
+
+    @Mock
+    private PatientManagementService patientManagementService;
+
+    @Mock
+    private MedicalRecordMapper medicalRecordMapper;
+
+    @Mock
+    private MedicalOrderMapper medicalOrderMapper;
+
+    @Mock
+    private DispenseRecordMapper dispenseRecordMapper;
+
+    @Mock
+    private VitalSignsMapper vitalSignsMapper;
+
+    @Mock
+    private RegistrationMapper registrationMapper;
+
+    @InjectMocks
+    private PatientTimelineServiceImpl patientTimelineService;
+
+    private final LocalDateTime base = LocalDateTime.of(2024, 3, 1, 9, 0);
+
+    private MedicalRecord record(long id, LocalDateTime date) {
+        MedicalRecord record = new MedicalRecord();
+        record.setId(id);
+        record.setRecordDate(date);
+        record.setRecordNumber("MR" + id);
+        record.setChiefComplaint("头痛");
+        return record;
+    }
+
+    private VitalSigns vitalSigns(long id, LocalDateTime recordedAt) {
+        VitalSigns vitalSigns = new VitalSigns();
+        vitalSigns.setId(id);
+        vitalSigns.setRecordedAt(recordedAt);
+        vitalSigns.setSystolicBp(120);
+        vitalSigns.setDiastolicBp(80);
+        return vitalSigns;
+    }
+
+    private Registration registration(long id, LocalDateTime time) {
+        Registration registration = new Registration();
+        registration.setId(id);
+        registration.setRegistrationTime(time);
+        registration.setRegistrationNumber("R" + id);
+        return registration;
+    }
+
+    private List<String> keys(List<PatientTimelineEntry> entries) {
+        return entries.stream().map(entry -> entry.getSource() + ":" + entry.getSourceId()).collect(Collectors.toList());
+    }
+
+    @Test
+    void getPatientTimeline_ShouldMergeSourcesInTimeDescendingOrder() {
+        // Given
+        when(medicalRecordMapper.selectList(any(QueryWrapper.class)))
+            .thenReturn(Arrays.asList(record(5L, base), record(4L, base.minusDays(2))));
+        when(medicalOrderMapper.selectList(any(QueryWrapper.class))).thenReturn(Collections.<MedicalOrder>emptyList());
+        when(dispenseRecordMapper.selectList(any(QueryWrapper.class))).thenReturn(Collections.<DispenseRecord>emptyList());
+        when(vitalSignsMapper.selectList(any(QueryWrapper.class)))
+            .thenReturn(Arrays.asList(vitalSigns(9L, base), vitalSigns(8L, base.minusDays(1))));
+        when(registrationMapper.selectList(any(QueryWrapper.class)))
+            .thenReturn(Collections.singletonList(registration(3L, base.minusHours(1))));
+
+        // When
+        CursorPage<PatientTimelineEntry> page = patientTimelineService.getPatientTimeline(1L, null, 3);
+
+        // Then：同一时刻病历排在生命体征之前
+        assertEquals(Arrays.asList("MEDICAL_RECORD:5", "VITAL_SIGNS:9", "REGISTRATION:3"), keys(page.getItems()));
+        assertTrue(page.isHasMore());
+        assertEquals(PatientTimelineServiceImpl.encodeCursor(page.getItems().get(2)), page.getNextCursor());
+        assertEquals("血压 120/80mmHg", page.getItems().get(1).getSummary());
+        verify(patientManagementService).getPatientById(1L, PatientInclude.NONE);
+
+        ArgumentCaptor<QueryWrapper> captor = ArgumentCaptor.forClass(QueryWrapper.class);
+        verify(medicalRecordMapper).selectList(captor.capture());
+        assertTrue(captor.getValue().getSqlSegment().contains("LIMIT 4"));
+    }
+
+    @Test
+    void getPatientTimeline_WithCursor_ShouldContinueEachSourceAfterLastEntry() {
+        // Given：上一页最后一条为 base 时刻的生命体征9
+        PatientTimelineEntry last = new PatientTimelineEntry(PatientTimelineSource.VITAL_SIGNS, 9L, base);
+        String cursor = PatientTimelineServiceImpl.encodeCursor(last);
+        when(medicalRecordMapper.selectList(any(QueryWrapper.class))).thenReturn(Collections.<MedicalRecord>emptyList());
+        when(medicalOrderMapper.selectList(any(QueryWrapper.class))).thenReturn(Collections.<MedicalOrder>emptyList());
+        when(dispenseRecordMapper.selectList(any(QueryWrapper.class))).thenReturn(Collections.<DispenseRecord>emptyList());
+        when(vitalSignsMapper.selectList(any(QueryWrapper.class)))
+            .thenReturn(Collections.singletonList(vitalSigns(8L, base.minusDays(1))));
+        when(registrationMapper.selectList(any(QueryWrapper.class)))
+            .thenReturn(Collections.singletonList(registration(3L, base)));
+
+        // When
+        CursorPage<PatientTimelineEntry> page = patientTimelineService.getPatientTimeline(1L, cursor, 10);
+
+        // Then
+        assertEquals(Arrays.asList("REGISTRATION:3", "VITAL_SIGNS:8"), keys(page.getItems()));
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+
+        ArgumentCaptor<QueryWrapper> recordQuery = ArgumentCaptor.forClass(QueryWrapper.class);
+        verify(medicalRecordMapper).selectList(recordQuery.capture());
+        assertTrue(recordQuery.getValue().getSqlSegment().contains("record_date <"));
+        assertFalse(recordQuery.getValue().getSqlSegment().contains("record_date <="));
+
+        ArgumentCaptor<QueryWrapper> vitalSignsQuery = ArgumentCaptor.forClass(QueryWrapper.class);
+        verify(vitalSignsMapper).selectList(vitalSignsQuery.capture());
+        assertTrue(vitalSignsQuery.getValue().getSqlSegment().contains("id <"));
+
+        ArgumentCaptor<QueryWrapper> registrationQuery = ArgumentCaptor.forClass(QueryWrapper.class);
+        verify(registrationMapper).selectList(registrationQuery.capture());
+        assertTrue(registrationQuery.getValue().getSqlSegment().contains("registration_time <="));
+    }
+
+    @Test
+    void getPatientTimeline_WithInvalidCursor_ShouldThrowBusinessException() {
+        // When & Then
+        BusinessException exception = assertThrows(BusinessException.class,
+            () -> patientTimelineService.getPatientTimeline(1L, "not-a-cursor", 10));
+        assertEquals("INVALID_CURSOR", exception.getErrorCode());
+        verify(medicalRecordMapper, never()).selectList(any(QueryWrapper.class));
+    }
+}
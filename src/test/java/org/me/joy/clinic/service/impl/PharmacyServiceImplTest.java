@@ -1,16 +1,20 @@
 package org.me.joy.clinic.service.impl;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.me.joy.clinic.cache.PatientCache;
+import org.me.joy.clinic.dto.StockSnapshot;
 import org.me.joy.clinic.entity.*;
 import org.me.joy.clinic.exception.BusinessException;
 import org.me.joy.clinic.mapper.*;
 import org.me.joy.clinic.service.PharmacyService;
 import org.me.joy.clinic.service.PrescriptionValidationService;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -18,6 +22,13 @@ import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -42,7 +53,7 @@ class PharmacyServiceImplTest {
     private DispenseItemMapper dispenseItemMapper;
 
     @Mock
-    private PatientMapper patientMapper;
+    private PatientCache patientCache;
 
     @Mock
     private MedicineMapper medicineMapper;
@@ -59,6 +70,9 @@ class PharmacyServiceImplTest {
     @Mock
     private MedicalRecordMapper medicalRecordMapper;
 
+    @Mock
+    private AllergyHistoryMapper allergyHistoryMapper;
+
     @InjectMocks
     private PharmacyServiceImpl pharmacyService;
 
@@ -67,9 +81,14 @@ class PharmacyServiceImplTest {
     private List<PrescriptionItem> prescriptionItems;
     private DispenseRecord dispenseRecord;
     private DispenseItem dispenseItem;
+    private ExecutorService executor;
 
     @BeforeEach
     void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+        ReflectionTestUtils.setField(pharmacyService, "safetyCheckExecutor", executor);
+        ReflectionTestUtils.setField(pharmacyService, "safetyCheckTimeoutMillis", 500L);
+
         // 创建测试处方
         prescription = new Prescription();
         prescription.setId(1L);
@@ -121,6 +140,15 @@ class PharmacyServiceImplTest {
         dispenseItem.setStatus("待调剂");
     }
 
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private Map<Long, StockSnapshot> stock(Long medicineId, int totalStock) {
+        return Collections.singletonMap(medicineId, new StockSnapshot(medicineId, totalStock, totalStock, 0, 0));
+    }
+
     @Test
     void testStartDispensing_Success() {
         // 创建测试病历
@@ -131,18 +159,24 @@ class PharmacyServiceImplTest {
         // 模拟依赖调用
         when(prescriptionMapper.selectById(1L)).thenReturn(prescription);
         when(medicalRecordMapper.selectById(1L)).thenReturn(medicalRecord);
-        when(patientMapper.selectById(1L)).thenReturn(patient);
+        when(patientCache.getById(1L)).thenReturn(patient);
         when(dispenseRecordMapper.existsByPrescriptionId(1L)).thenReturn(false);
         when(prescriptionItemMapper.findByPrescriptionId(1L)).thenReturn(prescriptionItems);
+        List<AllergyHistory> allergies = Collections.singletonList(new AllergyHistory());
+        when(allergyHistoryMapper.findByPatientId(1L)).thenReturn(allergies);
+        Map<Long, StockSnapshot> stock = stock(1L, 50);
+        when(inventoryLevelMapper.getStockSnapshots(Collections.singleton(1L))).thenReturn(stock);
 
         // 模拟验证服务调用
         PrescriptionValidationService.PrescriptionValidationResult validationResult = 
             new PrescriptionValidationService.PrescriptionValidationResult(true, "通过");
-        when(prescriptionValidationService.validatePrescription(any())).thenReturn(validationResult);
+        when(prescriptionValidationService.validatePrescription(prescription, prescriptionItems))
+            .thenReturn(validationResult);
 
         PrescriptionValidationService.StockCheckResult stockResult = 
             new PrescriptionValidationService.StockCheckResult("充足");
-        when(prescriptionValidationService.checkStock(any())).thenReturn(stockResult);
+        when(prescriptionValidationService.checkStock(prescriptionItems, stock))
+            .thenReturn(stockResult);
 
         PrescriptionValidationService.DrugInteractionResult interactionResult = 
             new PrescriptionValidationService.DrugInteractionResult(false);
@@ -150,11 +184,10 @@ class PharmacyServiceImplTest {
 
         PrescriptionValidationService.AllergyCheckResult allergyResult = 
             new PrescriptionValidationService.AllergyCheckResult(false);
-        when(prescriptionValidationService.checkAllergies(any(), any())).thenReturn(allergyResult);
+        when(prescriptionValidationService.checkAllergies(allergies, prescriptionItems)).thenReturn(allergyResult);
 
         when(dispenseRecordMapper.insert(any())).thenReturn(1);
         when(dispenseItemMapper.insert(any())).thenReturn(1);
-        when(inventoryLevelMapper.getTotalStockByMedicine(1L)).thenReturn(50);
 
         // 执行测试
         DispenseRecord result = pharmacyService.startDispensing(1L, 1L, "李药师");
@@ -165,10 +198,97 @@ class PharmacyServiceImplTest {
         assertEquals("P20240101001", result.getPrescriptionNumber());
         assertEquals("张三", result.getPatientName());
         assertEquals("李药师", result.getPharmacistName());
-
-        // 验证方法调用
+        assertEquals("通过", result.getValidationResult());
+        assertEquals("充足", result.getStockCheckResult());
+        assertEquals("无药物相互作用", result.getDrugInteractionCheck());
+        assertEquals("无过敏风险", result.getAllergyCheck());
+        assertTrue(result.getSafetyCheckTimings().matches(
+            "处方验证=\\d+ms, 库存检查=\\d+ms, 相互作用=\\d+ms, 过敏检查=\\d+ms, 总计=\\d+ms"));
+
+        // 验证方法调用：处方、项目、调剂记录存在性各只查询一次，库存按药品批量查询
         verify(dispenseRecordMapper).insert(any(DispenseRecord.class));
-        verify(dispenseItemMapper).insert(any(DispenseItem.class));
+        verify(dispenseItemMapper).insert(argThat(item -> "充足".equals(item.getStockStatus())));
+        verify(prescriptionMapper, times(1)).selectById(1L);
+        verify(prescriptionItemMapper, times(1)).findByPrescriptionId(1L);
+        verify(dispenseRecordMapper, times(1)).existsByPrescriptionId(1L);
+        verify(inventoryLevelMapper, times(1)).getStockSnapshots(any());
+        verify(inventoryLevelMapper, never()).getTotalStockByMedicine(any());
+    }
+
+    @Test
+    void testStartDispensing_SafetyCheckTimeout_ShouldRequireReview() {
+        // Given：过敏检查阻塞超过截止时间，其余检查正常返回
+        MedicalRecord medicalRecord = new MedicalRecord();
+        medicalRecord.setId(1L);
+        medicalRecord.setPatientId(1L);
+        when(prescriptionMapper.selectById(1L)).thenReturn(prescription);
+        when(medicalRecordMapper.selectById(1L)).thenReturn(medicalRecord);
+        when(patientCache.getById(1L)).thenReturn(patient);
+        when(dispenseRecordMapper.existsByPrescriptionId(1L)).thenReturn(false);
+        when(prescriptionItemMapper.findByPrescriptionId(1L)).thenReturn(prescriptionItems);
+        when(allergyHistoryMapper.findByPatientId(1L)).thenReturn(Collections.emptyList());
+        Map<Long, StockSnapshot> stock = stock(1L, 50);
+        when(inventoryLevelMapper.getStockSnapshots(Collections.singleton(1L))).thenReturn(stock);
+        when(prescriptionValidationService.validatePrescription(prescription, prescriptionItems))
+            .thenReturn(new PrescriptionValidationService.PrescriptionValidationResult(true, "通过"));
+        when(prescriptionValidationService.checkStock(prescriptionItems, stock))
+            .thenReturn(new PrescriptionValidationService.StockCheckResult("充足"));
+        when(prescriptionValidationService.checkDrugInteractions(prescriptionItems))
+            .thenReturn(new PrescriptionValidationService.DrugInteractionResult(false));
+        CountDownLatch release = new CountDownLatch(1);
+        when(prescriptionValidationService.checkAllergies(Collections.emptyList(), prescriptionItems))
+            .thenAnswer(invocation -> {
+                release.await(5, TimeUnit.SECONDS);
+                return new PrescriptionValidationService.AllergyCheckResult(false);
+            });
+        when(dispenseRecordMapper.insert(any())).thenReturn(1);
+        when(dispenseItemMapper.insert(any())).thenReturn(1);
+
+        // When
+        DispenseRecord result;
+        try {
+            result = pharmacyService.startDispensing(1L, 1L, "李药师");
+        } finally {
+            release.countDown();
+        }
+
+        // Then：超时的检查不被视为通过，调剂记录标记为需要复核并记录超时状态
+        assertEquals("需要复核", result.getValidationResult());
+        assertEquals("充足", result.getStockCheckResult());
+        assertEquals("过敏检查未完成，需人工复核", result.getAllergyCheck());
+        assertTrue(result.needsReview());
+        assertTrue(result.getSafetyCheckTimings().contains("过敏检查=超时"));
+        assertTrue(result.getSafetyCheckTimings().startsWith("处方验证="));
+    }
+
+    @Test
+    void testStartDispensing_SafetyCheckPoolFull_ShouldRequireReviewWithoutRunningOnCaller() {
+        // Given：线程池队列已满，所有检查均被拒绝
+        ReflectionTestUtils.setField(pharmacyService, "safetyCheckExecutor", (Executor) command -> {
+            throw new RejectedExecutionException("queue full");
+        });
+        MedicalRecord medicalRecord = new MedicalRecord();
+        medicalRecord.setId(1L);
+        medicalRecord.setPatientId(1L);
+        when(prescriptionMapper.selectById(1L)).thenReturn(prescription);
+        when(medicalRecordMapper.selectById(1L)).thenReturn(medicalRecord);
+        when(patientCache.getById(1L)).thenReturn(patient);
+        when(dispenseRecordMapper.existsByPrescriptionId(1L)).thenReturn(false);
+        when(prescriptionItemMapper.findByPrescriptionId(1L)).thenReturn(prescriptionItems);
+        when(allergyHistoryMapper.findByPatientId(1L)).thenReturn(Collections.emptyList());
+        when(inventoryLevelMapper.getStockSnapshots(Collections.singleton(1L))).thenReturn(stock(1L, 50));
+        when(dispenseRecordMapper.insert(any())).thenReturn(1);
+        when(dispenseItemMapper.insert(any())).thenReturn(1);
+
+        // When
+        DispenseRecord result = pharmacyService.startDispensing(1L, 1L, "李药师");
+
+        // Then：被拒绝的检查按超时处理，不在请求线程中执行
+        assertEquals("需要复核", result.getValidationResult());
+        assertEquals("过敏检查未完成，需人工复核", result.getAllergyCheck());
+        assertTrue(result.getSafetyCheckTimings().startsWith(
+            "处方验证=超时, 库存检查=超时, 相互作用=超时, 过敏检查=超时"));
+        verifyNoInteractions(prescriptionValidationService);
     }
 
     @Test
@@ -211,10 +331,12 @@ class PharmacyServiceImplTest {
 
         // 模拟依赖调用
         when(dispenseItemMapper.selectById(1L)).thenReturn(dispenseItem);
-        when(inventoryLevelMapper.getTotalStockByMedicine(1L)).thenReturn(50);
-        when(inventoryLevelMapper.getEarliestExpiringBatch(1L)).thenReturn(createInventoryLevel(50));
-        when(inventoryLevelMapper.updateById(any())).thenReturn(1);
-        when(stockTransactionMapper.insert(any())).thenReturn(1);
+        when(inventoryLevelMapper.getStockSnapshots(Collections.singleton(1L))).thenReturn(stock(1L, 50));
+        InventoryLevel batch = createBatch(11L, "20240101", 50);
+        batch.setExpiryDate(LocalDate.now().plusYears(1));
+        when(inventoryLevelMapper.findDispensableBatchesForUpdate(1L)).thenReturn(Collections.singletonList(batch));
+        when(inventoryLevelMapper.decrementBatchStock(11L, 10)).thenReturn(1);
+        when(stockTransactionMapper.batchInsert(any())).thenReturn(1);
         when(dispenseItemMapper.updateById(any())).thenReturn(1);
 
         // 执行测试
@@ -224,14 +346,147 @@ class PharmacyServiceImplTest {
         assertNotNull(result);
         assertEquals("已调剂", result.getStatus());
         assertEquals("20240101", result.getBatchNumber());
-        assertEquals(request.getExpiryDate(), result.getExpiryDate());
-
-        // 验证方法调用
-        verify(inventoryLevelMapper).updateById(any(InventoryLevel.class));
-        verify(stockTransactionMapper).insert(any(StockTransaction.class));
+        assertEquals(batch.getExpiryDate(), result.getExpiryDate());
+        assertEquals(50, result.getStockBeforeDispense());
+        assertEquals(40, result.getStockAfterDispense());
+
+        // 验证方法调用：条件扣减批次库存，不再整行回写
+        verify(inventoryLevelMapper, never()).updateById(any(InventoryLevel.class));
+        verify(stockTransactionMapper).batchInsert(argThat(list -> list.size() == 1
+            && list.get(0).getQuantity() == -10 && list.get(0).getStockAfter() == 40));
         verify(dispenseItemMapper).updateById(any(DispenseItem.class));
     }
 
+    @Test
+    void testDispenseMedicineItem_ShouldSplitQuantityAcrossBatchesByExpiry() {
+        // Given：最早过期批次只剩4，其余从下一批次扣减
+        PharmacyService.DispenseMedicineRequest request = new PharmacyService.DispenseMedicineRequest();
+        request.setDispenseItemId(1L);
+        request.setMedicineId(1L);
+        request.setDispensedQuantity(10);
+        request.setDispensedBy(1L);
+        request.setDispensedByName("李药师");
+        when(dispenseItemMapper.selectById(1L)).thenReturn(dispenseItem);
+        when(inventoryLevelMapper.getStockSnapshots(Collections.singleton(1L))).thenReturn(stock(1L, 34));
+        when(inventoryLevelMapper.findDispensableBatchesForUpdate(1L)).thenReturn(Arrays.asList(
+            createBatch(11L, "B1", 4), createBatch(12L, "B2", 30)));
+        when(inventoryLevelMapper.decrementBatchStock(11L, 4)).thenReturn(1);
+        when(inventoryLevelMapper.decrementBatchStock(12L, 6)).thenReturn(1);
+        when(stockTransactionMapper.batchInsert(any())).thenReturn(2);
+        when(dispenseItemMapper.updateById(any())).thenReturn(1);
+
+        // When
+        DispenseItem result = pharmacyService.dispenseMedicineItem(request);
+
+        // Then：调剂明细记录实际扣减的批次，每个批次一条交易记录，一次批量写入
+        assertEquals("B1,B2", result.getBatchNumber());
+        assertEquals(34, result.getStockBeforeDispense());
+        assertEquals(24, result.getStockAfterDispense());
+        verify(stockTransactionMapper).batchInsert(argThat(list -> list.size() == 2
+            && "B1".equals(list.get(0).getBatchNumber()) && list.get(0).getQuantity() == -4
+            && "B2".equals(list.get(1).getBatchNumber()) && list.get(1).getQuantity() == -6
+            && !list.get(0).getTransactionNumber().equals(list.get(1).getTransactionNumber())));
+        verify(stockTransactionMapper, never()).insert(any(StockTransaction.class));
+    }
+
+    @Test
+    void testDispenseMedicineItem_ShouldRetryBatchesAfterConcurrentDecrement() {
+        // Given：第一次读取后批次被并发扣减，条件更新失败，重新读取后从剩余库存扣减
+        PharmacyService.DispenseMedicineRequest request = new PharmacyService.DispenseMedicineRequest();
+        request.setDispenseItemId(1L);
+        request.setMedicineId(1L);
+        request.setDispensedQuantity(10);
+        request.setDispensedBy(1L);
+        request.setDispensedByName("李药师");
+        when(dispenseItemMapper.selectById(1L)).thenReturn(dispenseItem);
+        when(inventoryLevelMapper.getStockSnapshots(Collections.singleton(1L))).thenReturn(stock(1L, 50));
+        when(inventoryLevelMapper.findDispensableBatchesForUpdate(1L))
+            .thenReturn(Collections.singletonList(createBatch(11L, "B1", 50)))
+            .thenReturn(Collections.singletonList(createBatch(11L, "B1", 45)));
+        when(inventoryLevelMapper.decrementBatchStock(11L, 10)).thenReturn(0).thenReturn(1);
+        when(stockTransactionMapper.batchInsert(any())).thenReturn(1);
+        when(dispenseItemMapper.updateById(any())).thenReturn(1);
+
+        // When
+        pharmacyService.dispenseMedicineItem(request);
+
+        // Then
+        verify(inventoryLevelMapper, times(2)).findDispensableBatchesForUpdate(1L);
+        verify(stockTransactionMapper).batchInsert(argThat(list -> list.size() == 1
+            && list.get(0).getStockBefore() == 45 && list.get(0).getStockAfter() == 35));
+    }
+
+    @Test
+    void testDispenseMedicineItem_StaleFirstRead_ShouldReallocateFromCurrentStock() {
+        // Given：首次读取的批次库存已过期（12，实际只剩8），条件更新失败；加锁重读返回当前库存后分摊到两个批次
+        PharmacyService.DispenseMedicineRequest request = new PharmacyService.DispenseMedicineRequest();
+        request.setDispenseItemId(1L);
+        request.setMedicineId(1L);
+        request.setDispensedQuantity(10);
+        when(dispenseItemMapper.selectById(1L)).thenReturn(dispenseItem);
+        when(inventoryLevelMapper.getStockSnapshots(Collections.singleton(1L))).thenReturn(stock(1L, 42));
+        when(inventoryLevelMapper.findDispensableBatchesForUpdate(1L))
+            .thenReturn(Collections.singletonList(createBatch(11L, "B1", 12)))
+            .thenReturn(Arrays.asList(createBatch(11L, "B1", 8), createBatch(12L, "B2", 30)));
+        when(inventoryLevelMapper.decrementBatchStock(11L, 10)).thenReturn(0);
+        when(inventoryLevelMapper.decrementBatchStock(11L, 8)).thenReturn(1);
+        when(inventoryLevelMapper.decrementBatchStock(12L, 2)).thenReturn(1);
+        when(stockTransactionMapper.batchInsert(any())).thenReturn(2);
+        when(dispenseItemMapper.updateById(any())).thenReturn(1);
+
+        // When
+        DispenseItem result = pharmacyService.dispenseMedicineItem(request);
+
+        // Then：不会因为重复读到同一快照而报冲突
+        assertEquals("B1,B2", result.getBatchNumber());
+        verify(inventoryLevelMapper, times(2)).findDispensableBatchesForUpdate(1L);
+        verify(stockTransactionMapper).batchInsert(argThat(list -> list.size() == 2
+            && list.get(0).getQuantity() == -8 && list.get(1).getQuantity() == -2));
+    }
+
+    @Test
+    void testDispenseMedicineItem_ReservedStockOnly_ShouldFailPreCheck() {
+        // Given：总库存充足，但可用库存不足（其余为预留、锁定库存）
+        PharmacyService.DispenseMedicineRequest request = new PharmacyService.DispenseMedicineRequest();
+        request.setDispenseItemId(1L);
+        request.setMedicineId(1L);
+        request.setDispensedQuantity(10);
+        when(dispenseItemMapper.selectById(1L)).thenReturn(dispenseItem);
+        when(inventoryLevelMapper.getStockSnapshots(Collections.singleton(1L)))
+            .thenReturn(Collections.singletonMap(1L, new StockSnapshot(1L, 50, 5, 40, 5)));
+
+        // When
+        BusinessException exception = assertThrows(BusinessException.class,
+            () -> pharmacyService.dispenseMedicineItem(request));
+
+        // Then
+        assertEquals("库存不足，无法调剂", exception.getMessage());
+        verify(inventoryLevelMapper, never()).findDispensableBatchesForUpdate(any());
+    }
+
+    @Test
+    void testDispenseMedicineItem_ConcurrentDrainBelowQuantity_ShouldFail() {
+        // Given：重试时其他调剂已把批次扣减到不足
+        PharmacyService.DispenseMedicineRequest request = new PharmacyService.DispenseMedicineRequest();
+        request.setDispenseItemId(1L);
+        request.setMedicineId(1L);
+        request.setDispensedQuantity(10);
+        when(dispenseItemMapper.selectById(1L)).thenReturn(dispenseItem);
+        when(inventoryLevelMapper.getStockSnapshots(Collections.singleton(1L))).thenReturn(stock(1L, 10));
+        when(inventoryLevelMapper.findDispensableBatchesForUpdate(1L))
+            .thenReturn(Collections.singletonList(createBatch(11L, "B1", 10)))
+            .thenReturn(Collections.singletonList(createBatch(11L, "B1", 3)));
+        when(inventoryLevelMapper.decrementBatchStock(11L, 10)).thenReturn(0);
+
+        // When
+        BusinessException exception = assertThrows(BusinessException.class,
+            () -> pharmacyService.dispenseMedicineItem(request));
+
+        // Then
+        assertEquals("库存不足，当前可用库存: 3，需要出库: 10", exception.getMessage());
+        verify(stockTransactionMapper, never()).batchInsert(any());
+    }
+
     @Test
     void testDispenseMedicineItem_ItemNotFound() {
         // 模拟调剂项目不存在
@@ -256,7 +511,7 @@ class PharmacyServiceImplTest {
 
         // 模拟库存不足
         when(dispenseItemMapper.selectById(1L)).thenReturn(dispenseItem);
-        when(inventoryLevelMapper.getTotalStockByMedicine(1L)).thenReturn(5);
+        when(inventoryLevelMapper.getStockSnapshots(Collections.singleton(1L))).thenReturn(stock(1L, 5));
 
         // 执行测试并验证异常
         BusinessException exception = assertThrows(BusinessException.class, 
@@ -345,8 +600,8 @@ class PharmacyServiceImplTest {
         // 模拟依赖调用
         when(dispenseRecordMapper.selectById(1L)).thenReturn(dispenseRecord);
         when(dispenseItemMapper.findByDispenseRecordId(1L)).thenReturn(Collections.singletonList(dispenseItem));
-        when(inventoryLevelMapper.getEarliestExpiringBatch(1L)).thenReturn(createInventoryLevel(40));
-        when(inventoryLevelMapper.updateById(any())).thenReturn(1);
+        when(inventoryLevelMapper.getEarliestExpiringBatch(1L)).thenReturn(createBatch(11L, "20240101", 40));
+        when(inventoryLevelMapper.incrementBatchStock(11L, 10)).thenReturn(1);
         when(stockTransactionMapper.insert(any())).thenReturn(1);
         when(dispenseItemMapper.updateById(any())).thenReturn(1);
         when(dispenseRecordMapper.updateById(any())).thenReturn(1);
@@ -360,8 +615,9 @@ class PharmacyServiceImplTest {
         assertEquals("患者取消", result.getReturnReason());
 
         // 验证方法调用
-        verify(inventoryLevelMapper).updateById(any(InventoryLevel.class));
-        verify(stockTransactionMapper).insert(any(StockTransaction.class));
+        verify(inventoryLevelMapper).incrementBatchStock(11L, 10);
+        verify(stockTransactionMapper).insert(argThat(transaction -> transaction.getQuantity() == 10
+            && transaction.getStockAfter() == 50));
         verify(dispenseItemMapper).updateById(any(DispenseItem.class));
         verify(dispenseRecordMapper).updateById(any(DispenseRecord.class));
     }
@@ -378,7 +634,7 @@ class PharmacyServiceImplTest {
         // 模拟依赖调用
         when(dispenseItemMapper.selectById(1L)).thenReturn(dispenseItem);
         when(medicineMapper.selectById(2L)).thenReturn(newMedicine);
-        when(inventoryLevelMapper.getTotalStockByMedicine(2L)).thenReturn(50);
+        when(inventoryLevelMapper.getStockSnapshots(Collections.singleton(2L))).thenReturn(stock(2L, 50));
         when(dispenseItemMapper.updateById(any())).thenReturn(1);
 
         // 执行测试
@@ -494,9 +750,11 @@ class PharmacyServiceImplTest {
     /**
      * 创建库存水平测试数据
      */
-    private InventoryLevel createInventoryLevel(int currentStock) {
+    private InventoryLevel createBatch(Long id, String batchNumber, int currentStock) {
         InventoryLevel inventory = new InventoryLevel();
+        inventory.setId(id);
         inventory.setMedicineId(1L);
+        inventory.setBatchNumber(batchNumber);
         inventory.setCurrentStock(currentStock);
         return inventory;
     }
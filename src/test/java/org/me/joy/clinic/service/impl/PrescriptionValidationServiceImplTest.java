@@ -6,15 +6,21 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.me.joy.clinic.dto.StockSnapshot;
 import org.me.joy.clinic.entity.*;
 import org.me.joy.clinic.mapper.*;
+import org.me.joy.clinic.pharmacy.AllergyEngine;
+import org.me.joy.clinic.pharmacy.DrugInteractionEngine;
 import org.me.joy.clinic.service.PrescriptionValidationService;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -41,6 +47,12 @@ class PrescriptionValidationServiceImplTest {
     @Mock
     private UserMapper userMapper;
 
+    @Mock
+    private DrugInteractionEngine drugInteractionEngine;
+
+    @Mock
+    private AllergyEngine allergyEngine;
+
     @InjectMocks
     private PrescriptionValidationServiceImpl prescriptionValidationService;
 
@@ -186,23 +198,29 @@ class PrescriptionValidationServiceImplTest {
     @Test
     void testCheckStock_SufficientStock() {
         // 模拟充足库存
-        when(inventoryLevelMapper.getTotalStockByMedicine(1L)).thenReturn(50);
-        when(inventoryLevelMapper.getTotalStockByMedicine(2L)).thenReturn(100);
+        Map<Long, StockSnapshot> stock = new HashMap<>();
+        stock.put(1L, new StockSnapshot(1L, 50, 50, 0, 0));
+        stock.put(2L, new StockSnapshot(2L, 100, 100, 0, 0));
+        when(inventoryLevelMapper.getStockSnapshots(new HashSet<>(Arrays.asList(1L, 2L)))).thenReturn(stock);
 
         // 执行库存检查
         PrescriptionValidationService.StockCheckResult result = 
             prescriptionValidationService.checkStock(prescriptionItems);
 
-        // 验证结果
+        // 验证结果：全部药品一次批量查询
         assertEquals("充足", result.getResult());
         assertTrue(result.getStockIssues() == null || result.getStockIssues().isEmpty());
+        verify(inventoryLevelMapper, times(1)).getStockSnapshots(any());
+        verify(inventoryLevelMapper, never()).getTotalStockByMedicine(any());
     }
 
     @Test
     void testCheckStock_InsufficientStock() {
         // 模拟库存不足
-        when(inventoryLevelMapper.getTotalStockByMedicine(1L)).thenReturn(5); // 不足
-        when(inventoryLevelMapper.getTotalStockByMedicine(2L)).thenReturn(0); // 无库存
+        Map<Long, StockSnapshot> stock = new HashMap<>();
+        stock.put(1L, new StockSnapshot(1L, 5, 5, 0, 0)); // 不足
+        stock.put(2L, StockSnapshot.empty(2L)); // 无库存
+        when(inventoryLevelMapper.getStockSnapshots(any())).thenReturn(stock);
 
         // 执行库存检查
         PrescriptionValidationService.StockCheckResult result = 
@@ -214,10 +232,24 @@ class PrescriptionValidationServiceImplTest {
         assertEquals(2, result.getStockIssues().size());
     }
 
+    @Test
+    void testCheckStock_WithPreloadedStock_ShouldNotQueryInventory() {
+        // 执行库存检查：药品2不在快照中，视为无库存记录
+        PrescriptionValidationService.StockCheckResult result = 
+            prescriptionValidationService.checkStock(prescriptionItems,
+                Collections.singletonMap(1L, new StockSnapshot(1L, 50, 50, 0, 0)));
+
+        // 验证结果
+        assertEquals("不足", result.getResult());
+        assertEquals(1, result.getStockIssues().size());
+        assertEquals(2L, result.getStockIssues().get(0).getMedicineId());
+        verify(inventoryLevelMapper, never()).getStockSnapshots(any());
+    }
+
     @Test
     void testCheckStock_NoInventoryRecord() {
         // 模拟无库存记录
-        when(inventoryLevelMapper.getTotalStockByMedicine(any())).thenReturn(null);
+        when(inventoryLevelMapper.getStockSnapshots(any())).thenReturn(Collections.emptyMap());
 
         // 执行库存检查
         PrescriptionValidationService.StockCheckResult result = 
@@ -243,6 +275,8 @@ class PrescriptionValidationServiceImplTest {
 
     @Test
     void testCheckDrugInteractions_NoInteractions() {
+        when(drugInteractionEngine.findInteractions(prescriptionItems)).thenReturn(Collections.emptyList());
+
         // 执行药品相互作用检查
         PrescriptionValidationService.DrugInteractionResult result = 
             prescriptionValidationService.checkDrugInteractions(prescriptionItems);
@@ -262,6 +296,9 @@ class PrescriptionValidationServiceImplTest {
         item2.setMedicineName("华法林");
 
         List<PrescriptionItem> interactingItems = Arrays.asList(item1, item2);
+        when(drugInteractionEngine.findInteractions(interactingItems)).thenReturn(Collections.singletonList(
+            new PrescriptionValidationService.DrugInteractionResult.DrugInteraction(
+                "阿司匹林", "华法林", "药物相互作用", "严重", "阿司匹林 与 华法林：出血风险显著增加")));
 
         // 执行药品相互作用检查
         PrescriptionValidationService.DrugInteractionResult result = 
@@ -270,7 +307,7 @@ class PrescriptionValidationServiceImplTest {
         // 验证结果
         assertTrue(result.isHasInteractions());
         assertNotNull(result.getInteractions());
-        assertFalse(result.getInteractions().isEmpty());
+        assertEquals("严重", result.getInteractions().get(0).getSeverity());
     }
 
     @Test
@@ -282,6 +319,7 @@ class PrescriptionValidationServiceImplTest {
 
         // 验证结果
         assertFalse(result.isHasInteractions());
+        verifyNoInteractions(drugInteractionEngine);
     }
 
     @Test
@@ -296,6 +334,7 @@ class PrescriptionValidationServiceImplTest {
         // 验证结果
         assertFalse(result.isHasAllergyRisk());
         assertTrue(result.getAllergyRisks() == null || result.getAllergyRisks().isEmpty());
+        verifyNoInteractions(allergyEngine);
     }
 
     @Test
@@ -311,15 +350,19 @@ class PrescriptionValidationServiceImplTest {
         // 创建含青霉素的药品
         PrescriptionItem item = new PrescriptionItem();
         item.setMedicineName("青霉素V钾片");
+        List<PrescriptionItem> items = Collections.singletonList(item);
+        when(allergyEngine.screen(Collections.singletonList(allergy), items)).thenReturn(Collections.singletonList(
+            new PrescriptionValidationService.AllergyCheckResult.AllergyRisk(
+                "青霉素V钾片", "青霉素", "严重", "患者对 青霉素 过敏，使用 青霉素V钾片 可能有风险")));
 
         // 执行过敏检查
         PrescriptionValidationService.AllergyCheckResult result = 
-            prescriptionValidationService.checkAllergies(patient, Collections.singletonList(item));
+            prescriptionValidationService.checkAllergies(patient, items);
 
         // 验证结果
         assertTrue(result.isHasAllergyRisk());
         assertNotNull(result.getAllergyRisks());
-        assertFalse(result.getAllergyRisks().isEmpty());
+        assertEquals("严重", result.getAllergyRisks().get(0).getSeverity());
     }
 
     @Test
@@ -12,6 +12,7 @@ import org.me.joy.clinic.exception.BusinessException;
 import org.me.joy.clinic.exception.ValidationException;
 import org.me.joy.clinic.mapper.ScheduleMapper;
 import org.me.joy.clinic.mapper.StaffMapper;
+import org.me.joy.clinic.search.NamePinyinIndex;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -38,6 +39,9 @@ class StaffManagementServiceImplTest {
     @Mock
     private ScheduleMapper scheduleMapper;
 
+    @Mock
+    private NamePinyinIndex namePinyinIndex;
+
     @InjectMocks
     private StaffManagementServiceImpl staffManagementService;
 
@@ -287,6 +291,38 @@ class StaffManagementServiceImplTest {
         verify(staffMapper).searchStaff("张医生");
     }
 
+    @Test
+    void searchStaff_WithPinyinInitials_ShouldUsePinyinIndex() {
+        // Given
+        when(namePinyinIndex.searchStaff(eq("zys"), anyInt())).thenReturn(Arrays.asList(1L));
+        when(staffMapper.selectBatchIds(Arrays.asList(1L))).thenReturn(Arrays.asList(testStaff));
+        when(scheduleMapper.findByStaffId(anyLong())).thenReturn(Arrays.asList());
+
+        // When
+        List<StaffResponse> responses = staffManagementService.searchStaff("zys");
+
+        // Then
+        assertEquals(1, responses.size());
+        assertEquals("张医生", responses.get(0).getName());
+        verify(staffMapper, never()).searchStaff(anyString());
+    }
+
+    @Test
+    void createStaff_ShouldStoreNamePinyin() {
+        // Given
+        when(staffMapper.findByIdCard(createStaffRequest.getIdCard())).thenReturn(Optional.empty());
+        when(staffMapper.findByStaffNumber(anyString())).thenReturn(Optional.empty());
+        when(staffMapper.insert(any(Staff.class))).thenReturn(1);
+
+        // When
+        staffManagementService.createStaff(createStaffRequest);
+
+        // Then
+        verify(staffMapper).insert(argThat((Staff staff) ->
+            "lihushi".equals(staff.getNamePinyin()) && "lhs".equals(staff.getNameInitials())));
+        verify(namePinyinIndex).indexStaff(any(Staff.class));
+    }
+
     @Test
     void deleteStaff_WithValidId_ShouldDeleteStaff() {
         // Given
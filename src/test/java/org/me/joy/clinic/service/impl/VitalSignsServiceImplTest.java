@@ -3,12 +3,12 @@ package org.me.joy.clinic.service.impl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.me.joy.clinic.cache.PatientCache;
 import org.me.joy.clinic.dto.VitalSignsRequest;
 import org.me.joy.clinic.entity.Patient;
 import org.me.joy.clinic.entity.VitalSigns;
 import org.me.joy.clinic.exception.BusinessException;
 import org.me.joy.clinic.exception.ValidationException;
-import org.me.joy.clinic.mapper.PatientMapper;
 import org.me.joy.clinic.mapper.VitalSignsMapper;
 import org.me.joy.clinic.service.VitalSignsService;
 import org.mockito.InjectMocks;
@@ -36,7 +36,7 @@ class VitalSignsServiceImplTest {
     private VitalSignsMapper vitalSignsMapper;
 
     @Mock
-    private PatientMapper patientMapper;
+    private PatientCache patientCache;
 
     @InjectMocks
     private VitalSignsServiceImpl vitalSignsService;
@@ -93,7 +93,7 @@ class VitalSignsServiceImplTest {
     @Test
     void testRecordVitalSigns_Success() {
         // 模拟患者存在
-        when(patientMapper.selectById(1L)).thenReturn(testPatient);
+        when(patientCache.getById(1L)).thenReturn(testPatient);
         when(vitalSignsMapper.insert(any(VitalSigns.class))).thenReturn(1);
 
         VitalSigns result = vitalSignsService.recordVitalSigns(validRequest, 1L);
@@ -115,14 +115,14 @@ class VitalSignsServiceImplTest {
         assertNotNull(result.getBmi());
         assertFalse(result.getIsAbnormal());
 
-        verify(patientMapper).selectById(1L);
+        verify(patientCache).getById(1L);
         verify(vitalSignsMapper).insert(any(VitalSigns.class));
     }
 
     @Test
     void testRecordVitalSigns_PatientNotFound() {
         // 模拟患者不存在
-        when(patientMapper.selectById(1L)).thenReturn(null);
+        when(patientCache.getById(1L)).thenReturn(null);
 
         BusinessException exception = assertThrows(BusinessException.class, () -> {
             vitalSignsService.recordVitalSigns(validRequest, 1L);
@@ -131,7 +131,7 @@ class VitalSignsServiceImplTest {
         assertEquals("3001", exception.getErrorCode());
         assertEquals("患者不存在", exception.getMessage());
 
-        verify(patientMapper).selectById(1L);
+        verify(patientCache).getById(1L);
         verify(vitalSignsMapper, never()).insert(any(VitalSigns.class));
     }
 
@@ -141,7 +141,7 @@ class VitalSignsServiceImplTest {
         validRequest.setSystolicBp(80);
         validRequest.setDiastolicBp(120);
 
-        when(patientMapper.selectById(1L)).thenReturn(testPatient);
+        when(patientCache.getById(1L)).thenReturn(testPatient);
 
         ValidationException exception = assertThrows(ValidationException.class, () -> {
             vitalSignsService.recordVitalSigns(validRequest, 1L);
@@ -150,7 +150,7 @@ class VitalSignsServiceImplTest {
         assertEquals("4001", exception.getErrorCode());
         assertTrue(exception.getMessage().contains("收缩压必须大于舒张压"));
 
-        verify(patientMapper).selectById(1L);
+        verify(patientCache).getById(1L);
         verify(vitalSignsMapper, never()).insert(any(VitalSigns.class));
     }
 
@@ -162,7 +162,7 @@ class VitalSignsServiceImplTest {
         validRequest.setHeartRate(110); // 心动过速
         validRequest.setOxygenSaturation(90); // 血氧饱和度低
 
-        when(patientMapper.selectById(1L)).thenReturn(testPatient);
+        when(patientCache.getById(1L)).thenReturn(testPatient);
         when(vitalSignsMapper.insert(any(VitalSigns.class))).thenReturn(1);
 
         VitalSigns result = vitalSignsService.recordVitalSigns(validRequest, 1L);
@@ -175,7 +175,7 @@ class VitalSignsServiceImplTest {
         assertTrue(result.getAbnormalIndicators().contains("心率异常"));
         assertTrue(result.getAbnormalIndicators().contains("血氧饱和度异常"));
 
-        verify(patientMapper).selectById(1L);
+        verify(patientCache).getById(1L);
         verify(vitalSignsMapper).insert(any(VitalSigns.class));
     }
 
@@ -225,7 +225,7 @@ class VitalSignsServiceImplTest {
     void testGetPatientVitalSigns_Success() {
         List<VitalSigns> vitalSignsList = Arrays.asList(testVitalSigns);
         
-        when(patientMapper.selectById(1L)).thenReturn(testPatient);
+        when(patientCache.getById(1L)).thenReturn(testPatient);
         when(vitalSignsMapper.findByPatientId(1L)).thenReturn(vitalSignsList);
 
         List<VitalSigns> result = vitalSignsService.getPatientVitalSigns(1L);
@@ -234,13 +234,13 @@ class VitalSignsServiceImplTest {
         assertEquals(1, result.size());
         assertEquals(testVitalSigns.getId(), result.get(0).getId());
 
-        verify(patientMapper).selectById(1L);
+        verify(patientCache).getById(1L);
         verify(vitalSignsMapper).findByPatientId(1L);
     }
 
     @Test
     void testGetPatientVitalSigns_PatientNotFound() {
-        when(patientMapper.selectById(1L)).thenReturn(null);
+        when(patientCache.getById(1L)).thenReturn(null);
 
         BusinessException exception = assertThrows(BusinessException.class, () -> {
             vitalSignsService.getPatientVitalSigns(1L);
@@ -249,7 +249,7 @@ class VitalSignsServiceImplTest {
         assertEquals("3001", exception.getErrorCode());
         assertEquals("患者不存在", exception.getMessage());
 
-        verify(patientMapper).selectById(1L);
+        verify(patientCache).getById(1L);
         verify(vitalSignsMapper, never()).findByPatientId(1L);
     }
 
@@ -259,7 +259,7 @@ class VitalSignsServiceImplTest {
         LocalDateTime endTime = LocalDateTime.now();
         List<VitalSigns> vitalSignsList = Arrays.asList(testVitalSigns);
         
-        when(patientMapper.selectById(1L)).thenReturn(testPatient);
+        when(patientCache.getById(1L)).thenReturn(testPatient);
         when(vitalSignsMapper.findByPatientIdAndTimeRange(1L, startTime, endTime)).thenReturn(vitalSignsList);
 
         List<VitalSigns> result = vitalSignsService.getPatientVitalSignsByTimeRange(1L, startTime, endTime);
@@ -268,7 +268,7 @@ class VitalSignsServiceImplTest {
         assertEquals(1, result.size());
         assertEquals(testVitalSigns.getId(), result.get(0).getId());
 
-        verify(patientMapper).selectById(1L);
+        verify(patientCache).getById(1L);
         verify(vitalSignsMapper).findByPatientIdAndTimeRange(1L, startTime, endTime);
     }
 
@@ -277,7 +277,7 @@ class VitalSignsServiceImplTest {
         LocalDateTime startTime = LocalDateTime.now();
         LocalDateTime endTime = LocalDateTime.now().minusDays(7);
         
-        when(patientMapper.selectById(1L)).thenReturn(testPatient);
+        when(patientCache.getById(1L)).thenReturn(testPatient);
 
         ValidationException exception = assertThrows(ValidationException.class, () -> {
             vitalSignsService.getPatientVitalSignsByTimeRange(1L, startTime, endTime);
@@ -286,13 +286,13 @@ class VitalSignsServiceImplTest {
         assertEquals("4004", exception.getErrorCode());
         assertEquals("开始时间不能晚于结束时间", exception.getMessage());
 
-        verify(patientMapper).selectById(1L);
+        verify(patientCache).getById(1L);
         verify(vitalSignsMapper, never()).findByPatientIdAndTimeRange(anyLong(), any(), any());
     }
 
     @Test
     void testGetLatestVitalSigns_Success() {
-        when(patientMapper.selectById(1L)).thenReturn(testPatient);
+        when(patientCache.getById(1L)).thenReturn(testPatient);
         when(vitalSignsMapper.findLatestByPatientId(1L)).thenReturn(testVitalSigns);
 
         VitalSigns result = vitalSignsService.getLatestVitalSigns(1L);
@@ -300,7 +300,7 @@ class VitalSignsServiceImplTest {
         assertNotNull(result);
         assertEquals(testVitalSigns.getId(), result.getId());
 
-        verify(patientMapper).selectById(1L);
+        verify(patientCache).getById(1L);
         verify(vitalSignsMapper).findLatestByPatientId(1L);
     }
 
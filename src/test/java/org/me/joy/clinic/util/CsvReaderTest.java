@@ -0,0 +1,41 @@
+package org.me.joy.clinic.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 流式CSV读取器测试
+ */
+class CsvReaderTest {
+
+    @Test
+    void testPlainRecords() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("name,gender\r\n张三,男\n李四,女"));
+
+        assertEquals(Arrays.asList("name", "gender"), reader.readRecord());
+        assertEquals(Arrays.asList("张三", "男"), reader.readRecord());
+        assertEquals(Arrays.asList("李四", "女"), reader.readRecord());
+        assertNull(reader.readRecord());
+    }
+
+    @Test
+    void testQuotedFields() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("\"北京市,朝阳区\",\"他说\"\"你好\"\"\",\"两行\n备注\",\n"));
+
+        assertEquals(Arrays.asList("北京市,朝阳区", "他说\"你好\"", "两行\n备注", ""), reader.readRecord());
+        assertNull(reader.readRecord());
+    }
+
+    @Test
+    void testBomAndUnclosedQuote() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("\uFEFFname\n\"未闭合"));
+
+        assertEquals(Arrays.asList("name"), reader.readRecord());
+        assertThrows(IOException.class, reader::readRecord);
+    }
+}
@@ -0,0 +1,113 @@
+package org.me.joy.clinic.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 带截止时间的并发任务工具测试
+ */
+class DeadlineTasksTest {
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private long deadline(long millis) {
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    @Test
+    void testCompletedTaskTimingAlwaysRecorded() throws Exception {
+        // 等待方被唤醒时，耗时必须已经写入
+        for (int i = 0; i < 1000; i++) {
+            Map<String, Long> elapsed = new ConcurrentHashMap<>();
+            CompletableFuture<Integer> future = DeadlineTasks.submit(executor, "task", elapsed, () -> 1);
+
+            assertEquals(1, DeadlineTasks.await(future, deadline(1000)));
+            assertNotNull(elapsed.get("task"));
+        }
+    }
+
+    @Test
+    void testFailedTaskTimingRecorded() {
+        // Given
+        Map<String, Long> elapsed = new ConcurrentHashMap<>();
+        CompletableFuture<Integer> future = DeadlineTasks.submit(executor, "task", elapsed, () -> {
+            throw new IllegalStateException("db down");
+        });
+
+        // When & Then
+        ExecutionException exception = assertThrows(ExecutionException.class,
+            () -> DeadlineTasks.await(future, deadline(1000)));
+        assertInstanceOf(IllegalStateException.class, exception.getCause());
+        assertNotNull(elapsed.get("task"));
+    }
+
+    @Test
+    void testRejectedTaskReportedAsTimeout() {
+        // Given
+        Map<String, Long> elapsed = new ConcurrentHashMap<>();
+        CompletableFuture<Integer> future = DeadlineTasks.submit(command -> {
+            throw new RejectedExecutionException("queue full");
+        }, "task", elapsed, () -> 1);
+
+        // When & Then
+        assertThrows(TimeoutException.class, () -> DeadlineTasks.await(future, deadline(1000)));
+        assertTrue(elapsed.isEmpty());
+    }
+
+    @Test
+    void testTimedOutQueuedTaskIsSkipped() throws Exception {
+        // Given - 单线程被占用，第二个任务仍在队列中
+        ExecutorService single = Executors.newSingleThreadExecutor();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch ran = new CountDownLatch(1);
+        try {
+            Map<String, Long> elapsed = new ConcurrentHashMap<>();
+            DeadlineTasks.submit(single, "blocker", elapsed, () -> {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return 0;
+            });
+            CompletableFuture<Integer> queued = DeadlineTasks.submit(single, "queued", elapsed, () -> {
+                ran.countDown();
+                return 1;
+            });
+
+            // When
+            assertThrows(TimeoutException.class, () -> DeadlineTasks.await(queued, deadline(50)));
+            release.countDown();
+
+            // Then - 取消后的任务不再执行
+            assertFalse(ran.await(200, TimeUnit.MILLISECONDS));
+            assertTrue(queued.isCancelled());
+        } finally {
+            single.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package org.me.joy.clinic.util;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.me.joy.clinic.dto.CursorPage;
+import org.me.joy.clinic.entity.Patient;
+import org.me.joy.clinic.entity.StockTransaction;
+import org.me.joy.clinic.exception.BusinessException;
+import org.me.joy.clinic.mapper.PatientMapper;
+import org.me.joy.clinic.mapper.StockTransactionMapper;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 键集分页工具测试
+ */
+@ExtendWith(MockitoExtension.class)
+class KeysetPaginationTest {
+
+    @Mock
+    private PatientMapper patientMapper;
+
+    @Mock
+    private StockTransactionMapper stockTransactionMapper;
+
+    @SuppressWarnings("unchecked")
+    private final ArgumentCaptor<QueryWrapper<Patient>> patientQuery = ArgumentCaptor.forClass(QueryWrapper.class);
+
+    private List<Patient> patients(long... ids) {
+        List<Patient> result = new ArrayList<>();
+        for (long id : ids) {
+            Patient patient = new Patient();
+            patient.setId(id);
+            result.add(patient);
+        }
+        return result;
+    }
+
+    @Test
+    void testFirstPageFetchesOneExtraRowAndReturnsCursor() {
+        // Given
+        when(patientMapper.selectList(any())).thenReturn(patients(1, 2, 3));
+
+        // When
+        CursorPage<Patient> page = KeysetPagination.byId(patientMapper, null, true, null, 2);
+
+        // Then
+        assertEquals(2, page.getItems().size());
+        assertTrue(page.isHasMore());
+        assertEquals(KeysetPagination.encodeId(2L), page.getNextCursor());
+        verify(patientMapper).selectList(patientQuery.capture());
+        assertTrue(patientQuery.getValue().getSqlSegment().contains("LIMIT 3"));
+    }
+
+    @Test
+    void testCursorBecomesKeysetCondition() {
+        // Given
+        when(patientMapper.selectList(any())).thenReturn(patients(3));
+
+        // When
+        CursorPage<Patient> page = KeysetPagination.byId(patientMapper, null, true, KeysetPagination.encodeId(2L), 2);
+
+        // Then
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+        verify(patientMapper).selectList(patientQuery.capture());
+        QueryWrapper<Patient> query = patientQuery.getValue();
+        assertTrue(query.getSqlSegment().contains("id >"));
+        assertTrue(query.getParamNameValuePairs().containsValue(2L));
+    }
+
+    @Test
+    void testTimeCursorRoundTrip() {
+        // Given
+        LocalDateTime time = LocalDateTime.of(2025, 3, 1, 9, 30);
+        StockTransaction first = new StockTransaction();
+        first.setId(9L);
+        first.setTransactionDate(time);
+        StockTransaction second = new StockTransaction();
+        second.setId(8L);
+        second.setTransactionDate(time);
+        when(stockTransactionMapper.selectList(any())).thenReturn(Arrays.asList(first, second));
+
+        // When
+        CursorPage<StockTransaction> page = KeysetPagination.byTimeDesc(stockTransactionMapper, null,
+                "transaction_date", StockTransaction::getTransactionDate, null, 1);
+
+        // Then
+        assertEquals(KeysetPagination.encodeTime(time, 9L), page.getNextCursor());
+        assertDoesNotThrow(() -> KeysetPagination.byTimeDesc(stockTransactionMapper, null,
+                "transaction_date", StockTransaction::getTransactionDate, page.getNextCursor(), 1));
+    }
+
+    @Test
+    void testInvalidOrMismatchedCursorIsRejected() {
+        String timeCursor = KeysetPagination.encodeTime(LocalDateTime.now(), 1L);
+
+        assertThrows(BusinessException.class,
+                () -> KeysetPagination.byId(patientMapper, null, true, "not-a-cursor!", 10));
+        assertThrows(BusinessException.class,
+                () -> KeysetPagination.byId(patientMapper, null, true, timeCursor, 10));
+        verifyNoInteractions(patientMapper);
+    }
+
+    @Test
+    void testNormalizeLimit() {
+        assertEquals(KeysetPagination.DEFAULT_LIMIT, KeysetPagination.normalizeLimit(null));
+        assertEquals(1, KeysetPagination.normalizeLimit(0));
+        assertEquals(KeysetPagination.MAX_LIMIT, KeysetPagination.normalizeLimit(10000));
+    }
+}
@@ -0,0 +1,39 @@
+package org.me.joy.clinic.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 姓名拼音工具测试
+ */
+class PinyinUtilsTest {
+
+    @Test
+    void testPinyinAndInitials() {
+        assertEquals("zhangsan", PinyinUtils.toPinyin("张三"));
+        assertEquals("zs", PinyinUtils.toInitials("张三"));
+        assertEquals("lvxiaoming", PinyinUtils.toPinyin("吕晓明"));
+    }
+
+    @Test
+    void testPolyphonicSurname() {
+        // 曾、单作姓氏时读 zeng、shan
+        assertEquals("zengguofan", PinyinUtils.toPinyin("曾国藩"));
+        assertEquals("sxf", PinyinUtils.toInitials("单雄飞"));
+    }
+
+    @Test
+    void testTextInitialsIgnoreSurnameReadings() {
+        assertEquals("dczz", PinyinUtils.toTextInitials("单纯疹子"));
+        assertEquals("gxy", PinyinUtils.toTextInitials("高血压"));
+    }
+
+    @Test
+    void testMixedAndEmptyNames() {
+        assertEquals("tom", PinyinUtils.toPinyin(" Tom "));
+        assertEquals("jw", PinyinUtils.toInitials("John·王"));
+        assertEquals("", PinyinUtils.toPinyin(null));
+        assertEquals("", PinyinUtils.toInitials(""));
+    }
+}
@@ -0,0 +1,63 @@
+package org.me.joy.clinic.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 地址地区提取测试
+ */
+class RegionExtractorTest {
+
+    @Test
+    void testMatcherFindsOverlappingKeywords() {
+        // Given
+        Map<String, String> dictionary = new HashMap<>();
+        dictionary.put("he", "he");
+        dictionary.put("she", "she");
+        dictionary.put("hers", "hers");
+        AhoCorasickMatcher<String> matcher = AhoCorasickMatcher.build(dictionary);
+
+        // When
+        List<AhoCorasickMatcher.Match<String>> matches = matcher.findAll("ushers");
+
+        // Then
+        assertEquals(3, matches.size());
+        assertEquals("she", matches.get(0).getKeyword());
+        assertEquals(1, matches.get(0).getStart());
+        assertEquals("hers", matches.get(1).getKeyword());
+        assertEquals("he", matches.get(2).getKeyword());
+        assertFalse(matcher.containsAny("abc"));
+    }
+
+    @Test
+    void testExtractMunicipality() {
+        RegionExtractor.Region region = RegionExtractor.extract("上海市南京东路100号");
+        assertEquals("上海市", region.getProvince());
+        assertEquals("上海市", region.getCity());
+    }
+
+    @Test
+    void testExtractProvinceAndCity() {
+        assertEquals(new RegionExtractor.Region("广东省", "深圳市"), RegionExtractor.extract("广东省深圳市南山区科技园"));
+        assertEquals(new RegionExtractor.Region("浙江省", "杭州市"), RegionExtractor.extract("杭州西湖区文三路"));
+    }
+
+    @Test
+    void testCityFromOtherProvinceIsIgnored() {
+        // "南京路"中的"南京"不属于浙江省，不应被识别为城市
+        assertEquals(new RegionExtractor.Region("浙江省", null), RegionExtractor.extract("浙江省南京路12号"));
+    }
+
+    @Test
+    void testUnknownAddress() {
+        RegionExtractor.Region region = RegionExtractor.extract("某某街道1号");
+        assertNull(region.getProvince());
+        assertNull(region.getCity());
+        assertNull(RegionExtractor.extract(null).getCity());
+    }
+}